@@ -0,0 +1,202 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.core.CPABuilder;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.jmh.MicrobenchmarkMain;
+import org.sosy_lab.cpachecker.jmh.StateCounter;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Microbenchmark for the main loop of {@link CPAAlgorithm} (transfer, precision adjustment,
+ * merge, stop, and adding to the reached set).
+ *
+ * <p>One benchmark operation is one complete run of the algorithm from the initial state until
+ * the waitlist is empty. The primary result is the number of complete runs per second. The
+ * auxiliary counters of {@link StateCounter} report the number of reached states per second and
+ * the allocated bytes per second, from which {@link MicrobenchmarkMain} computes the allocated
+ * bytes per reached state, such that results for programs of different size can be compared.
+ *
+ * <p>Programs are either synthetic ("diamonds", "counter") or paths relative to test/programs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CPAAlgorithmBenchmark {
+
+  private static final String PROGRAM_DIR = "test/programs/";
+
+  /** Number of branches in the synthetic program "diamonds". */
+  private static final int DIAMONDS = 10;
+
+  /** Number of loop iterations in the synthetic program "counter". */
+  private static final int COUNTER_BOUND = 500;
+
+  @Param({"diamonds", "counter", "simple/loop1.c", "simple/lock-loop.c"})
+  public String program;
+
+  @Param({"location", "value"})
+  public String analysis;
+
+  @Param({"DFS", "BFS"})
+  public String traversal;
+
+  @Param({"PARTITIONED", "NORMAL"})
+  public String reachedSet;
+
+  private ConfigurableProgramAnalysis cpa;
+  private CPAAlgorithm algorithm;
+  private ReachedSetFactory reachedSetFactory;
+  private FunctionEntryNode mainFunction;
+
+  private ReachedSet reached;
+
+  @Setup(Level.Trial)
+  public void setupAnalysis() throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("log.consoleLevel", "OFF")
+            .setOption("cpa", "cpa.arg.ARGCPA")
+            .setOption("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+            .setOption("CompositeCPA.cpas", getCPAs())
+            .setOption("analysis.traversal.order", traversal)
+            .setOption("analysis.reachedSet", reachedSet)
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    ShutdownNotifier shutdownNotifier = ShutdownNotifier.createDummy();
+
+    CFACreator cfaCreator = new CFACreator(config, logger, shutdownNotifier);
+    CFA cfa;
+    if (program.endsWith(".c") || program.endsWith(".i")) {
+      cfa = cfaCreator.parseFileAndCreateCFA(ImmutableList.of(PROGRAM_DIR + program));
+    } else {
+      cfa = cfaCreator.parseSourceAndCreateCFA(getSyntheticProgram());
+    }
+    mainFunction = cfa.getMainFunction();
+
+    reachedSetFactory = new ReachedSetFactory(config, logger);
+    cpa =
+        new CPABuilder(config, logger, shutdownNotifier, reachedSetFactory)
+            .buildCPAs(cfa, Specification.alwaysSatisfied(), new AggregatedReachedSets());
+    algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+  }
+
+  private String getCPAs() {
+    switch (analysis) {
+      case "location":
+        return "cpa.location.LocationCPA, cpa.callstack.CallstackCPA";
+      case "value":
+        return "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.value.ValueAnalysisCPA";
+      default:
+        throw new AssertionError("Unknown analysis " + analysis);
+    }
+  }
+
+  /**
+   * Generate the source of a synthetic program. "diamonds" is a sequence of branches that each
+   * assign a different variable (exponential number of states for the value analysis), "counter"
+   * is a single loop with a fixed bound (long paths with one state per iteration).
+   */
+  private String getSyntheticProgram() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("extern int __VERIFIER_nondet_int(void);\n");
+    sb.append("int main() {\n");
+    switch (program) {
+      case "diamonds":
+        for (int i = 0; i < DIAMONDS; i++) {
+          sb.append("  int x").append(i).append(" = 0;\n");
+        }
+        for (int i = 0; i < DIAMONDS; i++) {
+          sb.append("  if (__VERIFIER_nondet_int()) {\n");
+          sb.append("    x").append(i).append(" = 1;\n");
+          sb.append("  } else {\n");
+          sb.append("    x").append(i).append(" = 2;\n");
+          sb.append("  }\n");
+        }
+        break;
+      case "counter":
+        sb.append("  int i = 0;\n");
+        sb.append("  int sum = 0;\n");
+        sb.append("  while (i < ").append(COUNTER_BOUND).append(") {\n");
+        sb.append("    if (i % 2 == 0) {\n");
+        sb.append("      sum = sum + i;\n");
+        sb.append("    }\n");
+        sb.append("    i++;\n");
+        sb.append("  }\n");
+        break;
+      default:
+        throw new AssertionError("Unknown synthetic program " + program);
+    }
+    sb.append("  return 0;\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  @Setup(Level.Invocation)
+  public void setupReachedSet() throws InterruptedException {
+    reached = reachedSetFactory.create();
+    StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
+    reached.add(
+        cpa.getInitialState(mainFunction, partition),
+        cpa.getInitialPrecision(mainFunction, partition));
+  }
+
+  @Benchmark
+  public ReachedSet run(StateCounter pCounter) throws Exception {
+    pCounter.startAllocationMeasurement();
+    algorithm.run(reached);
+    pCounter.stopAllocationMeasurement();
+    pCounter.states += reached.size();
+    return reached;
+  }
+}
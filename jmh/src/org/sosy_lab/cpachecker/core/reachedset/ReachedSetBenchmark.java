@@ -0,0 +1,129 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+/**
+ * Microbenchmark for the reached-set and waitlist operations that {@link
+ * org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm} executes for every state: adding a state,
+ * looking up its partition for merge and stop, and popping it from the waitlist. The states are
+ * synthetic and do not carry any information apart from their partition, such that the results
+ * show only the overhead of the data structures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReachedSetBenchmark {
+
+  private static final int STATES = 100_000;
+
+  @Param({"PARTITIONED", "NORMAL"})
+  public String reachedSet;
+
+  @Param({"DFS", "BFS", "RAND"})
+  public TraversalMethod traversal;
+
+  /** Number of distinct partitions (e.g., program locations) among the states. */
+  @Param({"1", "100", "10000"})
+  public int partitions;
+
+  private final Precision precision = SingletonPrecision.getInstance();
+  private DummyState[] states;
+  private ReachedSet reached;
+
+  private static final class DummyState implements AbstractState, Partitionable {
+
+    private final Integer partition;
+
+    private DummyState(int pPartition) {
+      partition = pPartition;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partition;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createStates() {
+    states = new DummyState[STATES];
+    for (int i = 0; i < STATES; i++) {
+      states[i] = new DummyState(i % partitions);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void createReachedSet() {
+    switch (reachedSet) {
+      case "PARTITIONED":
+        reached = new PartitionedReachedSet(traversal);
+        break;
+      case "NORMAL":
+        reached = new DefaultReachedSet(traversal);
+        break;
+      default:
+        throw new AssertionError("Unknown reached set " + reachedSet);
+    }
+  }
+
+  /** Add all states and pop them again, interleaved as in the CPA algorithm. */
+  @Benchmark
+  @OperationsPerInvocation(STATES)
+  public void addAndPop(Blackhole pBlackhole) {
+    for (DummyState state : states) {
+      pBlackhole.consume(reached.getReached(state).size());
+      reached.add(state, precision);
+      if (reached.size() % 2 == 0) {
+        pBlackhole.consume(reached.popFromWaitlist());
+      }
+    }
+    while (reached.hasWaitingState()) {
+      pBlackhole.consume(reached.popFromWaitlist());
+    }
+  }
+}
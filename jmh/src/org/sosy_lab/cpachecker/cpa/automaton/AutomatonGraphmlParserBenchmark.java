@@ -0,0 +1,226 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.jmh.PeakHeapCounter;
+import org.sosy_lab.cpachecker.jmh.StateCounter;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Microbenchmark for reading GraphML witnesses with {@link AutomatonGraphmlParser}.
+ *
+ * <p>The witness is a synthetic violation witness that consists of a single path with the given
+ * number of nodes, and it is written to a temporary file once per trial. One benchmark operation
+ * is one complete read of this file, either building the witness automaton or only determining
+ * the witness type. The auxiliary counters of {@link StateCounter} report the number of automaton
+ * states per second and the allocated bytes per second.
+ *
+ * <p>As baseline, the benchmarks "parseDocument" only read the witness into a DOM tree, which the
+ * previous DOM-based parser did before building the automaton or determining the witness type.
+ * The benchmarks ending with "PeakHeap" run single operations in a JVM with a small young
+ * generation and report the peak heap usage of one operation with {@link PeakHeapCounter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AutomatonGraphmlParserBenchmark {
+
+  private static final String PROGRAM =
+      "int main() { int x = 0; if (x == 0) { ERROR: return 1; } return 0; }";
+
+  /** Number of nodes in the witness, the number of edges is one less. */
+  @Param({"1000", "100000"})
+  public int nodes;
+
+  @Param({"false", "true"})
+  public boolean compressed;
+
+  private AutomatonGraphmlParser parser;
+  private Path witness;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("log.consoleLevel", "OFF")
+            .setOption("witness.checkProgramHash", "false")
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    CFA cfa = TestDataTools.makeCFA(PROGRAM);
+    parser = new AutomatonGraphmlParser(config, logger, cfa, CProgramScope.empty());
+
+    witness = Files.createTempFile("witness", compressed ? ".graphml.gz" : ".graphml");
+    try (Writer out =
+        compressed
+            ? new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(witness)), UTF_8)
+            : Files.newBufferedWriter(witness, UTF_8)) {
+      writeWitness(out);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteWitness() throws IOException {
+    Files.deleteIfExists(witness);
+  }
+
+  /**
+   * Write a violation witness with a single path from the entry node to the violation node. The
+   * edges carry the data that real witnesses typically have (line numbers, source code, and
+   * branching information) and alternate between the branches of the program's condition.
+   */
+  private void writeWitness(Writer pOut) throws IOException {
+    pOut.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+    pOut.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+    pOut.write(
+        " <key attr.name=\"isEntryNode\" attr.type=\"boolean\" for=\"node\" id=\"entry\">\n");
+    pOut.write("  <default>false</default>\n");
+    pOut.write(" </key>\n");
+    pOut.write(" <graph edgedefault=\"directed\">\n");
+    pOut.write("  <data key=\"witness-type\">violation_witness</data>\n");
+    pOut.write("  <data key=\"sourcecodelang\">C</data>\n");
+    pOut.write("  <data key=\"producer\">AutomatonGraphmlParserBenchmark</data>\n");
+    pOut.write(
+        "  <data key=\"specification\">CHECK( init(main()), LTL(G ! label(ERROR)) )</data>\n");
+    pOut.write("  <data key=\"programfile\">benchmark.c</data>\n");
+    pOut.write(
+        "  <data key=\"programhash\">0000000000000000000000000000000000000000</data>\n");
+    pOut.write("  <data key=\"architecture\">32bit</data>\n");
+
+    pOut.write("  <node id=\"N0\">\n");
+    pOut.write("   <data key=\"entry\">true</data>\n");
+    pOut.write("  </node>\n");
+    for (int i = 1; i < nodes - 1; i++) {
+      pOut.write("  <node id=\"N" + i + "\"/>\n");
+    }
+    pOut.write("  <node id=\"N" + (nodes - 1) + "\">\n");
+    pOut.write("   <data key=\"violation\">true</data>\n");
+    pOut.write("  </node>\n");
+
+    for (int i = 0; i < nodes - 1; i++) {
+      pOut.write("  <edge source=\"N" + i + "\" target=\"N" + (i + 1) + "\">\n");
+      pOut.write("   <data key=\"startline\">1</data>\n");
+      pOut.write("   <data key=\"sourcecode\">[x == 0]</data>\n");
+      pOut.write(
+          "   <data key=\"control\">condition-" + (i % 2 == 0 ? "true" : "false") + "</data>\n");
+      pOut.write("  </edge>\n");
+    }
+    pOut.write(" </graph>\n");
+    pOut.write("</graphml>\n");
+  }
+
+  @Benchmark
+  public List<Automaton> parseAutomaton(StateCounter pCounter) throws Exception {
+    pCounter.startAllocationMeasurement();
+    List<Automaton> automata = parser.parseAutomatonFile(witness, ImmutableSet.of());
+    pCounter.stopAllocationMeasurement();
+    for (Automaton automaton : automata) {
+      pCounter.states += automaton.getNumberOfStates();
+    }
+    return automata;
+  }
+
+  @Benchmark
+  public Document parseDocument(StateCounter pCounter) throws Exception {
+    pCounter.startAllocationMeasurement();
+    Document document = readDocument();
+    pCounter.stopAllocationMeasurement();
+    return document;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Fork(value = 1, jvmArgsAppend = "-Xmn8m")
+  public List<Automaton> parseAutomatonPeakHeap(PeakHeapCounter pCounter) throws Exception {
+    List<Automaton> automata = parser.parseAutomatonFile(witness, ImmutableSet.of());
+    pCounter.stopMeasurement();
+    return automata;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Fork(value = 1, jvmArgsAppend = "-Xmn8m")
+  public Document parseDocumentPeakHeap(PeakHeapCounter pCounter) throws Exception {
+    Document document = readDocument();
+    pCounter.stopMeasurement();
+    return document;
+  }
+
+  /** Read the witness into a DOM tree like the previous DOM-based parser. */
+  private Document readDocument()
+      throws IOException, ParserConfigurationException, SAXException {
+    try (InputStream file = new BufferedInputStream(Files.newInputStream(witness));
+        InputStream input = compressed ? new GZIPInputStream(file) : file) {
+      return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(input);
+    }
+  }
+
+  @Benchmark
+  public WitnessType getWitnessType(StateCounter pCounter) throws Exception {
+    pCounter.startAllocationMeasurement();
+    WitnessType witnessType = AutomatonGraphmlParser.getWitnessType(witness);
+    pCounter.stopAllocationMeasurement();
+    return witnessType;
+  }
+}
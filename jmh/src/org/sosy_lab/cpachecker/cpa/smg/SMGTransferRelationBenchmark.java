@@ -0,0 +1,185 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.core.CPABuilder;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.jmh.StateCounter;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Microbenchmark for the transfer relation of {@link SMGCPA} on states with large heaps.
+ *
+ * <p>In the setup, the SMG analysis explores a synthetic program that builds and traverses a
+ * linked list. One benchmark operation computes the successors of all reached SMG states for all
+ * their outgoing CFA edges. The auxiliary counters of {@link StateCounter} report the number of
+ * computed successors per second and the allocated bytes per second, from which {@link
+ * org.sosy_lab.cpachecker.jmh.MicrobenchmarkMain} computes the allocated bytes per successor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SMGTransferRelationBenchmark {
+
+  /** Number of list nodes that the synthetic program allocates. */
+  @Param({"10", "100", "500"})
+  public int nodes;
+
+  private TransferRelation transferRelation;
+  private Precision precision;
+  private final List<SMGState> states = new ArrayList<>();
+  private final List<CFAEdge> edges = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setupStates() throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("log.consoleLevel", "OFF")
+            .setOption("cpa", "cpa.arg.ARGCPA")
+            .setOption("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+            .setOption(
+                "CompositeCPA.cpas",
+                "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.smg.SMGCPA")
+            .setOption("cpa.smg.enableMallocFail", "false")
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    ShutdownNotifier shutdownNotifier = ShutdownNotifier.createDummy();
+
+    CFA cfa =
+        new CFACreator(config, logger, shutdownNotifier)
+            .parseSourceAndCreateCFA(getSyntheticProgram());
+    FunctionEntryNode mainFunction = cfa.getMainFunction();
+
+    ReachedSetFactory reachedSetFactory = new ReachedSetFactory(config, logger);
+    ConfigurableProgramAnalysis cpa =
+        new CPABuilder(config, logger, shutdownNotifier, reachedSetFactory)
+            .buildCPAs(cfa, Specification.alwaysSatisfied(), new AggregatedReachedSets());
+    ReachedSet reached = reachedSetFactory.create();
+    StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
+    reached.add(
+        cpa.getInitialState(mainFunction, partition),
+        cpa.getInitialPrecision(mainFunction, partition));
+    CPAAlgorithm.create(cpa, logger, config, shutdownNotifier).run(reached);
+
+    SMGCPA smgCpa = CPAs.retrieveCPA(cpa, SMGCPA.class);
+    transferRelation = smgCpa.getTransferRelation();
+    precision = smgCpa.getInitialPrecision(mainFunction, partition);
+    for (AbstractState state : reached) {
+      CFANode location = AbstractStates.extractLocation(state);
+      SMGState smgState = AbstractStates.extractStateByType(state, SMGState.class);
+      for (CFAEdge edge : CFAUtils.leavingEdges(location)) {
+        states.add(smgState);
+        edges.add(edge);
+      }
+    }
+  }
+
+  /**
+   * Generate a program that prepends the given number of nodes to a doubly-linked list, writes a
+   * value into each of them while traversing the list, and frees the list again.
+   */
+  private String getSyntheticProgram() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("extern void *malloc(unsigned int size);\n");
+    sb.append("extern void free(void *ptr);\n");
+    sb.append("struct node { struct node *next; struct node *prev; int data; };\n");
+    sb.append("int main() {\n");
+    sb.append("  struct node *head = 0;\n");
+    sb.append("  struct node *p;\n");
+    sb.append("  int i;\n");
+    sb.append("  for (i = 0; i < ").append(nodes).append("; i++) {\n");
+    sb.append("    p = malloc(sizeof(struct node));\n");
+    sb.append("    p->next = head;\n");
+    sb.append("    p->prev = 0;\n");
+    sb.append("    p->data = 0;\n");
+    sb.append("    if (head) {\n");
+    sb.append("      head->prev = p;\n");
+    sb.append("    }\n");
+    sb.append("    head = p;\n");
+    sb.append("  }\n");
+    sb.append("  for (p = head; p; p = p->next) {\n");
+    sb.append("    p->data = 1;\n");
+    sb.append("  }\n");
+    sb.append("  while (head) {\n");
+    sb.append("    p = head->next;\n");
+    sb.append("    free(head);\n");
+    sb.append("    head = p;\n");
+    sb.append("  }\n");
+    sb.append("  return 0;\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  @Benchmark
+  public void computeSuccessors(StateCounter pCounter, Blackhole pBlackhole) throws Exception {
+    pCounter.startAllocationMeasurement();
+    for (int i = 0; i < states.size(); i++) {
+      Collection<? extends AbstractState> successors =
+          transferRelation.getAbstractSuccessorsForEdge(states.get(i), precision, edges.get(i));
+      pCounter.states += successors.size();
+      pBlackhole.consume(successors);
+    }
+    pCounter.stopAllocationMeasurement();
+  }
+}
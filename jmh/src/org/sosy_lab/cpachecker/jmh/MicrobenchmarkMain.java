@@ -0,0 +1,92 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Entry point for running the microbenchmarks. Accepts the same arguments as the standard JMH
+ * runner, and additionally prints a summary of the number of states per second and the bytes
+ * allocated per state for all benchmarks that report the auxiliary counters "states" and
+ * "allocatedBytes" of {@link StateCounter} (these benchmarks need to run in throughput mode with
+ * seconds as output time unit, such that the counters are reported per second).
+ */
+public final class MicrobenchmarkMain {
+
+  private static final String STATES_COUNTER = "states";
+  private static final String ALLOCATED_BYTES_COUNTER = "allocatedBytes";
+
+  private MicrobenchmarkMain() {}
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions options = new CommandLineOptions(args);
+    Collection<RunResult> results = new Runner(options).run();
+
+    List<String> summary = new ArrayList<>();
+    for (RunResult result : results) {
+      if (result.getParams().getMode() != Mode.Throughput) {
+        // in other modes the counters are reported as time per count
+        continue;
+      }
+      Map<String, ? extends Result<?>> counters =
+          result.getAggregatedResult().getSecondaryResults();
+      Result<?> states = counters.get(STATES_COUNTER);
+      Result<?> allocatedBytes = counters.get(ALLOCATED_BYTES_COUNTER);
+      if (states == null || allocatedBytes == null || states.getScore() == 0) {
+        continue;
+      }
+      // both counters are per second, so their ratio is the number of bytes per state
+      summary.add(
+          String.format(
+              "%-80s %15.1f %15.1f",
+              getName(result),
+              states.getScore(),
+              allocatedBytes.getScore() / states.getScore()));
+    }
+
+    if (!summary.isEmpty()) {
+      System.out.println();
+      System.out.println(String.format("%-80s %15s %15s", "Benchmark", "states/s", "bytes/state"));
+      summary.forEach(System.out::println);
+    }
+  }
+
+  private static String getName(RunResult pResult) {
+    StringBuilder name = new StringBuilder(pResult.getParams().getBenchmark());
+    for (String param : pResult.getParams().getParamsKeys()) {
+      name.append(' ').append(param).append('=').append(pResult.getParams().getParam(param));
+    }
+    return name.toString();
+  }
+}
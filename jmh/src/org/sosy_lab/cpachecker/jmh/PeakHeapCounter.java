@@ -0,0 +1,85 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Auxiliary counter for the peak heap usage of a benchmark operation ("peakHeapBytes"), i.e., the
+ * maximal heap memory used during the operation in addition to the heap that was in use before.
+ *
+ * <p>The counter is based on the peak usage of the heap memory pools, which includes garbage that
+ * was not collected yet, and the peaks of the pools are summed up even if they occurred at
+ * different times. Benchmarks that use this class should thus run in {@link
+ * org.openjdk.jmh.annotations.Mode#SingleShotTime} mode (the heap is collected before each
+ * operation) and with a small young generation (e.g., <code>-Xmn8m</code>), such that garbage is
+ * collected frequently during the operation. The benchmark needs to call {@link
+ * #stopMeasurement()} at the end of each operation while its result is still reachable.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class PeakHeapCounter {
+
+  private final ImmutableList<MemoryPoolMXBean> heapPools =
+      ManagementFactory.getMemoryPoolMXBeans()
+          .stream()
+          .filter(pool -> pool.getType() == MemoryType.HEAP)
+          .collect(ImmutableList.toImmutableList());
+
+  public long peakHeapBytes;
+
+  private long usedBytesAtStart;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    peakHeapBytes = 0;
+  }
+
+  @Setup(Level.Invocation)
+  public void startMeasurement() {
+    System.gc();
+    usedBytesAtStart = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      usedBytesAtStart += pool.getUsage().getUsed();
+      pool.resetPeakUsage();
+    }
+  }
+
+  /** Record the peak heap usage since the start of the current operation. */
+  public void stopMeasurement() {
+    long peakBytes = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peakBytes += pool.getPeakUsage().getUsed();
+    }
+    peakHeapBytes = Math.max(peakHeapBytes, peakBytes - usedBytesAtStart);
+  }
+}
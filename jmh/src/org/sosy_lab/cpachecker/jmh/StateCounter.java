@@ -0,0 +1,86 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Auxiliary counters for benchmarks that produce abstract states: the number of produced states
+ * ("states") and the memory allocated by the benchmark thread ("allocatedBytes").
+ *
+ * <p>Counters of type {@link AuxCounters.Type#OPERATIONS} are reported like the primary result,
+ * so benchmarks that use this class need to run in {@link
+ * org.openjdk.jmh.annotations.Mode#Throughput} mode with seconds as output time unit. Then JMH
+ * reports states per second and allocated bytes per second, and {@link MicrobenchmarkMain}
+ * additionally prints their ratio.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class StateCounter {
+
+  private final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+  public long states;
+  public long allocatedBytes;
+
+  private long allocatedBytesAtStart;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    states = 0;
+    allocatedBytes = 0;
+  }
+
+  /** Start measuring the allocated memory for one benchmark operation. */
+  public void startAllocationMeasurement() {
+    allocatedBytesAtStart = currentlyAllocatedBytes();
+  }
+
+  /** Add the memory allocated since the last call to {@link #startAllocationMeasurement()}. */
+  public void stopAllocationMeasurement() {
+    allocatedBytes += currentlyAllocatedBytes() - allocatedBytesAtStart;
+  }
+
+  private long currentlyAllocatedBytes() {
+    return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    checkState(
+        bean instanceof com.sun.management.ThreadMXBean,
+        "JVM does not support measuring allocated memory per thread");
+    com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+    result.setThreadAllocatedMemoryEnabled(true);
+    return result;
+  }
+}
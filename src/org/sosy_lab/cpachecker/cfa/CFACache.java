@@ -0,0 +1,327 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.exceptions.CParserException;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Cache for CFAs that allows to skip parsing and post-processing if the same program is analyzed
+ * again with a CFA-compatible configuration.
+ *
+ * <p>A CFA is stored in a file in the cache directory whose name is a hash of the CPAchecker
+ * version, of the names and contents of the program, and of all configuration options that
+ * influence the CFA creation (parser options, all options starting with "cfa.", and the options
+ * starting with "analysis." that are read during CFA creation). Options of the analysis itself do
+ * not influence the hash, so different analyses of the same program share the cached CFA.
+ *
+ * <p>Only the structure of the CFA and the global declarations are stored. The information about
+ * the CFA (variable classification, live variables, dependence graph) refers to the logger and
+ * the shutdown notifier of the run that created it, thus it is computed again after loading.
+ *
+ * <p>If the preprocessor is used, the program is the preprocessed source, so all included files
+ * are part of the hash. The preprocessor thus runs also if the CFA is loaded from the cache.
+ * Otherwise, the program consists of the source files and the files they include with
+ * <code>#include "..."</code>, resolved relative to the including file like the parser does.
+ */
+@Options(prefix = "cfa.cache")
+class CFACache {
+
+  @Option(
+    name = "directory",
+    description =
+        "Directory for caching created CFAs across runs. If the same program is analyzed again "
+            + "with the same CFA-related options, the CFA is loaded from this directory "
+            + "instead of parsing the program. Disabled if not set."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path cacheDirectory = null;
+
+  private static final String FILE_SUFFIX = ".cfa.ser.gz";
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+
+  private static final Pattern INCLUDE_PATTERN =
+      Pattern.compile("^\\s*#\\s*include\\s*\"([^\"]+)\"", Pattern.MULTILINE);
+
+  /** Prefixes of options that influence the created CFA. */
+  private static final ImmutableList<String> RELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "language",
+          "parser.",
+          "cfa.",
+          "analysis.entryFunction",
+          "analysis.machineModel",
+          "analysis.interprocedural",
+          "analysis.functionPointer",
+          "analysis.threadOperationsTransform",
+          "analysis.useGlobalVars",
+          "analysis.useLoopStructure",
+          "analysis.summaryEdges",
+          "analysis.matchAssignedFunctionPointers",
+          "analysis.replaceFunctionWithParameterPointer",
+          "analysis.replacedFunctionsWithParameters");
+
+  /** Options that match {@link #RELEVANT_OPTION_PREFIXES} but do not influence the created CFA. */
+  private static final ImmutableList<String> IRRELEVANT_OPTION_PREFIXES =
+      ImmutableList.of("cfa.cache.");
+
+  private final LogManager logger;
+  private final @Nullable CPreprocessor preprocessor;
+  private final String relevantOptions;
+
+  final Timer loadTime = new Timer();
+  final Timer storeTime = new Timer();
+  private int hits = 0;
+  private int misses = 0;
+
+  /**
+   * Create a cache for CFAs.
+   *
+   * @param pPreprocessor the preprocessor that is applied to the source files before parsing, or
+   *     null if they are parsed directly
+   */
+  CFACache(Configuration pConfig, LogManager pLogger, @Nullable CPreprocessor pPreprocessor)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    preprocessor = pPreprocessor;
+
+    StringBuilder options = new StringBuilder();
+    for (String line : LINE_SPLITTER.split(pConfig.asPropertiesString())) {
+      if (isRelevantOption(line)) {
+        options.append(line).append('\n');
+      }
+    }
+    relevantOptions = options.toString();
+  }
+
+  private static boolean isRelevantOption(String pLine) {
+    for (String prefix : IRRELEVANT_OPTION_PREFIXES) {
+      if (pLine.startsWith(prefix)) {
+        return false;
+      }
+    }
+    for (String prefix : RELEVANT_OPTION_PREFIXES) {
+      if (pLine.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  boolean isEnabled() {
+    return cacheDirectory != null;
+  }
+
+  /**
+   * Compute the key under which the CFA for the given source files is cached.
+   *
+   * @return the key, or an empty optional if the CFA for these files cannot be cached
+   */
+  Optional<HashCode> computeKey(List<String> pSourceFiles)
+      throws IOException, InterruptedException {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(CPAchecker.getCPAcheckerVersion(), UTF_8);
+    hasher.putString(relevantOptions, UTF_8);
+    for (String sourceFile : pSourceFiles) {
+      Path path = Paths.get(sourceFile);
+      if (!Files.isRegularFile(path)) {
+        // e.g., class path of a Java program
+        return Optional.empty();
+      }
+      hasher.putString(sourceFile, UTF_8);
+      if (preprocessor != null) {
+        try {
+          hasher.putString(preprocessor.preprocess(sourceFile), UTF_8);
+        } catch (CParserException e) {
+          // the parser will run the preprocessor again and report the error
+          logger.logDebugException(e, "Could not preprocess program for the CFA cache");
+          return Optional.empty();
+        }
+      } else {
+        putFileWithIncludes(hasher, path);
+      }
+    }
+    return Optional.of(hasher.hash());
+  }
+
+  /**
+   * Add the contents of a file and of all files that it includes (transitively) with quoted
+   * include directives to the hash. Missing files are skipped, the parser reports them.
+   */
+  private static void putFileWithIncludes(Hasher pHasher, Path pFile) throws IOException {
+    Set<Path> visited = new HashSet<>();
+    Deque<Path> waitlist = new ArrayDeque<>();
+    waitlist.add(pFile);
+    visited.add(pFile.toAbsolutePath().normalize());
+    while (!waitlist.isEmpty()) {
+      Path file = waitlist.poll();
+      byte[] content = Files.readAllBytes(file);
+      pHasher.putString(file.toString(), UTF_8);
+      pHasher.putBytes(Hashing.sha256().hashBytes(content).asBytes());
+
+      // ISO_8859_1 decodes every byte, the names of the included files are ASCII in practice
+      Matcher includes = INCLUDE_PATTERN.matcher(new String(content, ISO_8859_1));
+      while (includes.find()) {
+        Path includedFile = file.resolveSibling(includes.group(1));
+        if (Files.isRegularFile(includedFile)
+            && visited.add(includedFile.toAbsolutePath().normalize())) {
+          waitlist.add(includedFile);
+        }
+      }
+    }
+  }
+
+  private Path getCacheFile(HashCode pKey) {
+    return cacheDirectory.resolve(pKey + FILE_SUFFIX);
+  }
+
+  /**
+   * Load the CFA and the global declarations that were stored for the given key.
+   *
+   * @return the CFA without information about it (like variable classification) and the global
+   *     declarations, or null if no CFA is stored for this key or it could not be read
+   */
+  @Nullable Pair<CFA, List<Pair<ADeclaration, String>>> load(HashCode pKey) {
+    Path file = getCacheFile(pKey);
+    if (!Files.isReadable(file)) {
+      misses++;
+      return null;
+    }
+
+    loadTime.start();
+    try (InputStream inputStream = Files.newInputStream(file);
+        InputStream gzipInputStream = new GZIPInputStream(inputStream, BUFFER_SIZE);
+        ObjectInputStream ois =
+            new ObjectInputStream(new BufferedInputStream(gzipInputStream, BUFFER_SIZE))) {
+      CFA cfa = (CFA) ois.readObject();
+      @SuppressWarnings("unchecked")
+      List<Pair<ADeclaration, String>> globalDeclarations =
+          (List<Pair<ADeclaration, String>>) ois.readObject();
+
+      // nodes that are created from now on need to have higher numbers than the loaded ones
+      if (!cfa.getAllNodes().isEmpty()) {
+        CFANode.reserveNodeNumbersUpTo(
+            cfa.getAllNodes().stream().mapToInt(CFANode::getNodeNumber).max().getAsInt());
+      }
+      hits++;
+      return Pair.of(cfa, globalDeclarations);
+
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not load CFA from cache file " + file + ", ignoring it");
+      misses++;
+      return null;
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /**
+   * Store a CFA (without information about it) and the global declarations of the program for
+   * the given key. The file is written to a temporary file first and then moved, such that
+   * concurrent runs never see partially written files.
+   */
+  void store(HashCode pKey, CFA pCfa, List<Pair<ADeclaration, String>> pGlobalDeclarations) {
+    Path file = getCacheFile(pKey);
+    storeTime.start();
+    try {
+      MoreFiles.createParentDirectories(file);
+      Path tmpFile = Files.createTempFile(cacheDirectory, pKey.toString(), ".tmp");
+      try {
+        try (OutputStream outputStream = Files.newOutputStream(tmpFile);
+            OutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            ObjectOutputStream oos =
+                new ObjectOutputStream(new BufferedOutputStream(gzipOutputStream, BUFFER_SIZE))) {
+          oos.writeObject(pCfa);
+          oos.writeObject(new ArrayList<>(pGlobalDeclarations));
+        }
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not store CFA in cache");
+    } finally {
+      storeTime.stop();
+    }
+  }
+
+  int getHits() {
+    return hits;
+  }
+
+  int getMisses() {
+    return misses;
+  }
+}
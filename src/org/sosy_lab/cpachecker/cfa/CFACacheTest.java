@@ -0,0 +1,152 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.ADeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.exceptions.ParserException;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class CFACacheTest {
+
+  private static final String PROGRAM = "int main() { int x = 0; while (x < 10) { x++; } }";
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private CFACache createCache(String... pOptions) throws InvalidConfigurationException {
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(Configuration.builder().build());
+    ConfigurationBuilder builder =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .setOption("cfa.cache.directory", tmp.getRoot().toPath().resolve("cache").toString());
+    for (int i = 0; i < pOptions.length; i += 2) {
+      builder.setOption(pOptions[i], pOptions[i + 1]);
+    }
+    return new CFACache(builder.build(), LogManager.createTestLogManager(), null);
+  }
+
+  private List<String> writeProgram(String pContent) throws IOException {
+    Path file = tmp.newFile("program.c").toPath();
+    Files.write(file, pContent.getBytes(UTF_8));
+    return ImmutableList.of(file.toString());
+  }
+
+  @Test
+  public void storedCfaIsLoaded()
+      throws IOException, InvalidConfigurationException, ParserException, InterruptedException {
+    CFACache cache = createCache();
+    HashCode key = cache.computeKey(writeProgram(PROGRAM)).get();
+    assertThat(cache.load(key)).isNull();
+
+    CFA cfa = TestDataTools.makeCFA(PROGRAM);
+    cache.store(key, cfa, ImmutableList.of());
+
+    Pair<CFA, List<Pair<ADeclaration, String>>> cached = createCache().load(key);
+    assertThat(cached).isNotNull();
+    CFA loaded = cached.getFirst();
+    assertThat(loaded.getAllFunctionNames()).isEqualTo(cfa.getAllFunctionNames());
+    assertThat(loaded.getAllNodes()).hasSize(cfa.getAllNodes().size());
+    assertThat(loaded.getMainFunction().getFunctionName()).isEqualTo("main");
+  }
+
+  @Test
+  public void nodesCreatedAfterLoadingHaveFreshNumbers()
+      throws IOException, InvalidConfigurationException, ParserException, InterruptedException {
+    CFACache cache = createCache();
+    HashCode key = cache.computeKey(writeProgram(PROGRAM)).get();
+    cache.store(key, TestDataTools.makeCFA(PROGRAM), ImmutableList.of());
+
+    CFA loaded = cache.load(key).getFirst();
+    CFANode newNode = new CFANode("main");
+    for (CFANode node : loaded.getAllNodes()) {
+      assertThat(newNode.getNodeNumber()).isGreaterThan(node.getNodeNumber());
+    }
+  }
+
+  @Test
+  public void keyDependsOnProgramAndCfaOptions()
+      throws IOException, InvalidConfigurationException, InterruptedException {
+    List<String> program = writeProgram(PROGRAM);
+    HashCode key = createCache().computeKey(program).get();
+
+    // options of the analysis do not matter
+    assertThat(createCache("analysis.checkCounterexamples", "true").computeKey(program).get())
+        .isEqualTo(key);
+    assertThat(createCache("cpa.predicate.blk.alwaysAtLoops", "false").computeKey(program).get())
+        .isEqualTo(key);
+
+    // options of the CFA creation do
+    assertThat(createCache("analysis.machineModel", "LINUX64").computeKey(program).get())
+        .isNotEqualTo(key);
+    assertThat(createCache("cfa.simplifyCfa", "false").computeKey(program).get())
+        .isNotEqualTo(key);
+
+    // and so does the program
+    Files.write(Paths.get(program.get(0)), "int main() { return 0; }".getBytes(UTF_8));
+    assertThat(createCache().computeKey(program).get()).isNotEqualTo(key);
+  }
+
+  @Test
+  public void keyDependsOnIncludedFiles()
+      throws IOException, InvalidConfigurationException, InterruptedException {
+    Path header = tmp.newFolder("include").toPath().resolve("header.h");
+    Files.write(header, "int f() { return 0; }".getBytes(UTF_8));
+    List<String> program = writeProgram("#include \"include/header.h\"\n" + PROGRAM);
+    HashCode key = createCache().computeKey(program).get();
+
+    Files.write(header, "int f() { return 1; }".getBytes(UTF_8));
+    assertThat(createCache().computeKey(program).get()).isNotEqualTo(key);
+  }
+
+  @Test
+  public void disabledWithoutDirectory()
+      throws IOException, InvalidConfigurationException, InterruptedException {
+    CFACache cache =
+        new CFACache(
+            Configuration.defaultConfiguration(), LogManager.createTestLogManager(), null);
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.computeKey(writeProgram(PROGRAM)).isPresent()).isFalse();
+  }
+}
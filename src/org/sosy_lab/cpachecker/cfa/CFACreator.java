@@ -24,8 +24,13 @@
 package org.sosy_lab.cpachecker.cfa;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import com.google.common.hash.HashCode;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -43,12 +48,19 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.GZIPOutputStream;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.Concurrency;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -266,6 +278,18 @@ public class CFACreator {
       description="This option enables the computation of a classification of CFA nodes.")
 private boolean classifyNodes = false;
 
+  @Option(
+    secure = true,
+    name = "cfa.numberOfThreads",
+    description =
+        "Number of threads for the steps of the CFA creation that handle each function "
+            + "separately (construction of function bodies in the C frontend, reverse "
+            + "post-order sorting and loop detection). The created CFA does not depend on "
+            + "this option, except for the names of anonymous types declared in function bodies."
+  )
+  @IntegerOption(min = 1)
+  private int threads = 1;
+
   @Option(secure=true, description="C, Java, or LLVM IR?")
   private Language language = Language.C;
 
@@ -284,9 +308,11 @@ private boolean classifyNodes = false;
     private final Timer exportTime = new Timer();
     private final List<Statistics> statisticsCollection;
     private final LogManager logger;
+    private final CFACache cfaCache;
 
-    private CFACreatorStatistics(LogManager pLogger) {
+    private CFACreatorStatistics(LogManager pLogger, CFACache pCfaCache) {
       logger = pLogger;
+      cfaCache = pCfaCache;
       statisticsCollection = new ArrayList<>();
     }
 
@@ -307,6 +333,11 @@ private boolean classifyNodes = false;
       if (exportTime.getNumberOfIntervals() > 0) {
         out.println("    Time for CFA export:      " + exportTime);
       }
+      if (cfaCache.isEnabled()) {
+        out.println("    Time for CFA cache load:  " + cfaCache.loadTime);
+        out.println("    Time for CFA cache store: " + cfaCache.storeTime);
+        out.println("    CFA cache hits/misses:    " + cfaCache.getHits() + "/" + cfaCache.getMisses());
+      }
 
       for (Statistics st : statisticsCollection) {
         StatisticsUtils.printStatistics(st, out, logger, pResult, pReached);
@@ -323,6 +354,7 @@ private boolean classifyNodes = false;
 
   private final CFACreatorStatistics stats;
   private final Configuration config;
+  private final CFACache cfaCache;
 
   public CFACreator(Configuration config, LogManager logger, ShutdownNotifier pShutdownNotifier)
       throws InvalidConfigurationException {
@@ -332,7 +364,11 @@ private boolean classifyNodes = false;
     this.config = config;
     this.logger = logger;
     this.shutdownNotifier = pShutdownNotifier;
-    this.stats = new CFACreatorStatistics(logger);
+    // the cache key of a preprocessed program depends on the result of the preprocessor
+    CPreprocessor preprocessor =
+        language == Language.C && usePreprocessor ? new CPreprocessor(config, logger) : null;
+    this.cfaCache = new CFACache(config, logger, preprocessor);
+    this.stats = new CFACreatorStatistics(logger, cfaCache);
 
     stats.parserInstantiationTime.start();
 
@@ -348,8 +384,7 @@ private boolean classifyNodes = false;
           new CParserWithLocationMapper(
               config, logger, outerParser, readLineDirectives || usePreprocessor);
 
-      if (usePreprocessor) {
-        CPreprocessor preprocessor = new CPreprocessor(config, logger);
+      if (preprocessor != null) {
         outerParser = new CParserWithPreprocessor(outerParser, preprocessor);
       }
 
@@ -412,6 +447,16 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      final Optional<HashCode> cacheKey = cfaCache.computeKey(sourceFiles);
+      if (cacheKey.isPresent()) {
+        Pair<CFA, List<Pair<ADeclaration, String>>> cached = cfaCache.load(cacheKey.get());
+        if (cached != null) {
+          logger.log(Level.INFO, "Using CFA from cache, skipping parsing.");
+          // the information about the CFA refers to the logger and shutdown notifier of this run
+          return createCFAInformation(toMutableCFA(cached.getFirst()), cached.getSecond());
+        }
+      }
+
       // FIRST, parse file(s) and create CFAs for each function
       logger.log(Level.FINE, "Starting parsing of file(s)");
 
@@ -432,7 +477,19 @@ private boolean classifyNodes = false;
         throw new AssertionError();
       }
 
-      return createCFA(c, mainFunction);
+      final MutableCFA cfa = createMutableCFA(c, mainFunction);
+
+      if (cacheKey.isPresent()) {
+        // Only the structure of the CFA is stored, the information about it is computed again.
+        // This is safe because we don't modify the structure of the CFA from this point on.
+        final CFA structure = cfa.makeImmutableCFA(Optional.empty(), Optional.empty());
+        final List<Pair<ADeclaration, String>> globalDeclarations = c.getGlobalDeclarations();
+        Concurrency.newThread(
+                "CFA cache thread",
+                () -> cfaCache.store(cacheKey.get(), structure, globalDeclarations))
+            .start();
+      }
+      return createCFAInformation(cfa, c.getGlobalDeclarations());
 
     } finally {
       stats.totalTime.stop();
@@ -440,6 +497,36 @@ private boolean classifyNodes = false;
   }
 
   private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
+    MutableCFA cfa = createMutableCFA(pParseResult, pMainFunction);
+    return createCFAInformation(cfa, pParseResult.getGlobalDeclarations());
+  }
+
+  /** Create a mutable copy of a CFA without information about it (e.g., a CFA from the cache). */
+  private MutableCFA toMutableCFA(CFA pCfa) {
+    SortedSetMultimap<String, CFANode> nodes = TreeMultimap.create();
+    for (CFANode node : pCfa.getAllNodes()) {
+      nodes.put(node.getFunctionName(), node);
+    }
+    MutableCFA cfa =
+        new MutableCFA(
+            pCfa.getMachineModel(),
+            new TreeMap<>(pCfa.getAllFunctions()),
+            nodes,
+            pCfa.getMainFunction(),
+            pCfa.getFileNames(),
+            pCfa.getLanguage());
+    if (pCfa.getLoopStructure().isPresent()) {
+      cfa.setLoopStructure(pCfa.getLoopStructure().get());
+    }
+    return cfa;
+  }
+
+  /**
+   * Create the CFA from the parsed functions, without the information about it that is computed
+   * by {@link #createCFAInformation(MutableCFA, List)}.
+   */
+  private MutableCFA createMutableCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
 
     FunctionEntryNode mainFunction = pMainFunction;
 
@@ -475,17 +562,33 @@ private boolean classifyNodes = false;
     stats.checkTime.stop();
 
     // THIRD, do read-only post-processings on each single function CFA
+    // These only touch the nodes of their function, so functions can be handled in parallel.
+    ExecutorService executor =
+        threads > 1
+            ? Executors.newFixedThreadPool(threads)
+            : MoreExecutors.newDirectExecutorService();
+    try {
+      // Annotate CFA nodes with reverse postorder information for later use.
+      List<Future<?>> sortings = new ArrayList<>();
+      for (FunctionEntryNode function : cfa.getAllFunctionHeads()) {
+        sortings.add(executor.submit(() -> new CFAReversePostorder().assignSorting(function)));
+      }
+      for (Future<?> sorting : sortings) {
+        try {
+          sorting.get();
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new UnexpectedCheckedException("reverse post-order sorting", e.getCause());
+        }
+      }
 
-    // Annotate CFA nodes with reverse postorder information for later use.
-    for (FunctionEntryNode function : cfa.getAllFunctionHeads()) {
-      CFAReversePostorder sorter = new CFAReversePostorder();
-      sorter.assignSorting(function);
-    }
-
-    // get loop information
-    // (needs post-order information)
-    if (useLoopStructure) {
-      addLoopStructure(cfa);
+      // get loop information
+      // (needs post-order information)
+      if (useLoopStructure) {
+        addLoopStructure(cfa, executor);
+      }
+    } finally {
+      executor.shutdownNow();
     }
 
     // FOURTH, insert call and return edges and build the supergraph
@@ -501,8 +604,21 @@ private boolean classifyNodes = false;
 
     // (currently no such post-processings exist)
 
+    stats.processingTime.stop();
+    return cfa;
+  }
+
+  /**
+   * Compute the information about a CFA (variable classification, live variables, dependence
+   * graph) and create the final CFA.
+   */
+  private ImmutableCFA createCFAInformation(
+      MutableCFA cfa, List<Pair<ADeclaration, String>> pGlobalDeclarations)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
+
     // SIXTH, get information about the CFA,
     // the cfa should not be modified after this line.
+    stats.processingTime.start();
 
     // Get information about variables, needed for some analysis.
     final Optional<VariableClassification> varClassification;
@@ -522,7 +638,7 @@ private boolean classifyNodes = false;
     if (findLiveVariables &&
         (varClassification.isPresent() || cfa.getLanguage() != Language.C)) {
       cfa.setLiveVariables(LiveVariables.create(varClassification,
-                                                pParseResult.getGlobalDeclarations(),
+                                                pGlobalDeclarations,
                                                 cfa, logger, shutdownNotifier,
                                                 config));
     }
@@ -553,13 +669,10 @@ private boolean classifyNodes = false;
 
     // check the super CFA starting at the main function
     stats.checkTime.start();
-    assert CFACheck.check(mainFunction, null);
+    assert CFACheck.check(cfa.getMainFunction(), null);
     stats.checkTime.stop();
 
-    if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
-        || ((exportFunctionCallsFile != null) && exportFunctionCalls)
-        || ((serializeCfaFile != null) && serializeCfa)
-        || (exportCfaPixelFile != null)) {
+    if (shouldExportCFA()) {
       exportCFAAsync(immutableCFA);
     }
 
@@ -802,9 +915,10 @@ private boolean classifyNodes = false;
     return mainFunction;
   }
 
-  private void addLoopStructure(MutableCFA cfa) {
+  private void addLoopStructure(MutableCFA cfa, ExecutorService pExecutor)
+      throws InterruptedException {
     try {
-      cfa.setLoopStructure(LoopStructure.getLoopStructure(cfa));
+      cfa.setLoopStructure(LoopStructure.getLoopStructure(cfa, pExecutor));
 
     } catch (ParserException e) {
       // don't abort here, because if the analysis doesn't need the loop information, we can continue
@@ -949,6 +1063,13 @@ v.addInitializer(initializer);
     }
   }
 
+  private boolean shouldExportCFA() {
+    return ((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
+        || ((exportFunctionCallsFile != null) && exportFunctionCalls)
+        || ((serializeCfaFile != null) && serializeCfa)
+        || (exportCfaPixelFile != null);
+  }
+
   private void exportCFAAsync(final CFA cfa) {
     // Execute asynchronously, this may take several seconds for large programs on slow disks.
     // This is safe because we don't modify the CFA from this point on.
@@ -33,7 +33,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import org.sosy_lab.common.UniqueIdGenerator;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
 import org.sosy_lab.cpachecker.cfa.ast.c.CSimpleDeclaration;
 
@@ -41,9 +41,13 @@ public class CFANode implements Comparable<CFANode>, Serializable {
 
   private static final long serialVersionUID = 5168350921309486536L;
 
-  private static final UniqueIdGenerator idGenerator = new UniqueIdGenerator();
+  private static final AtomicInteger idGenerator = new AtomicInteger();
 
-  private final int nodeNumber;
+  // nodes created by the current thread, only non-null while recording
+  private static final ThreadLocal<List<CFANode>> createdNodes = new ThreadLocal<>();
+
+  // not final because of renumberNodes()
+  private int nodeNumber;
 
   // do not serialize edges, recursive traversal of the CFA causes a stack-overflow.
   // edge-list is final, except for serialization
@@ -71,7 +75,69 @@ public class CFANode implements Comparable<CFANode>, Serializable {
     assert !pFunctionName.isEmpty();
 
     functionName = pFunctionName;
-    nodeNumber = idGenerator.getFreshId();
+    nodeNumber = idGenerator.getAndIncrement();
+
+    List<CFANode> recordedNodes = createdNodes.get();
+    if (recordedNodes != null) {
+      recordedNodes.add(this);
+    }
+  }
+
+  /**
+   * Ensure that all nodes created from now on get a number that is higher than the given one.
+   * This is necessary after nodes were read from a serialized CFA, because they keep their
+   * original numbers.
+   */
+  public static void reserveNodeNumbersUpTo(int pNodeNumber) {
+    idGenerator.accumulateAndGet(pNodeNumber + 1, Math::max);
+  }
+
+  /**
+   * Start recording all nodes that are created by the current thread until {@link
+   * #stopRecordingCreatedNodes()} is called.
+   */
+  public static void startRecordingCreatedNodes() {
+    checkState(createdNodes.get() == null, "Already recording created nodes");
+    createdNodes.set(new ArrayList<>());
+  }
+
+  /**
+   * Stop recording created nodes (cf. {@link #startRecordingCreatedNodes()}).
+   *
+   * @return all nodes that were created by the current thread while recording, in order of their
+   *     creation
+   */
+  public static List<CFANode> stopRecordingCreatedNodes() {
+    List<CFANode> result = createdNodes.get();
+    checkState(result != null, "Not recording created nodes");
+    createdNodes.remove();
+    return result;
+  }
+
+  /**
+   * Assign consecutive node numbers to the given nodes in the given order. This is necessary if
+   * nodes were created by several threads concurrently, in order to get the same numbers as if
+   * the nodes had been created sequentially in the given order. If the given nodes occupy a
+   * contiguous range of numbers (i.e., no other nodes were created concurrently), this range is
+   * reused, otherwise fresh numbers are assigned. No other thread may access the given nodes
+   * while they are renumbered, and they must not be contained in any sorted collection.
+   */
+  public static void renumberNodes(List<CFANode> pNodes) {
+    if (pNodes.isEmpty()) {
+      return;
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (CFANode node : pNodes) {
+      min = Math.min(min, node.nodeNumber);
+      max = Math.max(max, node.nodeNumber);
+    }
+    // node numbers are unique, so this checks whether they form a contiguous range
+    int nextNumber =
+        (max - min + 1 == pNodes.size()) ? min : idGenerator.getAndAdd(pNodes.size());
+    for (CFANode node : pNodes) {
+      node.nodeNumber = nextNumber++;
+    }
   }
 
   public int getNodeNumber() {
@@ -32,6 +32,7 @@ import java.util.logging.Level;
 import java.util.regex.Pattern;
 import org.sosy_lab.common.Classes;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -76,6 +77,18 @@ public class Parsers {
     @Option(secure = true, description = "simplify simple const expressions like 1+2")
     private boolean simplifyConstExpressions = true;
 
+    // same option as in CFACreator, which uses it for the post-processing steps
+    @Option(
+      secure = true,
+      description =
+        "Number of threads for the steps of the CFA creation that handle each function "
+            + "separately (construction of function bodies in the C frontend, reverse "
+            + "post-order sorting and loop detection). The created CFA does not depend on "
+            + "this option, except for the names of anonymous types declared in function bodies."
+    )
+    @IntegerOption(min = 1)
+    private int numberOfThreads = 1;
+
     public boolean initializeAllVariables() {
       return initializeAllVariables;
     }
@@ -91,6 +104,10 @@ public class Parsers {
     public boolean simplifyConstExpressions() {
       return simplifyConstExpressions;
     }
+
+    public int numberOfThreads() {
+      return numberOfThreads;
+    }
   }
 
   private Parsers() { }
@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cfa.parser.eclipse.c;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sosy_lab.cpachecker.cfa.types.c.CTypes.withoutConst;
 import static org.sosy_lab.cpachecker.cfa.types.c.CTypes.withoutVolatile;
 
@@ -208,6 +209,11 @@ class ASTConverter {
   // they are in the same run) unique
   private static int anonTypeCounter = 0;
 
+  // If function bodies are converted concurrently, each function has its own
+  // namespace for anonymous types instead of using the shared counter above
+  // (cf. setAnonymousTypeNamespace).
+  private @Nullable String anonTypeNamespace = null;
+  private int localAnonTypeCounter = 0;
 
   private final Sideassignments sideAssignmentStack;
   private final String staticVariablePrefix;
@@ -2119,7 +2125,7 @@ class ASTConverter {
       if (d.getStorageClass() == IASTDeclSpecifier.sc_typedef) {
         name += ((IASTSimpleDeclaration)d.getParent()).getDeclarators()[0].getName().getRawSignature();
       } else {
-        name += anonTypeCounter++;
+        name += nextAnonymousTypeNumber();
       }
     }
 
@@ -2148,10 +2154,30 @@ class ASTConverter {
 
     // in cases like struct s { (struct s)* f }
     // we need to fill in the binding from the inner "struct s" type to the outer
-    compositeType.accept(new FillInBindingVisitor(kind, scope.getFileSpecificTypeName(name), compositeType));
+    // (this may modify types that are shared with other functions)
+    synchronized (ASTTypeConverter.getTypeConversionLock()) {
+      compositeType.accept(
+          new FillInBindingVisitor(kind, scope.getFileSpecificTypeName(name), compositeType));
+    }
     return compositeType;
   }
 
+  /**
+   * Let this converter name anonymous types "__anon_type_" + pNamespace + "_" + n instead of
+   * using a number that is shared by all converters. This is necessary if several converters
+   * are used concurrently, because otherwise the names would depend on scheduling.
+   */
+  void setAnonymousTypeNamespace(String pNamespace) {
+    anonTypeNamespace = checkNotNull(pNamespace);
+  }
+
+  private String nextAnonymousTypeNumber() {
+    if (anonTypeNamespace != null) {
+      return anonTypeNamespace + "_" + localAnonTypeCounter++;
+    }
+    return Integer.toString(anonTypeCounter++);
+  }
+
   private CEnumType convert(IASTEnumerationSpecifier d) {
     List<CEnumerator> list = new ArrayList<>(d.getEnumerators().length);
     Long lastValue = -1L; // initialize with -1, so the first one gets value 0
@@ -2172,7 +2198,7 @@ class ASTConverter {
     // when the enum has no name we create one
     // (this may be the case when the enum declaration is surrounded by a typedef)
     if (name.isEmpty()) {
-      name = "__anon_type_" + anonTypeCounter++;
+      name = "__anon_type_" + nextAnonymousTypeNumber();
     }
 
     CEnumType enumType = new CEnumType(d.isConst(), d.isVolatile(), list, name, origName);
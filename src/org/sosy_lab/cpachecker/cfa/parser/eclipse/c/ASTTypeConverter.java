@@ -94,42 +94,62 @@ class ASTTypeConverter {
     converter = pConverter;
     filePrefix = pFilePrefix;
     parseContext = pParseContext;
-    if (!typeConversions.containsKey(filePrefix)) {
-      typeConversions.put(filePrefix, new IdentityHashMap<>());
+    synchronized (typeConversions) {
+      if (!typeConversions.containsKey(filePrefix)) {
+        typeConversions.put(filePrefix, new IdentityHashMap<>());
+      }
     }
   }
 
   /** cache for all ITypes, so that they don't have to be parsed again and again
-   *  (Eclipse seems to give us identical objects for identical types already). */
+   *  (Eclipse seems to give us identical objects for identical types already).
+   *  All accesses synchronize on this map, because the bodies of several functions
+   *  may be converted concurrently (cf. {@link CFABuilder}). */
   private final static Map<String, Map<IType, CType>> typeConversions = new HashMap<>();
 
+  /**
+   * Lock that needs to be held while creating or modifying {@link CType}s that may be shared
+   * between functions (i.e., while converting types and filling in bindings).
+   */
+  static Object getTypeConversionLock() {
+    return typeConversions;
+  }
+
   /**
    * This can be used to rename a CType in case of Types with equal names but
    * different fields, from different files.
    */
   static void overwriteType(IType cdtType, CType ourType, String filePrefix) {
-    typeConversions.get(filePrefix).put(cdtType, ourType);
+    synchronized (typeConversions) {
+      typeConversions.get(filePrefix).put(cdtType, ourType);
+    }
   }
 
   static IType getTypeFromTypeConversion(CType ourCType, String filePrefix) {
-    for (Entry<IType, CType> entry : typeConversions.get(filePrefix).entrySet()) {
-      if (ourCType.equals(entry.getValue())) {
-        return entry.getKey();
+    synchronized (typeConversions) {
+      for (Entry<IType, CType> entry : typeConversions.get(filePrefix).entrySet()) {
+        if (ourCType.equals(entry.getValue())) {
+          return entry.getKey();
+        }
       }
     }
     return null;
   }
 
   CType convert(IType t) {
-    CType result = typeConversions.get(filePrefix).get(t);
-    if (result == null) {
-      result = checkNotNull(convert0(t));
-      // re-check, in some cases we updated the map already
-      if (!typeConversions.get(filePrefix).containsKey(t)) {
-        typeConversions.get(filePrefix).put(t, result);
+    // The lock is held during the whole conversion, because convert0 publishes
+    // incomplete composite types in the map and completes them afterwards.
+    synchronized (typeConversions) {
+      CType result = typeConversions.get(filePrefix).get(t);
+      if (result == null) {
+        result = checkNotNull(convert0(t));
+        // re-check, in some cases we updated the map already
+        if (!typeConversions.get(filePrefix).containsKey(t)) {
+          typeConversions.get(filePrefix).put(t, result);
+        }
       }
+      return result;
     }
-    return result;
   }
 
   /** converts types BOOL, INT,..., PointerTypes, ComplexTypes */
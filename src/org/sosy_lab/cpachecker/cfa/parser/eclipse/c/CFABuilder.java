@@ -25,11 +25,13 @@ package org.sosy_lab.cpachecker.cfa.parser.eclipse.c;
 
 import static com.google.common.collect.FluentIterable.from;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -38,6 +40,10 @@ import java.util.List;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
@@ -50,6 +56,7 @@ import org.eclipse.cdt.core.dom.ast.IASTProblemDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.cpachecker.cfa.ParseResult;
@@ -105,6 +112,7 @@ class CFABuilder extends ASTVisitor {
 
   private final EclipseCParserOptions options;
   private final MachineModel machine;
+  private final LogManager baseLogger;
   private final LogManagerWithoutDuplicates logger;
   private final CheckBindingVisitor checkBinding;
 
@@ -117,6 +125,7 @@ class CFABuilder extends ASTVisitor {
       ParseContext pParseContext,
       MachineModel pMachine) {
     options = pOptions;
+    baseLogger = pLogger;
     logger = new LogManagerWithoutDuplicates(pLogger);
     parseContext = pParseContext;
     machine = pMachine;
@@ -327,24 +336,30 @@ class CFABuilder extends ASTVisitor {
       ((CDeclaration)decl.getFirst()).getType().accept(fillInAllBindingsVisitor);
     }
 
-    for (Triple<List<IASTFunctionDefinition>, String, GlobalScope> triple : functionDeclarations) {
-      GlobalScope actScope = triple.getThird();
+    if (options.numberOfThreads() > 1) {
+      handleFunctionDefinitionsInParallel();
 
-      // giving these variables as parameters to the handleFunctionDefinition method
-      // increases performance drastically, as there is no need to create the Immutable
-      // Map each time
-      ImmutableMap<String, CFunctionDeclaration> actFunctions = actScope.getFunctions();
-      ImmutableMap<String, CComplexTypeDeclaration> actTypes = actScope.getTypes();
-      ImmutableMap<String, CTypeDefDeclaration> actTypeDefs = actScope.getTypeDefs();
-      ImmutableMap<String, CSimpleDeclaration> actVars = actScope.getGlobalVars();
-      for (IASTFunctionDefinition declaration : triple.getFirst()) {
-          handleFunctionDefinition(actScope,
-                                   triple.getSecond(),
-                                   declaration,
-                                   actFunctions,
-                                   actTypes,
-                                   actTypeDefs,
-                                   actVars);
+    } else {
+      for (Triple<List<IASTFunctionDefinition>, String, GlobalScope> triple
+          : functionDeclarations) {
+        GlobalScope actScope = triple.getThird();
+
+        // giving these variables as parameters to the handleFunctionDefinition method
+        // increases performance drastically, as there is no need to create the Immutable
+        // Map each time
+        ImmutableMap<String, CFunctionDeclaration> actFunctions = actScope.getFunctions();
+        ImmutableMap<String, CComplexTypeDeclaration> actTypes = actScope.getTypes();
+        ImmutableMap<String, CTypeDefDeclaration> actTypeDefs = actScope.getTypeDefs();
+        ImmutableMap<String, CSimpleDeclaration> actVars = actScope.getGlobalVars();
+        for (IASTFunctionDefinition declaration : triple.getFirst()) {
+            handleFunctionDefinition(actScope,
+                                     triple.getSecond(),
+                                     declaration,
+                                     actFunctions,
+                                     actTypes,
+                                     actTypeDefs,
+                                     actVars);
+        }
       }
     }
 
@@ -369,21 +384,42 @@ class CFABuilder extends ASTVisitor {
                                         ImmutableMap<String, CTypeDefDeclaration> typedefs,
                                         ImmutableMap<String, CSimpleDeclaration> globalVars) {
 
-    FunctionScope localScope =
-        new FunctionScope(functions, types, typedefs, globalVars, fileName, artificialScope);
     CFAFunctionBuilder functionBuilder =
-        new CFAFunctionBuilder(
-            options,
-            logger,
-            localScope,
-            parseContext,
-            machine,
-            fileName,
-            sideAssignmentStack,
-            checkBinding);
+        createFunctionBuilder(
+            fileName, functions, types, typedefs, globalVars, logger, sideAssignmentStack);
     declaration.accept(functionBuilder);
 
     FunctionEntryNode startNode = functionBuilder.getStartNode();
+    registerFunction(startNode);
+    cfaNodes.putAll(startNode.getFunctionName(), functionBuilder.getCfaNodes());
+    registerGlobalDeclarations(actScope, functionBuilder);
+
+    encounteredAsm |= functionBuilder.didEncounterAsm();
+    functionBuilder.finish();
+  }
+
+  private CFAFunctionBuilder createFunctionBuilder(
+      String fileName,
+      ImmutableMap<String, CFunctionDeclaration> functions,
+      ImmutableMap<String, CComplexTypeDeclaration> types,
+      ImmutableMap<String, CTypeDefDeclaration> typedefs,
+      ImmutableMap<String, CSimpleDeclaration> globalVars,
+      LogManagerWithoutDuplicates pLogger,
+      Sideassignments pSideAssignmentStack) {
+    FunctionScope localScope =
+        new FunctionScope(functions, types, typedefs, globalVars, fileName, artificialScope);
+    return new CFAFunctionBuilder(
+        options,
+        pLogger,
+        localScope,
+        parseContext,
+        machine,
+        fileName,
+        pSideAssignmentStack,
+        checkBinding);
+  }
+
+  private void registerFunction(FunctionEntryNode startNode) {
     String functionName = startNode.getFunctionName();
 
     if (cfas.containsKey(functionName)) {
@@ -391,15 +427,130 @@ class CFABuilder extends ASTVisitor {
           + " in " + startNode.getFileLocation() + " and " + cfas.get(functionName).getFileLocation());
     }
     cfas.put(functionName, startNode);
-    cfaNodes.putAll(functionName, functionBuilder.getCfaNodes());
+  }
+
+  private void registerGlobalDeclarations(
+      final GlobalScope actScope, CFAFunctionBuilder functionBuilder) {
     globalDeclarations.addAll(
         from(functionBuilder.getGlobalDeclarations())
             .transform(pInput -> Triple.of(pInput.getFirst(), pInput.getSecond(), actScope))
             .toList());
     globalDecls.addAll(functionBuilder.getGlobalDeclarations());
+  }
 
-    encounteredAsm |= functionBuilder.didEncounterAsm();
+  /**
+   * Build the CFAs of all function bodies concurrently and merge them in program order. The
+   * result is the same as if {@link #handleFunctionDefinition} was called for each function
+   * sequentially, except for the names of anonymous types inside of function bodies, which are
+   * made unique per function (cf. {@link ASTConverter#setAnonymousTypeNamespace(String)}). In
+   * particular, the CFA nodes are renumbered as if they had been created sequentially.
+   */
+  private void handleFunctionDefinitionsInParallel() {
+    // CDT resolves bindings and types lazily and caches them in the AST without synchronization,
+    // so everything that the function builders need is resolved sequentially beforehand.
+    ResolveBindingsVisitor resolver = new ResolveBindingsVisitor();
+    for (Triple<List<IASTFunctionDefinition>, String, GlobalScope> triple
+        : functionDeclarations) {
+      for (IASTFunctionDefinition declaration : triple.getFirst()) {
+        declaration.accept(resolver);
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(options.numberOfThreads());
+    try {
+      List<Future<ConcurrentlyBuiltFunction>> futures = new ArrayList<>();
+      for (Triple<List<IASTFunctionDefinition>, String, GlobalScope> triple
+          : functionDeclarations) {
+        GlobalScope actScope = triple.getThird();
+        ImmutableMap<String, CFunctionDeclaration> actFunctions = actScope.getFunctions();
+        ImmutableMap<String, CComplexTypeDeclaration> actTypes = actScope.getTypes();
+        ImmutableMap<String, CTypeDefDeclaration> actTypeDefs = actScope.getTypeDefs();
+        ImmutableMap<String, CSimpleDeclaration> actVars = actScope.getGlobalVars();
+        for (IASTFunctionDefinition declaration : triple.getFirst()) {
+          CFAFunctionBuilder functionBuilder =
+              createFunctionBuilder(
+                  triple.getSecond(),
+                  actFunctions,
+                  actTypes,
+                  actTypeDefs,
+                  actVars,
+                  new LogManagerWithoutDuplicates(baseLogger),
+                  new Sideassignments());
+          functionBuilder.setAnonymousTypeNamespace(Integer.toString(futures.size()));
+          futures.add(
+              executor.submit(
+                  () -> buildFunctionConcurrently(actScope, declaration, functionBuilder)));
+        }
+      }
+
+      // Results are handled in program order, such that the same error is reported
+      // as in the sequential case if the construction fails for several functions.
+      List<ConcurrentlyBuiltFunction> builtFunctions = new ArrayList<>(futures.size());
+      List<CFANode> createdNodes = new ArrayList<>();
+      for (Future<ConcurrentlyBuiltFunction> future : futures) {
+        ConcurrentlyBuiltFunction builtFunction;
+        try {
+          // building a function is not interruptible in the sequential case either
+          builtFunction = Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new UnexpectedCheckedException("construction of function body", e.getCause());
+        }
+        registerFunction(builtFunction.functionBuilder.getStartNode());
+        builtFunctions.add(builtFunction);
+        createdNodes.addAll(builtFunction.createdNodes);
+      }
+
+      // needs to happen before the nodes are added to the sorted multimap
+      CFANode.renumberNodes(createdNodes);
+
+      for (ConcurrentlyBuiltFunction builtFunction : builtFunctions) {
+        CFAFunctionBuilder functionBuilder = builtFunction.functionBuilder;
+        cfaNodes.putAll(
+            functionBuilder.getStartNode().getFunctionName(), builtFunction.functionNodes);
+        registerGlobalDeclarations(builtFunction.scope, functionBuilder);
+        encounteredAsm |= functionBuilder.didEncounterAsm();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Build the CFA of a single function body, this may run concurrently to other functions. */
+  private static ConcurrentlyBuiltFunction buildFunctionConcurrently(
+      GlobalScope actScope,
+      IASTFunctionDefinition declaration,
+      CFAFunctionBuilder functionBuilder) {
+    List<CFANode> createdNodes;
+    CFANode.startRecordingCreatedNodes();
+    try {
+      declaration.accept(functionBuilder);
+    } finally {
+      createdNodes = CFANode.stopRecordingCreatedNodes();
+    }
+    Set<CFANode> functionNodes = functionBuilder.getCfaNodes();
     functionBuilder.finish();
+    return new ConcurrentlyBuiltFunction(actScope, functionBuilder, functionNodes, createdNodes);
+  }
+
+  private static class ConcurrentlyBuiltFunction {
+
+    private final GlobalScope scope;
+    private final CFAFunctionBuilder functionBuilder;
+    private final Set<CFANode> functionNodes;
+    // all nodes in order of creation, including unreachable ones
+    private final List<CFANode> createdNodes;
+
+    private ConcurrentlyBuiltFunction(
+        GlobalScope pScope,
+        CFAFunctionBuilder pFunctionBuilder,
+        Set<CFANode> pFunctionNodes,
+        List<CFANode> pCreatedNodes) {
+      scope = pScope;
+      functionBuilder = pFunctionBuilder;
+      functionNodes = pFunctionNodes;
+      createdNodes = pCreatedNodes;
+    }
   }
 
   @Override
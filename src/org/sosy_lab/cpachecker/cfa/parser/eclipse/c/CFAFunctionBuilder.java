@@ -212,6 +212,11 @@ class CFAFunctionBuilder extends ASTVisitor {
     shouldVisitStatements = true;
     sideAssignmentStack = pSideAssignmentStack;
   }
+  /** Cf. {@link ASTConverter#setAnonymousTypeNamespace(String)}. */
+  void setAnonymousTypeNamespace(String pNamespace) {
+    astCreator.setAnonymousTypeNamespace(pNamespace);
+  }
+
   FunctionEntryNode getStartNode() {
     checkState(cfa != null);
     return cfa;
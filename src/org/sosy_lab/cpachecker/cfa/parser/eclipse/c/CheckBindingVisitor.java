@@ -68,6 +68,8 @@ import org.sosy_lab.cpachecker.util.BuiltinFunctions;
 /**
  * This class can traverse through an AST and log a warning for all undefined
  * identifiers which are referenced.
+ * It is thread-safe, such that it can be shared by function bodies that are
+ * built concurrently.
  */
 class CheckBindingVisitor implements CRightHandSideVisitor<Void, CFAGenerationRuntimeException>,
                                        CInitializerVisitor<Void, CFAGenerationRuntimeException>,
@@ -76,9 +78,9 @@ class CheckBindingVisitor implements CRightHandSideVisitor<Void, CFAGenerationRu
 
   private final LogManager logger;
 
-  private final Set<String> printedWarnings = Sets.newHashSet();
+  private final Set<String> printedWarnings = Sets.newConcurrentHashSet();
 
-  private boolean foundUndefinedIdentifiers = false;
+  private volatile boolean foundUndefinedIdentifiers = false;
 
   CheckBindingVisitor(LogManager pLogger) {
     logger = pLogger;
@@ -0,0 +1,105 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa.parser.eclipse.c;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IArrayType;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.ICompositeType;
+import org.eclipse.cdt.core.dom.ast.IField;
+import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.IFunctionType;
+import org.eclipse.cdt.core.dom.ast.IPointerType;
+import org.eclipse.cdt.core.dom.ast.IQualifierType;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.ITypedef;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+
+/**
+ * Visitor that forces CDT to compute all the information that it otherwise computes lazily and
+ * caches inside the AST (bindings of names, types of expressions and variables, file locations).
+ * CDT does not synchronize this lazy computation, so this visitor has to be applied to an AST
+ * before several threads access it concurrently (cf. {@link CFABuilder}).
+ */
+class ResolveBindingsVisitor extends ASTGenericVisitor {
+
+  private final Set<Object> resolved = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  ResolveBindingsVisitor() {
+    super(true);
+  }
+
+  @Override
+  protected int genericVisit(IASTNode pNode) {
+    pNode.getFileLocation();
+    if (pNode instanceof IASTName) {
+      resolve(((IASTName) pNode).resolveBinding());
+    } else if (pNode instanceof IASTExpression) {
+      resolve(((IASTExpression) pNode).getExpressionType());
+    }
+    return PROCESS_CONTINUE;
+  }
+
+  private void resolve(IBinding pBinding) {
+    if (pBinding instanceof IType) {
+      // typedefs and composite types are bindings and types at the same time
+      resolve((IType) pBinding);
+    } else if (pBinding instanceof IVariable && resolved.add(pBinding)) {
+      resolve(((IVariable) pBinding).getType());
+    } else if (pBinding instanceof IFunction && resolved.add(pBinding)) {
+      resolve(((IFunction) pBinding).getType());
+    }
+  }
+
+  private void resolve(IType pType) {
+    if (pType == null || !resolved.add(pType)) {
+      return;
+    }
+    if (pType instanceof ITypedef) {
+      resolve(((ITypedef) pType).getType());
+    } else if (pType instanceof IPointerType) {
+      resolve(((IPointerType) pType).getType());
+    } else if (pType instanceof IArrayType) {
+      ((IArrayType) pType).getSize();
+      resolve(((IArrayType) pType).getType());
+    } else if (pType instanceof IQualifierType) {
+      resolve(((IQualifierType) pType).getType());
+    } else if (pType instanceof IFunctionType) {
+      resolve(((IFunctionType) pType).getReturnType());
+      for (IType parameterType : ((IFunctionType) pType).getParameterTypes()) {
+        resolve(parameterType);
+      }
+    } else if (pType instanceof ICompositeType) {
+      for (IField field : ((ICompositeType) pType).getFields()) {
+        resolve(field);
+      }
+    }
+  }
+}
@@ -51,6 +51,7 @@ import org.sosy_lab.cpachecker.core.algorithm.ExternalCBMCAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.InterleavedAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.NoopAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ParallelAlgorithm;
+import org.sosy_lab.cpachecker.core.algorithm.ParallelCPAAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ProgramSplitAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartWithConditionsAlgorithm;
@@ -247,6 +248,15 @@ public class CoreComponentsFactory {
   @Option(secure = true, name = "algorithm.useParallelBAM", description = "run the parallel BAM algortihm.")
   private boolean useParallelBAM = false;
 
+  @Option(
+    secure = true,
+    name = "algorithm.parallelExploration",
+    description =
+        "explore the state space with several threads instead of the sequential CPA algorithm "
+            + "(see option cpa.parallelExploration.numberOfThreads)"
+  )
+  private boolean useParallelExploration = false;
+
   @Option(secure=true, name="unknownIfUnrestrictedProgram",
       description="stop the analysis with the result unknown if the program does not satisfies certain restrictions.")
   private boolean unknownIfUnrestrictedProgram = false;
@@ -397,7 +407,11 @@ public class CoreComponentsFactory {
               aggregatedReachedSets);
 
     } else {
-      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      if (useParallelExploration) {
+        algorithm = new ParallelCPAAlgorithm(cpa, config, logger, shutdownNotifier);
+      } else {
+        algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      }
 
       if (constructResidualProgram) {
         algorithm = new ResidualProgramConstructionAlgorithm(cfa, config, logger, shutdownNotifier,
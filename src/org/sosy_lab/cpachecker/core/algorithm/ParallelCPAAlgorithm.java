@@ -0,0 +1,664 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult.Action;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.SynchronizedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinCPAEnabledAnalysis;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * Variant of {@link CPAAlgorithm} that explores the state space with several threads.
+ *
+ * <p>Each state from the waitlist is handled by a task of a work-stealing {@link ForkJoinPool}:
+ * the task computes the successors, adjusts their precision, and forks a new task for each
+ * successor that is not covered. The stop check and adding the successor to the reached set are
+ * executed atomically, such that the resulting reached set is the same as for the sequential
+ * algorithm (modulo the order of states). With a {@link ConcurrentPartitionedReachedSet} this is
+ * done with a lock per partition, for other reached sets with a global lock.
+ *
+ * <p>Each thread uses its own instances of the transfer relation, precision adjustment, merge and
+ * stop operator, so CPAs that keep the current state in fields of these operators (like the value
+ * analysis) can be used. If the analysis does not use merge-sep, merging may change the reached
+ * set and the ARG around states that are handled by other threads, so then only the computation of
+ * successors is done in parallel, and the remaining steps are executed by one thread at a time.
+ *
+ * <p>If the precision adjustment signals a break, all threads stop as soon as possible and the
+ * waitlist of the reached set contains all states that were not handled completely, such that the
+ * analysis can be continued later, e.g., with the sequential algorithm.
+ */
+@Options(prefix = "cpa.parallelExploration")
+public class ParallelCPAAlgorithm implements Algorithm, StatisticsProvider {
+
+  private static class ParallelCPAStatistics implements Statistics {
+
+    private final StatTimer totalTimer = new StatTimer("Total time for CPA algorithm");
+    private final ThreadSafeTimerContainer precisionTimer =
+        new ThreadSafeTimerContainer("Time for precision adjustment");
+    private final ThreadSafeTimerContainer transferTimer =
+        new ThreadSafeTimerContainer("Time for transfer relation");
+    private final ThreadSafeTimerContainer mergeTimer =
+        new ThreadSafeTimerContainer("Time for merge operator");
+    private final ThreadSafeTimerContainer stopTimer =
+        new ThreadSafeTimerContainer("Time for stop operator");
+    private final ThreadSafeTimerContainer addTimer =
+        new ThreadSafeTimerContainer("Time for adding to reached set");
+
+    private final StatCounter countIterations = new StatCounter("Number of iterations");
+    private final LongAccumulator maxWaitlistSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder countWaitlistSize = new LongAdder();
+    private final LongAdder countSuccessors = new LongAdder();
+    private final LongAccumulator maxSuccessors = new LongAccumulator(Math::max, 0);
+    private final StatCounter countMerge = new StatCounter("Number of times merged");
+    private final StatCounter countStop = new StatCounter("Number of times stopped");
+    private final StatCounter countBreak = new StatCounter("Number of times breaked");
+    private int numberOfThreads = 0;
+
+    @Override
+    public String getName() {
+      return "Parallel CPA algorithm";
+    }
+
+    @Override
+    public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+      StatisticsUtils.write(out, 0, 50, "Number of threads", numberOfThreads);
+      StatisticsUtils.write(out, 0, 50, countIterations);
+      long iterations = countIterations.getValue();
+      if (iterations == 0) {
+        // Statistics not relevant, prevent division by zero
+        return;
+      }
+
+      StatisticsUtils.write(out, 0, 50, "Max size of waitlist", maxWaitlistSize);
+      StatisticsUtils.write(
+          out, 0, 50, "Average size of waitlist", countWaitlistSize.sum() / iterations);
+      StatisticsUtils.write(out, 0, 50, "Number of computed successors", countSuccessors);
+      StatisticsUtils.write(out, 0, 50, "Max successors for one state", maxSuccessors);
+      StatisticsUtils.write(out, 0, 50, countMerge);
+      StatisticsUtils.write(out, 0, 50, countStop);
+      StatisticsUtils.write(out, 0, 50, countBreak);
+      out.println();
+      StatisticsUtils.write(out, 0, 50, totalTimer);
+      StatisticsUtils.write(out, 1, 50, precisionTimer);
+      StatisticsUtils.write(out, 1, 50, transferTimer);
+      StatisticsUtils.write(out, 1, 50, mergeTimer);
+      StatisticsUtils.write(out, 1, 50, stopTimer);
+      StatisticsUtils.write(out, 1, 50, addTimer);
+    }
+  }
+
+  @Option(
+    secure = true,
+    description =
+        "number of threads for exploring the state space, positive values match exactly, "
+            + "with -1 we use the number of available cores of the machine automatically. "
+            + "For analyses without merge-sep, only the successor computation is parallel."
+  )
+  private int numberOfThreads = -1;
+
+  private final ParallelCPAStatistics stats = new ParallelCPAStatistics();
+
+  /** The CPA, from which each worker thread gets its own instances of the operators. */
+  private final ConfigurableProgramAnalysis cpa;
+
+  private final boolean mergeSep;
+
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+
+  public ParallelCPAAlgorithm(
+      ConfigurableProgramAnalysis pCpa,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (numberOfThreads <= 0 && numberOfThreads != -1) {
+      throw new InvalidConfigurationException(
+          "Number of threads can only be a positive number or -1.");
+    }
+    cpa = pCpa;
+    mergeSep = pCpa.getMergeOperator() == MergeSepOperator.getInstance();
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+  }
+
+  private int getNumberOfThreads() {
+    if (numberOfThreads > 0) {
+      return numberOfThreads;
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  @Override
+  public AlgorithmStatus run(final ReachedSet pReachedSet)
+      throws CPAException, InterruptedException {
+    stats.totalTimer.start();
+    try {
+      return run0(pReachedSet);
+    } finally {
+      stats.totalTimer.stop();
+    }
+  }
+
+  private AlgorithmStatus run0(final ReachedSet pReachedSet)
+      throws CPAException, InterruptedException {
+    final int threads = getNumberOfThreads();
+    stats.numberOfThreads = threads;
+    logger.log(Level.FINE, "Exploring state space with", threads, "threads");
+
+    final Exploration exploration = new Exploration(pReachedSet);
+    final ReachedSet reachedSet = exploration.reachedSet;
+    final List<AbstractState> initialStates = new ArrayList<>();
+    while (reachedSet.hasWaitingState()) {
+      initialStates.add(reachedSet.popFromWaitlist());
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(threads, Worker::new, null, false);
+    exploration.unfinished.addAll(initialStates);
+    try {
+      for (AbstractState state : initialStates) {
+        exploration.submit(pool, state, reachedSet.getPrecision(state));
+      }
+
+      // the workers check the shutdown notifier themselves and stop on a shutdown request
+      exploration.awaitTermination();
+
+    } finally {
+      // If we were interrupted or an error occurred, worker threads might still be running
+      // and adding states to the reached set, so stop them and wait for them before we touch
+      // the waitlist.
+      exploration.aborted.set(true);
+      pool.shutdownNow();
+      awaitTerminationUninterruptibly(pool);
+
+      // Only states that were not handled completely belong into the waitlist,
+      // this includes states whose tasks were not started due to a break or an error.
+      while (reachedSet.hasWaitingState()) {
+        reachedSet.popFromWaitlist();
+      }
+      for (AbstractState state : exploration.unfinished) {
+        // states might have been removed from the reached set by merging
+        if (reachedSet.contains(state)) {
+          reachedSet.reAddToWaitlist(state);
+        }
+      }
+    }
+
+    Throwable error = exploration.error.get();
+    if (error != null) {
+      Throwables.throwIfInstanceOf(error, CPAException.class);
+      Throwables.throwIfInstanceOf(error, InterruptedException.class);
+      Throwables.throwIfUnchecked(error);
+      throw new AssertionError(error);
+    }
+    return AlgorithmStatus.SOUND_AND_PRECISE;
+  }
+
+  private static void awaitTerminationUninterruptibly(ExecutorService pPool) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          pPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Worker thread with its own timers, because timers can only be used by a single thread, and
+   * with its own operators, because some of them store intermediate results in fields.
+   */
+  private class Worker extends ForkJoinWorkerThread {
+
+    private final TransferRelation transferRelation = cpa.getTransferRelation();
+    private final PrecisionAdjustment precisionAdjustment = cpa.getPrecisionAdjustment();
+    private final MergeOperator mergeOperator = cpa.getMergeOperator();
+    private final StopOperator stopOperator = cpa.getStopOperator();
+
+    private final TimerWrapper precisionTimer = stats.precisionTimer.getNewTimer();
+    private final TimerWrapper transferTimer = stats.transferTimer.getNewTimer();
+    private final TimerWrapper mergeTimer = stats.mergeTimer.getNewTimer();
+    private final TimerWrapper stopTimer = stats.stopTimer.getNewTimer();
+    private final TimerWrapper addTimer = stats.addTimer.getNewTimer();
+
+    private Worker(ForkJoinPool pPool) {
+      super(pPool);
+    }
+  }
+
+  /** The shared data of all tasks of one run of the algorithm. */
+  private class Exploration {
+
+    /**
+     * The thread-safe reached set. Composite operations on it (stop check and adding a state)
+     * need to hold the lock returned by {@link #getLock(AbstractState)}.
+     */
+    private final ReachedSet reachedSet;
+
+    /** The lock for all states if the reached set does not provide its own locks. */
+    private final @Nullable Lock globalLock;
+
+    /**
+     * Lock for analyses without merge-sep: merging changes the reached set and the ARG around
+     * states that other threads might currently expand. Thus handling a successor (precision
+     * adjustment, merge, stop, and adding to the reached set) needs the write lock, and computing
+     * the successors of a state needs the read lock. Null for merge-sep.
+     */
+    private final @Nullable ReadWriteLock mergeLock;
+
+    /** States that are in the reached set but were not (yet) handled completely. */
+    private final Set<AbstractState> unfinished = ConcurrentHashMap.newKeySet();
+
+    /** Number of tasks that were submitted but not yet started, i.e., the size of the waitlist. */
+    private final AtomicInteger waiting = new AtomicInteger(0);
+
+    /** Number of tasks that were submitted but not yet finished. */
+    private final AtomicInteger running = new AtomicInteger(0);
+
+    private final AtomicBoolean breakRequested = new AtomicBoolean(false);
+
+    /** Set when the run ends, such that remaining tasks do not start to handle their state. */
+    private final AtomicBoolean aborted = new AtomicBoolean(false);
+    private final AtomicReference<Throwable> error = new AtomicReference<>(null);
+
+    private Exploration(ReachedSet pReachedSet) {
+      if (pReachedSet instanceof ConcurrentPartitionedReachedSet) {
+        reachedSet = pReachedSet;
+        globalLock = null;
+      } else {
+        reachedSet = new SynchronizedReachedSet(pReachedSet);
+        globalLock = new ReentrantLock();
+      }
+      mergeLock = mergeSep ? null : new ReentrantReadWriteLock();
+    }
+
+    private Lock getLock(AbstractState pState) {
+      if (globalLock != null) {
+        return globalLock;
+      }
+      return ((ConcurrentPartitionedReachedSet) reachedSet).getLock(pState);
+    }
+
+    private boolean shouldStop() {
+      return breakRequested.get() || aborted.get() || error.get() != null;
+    }
+
+    private void submit(ForkJoinPool pPool, AbstractState pState, Precision pPrecision) {
+      running.incrementAndGet();
+      stats.maxWaitlistSize.accumulate(waiting.incrementAndGet());
+      pPool.execute(new StateTask(this, pState, pPrecision));
+    }
+
+    private void fork(AbstractState pState, Precision pPrecision) {
+      running.incrementAndGet();
+      stats.maxWaitlistSize.accumulate(waiting.incrementAndGet());
+      new StateTask(this, pState, pPrecision).fork();
+    }
+
+    private void taskFinished() {
+      if (running.decrementAndGet() == 0) {
+        synchronized (running) {
+          running.notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Wait until all tasks are finished. We cannot use {@link ForkJoinPool#awaitQuiescence}
+     * because this would execute tasks in the current thread.
+     */
+    private void awaitTermination() throws InterruptedException {
+      synchronized (running) {
+        while (running.get() > 0) {
+          running.wait();
+        }
+      }
+    }
+  }
+
+  /** Task for handling one state from the waitlist. */
+  private class StateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Exploration exploration;
+    private final transient AbstractState state;
+    private final transient Precision precision;
+
+    private StateTask(Exploration pExploration, AbstractState pState, Precision pPrecision) {
+      exploration = pExploration;
+      state = pState;
+      precision = pPrecision;
+    }
+
+    @Override
+    protected void compute() {
+      int waiting = exploration.waiting.getAndDecrement();
+      try {
+        if (exploration.shouldStop()) {
+          // state stays in the set of unfinished states
+          return;
+        }
+        stats.countIterations.inc();
+        stats.countWaitlistSize.add(waiting);
+
+        if (handleState(state, precision, exploration, (Worker) Thread.currentThread())) {
+          exploration.unfinished.remove(state);
+        }
+      } catch (CPAException | InterruptedException | RuntimeException | Error e) {
+        exploration.error.compareAndSet(null, e);
+      } finally {
+        exploration.taskFinished();
+      }
+    }
+  }
+
+  /**
+   * Handle one state from the waitlist, i.e., produce successors etc.
+   *
+   * @param state The abstract state that was taken out of the waitlist
+   * @param precision The precision for this abstract state.
+   * @param exploration The data of the current run.
+   * @param worker The current thread.
+   * @return true if all successors of the state were handled, false if the analysis should
+   *     terminate before this.
+   */
+  private boolean handleState(
+      final AbstractState state,
+      final Precision precision,
+      final Exploration exploration,
+      final Worker worker)
+      throws CPAException, InterruptedException {
+    logger.log(Level.ALL, "Current state is", state, "with precision", precision);
+
+    Collection<? extends AbstractState> successors;
+    if (exploration.mergeLock == null) {
+      successors = getAbstractSuccessors(state, precision, worker);
+    } else {
+      Lock readLock = exploration.mergeLock.readLock();
+      readLock.lock();
+      try {
+        if (!exploration.reachedSet.contains(state)) {
+          // the state was merged into another state, which has its own task
+          logger.log(Level.FINER, "State was removed by merging, not computing its successors");
+          return true;
+        }
+        successors = getAbstractSuccessors(state, precision, worker);
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    int numSuccessors = successors.size();
+    logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
+    stats.countSuccessors.add(numSuccessors);
+    stats.maxSuccessors.accumulate(numSuccessors);
+
+    for (Iterator<? extends AbstractState> it = successors.iterator(); it.hasNext(); ) {
+      if (exploration.shouldStop()) {
+        return false;
+      }
+      AbstractState successor = it.next();
+      shutdownNotifier.shutdownIfNecessary();
+      logger.log(Level.ALL, "Successor of", state, "\nis", successor);
+
+      boolean breakRequested;
+      if (exploration.mergeLock == null) {
+        breakRequested = handleSuccessor(successor, precision, exploration, worker);
+      } else {
+        Lock writeLock = exploration.mergeLock.writeLock();
+        writeLock.lock();
+        try {
+          breakRequested = handleSuccessor(successor, precision, exploration, worker);
+        } finally {
+          writeLock.unlock();
+        }
+      }
+      if (breakRequested) {
+        return !it.hasNext();
+      }
+    }
+
+    return true;
+  }
+
+  private Collection<? extends AbstractState> getAbstractSuccessors(
+      AbstractState state, Precision precision, Worker worker)
+      throws CPAException, InterruptedException {
+    worker.transferTimer.start();
+    try {
+      return worker.transferRelation.getAbstractSuccessors(state, precision);
+    } finally {
+      worker.transferTimer.stop();
+    }
+  }
+
+  /**
+   * Handle one successor, i.e., adjust its precision, merge it, and add it to the reached set and
+   * the waitlist if it is not covered.
+   *
+   * @return true if the precision adjustment signaled a break
+   */
+  private boolean handleSuccessor(
+      AbstractState pSuccessor,
+      final Precision precision,
+      final Exploration exploration,
+      final Worker worker)
+      throws CPAException, InterruptedException {
+    final ReachedSet reachedSet = exploration.reachedSet;
+
+    worker.precisionTimer.start();
+    PrecisionAdjustmentResult precAdjustmentResult;
+    try {
+      Optional<PrecisionAdjustmentResult> precAdjustmentOptional =
+          worker.precisionAdjustment.prec(
+              pSuccessor, precision, reachedSet, Functions.identity(), pSuccessor);
+      if (!precAdjustmentOptional.isPresent()) {
+        return false;
+      }
+      precAdjustmentResult = precAdjustmentOptional.get();
+    } finally {
+      worker.precisionTimer.stop();
+    }
+
+    AbstractState successor = precAdjustmentResult.abstractState();
+    Precision successorPrecision = precAdjustmentResult.precision();
+    Action action = precAdjustmentResult.action();
+    assert action == Action.CONTINUE || action == Action.BREAK
+        : "Enum Action has unhandled values!";
+
+    boolean stop;
+    Lock lock = exploration.getLock(successor);
+    lock.lock();
+    try {
+      if (action == Action.CONTINUE && exploration.mergeLock != null) {
+        merge(successor, successorPrecision, exploration, worker);
+      }
+
+      worker.stopTimer.start();
+      try {
+        stop =
+            worker.stopOperator.stop(
+                successor, reachedSet.getReached(successor), successorPrecision);
+      } finally {
+        worker.stopTimer.stop();
+      }
+
+      if (action == Action.BREAK && !(stop && AbstractStates.isTargetState(successor))) {
+        // don't signal BREAK for covered target states
+        stats.countBreak.inc();
+        logger.log(Level.FINER, "Break signalled, ParallelCPAAlgorithm will stop.");
+        exploration.breakRequested.set(true);
+        exploration.unfinished.add(successor);
+        reachedSet.add(successor, successorPrecision);
+        return true;
+      }
+
+      if (!stop) {
+        worker.addTimer.start();
+        exploration.unfinished.add(successor);
+        reachedSet.add(successor, successorPrecision);
+        worker.addTimer.stop();
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (stop) {
+      logger.log(Level.FINER, "Successor is covered or unreachable, not adding to waitlist");
+      stats.countStop.inc();
+    } else {
+      logger.log(Level.FINER, "No need to stop, adding successor to waitlist");
+      exploration.fork(successor, successorPrecision);
+    }
+    return false;
+  }
+
+  /**
+   * Merge the successor with the states from the reached set as in {@link CPAAlgorithm}, and
+   * create tasks for the merged states. The caller needs to hold the write lock of {@link
+   * Exploration#mergeLock}.
+   */
+  private void merge(
+      AbstractState successor,
+      Precision successorPrecision,
+      Exploration exploration,
+      Worker worker)
+      throws CPAException, InterruptedException {
+    final ReachedSet reachedSet = exploration.reachedSet;
+    Collection<AbstractState> reached = reachedSet.getReached(successor);
+    if (reached.isEmpty()) {
+      return;
+    }
+
+    List<AbstractState> toRemove = new ArrayList<>();
+    List<AbstractState> toAdd = new ArrayList<>();
+    worker.mergeTimer.start();
+    try {
+      try {
+        for (AbstractState reachedState : reached) {
+          shutdownNotifier.shutdownIfNecessary();
+          AbstractState mergedState =
+              worker.mergeOperator.merge(successor, reachedState, successorPrecision);
+
+          if (!mergedState.equals(reachedState)) {
+            logger.log(Level.FINER, "Successor was merged with state from reached set");
+            logger.log(
+                Level.ALL, "Merged", successor, "\nand", reachedState, "\n-->", mergedState);
+            stats.countMerge.inc();
+
+            toRemove.add(reachedState);
+            toAdd.add(mergedState);
+          }
+        }
+      } finally {
+        // If we terminate, we should still update the reachedSet if necessary
+        // because ARGCPA doesn't like states in toRemove to be in the reachedSet.
+        reachedSet.removeAll(toRemove);
+        exploration.unfinished.removeAll(toRemove);
+        for (AbstractState mergedState : toAdd) {
+          exploration.unfinished.add(mergedState);
+          reachedSet.add(mergedState, successorPrecision);
+        }
+      }
+
+      if (worker.mergeOperator instanceof ARGMergeJoinCPAEnabledAnalysis) {
+        ((ARGMergeJoinCPAEnabledAnalysis) worker.mergeOperator).cleanUp(reachedSet);
+      }
+    } finally {
+      worker.mergeTimer.stop();
+    }
+
+    for (AbstractState mergedState : toAdd) {
+      exploration.fork(mergedState, successorPrecision);
+    }
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    pStatsCollection.add(stats);
+  }
+}
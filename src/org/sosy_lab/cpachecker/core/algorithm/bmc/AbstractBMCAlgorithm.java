@@ -67,6 +67,7 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPABuilder;
@@ -601,9 +602,12 @@ abstract class AbstractBMCAlgorithm
       throws CPATransferException, InterruptedException, SolverException {
     BooleanFormula program = bfmgr.not(pCandidateInvariant.getAssertion(pReachedSet, fmgr, pmgr));
     logger.log(Level.INFO, "Starting satisfiability check...");
+    Timer baseCaseTimer = stats.getBaseCaseTimer(getCurrentLoopBound());
     stats.satCheck.start();
+    baseCaseTimer.start();
     pProver.push(program);
     boolean safe = pProver.isUnsat();
+    baseCaseTimer.stop();
     stats.satCheck.stop();
     // Leave program formula on solver stack until error path is created
 
@@ -758,10 +762,13 @@ abstract class AbstractBMCAlgorithm
 
       logger.log(Level.INFO, "Starting assertions check...");
 
+      Timer baseCaseTimer = stats.getBaseCaseTimer(getCurrentLoopBound());
       stats.assertionsCheck.start();
+      baseCaseTimer.start();
       prover.push(assertions);
       boolean sound = prover.isUnsat();
       prover.pop();
+      baseCaseTimer.stop();
       stats.assertionsCheck.stop();
 
       logger.log(Level.FINER, "Soundness after assertion checks:", sound);
@@ -773,6 +780,13 @@ abstract class AbstractBMCAlgorithm
     }
   }
 
+  /** Get the current loop bound of the unrolling, or 0 if the loops are not bounded. */
+  private int getCurrentLoopBound() {
+    LoopIterationBounding loopIterationBounding =
+        CPAs.retrieveCPA(cpa, LoopIterationBounding.class);
+    return loopIterationBounding == null ? 0 : loopIterationBounding.getMaxLoopIterations();
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     if (algorithm instanceof StatisticsProvider) {
@@ -24,6 +24,9 @@
 package org.sosy_lab.cpachecker.core.algorithm.bmc;
 
 import java.io.PrintStream;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
@@ -38,6 +41,19 @@ public class BMCStatistics implements Statistics {
 
   final Timer inductionPreparation = new Timer();
   final Timer inductionCheck = new Timer();
+  int stepCaseChecksWithReusedUnrolling = 0;
+
+  /** Solver time of the base case and of the step case, by the loop bound k of the check. */
+  private final NavigableMap<Integer, Timer> baseCaseTimeByK = new TreeMap<>();
+  private final NavigableMap<Integer, Timer> stepCaseTimeByK = new TreeMap<>();
+
+  Timer getBaseCaseTimer(int pK) {
+    return baseCaseTimeByK.computeIfAbsent(pK, k -> new Timer());
+  }
+
+  Timer getStepCaseTimer(int pK) {
+    return stepCaseTimeByK.computeIfAbsent(pK, k -> new Timer());
+  }
 
   @Override
   public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
@@ -56,6 +72,14 @@ public class BMCStatistics implements Statistics {
     if (inductionCheck.getNumberOfIntervals() > 0) {
       out.println("Time for induction formula creation: " + inductionPreparation);
       out.println("Time for induction check:            " + inductionCheck);
+      out.println(
+          "Number of induction checks with reused unrolling: " + stepCaseChecksWithReusedUnrolling);
+    }
+    for (Map.Entry<Integer, Timer> entry : baseCaseTimeByK.entrySet()) {
+      out.println("  Time for base case with k = " + entry.getKey() + ":  " + entry.getValue());
+    }
+    for (Map.Entry<Integer, Timer> entry : stepCaseTimeByK.entrySet()) {
+      out.println("  Time for step case with k = " + entry.getKey() + ":  " + entry.getValue());
     }
   }
 
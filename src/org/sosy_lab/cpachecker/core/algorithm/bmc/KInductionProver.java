@@ -58,8 +58,10 @@ import java.util.Set;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
@@ -143,6 +145,17 @@ class KInductionProver implements AutoCloseable {
 
   private final ProverEnvironmentWithFallback prover;
 
+  /**
+   * The assertion that some successor is reached in the unrolled step case, which stays on the
+   * bottom of the prover stack between induction checks, or null if the stack is empty. It only
+   * depends on the unrolling, so consecutive checks of candidates with the same k reuse it. This
+   * is not incremental across k: the assertion for k + 1 contains the whole unrolling again and
+   * replaces the one for k.
+   */
+  private @Nullable BooleanFormula successorExistsAssertionOnStack = null;
+
+  private @Nullable Object successorExistsAssertionOnStackId = null;
+
   private ExpressionTreeSupplier expressionTreeSupplier;
 
   private BooleanFormula loopHeadInvariants;
@@ -448,9 +461,12 @@ class KInductionProver implements AutoCloseable {
     logger.log(Level.INFO, "Starting induction check...");
 
     stats.inductionCheck.start();
+    Timer stepCaseTimer = stats.getStepCaseTimer(pK);
+    stepCaseTimer.start();
 
     // Try to prove the invariance of the assertion
-    Object successorExistsAssertionId = prover.push(successorExistsAssertion);
+    Object successorExistsAssertionId =
+        reuseOrReplaceSuccessorExistsAssertion(successorExistsAssertion);
     Object predecessorAssertionId =
         prover.push(
             predecessorAssertion); // Assert the formula we want to prove at the predecessors
@@ -581,8 +597,9 @@ class KInductionProver implements AutoCloseable {
     prover.pop();
 
     prover.pop(); // Pop invariant predecessor assertion
-    prover.pop(); // Pop end states
+    // The end states stay on the stack for the next check with the same unrolling
 
+    stepCaseTimer.stop();
     stats.inductionCheck.stop();
 
     logger.log(Level.FINER, "Soundness after induction check:", result.isSuccessful());
@@ -590,6 +607,28 @@ class KInductionProver implements AutoCloseable {
     return result;
   }
 
+  /**
+   * Make sure that the given successor-exists assertion is the only formula on the prover stack.
+   * If the previous check used the same unrolling, the assertion is already there and is reused.
+   * Otherwise (e.g., if k changed), the stack is cleared and the whole assertion is pushed again.
+   *
+   * @return the id of the assertion on the prover stack.
+   */
+  private Object reuseOrReplaceSuccessorExistsAssertion(BooleanFormula pSuccessorExistsAssertion)
+      throws InterruptedException {
+    if (pSuccessorExistsAssertion.equals(successorExistsAssertionOnStack) && prover.size() == 1) {
+      stats.stepCaseChecksWithReusedUnrolling++;
+      return successorExistsAssertionOnStackId;
+    }
+    // the unrolling changed (or a previous check was aborted), so start from an empty stack
+    while (!prover.isEmpty()) {
+      prover.pop();
+    }
+    successorExistsAssertionOnStackId = prover.push(pSuccessorExistsAssertion);
+    successorExistsAssertionOnStack = pSuccessorExistsAssertion;
+    return successorExistsAssertionOnStackId;
+  }
+
   private BooleanFormula assertCandidate(
       Iterable<AbstractState> pReached, CandidateInvariant pCandidateInvariant, int pK)
       throws CPATransferException, InterruptedException {
@@ -314,4 +314,8 @@ class ProverEnvironmentWithFallback
   public boolean isEmpty() {
     return stack.isEmpty();
   }
+
+  public int size() {
+    return stack.size();
+  }
 }
\ No newline at end of file
@@ -122,6 +122,7 @@ public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
       out.println("Number of SMT sat checks:           " + solver.satChecks);
       out.println("  trivial:                          " + solver.trivialSatChecks);
       out.println("  cached:                           " + solver.cachedSatChecks);
+      out.println("  cached (shared):                  " + solver.sharedCachedSatChecks);
       out.println("Number of refinements:              " + refinementTime.getNumberOfIntervals());
       if (useForcedCovering) {
         out.println("Number of forced coverings:         " + forceCoverTime.getNumberOfIntervals());
@@ -144,7 +145,11 @@ public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
     solver = Solver.create(config, pLogger, pShutdownNotifier);
     fmgr = solver.getFormulaManager();
     bfmgr = fmgr.getBooleanFormulaManager();
-    pfmgr = new CachingPathFormulaManager(new PathFormulaManagerImpl(fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD));
+    pfmgr =
+        new CachingPathFormulaManager(
+            new PathFormulaManagerImpl(
+                fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD),
+            config);
     imgr = new InterpolationManager(pfmgr, solver, cfa.getLoopStructure(), cfa.getVarClassification(), config, pShutdownNotifier, logger);
   }
 
@@ -66,6 +66,7 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGReachedSet;
 import org.sosy_lab.cpachecker.cpa.bam.BAMCPAWithBreakOnMissingBlock;
 import org.sosy_lab.cpachecker.cpa.bam.BAMReachedSetValidator;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheConcurrent;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
@@ -282,6 +283,8 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final StatHist histActiveThreads = new StatHist("Active threads");
     final StatHist executionCounter = new StatHist("RSE execution counter");
     private final StatCounter unfinishedRSEcounter = new StatCounter("unfinished reached-sets");
+    final StatCounter coalescedSubAnalyses =
+        new StatCounter("sub-analyses coalesced with existing RSE");
 
     final StatisticsSeries<Integer> runningRSESeries =
         (runningRSESeriesFile == null) ? new NoopStatisticsSeries<>() : new StatisticsSeries<>();
@@ -292,6 +295,12 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       StatisticsUtils.write(pOut, 0, 50, histActiveThreads);
       StatisticsUtils.write(pOut, 0, 50, executionCounter);
       StatisticsUtils.write(pOut, 0, 50, unfinishedRSEcounter);
+      StatisticsUtils.write(pOut, 0, 50, coalescedSubAnalyses);
+      if (bamcpa.getCache() instanceof BAMCacheConcurrent) {
+        BAMCacheConcurrent cache = (BAMCacheConcurrent) bamcpa.getCache();
+        StatisticsUtils.write(pOut, 1, 50, cache.getCoalescedCreations());
+        StatisticsUtils.write(pOut, 1, 50, cache.getContendedAccesses());
+      }
       StatisticsUtils.write(pOut, 0, 50, wallTime);
       StatisticsUtils.write(pOut, 0, 50, threadTime);
       StatisticsUtils.write(pOut, 1, 50, addingStatesTime);
@@ -66,7 +66,6 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.bam.BAMCPAWithBreakOnMissingBlock;
 import org.sosy_lab.cpachecker.cpa.bam.MissingBlockAbstractionState;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.exceptions.UnsupportedCodeException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
@@ -490,27 +489,17 @@ class ReachedSetExecutor {
    */
   private ReachedSetExecutor createAndRegisterNewReachedSet(MissingBlockAbstractionState pBsme) {
     ReachedSet newRs = pBsme.getReachedSet();
-    BAMDataManager data = bamcpa.getData();
-
-    synchronized (data) {
-      if (newRs == null) {
-        // We are only synchronized in the current method. Thus, we need to check
-        // the cache again, maybe another thread already created the needed reached-set.
-        final BAMCacheEntry entry =
-            data.getCache()
-                .get(pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
-        newRs = entry == null ? null : entry.getReachedSet();
-      }
 
-      // now we can be sure, whether the sub-reached-set exists or not.
-      if (newRs == null) {
-        // we have not even cached a partly computed reached-set,
-        // so we must compute the subgraph specification from scratch
-        BAMCacheEntry entry =
-            data.createAndRegisterNewReachedSet(
-                pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
-        newRs = entry.getReachedSet();
-      }
+    if (newRs == null) {
+      // We need to check the cache again, maybe another thread already created the needed
+      // reached-set. If not, we have not even cached a partly computed reached-set,
+      // so we must compute the subgraph specification from scratch.
+      newRs =
+          bamcpa
+              .getData()
+              .getOrCreateReachedSet(
+                  pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock())
+              .getReachedSet();
     }
 
     ReachedSetExecutor newSubRse =
@@ -530,9 +519,12 @@ class ReachedSetExecutor {
 
     // check whether we already have a matching RSE. If not use the new one.
     ReachedSetExecutor subRse = reachedSetMapping.putIfAbsent(newRs, newSubRse);
-    if (subRse == null) { // there was an already existent RSE
+    if (subRse == null) { // there was no existent RSE
       subRse = newSubRse;
       logger.logf(level, "%s :: register subRSE %s", this, id(newRs));
+    } else {
+      // the block is already analyzed by another RSE, we wait for its result
+      stats.coalescedSubAnalyses.inc();
     }
     return subRse;
   }
@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.core.defaults;
 
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -138,4 +140,19 @@ public abstract class GenericReducer<S extends AbstractState, P extends Precisio
   public boolean canBeUsedInCache(AbstractState pState) {
     return canBeUsedInCache0((S) pState);
   }
+
+  @Override
+  public final @Nullable String getCanonicalEncoding(
+      AbstractState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    return getCanonicalEncoding0((S) pStateKey, (P) pPrecisionKey, pContext, pNodeEncoding);
+  }
+
+  protected @Nullable String getCanonicalEncoding0(
+      S pStateKey, P pPrecisionKey, Block pContext, Function<CFANode, String> pNodeEncoding) {
+    // default
+    return Reducer.super.getCanonicalEncoding(pStateKey, pPrecisionKey, pContext, pNodeEncoding);
+  }
 }
@@ -27,12 +27,17 @@ import java.util.Collection;
 
 import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 
 /**
  * Standard stop-sep operator
+ *
+ * If the abstract states implement {@link AbstractStateWithCoverageSignature},
+ * reached states whose signature rules out coverage are skipped
+ * without calling the abstract domain.
  */
 public class StopSepOperator implements StopOperator {
 
@@ -50,6 +55,16 @@ public class StopSepOperator implements StopOperator {
   public boolean stop(AbstractState el, Collection<AbstractState> reached, Precision precision)
     throws CPAException, InterruptedException {
 
+    if (el instanceof AbstractStateWithCoverageSignature) {
+      long signature = ((AbstractStateWithCoverageSignature) el).getCoverageSignature();
+      for (AbstractState reachedState : reached) {
+        if (mayBeCoveredBy(signature, reachedState) && domain.isLessOrEqual(el, reachedState)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
     for (AbstractState reachedState : reached) {
       if (domain.isLessOrEqual(el, reachedState)) {
         return true;
@@ -57,4 +72,10 @@ public class StopSepOperator implements StopOperator {
     }
     return false;
   }
+
+  private static boolean mayBeCoveredBy(long pSignature, AbstractState pReachedState) {
+    return !(pReachedState instanceof AbstractStateWithCoverageSignature)
+        || AbstractStateWithCoverageSignature.mayBeLessOrEqual(
+            pSignature, ((AbstractStateWithCoverageSignature) pReachedState).getCoverageSignature());
+  }
 }
@@ -0,0 +1,74 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
+
+/**
+ * This interface can be used for abstract states that provide a cheap signature that allows to
+ * rule out coverage without executing the (potentially expensive) check of the abstract domain.
+ *
+ * <p>The signature is a set of bits (similar to a Bloom filter) that describes the information
+ * that is contained in the state. More abstract states contain less information and thus have
+ * less bits: If a state s1 is 'lessOrEqual' to a state s2, all bits of the signature of s2 are
+ * also set in the signature of s1. Thus if the signature of s2 contains a bit that is missing in
+ * the signature of s1, then s1 is definitely not 'lessOrEqual' to s2.
+ *
+ * <p>Examples for the information in the signature are the set of tracked variables or the hash
+ * codes of variable assignments. A signature where all bits are set is always valid, but useless.
+ *
+ * <p>The signature is used by {@link StopSepOperator} and may be requested often, so it should be
+ * cached by the implementation.
+ */
+public interface AbstractStateWithCoverageSignature {
+
+  /**
+   * Returns the signature of this state.
+   *
+   * @return a set of bits such that for all states s2 with {@code this} 'lessOrEqual' s2, all bits
+   *     of {@code s2.getCoverageSignature()} are also set in the returned value.
+   */
+  long getCoverageSignature();
+
+  /**
+   * Check whether a state with the first signature might be 'lessOrEqual' to a state with the
+   * second signature.
+   *
+   * @return false if the first state is definitely not 'lessOrEqual' to the second state.
+   */
+  static boolean mayBeLessOrEqual(long pSignature1, long pSignature2) {
+    return (pSignature2 & ~pSignature1) == 0;
+  }
+
+  /**
+   * Compute the bit that represents the given hash code in a signature. This is a helper for
+   * implementations that build their signature from the hash codes of their contents.
+   */
+  static long bitForHashCode(int pHashCode) {
+    // spread the higher bits of the hash code, like HashMap does
+    int h = pHashCode ^ (pHashCode >>> 16);
+    h ^= h >>> 6;
+    return 1L << (h & 63);
+  }
+}
@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.core.interfaces;
 
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -140,4 +142,42 @@ public interface Reducer {
   default boolean canBeUsedInCache(AbstractState pState) {
     return true;
   }
+
+  /**
+   * Return a canonical encoding of a reduced state of the block {@code context} together with the
+   * reduced precision of the block. The encoding is stored persistently to identify block
+   * summaries in a later run (cf. option {@code cpa.bam.summaries.inputFile}), thus equal
+   * encodings may only be returned for states and precisions that are equal with respect to
+   * {@link #getHashCodeForState(AbstractState, Precision)}, also across different runs.
+   *
+   * <p>CFA nodes may not be encoded by their number, which changes between program versions, but
+   * only with {@code nodeEncoding}. It returns null for nodes outside of the block.
+   *
+   * <p>The default implementation does not support such an encoding.
+   *
+   * @param stateKey a reduced state of the block, e.g., its reduced entry state
+   * @param precisionKey the reduced precision of the block
+   * @param context the block
+   * @param nodeEncoding the canonical encoding of the nodes of the block
+   * @return the encoding, or null if the state or the precision cannot be encoded
+   */
+  default @Nullable String getCanonicalEncoding(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Function<CFANode, String> nodeEncoding) {
+    return null;
+  }
+
+  /**
+   * Concatenate several canonical encodings such that the result is again canonical, i.e.,
+   * different lists of encodings result in different concatenations.
+   */
+  static String concatEncodings(Iterable<String> pEncodings) {
+    StringBuilder result = new StringBuilder();
+    for (String encoding : pEncodings) {
+      result.append(encoding.length()).append(':').append(encoding);
+    }
+    return result.toString();
+  }
 }
@@ -0,0 +1,481 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.FluentIterable.from;
+import static org.sosy_lab.cpachecker.util.AbstractStates.IS_TARGET_STATE;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Property;
+import org.sosy_lab.cpachecker.core.interfaces.Targetable;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Thread-safe implementation of the reached set that partitions the set by the keys of {@link
+ * Partitionable} states, like {@link PartitionedReachedSet}.
+ *
+ * <p>Reading operations (e.g., {@link #getReached(AbstractState)} for the stop and merge
+ * operators, {@link #contains(AbstractState)}, and {@link #getPrecision(AbstractState)}) do not
+ * block. Modifications are synchronized with a lock per partition (lock striping), such that
+ * states in different partitions can be added concurrently. Clients can use {@link
+ * #getLock(AbstractState)} to execute several operations on one partition atomically, e.g., a stop
+ * check and adding the state. Only the waitlist is guarded by a single lock, because the waitlist
+ * implementations are not thread-safe.
+ *
+ * <p>All returned collections are weakly consistent views, i.e., they never throw a {@link
+ * java.util.ConcurrentModificationException} and may or may not reflect concurrent
+ * modifications. They preserve the order in which the states were added.
+ */
+public class ConcurrentPartitionedReachedSet implements ReachedSet {
+
+  /** The number of locks per available processor, the more the less contention. */
+  private static final int STRIPES_PER_PROCESSOR = 4;
+
+  /** Replacement for the partition key null, which is not allowed in concurrent maps. */
+  private static final Object NULL_KEY = new Object();
+
+  /** The precision of a state and the position at which the state was added. */
+  private static final class ReachedEntry {
+    private final long id;
+    private final Precision precision;
+
+    private ReachedEntry(long pId, Precision pPrecision) {
+      id = pId;
+      precision = pPrecision;
+    }
+  }
+
+  /** The states of one partition, ordered by the time they were added. */
+  private static final class Partition extends AbstractCollection<AbstractState> {
+    private final ConcurrentSkipListMap<Long, AbstractState> states =
+        new ConcurrentSkipListMap<>();
+
+    /** Size of the partition, because {@link ConcurrentSkipListMap#size()} is expensive. */
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return Iterators.unmodifiableIterator(states.values().iterator());
+    }
+
+    @Override
+    public int size() {
+      return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size.get() == 0;
+    }
+  }
+
+  private final AtomicLong nextId = new AtomicLong(0);
+  private final ConcurrentMap<AbstractState, ReachedEntry> reached = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, AbstractState> reachedInOrder =
+      new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+  private final Striped<Lock> locks;
+
+  private volatile @Nullable AbstractState firstState = null;
+  private volatile @Nullable AbstractState lastState = null;
+
+  private final Waitlist waitlist;
+  private final Object waitlistLock = new Object();
+
+  private final Set<AbstractState> unmodifiableReached =
+      new AbstractSet<AbstractState>() {
+        @Override
+        public Iterator<AbstractState> iterator() {
+          return Iterators.unmodifiableIterator(reachedInOrder.values().iterator());
+        }
+
+        @Override
+        public boolean contains(Object pObj) {
+          return reached.containsKey(pObj);
+        }
+
+        @Override
+        public int size() {
+          return reached.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+          return reached.isEmpty();
+        }
+      };
+
+  public ConcurrentPartitionedReachedSet(WaitlistFactory pWaitlistFactory) {
+    waitlist = pWaitlistFactory.createWaitlistInstance();
+    locks = Striped.lock(STRIPES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Returns the (reentrant) lock that guards the partition of the given state. All modifications
+   * of this partition acquire this lock.
+   */
+  public Lock getLock(AbstractState pState) {
+    return locks.get(getPartitionKey(pState));
+  }
+
+  @Override
+  public void add(AbstractState pState, Precision pPrecision) throws IllegalArgumentException {
+    checkNotNull(pState);
+    checkNotNull(pPrecision);
+    Object key = getPartitionKey(pState);
+
+    Lock lock = locks.get(key);
+    lock.lock();
+    try {
+      ReachedEntry previous = reached.get(pState);
+      if (previous != null) {
+        // State was already in the reached set (cf. DefaultReachedSet#add).
+        checkArgument(
+            pPrecision.equals(previous.precision),
+            "State added to reached set which is already contained, but with a different precision");
+        return;
+      }
+
+      ReachedEntry entry = new ReachedEntry(nextId.getAndIncrement(), pPrecision);
+      Partition partition = partitions.computeIfAbsent(key, k -> new Partition());
+      partition.states.put(entry.id, pState);
+      partition.size.incrementAndGet();
+      reachedInOrder.put(entry.id, pState);
+      reached.put(pState, entry);
+
+      synchronized (waitlistLock) {
+        if (firstState == null && entry.id == reachedInOrder.firstKey()) {
+          firstState = pState;
+        }
+        lastState = pState;
+        waitlist.add(pState);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void addAll(Iterable<Pair<AbstractState, Precision>> pToAdd) {
+    for (Pair<AbstractState, Precision> pair : pToAdd) {
+      add(pair.getFirst(), pair.getSecond());
+    }
+  }
+
+  @Override
+  public void reAddToWaitlist(AbstractState pState) {
+    checkNotNull(pState);
+    checkArgument(reached.containsKey(pState), "State has to be in the reached set");
+
+    synchronized (waitlistLock) {
+      if (!waitlist.contains(pState)) {
+        waitlist.add(pState);
+      }
+    }
+  }
+
+  @Override
+  public void updatePrecision(AbstractState pState, Precision pNewPrecision) {
+    checkNotNull(pState);
+    checkNotNull(pNewPrecision);
+
+    Lock lock = getLock(pState);
+    lock.lock();
+    try {
+      ReachedEntry oldEntry = reached.get(pState);
+      checkArgument(
+          oldEntry != null,
+          "State needs to be in the reached set in order to change the precision.");
+      reached.put(pState, new ReachedEntry(oldEntry.id, pNewPrecision));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void remove(AbstractState pState) {
+    checkNotNull(pState);
+    Object key = getPartitionKey(pState);
+
+    Lock lock = locks.get(key);
+    lock.lock();
+    try {
+      ReachedEntry entry = reached.remove(pState);
+      if (entry == null) {
+        return;
+      }
+      reachedInOrder.remove(entry.id);
+      Partition partition = partitions.get(key);
+      partition.states.remove(entry.id);
+      if (partition.size.decrementAndGet() == 0) {
+        partitions.remove(key);
+      }
+
+      synchronized (waitlistLock) {
+        if (pState.equals(firstState)) {
+          firstState = null;
+        }
+        if (pState.equals(lastState)) {
+          lastState = null;
+        }
+        waitlist.remove(pState);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends AbstractState> pToRemove) {
+    for (AbstractState state : pToRemove) {
+      remove(state);
+    }
+  }
+
+  @Override
+  public void removeOnlyFromWaitlist(AbstractState pState) {
+    checkNotNull(pState);
+    synchronized (waitlistLock) {
+      waitlist.remove(pState);
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < locks.size(); i++) {
+      locks.getAt(i).lock();
+    }
+    try {
+      synchronized (waitlistLock) {
+        firstState = null;
+        lastState = null;
+        waitlist.clear();
+        reached.clear();
+        reachedInOrder.clear();
+        partitions.clear();
+      }
+    } finally {
+      for (int i = 0; i < locks.size(); i++) {
+        locks.getAt(i).unlock();
+      }
+    }
+  }
+
+  @Override
+  public Set<AbstractState> asCollection() {
+    return unmodifiableReached;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return unmodifiableReached.iterator();
+  }
+
+  @Override
+  public Collection<Precision> getPrecisions() {
+    return from(reachedInOrder.values())
+        .transform(this::getPrecisionOrNull)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(AbstractState pState) {
+    return getReachedForKey(getPartitionKey(pState));
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode pLocation) {
+    checkNotNull(pLocation);
+    return asCollection();
+  }
+
+  @Override
+  public @Nullable AbstractState getFirstState() {
+    return firstState;
+  }
+
+  @Override
+  public @Nullable AbstractState getLastState() {
+    return lastState;
+  }
+
+  @Override
+  public boolean hasWaitingState() {
+    synchronized (waitlistLock) {
+      return !waitlist.isEmpty();
+    }
+  }
+
+  @Override
+  public Collection<AbstractState> getWaitlist() {
+    return new AbstractCollection<AbstractState>() {
+
+      @Override
+      public Iterator<AbstractState> iterator() {
+        synchronized (waitlistLock) {
+          return ImmutableList.copyOf(waitlist.iterator()).iterator();
+        }
+      }
+
+      @Override
+      public boolean contains(Object pObj) {
+        if (!(pObj instanceof AbstractState)) {
+          return false;
+        }
+        synchronized (waitlistLock) {
+          return waitlist.contains((AbstractState) pObj);
+        }
+      }
+
+      @Override
+      public boolean isEmpty() {
+        synchronized (waitlistLock) {
+          return waitlist.isEmpty();
+        }
+      }
+
+      @Override
+      public int size() {
+        synchronized (waitlistLock) {
+          return waitlist.size();
+        }
+      }
+
+      @Override
+      public String toString() {
+        synchronized (waitlistLock) {
+          return waitlist.toString();
+        }
+      }
+    };
+  }
+
+  @Override
+  public AbstractState popFromWaitlist() {
+    synchronized (waitlistLock) {
+      return waitlist.pop();
+    }
+  }
+
+  @Override
+  public Precision getPrecision(AbstractState pState) {
+    checkNotNull(pState);
+    Precision prec = getPrecisionOrNull(pState);
+    checkArgument(prec != null, "State not in reached set:\n%s", pState);
+    return prec;
+  }
+
+  private @Nullable Precision getPrecisionOrNull(AbstractState pState) {
+    ReachedEntry entry = reached.get(pState);
+    return entry == null ? null : entry.precision;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super AbstractState, ? super Precision> pAction) {
+    for (AbstractState state : reachedInOrder.values()) {
+      Precision prec = getPrecisionOrNull(state);
+      if (prec != null) {
+        pAction.accept(state, prec);
+      }
+    }
+  }
+
+  @Override
+  public boolean contains(AbstractState pState) {
+    checkNotNull(pState);
+    return reached.containsKey(pState);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return reached.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return reached.size();
+  }
+
+  public int getNumberOfPartitions() {
+    return partitions.size();
+  }
+
+  @Override
+  public boolean hasViolatedProperties() {
+    return from(unmodifiableReached).anyMatch(IS_TARGET_STATE);
+  }
+
+  @Override
+  public Collection<Property> getViolatedProperties() {
+    return from(unmodifiableReached)
+        .filter(IS_TARGET_STATE)
+        .filter(Targetable.class)
+        .transformAndConcat(Targetable::getViolatedProperties)
+        .toSet();
+  }
+
+  @Override
+  public String toString() {
+    return ImmutableSet.copyOf(unmodifiableReached).toString();
+  }
+
+  private Object getPartitionKey(AbstractState pState) {
+    checkNotNull(pState);
+    assert pState instanceof Partitionable
+        : "Partitionable states necessary for ConcurrentPartitionedReachedSet";
+    Object key = ((Partitionable) pState).getPartitionKey();
+    return key == null ? NULL_KEY : key;
+  }
+
+  private Collection<AbstractState> getReachedForKey(Object pKey) {
+    Partition partition = partitions.get(pKey);
+    return partition == null ? ImmutableList.of() : partition;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+/**
+ * Compares {@link ConcurrentPartitionedReachedSet} against the sequential {@link
+ * PartitionedReachedSet}, both for sequential and for concurrent usage.
+ */
+public class ConcurrentPartitionedReachedSetTest {
+
+  private static final int THREADS = 8;
+  private static final int STATES_PER_THREAD = 5000;
+  private static final int PARTITIONS = 50;
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  /** State with identity-based equality, partitioned by value. */
+  private static class DummyState implements AbstractState, Partitionable {
+    private final int value;
+
+    private DummyState(int pValue) {
+      value = pValue;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return value % PARTITIONS;
+    }
+
+    @Override
+    public String toString() {
+      return "DummyState " + value;
+    }
+  }
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void sequentialOperationsMatchPartitionedReachedSet() {
+    ReachedSet expected = new PartitionedReachedSet(TraversalMethod.DFS);
+    ReachedSet actual = new ConcurrentPartitionedReachedSet(TraversalMethod.DFS);
+    List<DummyState> states = new ArrayList<>();
+    Random random = new Random(0);
+
+    for (int i = 0; i < 10000; i++) {
+      int operation = random.nextInt(10);
+      if (operation < 6 || states.isEmpty()) {
+        DummyState state = new DummyState(random.nextInt(1000));
+        states.add(state);
+        expected.add(state, PRECISION);
+        actual.add(state, PRECISION);
+
+      } else if (operation < 8) {
+        DummyState state = states.remove(random.nextInt(states.size()));
+        expected.remove(state);
+        actual.remove(state);
+
+      } else if (expected.hasWaitingState()) {
+        assertThat(actual.hasWaitingState()).isTrue();
+        assertThat(actual.popFromWaitlist()).isSameAs(expected.popFromWaitlist());
+      }
+    }
+
+    assertSameContent(expected, actual);
+    assertThat(actual.getWaitlist()).containsExactlyElementsIn(expected.getWaitlist()).inOrder();
+    assertThat(actual.getFirstState()).isSameAs(expected.getFirstState());
+    assertThat(actual.getLastState()).isSameAs(expected.getLastState());
+
+    actual.clear();
+    assertThat(actual.isEmpty()).isTrue();
+    assertThat(actual.hasWaitingState()).isFalse();
+  }
+
+  @Test
+  public void concurrentAddAndPop() throws Exception {
+    ConcurrentPartitionedReachedSet reached =
+        new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    List<Future<List<AbstractState>>> results = new ArrayList<>();
+
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      Callable<List<AbstractState>> task =
+          () -> {
+            List<AbstractState> popped = new ArrayList<>();
+            barrier.await();
+            for (int i = 0; i < STATES_PER_THREAD; i++) {
+              DummyState state = new DummyState(thread * STATES_PER_THREAD + i);
+              reached.add(state, PRECISION);
+              // add twice, as happens if merge returns a state that is already contained
+              reached.add(state, PRECISION);
+              assertThat(reached.getReached(state)).contains(state);
+              if (i % 2 == 0) {
+                AbstractState next = popIfPossible(reached);
+                if (next != null) {
+                  popped.add(next);
+                }
+              }
+            }
+            return popped;
+          };
+      results.add(executor.submit(task));
+    }
+
+    List<AbstractState> popped = new ArrayList<>();
+    for (Future<List<AbstractState>> result : results) {
+      popped.addAll(result.get());
+    }
+    while (reached.hasWaitingState()) {
+      popped.add(reached.popFromWaitlist());
+    }
+
+    // every state was added to the waitlist exactly once
+    assertThat(popped).hasSize(THREADS * STATES_PER_THREAD);
+    assertThat(popped).containsNoDuplicates();
+    assertThat(reached.size()).isEqualTo(THREADS * STATES_PER_THREAD);
+    assertThat(reached.asCollection()).containsExactlyElementsIn(popped);
+
+    ReachedSet expected = new PartitionedReachedSet(TraversalMethod.BFS);
+    for (AbstractState state : reached) {
+      expected.add(state, PRECISION);
+    }
+    assertSameContent(expected, reached);
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(PARTITIONS);
+  }
+
+  @Test
+  public void concurrentStopAndAddIsAtomic() throws Exception {
+    ConcurrentPartitionedReachedSet reached =
+        new ConcurrentPartitionedReachedSet(TraversalMethod.DFS);
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    List<Future<?>> results = new ArrayList<>();
+
+    // All threads try to add states with the same values,
+    // a state is "covered" if the reached set already contains a state with the same value.
+    for (int t = 0; t < THREADS; t++) {
+      final long seed = t;
+      Callable<Void> task =
+          () -> {
+            Random random = new Random(seed);
+            barrier.await();
+            for (int i = 0; i < STATES_PER_THREAD; i++) {
+              DummyState state = new DummyState(random.nextInt(STATES_PER_THREAD));
+              Lock lock = reached.getLock(state);
+              lock.lock();
+              try {
+                if (!isCovered(state, reached.getReached(state))) {
+                  reached.add(state, PRECISION);
+                }
+              } finally {
+                lock.unlock();
+              }
+            }
+            return null;
+          };
+      results.add(executor.submit(task));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+
+    Set<Integer> values = new HashSet<>();
+    for (AbstractState state : reached) {
+      assertThat(values.add(((DummyState) state).value)).isTrue();
+    }
+    assertThat(reached.getWaitlist()).hasSize(values.size());
+  }
+
+  private static boolean isCovered(DummyState pState, Iterable<AbstractState> pReached) {
+    for (AbstractState other : pReached) {
+      if (((DummyState) other).value == pState.value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static AbstractState popIfPossible(ReachedSet pReached) {
+    // hasWaitingState() and popFromWaitlist() are not atomic together
+    try {
+      return pReached.popFromWaitlist();
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  private static void assertSameContent(ReachedSet pExpected, ReachedSet pActual) {
+    assertThat(pActual.asCollection())
+        .containsExactlyElementsIn(pExpected.asCollection())
+        .inOrder();
+    assertThat(pActual.size()).isEqualTo(pExpected.size());
+    for (AbstractState state : pExpected) {
+      assertThat(pActual.contains(state)).isTrue();
+      assertThat(pActual.getPrecision(state)).isEqualTo(pExpected.getPrecision(state));
+      assertThat(pActual.getReached(state))
+          .containsExactlyElementsIn(ImmutableList.copyOf(pExpected.getReached(state)))
+          .inOrder();
+    }
+  }
+}
@@ -54,7 +54,7 @@ import org.sosy_lab.cpachecker.cpa.usage.UsageReachedSet;
 public class ReachedSetFactory {
 
   private enum ReachedSetType {
-    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED, USAGE
+    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED, CONCURRENT_PARTITIONED, USAGE
   }
 
   @Option(
@@ -189,6 +189,8 @@ public class ReachedSetFactory {
             + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)"
             + "\nPSEUDOPARTITIONED: based on PARTITIONED, uses additional info about the states' lattice "
             + "(maybe faster for some special analyses which use merge_sep and stop_sep"
+            + "\nCONCURRENT_PARTITIONED: like PARTITIONED, but thread-safe "
+            + "(for parallel exploration of the state space)"
   )
   private ReachedSetType reachedSet = ReachedSetType.PARTITIONED;
 
@@ -268,6 +270,9 @@ public class ReachedSetFactory {
     case PSEUDOPARTITIONED:
       return new PseudoPartitionedReachedSet(waitlistFactory);
 
+    case CONCURRENT_PARTITIONED:
+      return new ConcurrentPartitionedReachedSet(waitlistFactory);
+
     case LOCATIONMAPPED:
       return new LocationMappedReachedSet(waitlistFactory);
 
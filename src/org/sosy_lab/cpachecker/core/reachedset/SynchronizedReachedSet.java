@@ -0,0 +1,203 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Property;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * Implementation of ReachedSet that makes another instance thread-safe by synchronizing all calls
+ * on this object.
+ *
+ * <p>In contrast to the specification of {@link UnmodifiableReachedSet}, all returned collections
+ * are copies of the current content and are not updated if the reached set changes afterwards.
+ * Clients that need a sequence of operations to be atomic (e.g., a stop check followed by adding
+ * a state) can synchronize on this object.
+ */
+public class SynchronizedReachedSet implements ReachedSet, StatisticsProvider {
+
+  private final ReachedSet delegate;
+
+  public SynchronizedReachedSet(ReachedSet pDelegate) {
+    delegate = checkNotNull(pDelegate);
+  }
+
+  public ReachedSet getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public synchronized Set<AbstractState> asCollection() {
+    return ImmutableSet.copyOf(delegate.asCollection());
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return asCollection().iterator();
+  }
+
+  @Override
+  public synchronized Collection<Precision> getPrecisions() {
+    return ImmutableList.copyOf(delegate.getPrecisions());
+  }
+
+  @Override
+  public synchronized Collection<AbstractState> getReached(AbstractState pState)
+      throws UnsupportedOperationException {
+    return ImmutableList.copyOf(delegate.getReached(pState));
+  }
+
+  @Override
+  public synchronized Collection<AbstractState> getReached(CFANode pLocation) {
+    return ImmutableList.copyOf(delegate.getReached(pLocation));
+  }
+
+  @Override
+  public synchronized AbstractState getFirstState() {
+    return delegate.getFirstState();
+  }
+
+  @Override
+  public synchronized AbstractState getLastState() {
+    return delegate.getLastState();
+  }
+
+  @Override
+  public synchronized boolean hasWaitingState() {
+    return delegate.hasWaitingState();
+  }
+
+  @Override
+  public synchronized Collection<AbstractState> getWaitlist() {
+    return ImmutableList.copyOf(delegate.getWaitlist());
+  }
+
+  @Override
+  public synchronized Precision getPrecision(AbstractState pState)
+      throws UnsupportedOperationException {
+    return delegate.getPrecision(pState);
+  }
+
+  @Override
+  public synchronized void forEach(BiConsumer<? super AbstractState, ? super Precision> pAction) {
+    delegate.forEach(pAction);
+  }
+
+  @Override
+  public synchronized boolean contains(AbstractState pState) {
+    return delegate.contains(pState);
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  @Override
+  public synchronized int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public synchronized void add(AbstractState pState, Precision pPrecision)
+      throws IllegalArgumentException {
+    delegate.add(pState, pPrecision);
+  }
+
+  @Override
+  public synchronized void addAll(Iterable<Pair<AbstractState, Precision>> pToAdd) {
+    delegate.addAll(pToAdd);
+  }
+
+  @Override
+  public synchronized void reAddToWaitlist(AbstractState pE) {
+    delegate.reAddToWaitlist(pE);
+  }
+
+  @Override
+  public synchronized void updatePrecision(AbstractState pE, Precision pNewPrecision) {
+    delegate.updatePrecision(pE, pNewPrecision);
+  }
+
+  @Override
+  public synchronized void remove(AbstractState pState) {
+    delegate.remove(pState);
+  }
+
+  @Override
+  public synchronized void removeAll(Iterable<? extends AbstractState> pToRemove) {
+    delegate.removeAll(pToRemove);
+  }
+
+  @Override
+  public synchronized void removeOnlyFromWaitlist(AbstractState pState) {
+    delegate.removeOnlyFromWaitlist(pState);
+  }
+
+  @Override
+  public synchronized void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public synchronized AbstractState popFromWaitlist() {
+    return delegate.popFromWaitlist();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return delegate.toString();
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> statsCollection) {
+    checkNotNull(statsCollection);
+    if (delegate instanceof StatisticsProvider) {
+      ((StatisticsProvider) delegate).collectStatistics(statsCollection);
+    }
+  }
+
+  @Override
+  public synchronized boolean hasViolatedProperties() {
+    return delegate.hasViolatedProperties();
+  }
+
+  @Override
+  public synchronized Collection<Property> getViolatedProperties() {
+    return ImmutableList.copyOf(delegate.getViolatedProperties());
+  }
+}
@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.cpa.arg;
 
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -66,6 +68,16 @@ class ARGReducer extends GenericReducer<ARGState, Precision> {
     return wrappedReducer.getHashCodeForState(pElementKey.getWrappedState(), pPrecisionKey);
   }
 
+  @Override
+  protected @Nullable String getCanonicalEncoding0(
+      ARGState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    return wrappedReducer.getCanonicalEncoding(
+        pStateKey.getWrappedState(), pPrecisionKey, pContext, pNodeEncoding);
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(Precision pPrecision, Block pContext) {
     return wrappedReducer.getVariableReducedPrecision(pPrecision, pContext);
@@ -29,11 +29,15 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.google.common.graph.Traverser;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
@@ -54,14 +58,18 @@ import org.sosy_lab.cpachecker.util.AbstractStates;
 public class ARGState extends AbstractSingleWrapperState
     implements Comparable<ARGState>, Graphable, Splitable{
 
-  private static final long serialVersionUID = 2608287648397165040L;
+  private static final long serialVersionUID = 2608287648397165041L;
 
-  // We use a List here although we would like to have a Set
-  // because ArrayList is much more memory efficient than e.g. LinkedHashSet.
-  // Also these collections are small and so a slow contains() method won't hurt.
-  // To enforce set semantics, do not add elements except through addparent()!
-  private final Collection<ARGState> children = new ArrayList<>(1);
-  private final Collection<ARGState> parents = new ArrayList<>(1);
+  // The children and parents of this state. There may be millions of ARG states, and most of them
+  // have exactly one parent and one child, thus we do not use collection objects here.
+  // Each field is either null (no element), a single ARGState, or an ARGState[] with at least two
+  // elements (ordered by insertion) followed by unused null slots. Arrays grow geometrically, and
+  // adding an element only fills the first unused slot. Elements in the array are never changed
+  // (removing creates a new array), such that iterators can use a prefix of an array without
+  // copying. Their contains() method is slow, but they are small.
+  // To enforce set semantics, do not add elements except through addParent()!
+  private Object children = null;
+  private Object parents = null;
 
   private ARGState mCoveredBy = null;
   private Set<ARGState> mCoveredByThis = null; // lazy initialization because rarely needed
@@ -81,6 +89,12 @@ public class ARGState extends AbstractSingleWrapperState
 
   private static final UniqueIdGenerator idGenerator = new UniqueIdGenerator();
 
+  /**
+   * Estimated size in bytes of an ARGState object without referenced objects, assuming a 64-bit
+   * JVM with compressed references (object header and nine fields with four bytes each).
+   */
+  private static final int ESTIMATED_SHALLOW_SIZE = 48;
+
   public ARGState(@Nullable AbstractState pWrappedState, @Nullable ARGState pParentElement) {
     super(pWrappedState);
     stateId = idGenerator.getFreshId();
@@ -96,7 +110,7 @@ public class ARGState extends AbstractSingleWrapperState
    * @return A unmodifiable collection of ARGStates without duplicates.
    */
   public Collection<ARGState> getParents() {
-    return Collections.unmodifiableCollection(parents);
+    return new LinkView(false);
   }
 
   public void addParent(ARGState pOtherParent) {
@@ -104,12 +118,12 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (!parents.contains(pOtherParent)) {
-      assert !pOtherParent.children.contains(this);
-      parents.add(pOtherParent);
-      pOtherParent.children.add(this);
+    if (!containsLink(parents, pOtherParent)) {
+      assert !containsLink(pOtherParent.children, this);
+      parents = addLink(parents, pOtherParent);
+      pOtherParent.children = addLink(pOtherParent.children, this);
     } else {
-      assert pOtherParent.children.contains(this);
+      assert containsLink(pOtherParent.children, this);
     }
   }
 
@@ -119,7 +133,133 @@ public class ARGState extends AbstractSingleWrapperState
    */
   public Collection<ARGState> getChildren() {
     assert !destroyed : "Don't use destroyed ARGState " + this;
-    return Collections.unmodifiableCollection(children);
+    return new LinkView(true);
+  }
+
+  /**
+   * An unmodifiable view on the children or parents of this state, reflecting all later changes.
+   */
+  private final class LinkView extends AbstractCollection<ARGState> {
+
+    private final boolean isChildren;
+
+    private LinkView(boolean pIsChildren) {
+      isChildren = pIsChildren;
+    }
+
+    private Object getLinks() {
+      return isChildren ? children : parents;
+    }
+
+    @Override
+    public Iterator<ARGState> iterator() {
+      return linksOf(getLinks()).iterator();
+    }
+
+    @Override
+    public int size() {
+      return countLinks(getLinks());
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return getLinks() == null;
+    }
+
+    @Override
+    public boolean contains(Object pO) {
+      return pO instanceof ARGState && containsLink(getLinks(), (ARGState) pO);
+    }
+  }
+
+  private static List<ARGState> linksOf(@Nullable Object pLinks) {
+    if (pLinks == null) {
+      return ImmutableList.of();
+    } else if (pLinks instanceof ARGState) {
+      return Collections.singletonList((ARGState) pLinks);
+    } else {
+      ARGState[] links = (ARGState[]) pLinks;
+      return Collections.unmodifiableList(Arrays.asList(links).subList(0, countArrayLinks(links)));
+    }
+  }
+
+  private static int countLinks(@Nullable Object pLinks) {
+    if (pLinks == null) {
+      return 0;
+    } else if (pLinks instanceof ARGState) {
+      return 1;
+    } else {
+      return countArrayLinks((ARGState[]) pLinks);
+    }
+  }
+
+  /** Returns the number of used slots of an array of links, i.e., the index of the first null. */
+  private static int countArrayLinks(ARGState[] pLinks) {
+    if (pLinks[pLinks.length - 1] != null) {
+      return pLinks.length;
+    }
+    // binary search, the used slots are a prefix of the array
+    int low = 2; // at least two slots are used
+    int high = pLinks.length - 1; // this slot is unused
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (pLinks[mid] == null) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  private static boolean containsLink(@Nullable Object pLinks, ARGState pState) {
+    if (pLinks instanceof ARGState[]) {
+      for (ARGState state : (ARGState[]) pLinks) {
+        if (state == pState) {
+          return true;
+        } else if (state == null) {
+          break;
+        }
+      }
+      return false;
+    }
+    return pLinks == pState;
+  }
+
+  /** Returns the links with the given state appended, the state must not be contained before. */
+  private static Object addLink(@Nullable Object pLinks, ARGState pState) {
+    if (pLinks == null) {
+      return pState;
+    } else if (pLinks instanceof ARGState) {
+      return new ARGState[] {(ARGState) pLinks, pState};
+    } else {
+      ARGState[] links = (ARGState[]) pLinks;
+      int size = countArrayLinks(links);
+      if (size == links.length) {
+        links = Arrays.copyOf(links, 2 * size);
+      }
+      links[size] = pState;
+      return links;
+    }
+  }
+
+  /** Returns the links without the given state, or the given links if it is not contained. */
+  private static @Nullable Object removeLink(@Nullable Object pLinks, ARGState pState) {
+    if (!(pLinks instanceof ARGState[])) {
+      return pLinks == pState ? null : pLinks;
+    }
+    ARGState[] oldLinks = (ARGState[]) pLinks;
+    int size = countArrayLinks(oldLinks);
+    int index = Arrays.asList(oldLinks).subList(0, size).indexOf(pState);
+    if (index < 0) {
+      return pLinks;
+    } else if (size == 2) {
+      return oldLinks[1 - index];
+    }
+    ARGState[] newLinks = new ARGState[size - 1];
+    System.arraycopy(oldLinks, 0, newLinks, 0, index);
+    System.arraycopy(oldLinks, index + 1, newLinks, index, newLinks.length - index);
+    return newLinks;
   }
 
   /**
@@ -298,10 +438,28 @@ public class ARGState extends AbstractSingleWrapperState
   }
 
   void deleteChild(ARGState child) {
-    assert (children.contains(child));
-    assert (child.parents.contains(this));
-    children.remove(child);
-    child.parents.remove(this);
+    assert containsLink(children, child);
+    assert containsLink(child.parents, this);
+    children = removeLink(children, child);
+    child.parents = removeLink(child.parents, this);
+  }
+
+  /**
+   * Returns an estimate of the memory in bytes that is used by this state for the ARG structure,
+   * i.e., for the state object and its references to parents and children, but without the wrapped
+   * state and the (rarely used) coverage relation.
+   */
+  long getEstimatedARGMemory() {
+    return ESTIMATED_SHALLOW_SIZE + estimateArraySize(children) + estimateArraySize(parents);
+  }
+
+  private static long estimateArraySize(@Nullable Object pLinks) {
+    if (!(pLinks instanceof ARGState[])) {
+      return 0;
+    }
+    // array header and four bytes per element, aligned to eight bytes
+    long size = 16 + 4L * ((ARGState[]) pLinks).length;
+    return (size + 7) / 8 * 8;
   }
 
   // counterexample
@@ -389,9 +547,9 @@ public class ARGState extends AbstractSingleWrapperState
     sb.append(stateId);
     if (!destroyed) {
       sb.append(", Parents: ");
-      sb.append(stateIdsOf(parents));
+      sb.append(stateIdsOf(linksOf(parents)));
       sb.append(", Children: ");
-      sb.append(stateIdsOf(children));
+      sb.append(stateIdsOf(linksOf(children)));
 
       if (mCoveredBy != null) {
         sb.append(", Covered by: ");
@@ -476,18 +634,18 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // clear children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this));
-      child.parents.remove(this);
+    for (ARGState child : linksOf(children)) {
+      assert containsLink(child.parents, this);
+      child.parents = removeLink(child.parents, this);
     }
-    children.clear();
+    children = null;
 
     // clear parents
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this));
-      parent.children.remove(this);
+    for (ARGState parent : linksOf(parents)) {
+      assert containsLink(parent.children, this);
+      parent.children = removeLink(parent.children, this);
     }
-    parents.clear();
+    parents = null;
   }
 
   /**
@@ -507,19 +665,19 @@ public class ARGState extends AbstractSingleWrapperState
     assert !(this==replacement) : "Don't replace ARGState " + this + " with itself";
 
     // copy children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this)) : "Inconsistent ARG at " + this;
-      child.parents.remove(this);
+    for (ARGState child : linksOf(children)) {
+      assert containsLink(child.parents, this) : "Inconsistent ARG at " + this;
+      child.parents = removeLink(child.parents, this);
       child.addParent(replacement);
     }
-    children.clear();
+    children = null;
 
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this)) : "Inconsistent ARG at " + this;
-      parent.children.remove(this);
+    for (ARGState parent : linksOf(parents)) {
+      assert containsLink(parent.children, this) : "Inconsistent ARG at " + this;
+      parent.children = removeLink(parent.children, this);
       replacement.addParent(parent);
     }
-    parents.clear();
+    parents = null;
 
     if (mCoveredByThis != null) {
       if (replacement.mCoveredByThis == null) {
@@ -576,12 +734,12 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (parents.contains(pOtherParent)) {
-      assert pOtherParent.children.contains(this);
-      parents.remove(pOtherParent);
-      pOtherParent.children.remove(this);
+    if (containsLink(parents, pOtherParent)) {
+      assert containsLink(pOtherParent.children, this);
+      parents = removeLink(parents, pOtherParent);
+      pOtherParent.children = removeLink(pOtherParent.children, this);
     } else {
-      assert !pOtherParent.children.contains(this) : "Problem detected!";
+      assert !containsLink(pOtherParent.children, this) : "Problem detected!";
     }
   }
 }
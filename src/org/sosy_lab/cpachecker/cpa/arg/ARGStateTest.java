@@ -0,0 +1,155 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+public class ARGStateTest {
+
+  @Test
+  public void testSingleParentAndChild() {
+    ARGState root = new ARGState(null, null);
+    ARGState child = new ARGState(null, root);
+
+    assertThat(root.getParents()).isEmpty();
+    assertThat(root.getChildren()).containsExactly(child);
+    assertThat(child.getParents()).containsExactly(root);
+    assertThat(child.getChildren()).isEmpty();
+
+    // set semantics
+    child.addParent(root);
+    assertThat(root.getChildren()).hasSize(1);
+    assertThat(child.getParents()).hasSize(1);
+  }
+
+  @Test
+  public void testManyChildren() {
+    ARGState root = new ARGState(null, null);
+    ARGState child1 = new ARGState(null, root);
+    ARGState child2 = new ARGState(null, root);
+    ARGState child3 = new ARGState(null, root);
+
+    assertThat(root.getChildren()).containsExactly(child1, child2, child3).inOrder();
+    assertThat(root.getChildren()).contains(child2);
+
+    root.deleteChild(child2);
+    assertThat(root.getChildren()).containsExactly(child1, child3).inOrder();
+    assertThat(child2.getParents()).isEmpty();
+
+    root.deleteChild(child1);
+    assertThat(root.getChildren()).containsExactly(child3);
+    assertThat(child3.getParents()).containsExactly(root);
+  }
+
+  @Test
+  public void testGrowingChildren() {
+    ARGState root = new ARGState(null, null);
+    List<ARGState> children = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      children.add(new ARGState(null, root));
+      assertThat(root.getChildren()).containsExactlyElementsIn(children).inOrder();
+    }
+    assertThat(root.getChildren().contains(new ARGState(null, null))).isFalse();
+
+    // an iterator does not see elements added later
+    Iterator<ARGState> it = root.getChildren().iterator();
+    ARGState lateChild = new ARGState(null, root);
+    assertThat(ImmutableList.copyOf(it)).containsExactlyElementsIn(children).inOrder();
+    children.add(lateChild);
+
+    root.deleteChild(children.remove(5));
+    children.add(new ARGState(null, root));
+    assertThat(root.getChildren()).containsExactlyElementsIn(children).inOrder();
+    assertThat(root.getChildren()).hasSize(children.size());
+  }
+
+  @Test
+  public void testViewsReflectChanges() {
+    ARGState root = new ARGState(null, null);
+    Collection<ARGState> children = root.getChildren();
+    assertThat(children).isEmpty();
+
+    ARGState child1 = new ARGState(null, root);
+    ARGState child2 = new ARGState(null, root);
+    assertThat(children).containsExactly(child1, child2).inOrder();
+
+    // iterating while modifying the ARG is possible
+    for (ARGState child : children) {
+      child.removeFromARG();
+    }
+    assertThat(children).isEmpty();
+  }
+
+  @Test
+  public void testRemoveFromARG() {
+    ARGState parent1 = new ARGState(null, null);
+    ARGState parent2 = new ARGState(null, null);
+    ARGState state = new ARGState(null, parent1);
+    state.addParent(parent2);
+    ARGState child = new ARGState(null, state);
+
+    state.removeFromARG();
+
+    assertThat(state.isDestroyed()).isTrue();
+    assertThat(parent1.getChildren()).isEmpty();
+    assertThat(parent2.getChildren()).isEmpty();
+    assertThat(child.getParents()).isEmpty();
+  }
+
+  @Test
+  public void testReplaceInARGWith() {
+    ARGState parent1 = new ARGState(null, null);
+    ARGState parent2 = new ARGState(null, null);
+    ARGState state = new ARGState(null, parent1);
+    state.addParent(parent2);
+    ARGState child1 = new ARGState(null, state);
+    ARGState child2 = new ARGState(null, state);
+    ARGState replacement = new ARGState(null, parent1);
+
+    state.replaceInARGWith(replacement);
+
+    assertThat(parent1.getChildren()).containsExactly(replacement);
+    assertThat(parent2.getChildren()).containsExactly(replacement);
+    assertThat(replacement.getParents()).containsExactly(parent1, parent2);
+    assertThat(replacement.getChildren()).containsExactly(child1, child2).inOrder();
+    assertThat(child1.getParents()).containsExactly(replacement);
+  }
+
+  @Test
+  public void testEstimatedARGMemory() {
+    ARGState root = new ARGState(null, null);
+    long sizeWithoutChildren = root.getEstimatedARGMemory();
+    new ARGState(null, root);
+    assertThat(root.getEstimatedARGMemory()).isEqualTo(sizeWithoutChildren);
+    new ARGState(null, root);
+    assertThat(root.getEstimatedARGMemory()).isGreaterThan(sizeWithoutChildren);
+  }
+}
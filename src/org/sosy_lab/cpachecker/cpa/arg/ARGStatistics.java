@@ -84,6 +84,8 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.cwriter.ARGToCTranslator;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 @Options(prefix="cpa.arg")
 public class ARGStatistics implements Statistics {
@@ -123,6 +125,14 @@ public class ARGStatistics implements Statistics {
   )
   private boolean compressWitness = true;
 
+  @Option(
+    secure = true,
+    name = "compressARG",
+    description =
+        "compress the exported ARG .dot files (final and simplified ARG) using GZIP compression."
+  )
+  private boolean compressARG = false;
+
   @Option(secure=true, name="simplifiedARG.file",
       description="export final ARG as .dot file, showing only loop heads and function entries/exits")
   @FileOption(FileOption.Type.OUTPUT_FILE)
@@ -292,7 +302,27 @@ public class ARGStatistics implements Statistics {
   }
 
   @Override
-  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {}
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    int states = 0;
+    long parents = 0;
+    long children = 0;
+    long memory = 0;
+    for (ARGState state : from(pReached).filter(ARGState.class)) {
+      states++;
+      parents += state.getParents().size();
+      children += state.getChildren().size();
+      memory += state.getEstimatedARGMemory();
+    }
+    StatisticsWriter writer =
+        StatisticsWriter.writingStatisticsTo(pOut).put("Number of ARG states", states);
+    if (states > 0) {
+      writer
+          .put("Avg. number of parents per state", StatisticsUtils.div(parents, states))
+          .put("Avg. number of children per state", StatisticsUtils.div(children, states))
+          .put("Estimated ARG memory (without wrapped states)", (memory >> 10) + " KiB")
+          .put("Estimated ARG memory per state", StatisticsUtils.div(memory, states) + " bytes");
+    }
+  }
 
   @Override
   public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
@@ -370,6 +400,19 @@ public class ARGStatistics implements Statistics {
     }
   }
 
+  /**
+   * Write a .dot file, compressed if requested. The content is streamed into the file (and the
+   * compressor), so it is never held in memory as a whole.
+   */
+  private void writeDotFile(Path pPath, Appender pContent) throws IOException {
+    if (compressARG) {
+      IO.writeGZIPFile(
+          pPath.resolveSibling(pPath.getFileName() + ".gz"), Charset.defaultCharset(), pContent);
+    } else {
+      IO.writeFile(pPath, Charset.defaultCharset(), pContent);
+    }
+  }
+
   @SuppressWarnings("try")
   private void exportARG0(
       final ARGState rootState,
@@ -396,11 +439,12 @@ public class ARGStatistics implements Statistics {
     }
 
     if (argFile != null) {
-      try (Writer w =
-          IO.openOutputFile(
-              adjustPathNameForPartitioning(rootState, argFile), Charset.defaultCharset())) {
-        ARGToDotWriter.write(
-            w, rootState, ARGState::getChildren, Predicates.alwaysTrue(), isTargetPathEdge);
+      try {
+        writeDotFile(
+            adjustPathNameForPartitioning(rootState, argFile),
+            w ->
+                ARGToDotWriter.write(
+                    w, rootState, ARGState::getChildren, Predicates.alwaysTrue(), isTargetPathEdge));
       } catch (IOException e) {
         logger.logUserException(Level.WARNING, e, "Could not write ARG to file");
       }
@@ -416,14 +460,16 @@ public class ARGStatistics implements Statistics {
     }
 
     if (simplifiedArgFile != null) {
-      try (Writer w =
-          IO.openOutputFile(
-              adjustPathNameForPartitioning(rootState, simplifiedArgFile),
-              Charset.defaultCharset())) {
-        ARGToDotWriter.write(w, rootState,
-            relevantSuccessorFunction,
-            Predicates.alwaysTrue(),
-            Predicates.alwaysFalse());
+      try {
+        writeDotFile(
+            adjustPathNameForPartitioning(rootState, simplifiedArgFile),
+            w ->
+                ARGToDotWriter.write(
+                    w,
+                    rootState,
+                    relevantSuccessorFunction,
+                    Predicates.alwaysTrue(),
+                    Predicates.alwaysFalse()));
       } catch (IOException e) {
         logger.logUserException(Level.WARNING, e, "Could not write ARG to file");
       }
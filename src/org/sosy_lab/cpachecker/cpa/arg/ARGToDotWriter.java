@@ -28,9 +28,9 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.Multimap;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -151,38 +151,42 @@ public class ARGToDotWriter {
       final Predicate<? super Pair<ARGState, ARGState>> highlightEdge) throws IOException {
 
     Deque<ARGState> worklist = new ArrayDeque<>();
-    Set<ARGState> processed = new HashSet<>();
-    StringBuilder edges = new StringBuilder();
+    // state ids are dense, so a bit set is much smaller than a set of states
+    BitSet processed = new BitSet();
 
     worklist.add(rootState);
 
+    // Nodes and edges are written immediately, such that the graph is never held in memory.
+    // Graphviz accepts edges between nodes that are declared later.
     while (!worklist.isEmpty()) {
       ARGState currentElement = worklist.removeLast();
       if (!displayedElements.apply(currentElement)) {
         continue;
       }
-      if (!processed.add(currentElement)) {
+      if (processed.get(currentElement.getStateId())) {
         continue;
       }
+      processed.set(currentElement.getStateId());
 
       sb.append(determineNode(currentElement));
       sb.append(determineStateHint(currentElement));
 
       for (ARGState covered : currentElement.getCoveredByThis()) {
         if (displayedElements.apply(covered)) {
-          edges.append(covered.getStateId());
-          edges.append(" -> ");
-          edges.append(currentElement.getStateId());
-          edges.append(" [style=\"dashed\" weight=\"0\" label=\"covered by\"]\n");
+          sb.append(Integer.toString(covered.getStateId()));
+          sb.append(" -> ");
+          sb.append(Integer.toString(currentElement.getStateId()));
+          sb.append(" [style=\"dashed\" weight=\"0\" label=\"covered by\"]\n");
         }
       }
 
       for (ARGState child : successorFunction.apply(currentElement)) {
-        edges.append(determineEdge(highlightEdge, currentElement, child));
-        worklist.add(child);
+        sb.append(determineEdge(highlightEdge, currentElement, child));
+        if (!processed.get(child.getStateId())) {
+          worklist.add(child);
+        }
       }
     }
-    sb.append(edges);
   }
 
   private static String determineEdge(final Predicate<? super Pair<ARGState, ARGState>> highlightEdge,
@@ -42,6 +42,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -71,7 +73,6 @@ import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.xml.parsers.ParserConfigurationException;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
@@ -130,10 +131,9 @@ import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.AssumeCase;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlStreamWriter;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
 import org.sosy_lab.cpachecker.util.automaton.VerificationTaskMetaData;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
@@ -142,7 +142,6 @@ import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
 import org.sosy_lab.cpachecker.util.expressions.Or;
 import org.sosy_lab.cpachecker.util.expressions.Simplifier;
-import org.w3c.dom.Element;
 
 class WitnessWriter implements EdgeAppender {
 
@@ -1190,14 +1189,15 @@ class WitnessWriter implements EdgeAppender {
     mergeRedundantSinkEdges();
 
     // Write elements
-    final GraphMlBuilder doc;
-    try {
-      doc = new GraphMlBuilder(graphType, defaultSourcefileName, cfa, verificationTaskMetaData);
-    } catch (ParserConfigurationException e) {
-      throw new IOException(e);
-    }
-    writeElementsOfGraphToDoc(doc, entryStateNodeId);
-    doc.appendTo(pTarget);
+    Map<String, ListMultimap<KeyDef, String>> nodeData = Maps.newHashMap();
+    Set<String> expandedNodes = new HashSet<>();
+    Set<KeyDef> usedKeys = EnumSet.noneOf(KeyDef.class);
+    collectElementsOfGraph(entryStateNodeId, nodeData, expandedNodes, usedKeys);
+    GraphMlStreamWriter writer =
+        new GraphMlStreamWriter(
+            pTarget, graphType, defaultSourcefileName, cfa, verificationTaskMetaData, usedKeys);
+    writeElementsOfGraph(writer, entryStateNodeId, nodeData, expandedNodes);
+    writer.finish();
   }
 
   /**
@@ -1317,28 +1317,70 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private void writeElementsOfGraphToDoc(GraphMlBuilder doc, String entryStateNodeId) {
-    Map<String, Element> nodes = Maps.newHashMap();
+  /**
+   * Compute the data of all written nodes, and determine which nodes of the witness are expanded
+   * (i.e., have their leaving edges written) and which keys are used by the written nodes and
+   * edges. This needs to be known before the witness can be written with a {@link
+   * GraphMlStreamWriter}. The data of each node is computed once, when the node is first reached.
+   */
+  private void collectElementsOfGraph(
+      String entryStateNodeId,
+      Map<String, ListMultimap<KeyDef, String>> pNodeData,
+      Set<String> pExpandedNodes,
+      Set<KeyDef> pUsedKeys) {
     Deque<String> waitlist = Queues.newArrayDeque();
     waitlist.push(entryStateNodeId);
-    Element entryNode = createNewNode(doc, entryStateNodeId);
-    addInvariantsData(doc, entryNode, entryStateNodeId);
-    nodes.put(entryStateNodeId, entryNode);
+    pNodeData.put(entryStateNodeId, getNodeData(entryStateNodeId));
+    pExpandedNodes.add(entryStateNodeId);
+    pUsedKeys.addAll(pNodeData.get(entryStateNodeId).keySet());
     while (!waitlist.isEmpty()) {
       String source = waitlist.pop();
       for (Edge edge : leavingEdges.get(source)) {
-        setLoopHeadInvariantIfApplicable(edge.getTarget());
+        String target = edge.getTarget();
+        if (!pNodeData.containsKey(target)) {
+          setLoopHeadInvariantIfApplicable(target);
+          ListMultimap<KeyDef, String> data = getNodeData(target);
+          pNodeData.put(target, data);
+          pUsedKeys.addAll(data.keySet());
+          if (!ExpressionTrees.getFalse().equals(getExportedInvariant(target))) {
+            pExpandedNodes.add(target);
+            waitlist.push(target);
+          }
+        }
+        for (KeyDef keyDef : edge.getLabel().getMapping().keySet()) {
+          if (keyDef.keyFor.equals(ElementType.EDGE) || keyDef.keyFor.equals(ElementType.NODE)) {
+            pUsedKeys.add(keyDef);
+          }
+        }
+      }
+    }
+  }
 
-        Element targetNode = nodes.get(edge.getTarget());
-        if (targetNode == null) {
-          targetNode = createNewNode(doc, edge.getTarget());
-          if (!ExpressionTrees.getFalse()
-              .equals(addInvariantsData(doc, targetNode, edge.getTarget()))) {
+  /**
+   * Write the nodes and edges of the witness in the same order in which {@link
+   * #collectElementsOfGraph(String, Map, Set, Set)} visited them, with the collected node data.
+   */
+  private void writeElementsOfGraph(
+      GraphMlStreamWriter pWriter,
+      String entryStateNodeId,
+      Map<String, ListMultimap<KeyDef, String>> pNodeData,
+      Set<String> pExpandedNodes)
+      throws IOException {
+    Set<String> written = new HashSet<>();
+    Deque<String> waitlist = Queues.newArrayDeque();
+    waitlist.push(entryStateNodeId);
+    writeNode(pWriter, entryStateNodeId, pNodeData, pExpandedNodes);
+    written.add(entryStateNodeId);
+    while (!waitlist.isEmpty()) {
+      String source = waitlist.pop();
+      for (Edge edge : leavingEdges.get(source)) {
+        if (written.add(edge.getTarget())) {
+          writeNode(pWriter, edge.getTarget(), pNodeData, pExpandedNodes);
+          if (pExpandedNodes.contains(edge.getTarget())) {
             waitlist.push(edge.getTarget());
           }
-          nodes.put(edge.getTarget(), targetNode);
         }
-        createNewEdge(doc, edge, targetNode);
+        writeEdge(pWriter, edge);
       }
     }
   }
@@ -1378,20 +1420,11 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private ExpressionTree<Object> addInvariantsData(
-      GraphMlBuilder pDoc, Element pNode, String pStateId) {
+  private ExpressionTree<Object> getExportedInvariant(String pStateId) {
     if (!invariantExportStates.contains(pStateId)) {
       return ExpressionTrees.getTrue();
     }
-    ExpressionTree<Object> tree = getStateInvariant(pStateId);
-    if (!tree.equals(ExpressionTrees.getTrue())) {
-      pDoc.addDataElementChild(pNode, KeyDef.INVARIANT, tree.toString());
-      String scope = stateScopes.get(pStateId);
-      if (scope != null && !scope.isEmpty() && !tree.equals(ExpressionTrees.getFalse())) {
-        pDoc.addDataElementChild(pNode, KeyDef.INVARIANTSCOPE, scope);
-      }
-    }
-    return tree;
+    return getStateInvariant(pStateId);
   }
 
   private boolean hasFlagsOrProperties(String pNode) {
@@ -1665,38 +1698,70 @@ class WitnessWriter implements EdgeAppender {
     return false;
   }
 
-  private Element createNewEdge(GraphMlBuilder pDoc, Edge pEdge, Element pTargetNode) {
-    Element edge = pDoc.createEdgeElement(pEdge.getSource(), pEdge.getTarget());
+  private void writeEdge(GraphMlStreamWriter pWriter, Edge pEdge) throws IOException {
+    pWriter.startEdge(pEdge.getSource(), pEdge.getTarget());
     for (Map.Entry<KeyDef, String> entry : pEdge.getLabel().getMapping().entrySet()) {
-      KeyDef keyDef = entry.getKey();
-      String value = entry.getValue();
-      if (keyDef.keyFor.equals(ElementType.EDGE)) {
-        pDoc.addDataElementChild(edge, keyDef, value);
-      } else if (keyDef.keyFor.equals(ElementType.NODE)) {
-        pDoc.addDataElementChild(pTargetNode, keyDef, value);
+      if (entry.getKey().keyFor.equals(ElementType.EDGE)) {
+        pWriter.addData(entry.getKey(), entry.getValue());
       }
     }
-    return edge;
+    pWriter.endElement();
   }
 
-  private Element createNewNode(GraphMlBuilder pDoc, String pEntryStateNodeId) {
-    Element result = pDoc.createNodeElement(pEntryStateNodeId, NodeType.ONPATH);
+  /**
+   * Write a node together with its data. This includes the node data of all written edges that
+   * enter this node, i.e., of all edges whose source node is expanded.
+   */
+  private void writeNode(
+      GraphMlStreamWriter pWriter,
+      String pNodeId,
+      Map<String, ListMultimap<KeyDef, String>> pNodeData,
+      Set<String> pExpandedNodes)
+      throws IOException {
+    pWriter.startNode(pNodeId);
+    for (Map.Entry<KeyDef, String> entry : pNodeData.get(pNodeId).entries()) {
+      pWriter.addData(entry.getKey(), entry.getValue());
+    }
+    for (Edge enteringEdge : enteringEdges.get(pNodeId)) {
+      if (pExpandedNodes.contains(enteringEdge.getSource())) {
+        for (Map.Entry<KeyDef, String> entry :
+            enteringEdge.getLabel().getMapping().entrySet()) {
+          if (entry.getKey().keyFor.equals(ElementType.NODE)) {
+            pWriter.addData(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+    pWriter.endElement();
+  }
+
+  /** Get the data of a node that does not stem from the edges entering the node. */
+  private ListMultimap<KeyDef, String> getNodeData(String pNodeId) {
+    ListMultimap<KeyDef, String> result = LinkedListMultimap.create();
 
     if (witnessOptions.exportNodeLabel()) {
       // add a printable label that for example is shown in yEd
-      pDoc.addDataElementChild(result, KeyDef.LABEL, pEntryStateNodeId);
+      result.put(KeyDef.LABEL, pNodeId);
     }
 
-    for (NodeFlag f : nodeFlags.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, f.key, "true");
+    for (NodeFlag f : nodeFlags.get(pNodeId)) {
+      result.put(f.key, "true");
+    }
+    for (Property violation : violatedProperties.get(pNodeId)) {
+      result.put(KeyDef.VIOLATEDPROPERTY, violation.toString());
     }
-    for (Property violation : violatedProperties.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, KeyDef.VIOLATEDPROPERTY, violation.toString());
+
+    if (stateQuasiInvariants.containsKey(pNodeId)) {
+      result.put(KeyDef.INVARIANT, getQuasiInvariant(pNodeId).toString());
     }
 
-    if(stateQuasiInvariants.containsKey(pEntryStateNodeId)) {
-      ExpressionTree<Object> tree = getQuasiInvariant(pEntryStateNodeId);
-        pDoc.addDataElementChild(result, KeyDef.INVARIANT, tree.toString());
+    ExpressionTree<Object> tree = getExportedInvariant(pNodeId);
+    if (!tree.equals(ExpressionTrees.getTrue())) {
+      result.put(KeyDef.INVARIANT, tree.toString());
+      String scope = stateScopes.get(pNodeId);
+      if (scope != null && !scope.isEmpty() && !tree.equals(ExpressionTrees.getFalse())) {
+        result.put(KeyDef.INVARIANTSCOPE, scope);
+      }
     }
 
     return result;
@@ -30,7 +30,9 @@ import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
@@ -53,7 +55,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -68,11 +71,13 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -107,11 +112,6 @@ import org.sosy_lab.cpachecker.util.expressions.DefaultExpressionTreeVisitor;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -937,17 +937,17 @@ public class AutomatonGraphmlParser {
       InputStream pInputStream, Set<Property> pProperties)
       throws IOException, WitnessParseException {
 
-    GraphMLDocumentData docDat = parseXML(pInputStream);
+    GraphMLDocumentData docDat = GraphMLDocumentData.parse(pInputStream, false);
 
     checkFields(docDat.getGraph());
 
     WitnessType graphType = getWitnessType(docDat.getGraph());
 
     // Extract the information on the automaton ----
-    Node nameAttribute = docDat.getGraph().getAttributes().getNamedItem("name");
+    String nameAttribute = docDat.getGraph().getAttribute("name");
     String automatonName = WITNESS_AUTOMATON_NAME;
     if (nameAttribute != null) {
-      automatonName += "_" + nameAttribute.getTextContent();
+      automatonName += "_" + nameAttribute;
     }
 
     Map<String, GraphMLState> states = Maps.newHashMap();
@@ -955,7 +955,7 @@ public class AutomatonGraphmlParser {
     Multimap<GraphMLState, GraphMLTransition> leavingTransitions = HashMultimap.create();
     NumericIdProvider numericIdProvider = NumericIdProvider.create();
     Set<GraphMLState> entryStates = Sets.newHashSet();
-    for (Node transition : docDat.getTransitions()) {
+    for (GraphMLElement transition : docDat.getTransitions()) {
       collectEdgeData(
           docDat,
           states,
@@ -1009,24 +1009,7 @@ public class AutomatonGraphmlParser {
     return state;
   }
 
-  private GraphMLDocumentData parseXML(InputStream pInputStream)
-      throws WitnessParseException, IOException {
-
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
-
-    return new GraphMLDocumentData(doc);
-  }
-
-  private void checkFields(Node graphNode) throws IOException, WitnessParseException {
+  private void checkFields(GraphMLElement graphNode) throws IOException, WitnessParseException {
 
     checkHashSum(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.PROGRAMHASH));
     checkArchitecture(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.ARCHITECTURE));
@@ -1064,7 +1047,7 @@ public class AutomatonGraphmlParser {
     return functionExitMatcher;
   }
 
-  private static boolean entersLoopHead(Node pTransition) throws WitnessParseException {
+  private static boolean entersLoopHead(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> loopHeadFlags =
         GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENTERLOOPHEAD);
     if (!loopHeadFlags.isEmpty()) {
@@ -1111,8 +1094,8 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which line numbers to assume.
    * @return a predicate to match file locations based on the line numbers specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(Node pTransition)
-      throws WitnessParseException {
+  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(
+      GraphMLElement pTransition) throws WitnessParseException {
     Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
@@ -1165,7 +1148,8 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which character offset to assume.
    * @return a predicate to match file locations based on the offsets specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(Node pTransition) throws WitnessParseException {
+  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(
+      GraphMLElement pTransition) throws WitnessParseException {
     Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
@@ -1219,7 +1203,8 @@ public class AutomatonGraphmlParser {
    * @return an automaton-transition condition for specific branches of an assumption corresponding
    *     to the control case specified by the given transition.
    */
-  private static AutomatonBoolExpr getAssumeCaseMatcher(Node pTransition) throws WitnessParseException {
+  private static AutomatonBoolExpr getAssumeCaseMatcher(GraphMLElement pTransition)
+      throws WitnessParseException {
     Set<String> assumeCaseTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.CONTROLCASE);
 
     if (assumeCaseTags.size() > 0) {
@@ -1250,7 +1235,8 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> getThread(
-      Node pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider)
+      throws WitnessParseException {
     return parseThreadId(pTransition, pNumericIdProvider, KeyDef.THREADID, "At most one threadId tag must be provided for each transition.");
   }
 
@@ -1266,7 +1252,10 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> parseThreadId(
-      Node pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
+      GraphMLElement pTransition,
+      NumericIdProvider pNumericIdProvider,
+      KeyDef pKey,
+      String pErrorMessage)
       throws WitnessParseException {
     Set<String> threadIdTags = GraphMLDocumentData.getDataOnNode(pTransition, pKey);
 
@@ -1312,7 +1301,7 @@ public class AutomatonGraphmlParser {
       Multimap<GraphMLState, GraphMLTransition> pLeavingEdges,
       Multimap<GraphMLState, GraphMLTransition> pEnteringEdges,
       NumericIdProvider pNumericThreadIdProvider,
-      Node pTransition)
+      GraphMLElement pTransition)
       throws WitnessParseException {
     String sourceStateId =
         GraphMLDocumentData.getAttributeValue(
@@ -1360,14 +1349,14 @@ public class AutomatonGraphmlParser {
     pLeavingEdges.put(source, transition);
     pEnteringEdges.put(target, transition);
 
-    Element sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
+    GraphMLElement sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
     if (sourceStateNode == null) {
       throw new WitnessParseException(
           String.format(
               "Source %s of transition %s does not exist.",
               sourceStateId, transitionToString(pTransition)));
     }
-    Element targetStateNode = pDocDat.getNodeWithId(targetStateId);
+    GraphMLElement targetStateNode = pDocDat.getNodeWithId(targetStateId);
     if (targetStateNode == null) {
       throw new WitnessParseException(
           String.format(
@@ -1403,14 +1392,14 @@ public class AutomatonGraphmlParser {
       GraphMLDocumentData pDocDat,
       Map<String, GraphMLState> pStates,
       String pStateId,
-      Optional<Node> pReference)
+      Optional<GraphMLElement> pReference)
       throws WitnessParseException {
     GraphMLState result = pStates.get(pStateId);
     if (result != null) {
       return result;
     }
 
-    Element stateNode = pDocDat.getNodeWithId(pStateId);
+    GraphMLElement stateNode = pDocDat.getNodeWithId(pStateId);
     if (stateNode == null) {
       final String message;
       if (pReference.isPresent()) {
@@ -1439,7 +1428,7 @@ public class AutomatonGraphmlParser {
     return result;
   }
 
-  private static Optional<String> parseSingleDataValue(Node pEdge,
+  private static Optional<String> parseSingleDataValue(GraphMLElement pEdge,
       KeyDef pKey,
       String pErrorMessage) throws WitnessParseException {
     Set<String> values =
@@ -1455,7 +1444,7 @@ public class AutomatonGraphmlParser {
    * @param pAutomaton the GraphML graph node representing the witness automaton.
    * @return the witness-automaton type of an automaton represented as a GraphML graph.
    */
-  private WitnessType getWitnessType(Node pAutomaton) throws WitnessParseException {
+  private WitnessType getWitnessType(GraphMLElement pAutomaton) throws WitnessParseException {
     Set<String> witnessTypeText =
         GraphMLDocumentData.getDataOnNode(pAutomaton, KeyDef.WITNESS_TYPE);
     final WitnessType witnessType;
@@ -1479,27 +1468,24 @@ public class AutomatonGraphmlParser {
     return witnessType;
   }
 
-  private static String transitionToString(Node pTransition) {
+  private static String transitionToString(GraphMLElement pTransition) {
     if (pTransition == null) {
       return "null";
     }
-    NamedNodeMap attributes = pTransition.getAttributes();
-    if (attributes != null) {
-      Node id = attributes.getNamedItem("id");
-      if (id != null) {
-        return id.getNodeValue();
-      }
+    String id = pTransition.getAttribute("id");
+    if (id != null) {
+      return id;
     }
     return pTransition.toString();
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey)
+  private static void checkRequiredField(GraphMLElement pGraphNode, KeyDef pKey)
       throws WitnessParseException {
     checkRequiredField(pGraphNode, pKey, false);
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
-      throws WitnessParseException {
+  private static void checkRequiredField(
+      GraphMLElement pGraphNode, KeyDef pKey, boolean pAcceptEmpty) throws WitnessParseException {
     Iterable<String> data = GraphMLDocumentData.getDataOnNode(pGraphNode, pKey);
     if (Iterables.isEmpty(data)) {
       throw new WitnessParseException(
@@ -1744,48 +1730,162 @@ public class AutomatonGraphmlParser {
 
   }
 
+  /**
+   * The parts of a GraphML witness that are relevant for building the automaton. The witness is
+   * read with a streaming parser, and for each graph, node, and edge only its attributes and the
+   * values of its data children are kept, which needs much less memory than a DOM of the file.
+   */
   private static class GraphMLDocumentData {
 
-    private final Node graph;
+    private final GraphMLElement graph;
 
-    private final ImmutableMap<String, Element> idToNodeMap;
+    private final ImmutableMap<String, GraphMLElement> idToNodeMap;
 
-    private final Iterable<Node> transitions;
+    private final ImmutableList<GraphMLElement> transitions;
 
-    public GraphMLDocumentData(Document pDocument) throws WitnessParseException {
+    private GraphMLDocumentData(
+        GraphMLElement pGraph,
+        ImmutableMap<String, GraphMLElement> pIdToNodeMap,
+        ImmutableList<GraphMLElement> pTransitions) {
+      graph = pGraph;
+      idToNodeMap = pIdToNodeMap;
+      transitions = pTransitions;
+    }
 
-      NodeList graphs = pDocument.getElementsByTagName(GraphMLTag.GRAPH.toString());
-      checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-      graph = Objects.requireNonNull(graphs.item(0));
+    /**
+     * Read the witness from the given stream.
+     *
+     * @param pInputStream the stream to read the witness from.
+     * @param pGraphOnly whether only the data of the graph itself is needed, such that nodes and
+     *     edges can be skipped.
+     */
+    private static GraphMLDocumentData parse(InputStream pInputStream, boolean pGraphOnly)
+        throws WitnessParseException, IOException {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
 
-      ImmutableMap.Builder<String, Element> idToNodeMapBuilder = ImmutableMap.builder();
-      NodeList nodes = pDocument.getElementsByTagName(GraphMLTag.NODE.toString());
-      for (Node stateNode : asIterable(nodes)) {
-        String stateId = getAttributeValue(stateNode, "id", "Every state needs an ID!");
-        idToNodeMapBuilder.put(stateId, (Element) stateNode);
+      try {
+        XMLStreamReader reader = factory.createXMLStreamReader(pInputStream);
+        try {
+          return parse(reader, pGraphOnly);
+        } finally {
+          reader.close();
+        }
+      } catch (XMLStreamException e) {
+        if (e.getNestedException() instanceof IOException) {
+          throw (IOException) e.getNestedException();
+        }
+        throw new WitnessParseException(e);
+      }
+    }
+
+    private static GraphMLDocumentData parse(XMLStreamReader pReader, boolean pGraphOnly)
+        throws XMLStreamException, WitnessParseException {
+      // data keys are repeated for every element, so we share the strings
+      Map<String, String> keys = new HashMap<>();
+      GraphMLElement.Builder graph = null;
+      GraphMLElement.Builder current = null;
+      Map<String, GraphMLElement> idToNodeMap = new LinkedHashMap<>();
+      ImmutableList.Builder<GraphMLElement> transitions = ImmutableList.builder();
+
+      while (pReader.hasNext()) {
+        int event = pReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          GraphMLTag tag = GraphMLElement.getTag(pReader.getLocalName());
+          if (tag == null) {
+            continue;
+          }
+          switch (tag) {
+            case GRAPH:
+              checkParsable(graph == null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+              graph = new GraphMLElement.Builder(tag, pReader);
+              current = graph;
+              break;
+            case NODE:
+            case EDGE:
+              if (graph != null && current == graph && !pGraphOnly) {
+                current = new GraphMLElement.Builder(tag, pReader);
+              } else {
+                current = null;
+              }
+              break;
+            case DATA:
+              if (current != null) {
+                String key = pReader.getAttributeValue(null, "key");
+                checkParsable(key != null, "Every data element must have a key attribute!");
+                current.addData(keys.computeIfAbsent(key, k -> k), getTextContent(pReader));
+              }
+              break;
+            default:
+              break;
+          }
+
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          GraphMLTag tag = GraphMLElement.getTag(pReader.getLocalName());
+          if (tag == GraphMLTag.NODE || tag == GraphMLTag.EDGE) {
+            if (current != null && current != graph) {
+              GraphMLElement element = current.build();
+              if (tag == GraphMLTag.NODE) {
+                String stateId = getAttributeValue(element, "id", "Every state needs an ID!");
+                checkParsable(
+                    idToNodeMap.put(stateId, element) == null,
+                    String.format("The state with id <%s> is defined more than once.", stateId));
+              } else {
+                transitions.add(element);
+              }
+            }
+            current = graph;
+          }
+        }
       }
-      idToNodeMap = idToNodeMapBuilder.build();
 
-      transitions = asIterable(pDocument.getElementsByTagName(GraphMLTag.EDGE.toString()));
+      checkParsable(graph != null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+      return new GraphMLDocumentData(
+          graph.build(), ImmutableMap.copyOf(idToNodeMap), transitions.build());
+    }
+
+    /**
+     * Read the text content of the current element, including the text of all nested elements,
+     * and advance the reader to the end of the current element.
+     */
+    private static String getTextContent(XMLStreamReader pReader) throws XMLStreamException {
+      StringBuilder text = new StringBuilder();
+      int depth = 1;
+      while (depth > 0) {
+        switch (pReader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            text.append(
+                pReader.getTextCharacters(), pReader.getTextStart(), pReader.getTextLength());
+            break;
+          default:
+            break;
+        }
+      }
+      return text.toString();
     }
 
-    public Node getGraph() {
+    public GraphMLElement getGraph() {
       return graph;
     }
 
-    public Iterable<Node> getTransitions() {
+    public Iterable<GraphMLElement> getTransitions() {
       return transitions;
     }
 
-    public EnumSet<NodeFlag> getNodeFlags(Element pStateNode) {
+    public EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
       EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
 
-      NodeList dataChilds = pStateNode.getElementsByTagName(GraphMLTag.DATA.toString());
-
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String key = attribute.getTextContent();
+      for (String key : pStateNode.data.keySet()) {
         NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
         if (flag != null) {
           result.add(flag);
@@ -1795,66 +1895,98 @@ public class AutomatonGraphmlParser {
       return result;
     }
 
-    private static String getAttributeValue(Node of, String attributeName, String exceptionMessage)
+    private static String getAttributeValue(
+        GraphMLElement of, String attributeName, String exceptionMessage)
         throws WitnessParseException {
-      Node attribute = of.getAttributes().getNamedItem(attributeName);
-      if (attribute == null) {
+      String value = of.getAttribute(attributeName);
+      if (value == null) {
         throw new WitnessParseException(exceptionMessage);
       }
-      return attribute.getTextContent();
+      return value;
     }
 
-    private @Nullable Element getNodeWithId(String nodeId) {
-      Element result = idToNodeMap.get(nodeId);
-      if (result == null
-          || !result.getTagName().equals(GraphMLTag.NODE.toString())) {
-        return null;
-      }
-      return result;
+    private @Nullable GraphMLElement getNodeWithId(String nodeId) {
+      return idToNodeMap.get(nodeId);
     }
 
-    private static Set<String> getDataOnNode(Node node, final KeyDef dataKey) {
+    private static Set<String> getDataOnNode(GraphMLElement node, final KeyDef dataKey) {
       Preconditions.checkNotNull(node);
-      Preconditions.checkArgument(node.getNodeType() == Node.ELEMENT_NODE);
-
-      Element nodeElement = (Element) node;
-      Set<Node> dataNodes = findKeyedDataNode(nodeElement, dataKey);
 
-      Set<String> result = Sets.newHashSet();
-      for (Node n: dataNodes) {
-        result.add(n.getTextContent());
+      List<String> values = node.data.get(dataKey.id);
+      // Backwards-compatibility: type/graph-type
+      if (values.isEmpty() && dataKey.equals(KeyDef.WITNESS_TYPE)) {
+        values = node.data.get("type");
       }
+      return ImmutableSet.copyOf(values);
+    }
+  }
 
-      return result;
+  /**
+   * A graph, node, or edge of a GraphML witness with its attributes and the values of its data
+   * children, grouped by their key.
+   */
+  private static class GraphMLElement {
+
+    private final GraphMLTag tag;
+
+    private final ImmutableMap<String, String> attributes;
+
+    private final ImmutableListMultimap<String, String> data;
+
+    private GraphMLElement(
+        GraphMLTag pTag,
+        ImmutableMap<String, String> pAttributes,
+        ImmutableListMultimap<String, String> pData) {
+      tag = pTag;
+      attributes = pAttributes;
+      data = pData;
     }
 
-    private static Set<Node> findKeyedDataNode(Element of, final KeyDef dataKey) {
-      Set<Node> result = Sets.newHashSet();
-      Set<Node> alternative = null;
-      NodeList dataChilds = of.getElementsByTagName(GraphMLTag.DATA.toString());
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String nodeKey = attribute.getTextContent();
-        if (nodeKey.equals(dataKey.id)) {
-          result.add(dataChild);
-          alternative = null;
+    private static @Nullable GraphMLTag getTag(String pLocalName) {
+      for (GraphMLTag tag : GraphMLTag.values()) {
+        if (tag.toString().equals(pLocalName)) {
+          return tag;
         }
-        // Backwards-compatibility: type/graph-type
-        if (alternative == null
-            && result.isEmpty()
-            && dataKey.equals(KeyDef.WITNESS_TYPE)
-            && nodeKey.equals("type")) {
-          alternative = Sets.newHashSet();
-          alternative.add(dataChild);
+      }
+      return null;
+    }
+
+    private @Nullable String getAttribute(String pName) {
+      return attributes.get(pName);
+    }
+
+    @Override
+    public String toString() {
+      return "<" + tag + " " + attributes + ">";
+    }
+
+    private static class Builder {
+
+      private final GraphMLTag tag;
+
+      private final ImmutableMap<String, String> attributes;
+
+      private final ImmutableListMultimap.Builder<String, String> data =
+          ImmutableListMultimap.builder();
+
+      /** Create a builder for the element at which the given reader is currently positioned. */
+      private Builder(GraphMLTag pTag, XMLStreamReader pReader) {
+        tag = pTag;
+        ImmutableMap.Builder<String, String> attributeBuilder = ImmutableMap.builder();
+        for (int i = 0; i < pReader.getAttributeCount(); i++) {
+          attributeBuilder.put(pReader.getAttributeLocalName(i), pReader.getAttributeValue(i));
         }
+        attributes = attributeBuilder.build();
       }
-      if (result.isEmpty() && alternative != null) {
-        return alternative;
+
+      private void addData(String pKey, String pValue) {
+        data.put(pKey, pValue);
       }
-      return result;
-    }
 
+      private GraphMLElement build() {
+        return new GraphMLElement(tag, attributes, data.build());
+      }
+    }
   }
 
   public static boolean isGraphmlAutomatonFromConfiguration(Path pPath)
@@ -1906,20 +2038,8 @@ public class AutomatonGraphmlParser {
 
   private static AutomatonGraphmlCommon.WitnessType getWitnessType(InputStream pInputStream)
       throws InvalidConfigurationException, IOException {
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
-
-    // (The one) root node of the graph ----
-    NodeList graphs = doc.getElementsByTagName(GraphMLTag.GRAPH.toString());
-    checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-    Node graphNode = graphs.item(0);
+    // Read the graph without its nodes and edges ----
+    GraphMLElement graphNode = GraphMLDocumentData.parse(pInputStream, true).getGraph();
 
     checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
 
@@ -2039,29 +2159,4 @@ public class AutomatonGraphmlParser {
       throw pExceptionHandler.apply(e);
     }
   }
-
-
-  /** return a nice {@link Iterable} wrapping the interface {@link NodeList}. */
-  private static Iterable<Node> asIterable(final NodeList pNodeList) {
-    return new Iterable<Node>() {
-
-      @Override
-      public Iterator<Node> iterator() {
-        return new Iterator<Node>() {
-
-          private int index = 0;
-
-          @Override
-          public boolean hasNext() {
-            return index < pNodeList.getLength();
-          }
-
-          @Override
-          public Node next() {
-            return pNodeList.item(index++);
-          }
-        };
-      }
-    };
-  }
 }
@@ -0,0 +1,160 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser.WitnessParseException;
+import org.sosy_lab.cpachecker.exceptions.ParserException;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class AutomatonGraphmlParserTest {
+
+  private static final String PROGRAM =
+      "int main() { int x = 0; if (x == 0) { ERROR: return 1; } return 0; }";
+
+  private static final String GRAPH_HEADER =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+          + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n"
+          + " <key attr.name=\"isEntryNode\" attr.type=\"boolean\" for=\"node\" id=\"entry\">\n"
+          + "  <default>false</default>\n"
+          + " </key>\n"
+          + " <graph edgedefault=\"directed\" name=\"test\">\n"
+          + "  <data key=\"witness-type\">%s</data>\n"
+          + "  <data key=\"sourcecodelang\">C</data>\n"
+          + "  <data key=\"producer\">Test &amp; <![CDATA[<Producer>]]></data>\n"
+          + "  <data key=\"specification\">CHECK( init(main()), LTL(G ! label(ERROR)) )</data>\n"
+          + "  <data key=\"programfile\">test.c</data>\n"
+          + "  <data key=\"programhash\">0000000000000000000000000000000000000000</data>\n"
+          + "  <data key=\"architecture\">32bit</data>\n";
+
+  private static final String VIOLATION_WITNESS =
+      String.format(GRAPH_HEADER, "violation_witness")
+          + "  <node id=\"N0\">\n"
+          + "   <data key=\"entry\">true</data>\n"
+          + "  </node>\n"
+          + "  <node id=\"N1\"/>\n"
+          + "  <node id=\"N2\">\n"
+          + "   <data key=\"violation\">true</data>\n"
+          + "  </node>\n"
+          + "  <edge id=\"E0\" source=\"N0\" target=\"N1\">\n"
+          + "   <data key=\"startline\">1</data>\n"
+          + "   <data key=\"control\">condition-true</data>\n"
+          + "  </edge>\n"
+          + "  <edge id=\"E1\" source=\"N1\" target=\"N2\">\n"
+          + "   <data key=\"startline\">1</data>\n"
+          + "  </edge>\n"
+          + " </graph>\n"
+          + "</graphml>\n";
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private Path writeWitness(String pContent) throws IOException {
+    Path file = tmp.newFile().toPath();
+    Files.write(file, pContent.getBytes(UTF_8));
+    return file;
+  }
+
+  private static List<Automaton> parse(Path pWitness)
+      throws InvalidConfigurationException, ParserException, InterruptedException {
+    Configuration config =
+        TestDataTools.configurationForTest().setOption("witness.checkProgramHash", "false").build();
+    LogManager logger = LogManager.createTestLogManager();
+    CFA cfa = TestDataTools.makeCFA(PROGRAM);
+    return new AutomatonGraphmlParser(config, logger, cfa, CProgramScope.empty())
+        .parseAutomatonFile(pWitness, ImmutableSet.of());
+  }
+
+  private static void checkViolationWitnessAutomaton(List<Automaton> pAutomata) {
+    assertThat(pAutomata).hasSize(1);
+    Automaton automaton = pAutomata.get(0);
+    assertThat(automaton.getName())
+        .isEqualTo(AutomatonGraphmlParser.WITNESS_AUTOMATON_NAME + "_test");
+    assertThat(automaton.getInitialState().getName()).isEqualTo("N0");
+    assertThat(
+            FluentIterable.from(automaton.getStates()).transform(AutomatonInternalState::getName))
+        .containsExactly("N0", "N1", "N2");
+  }
+
+  @Test
+  public void parseViolationWitness() throws Exception {
+    checkViolationWitnessAutomaton(parse(writeWitness(VIOLATION_WITNESS)));
+  }
+
+  @Test
+  public void parseCompressedViolationWitness() throws Exception {
+    Path file = tmp.newFile().toPath();
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+      out.write(VIOLATION_WITNESS.getBytes(UTF_8));
+    }
+    checkViolationWitnessAutomaton(parse(file));
+  }
+
+  @Test
+  public void witnessType() throws Exception {
+    assertThat(AutomatonGraphmlParser.getWitnessType(writeWitness(VIOLATION_WITNESS)))
+        .isEqualTo(WitnessType.VIOLATION_WITNESS);
+
+    String correctnessWitness =
+        String.format(GRAPH_HEADER, "correctness_witness")
+            + "  <node id=\"N0\">\n"
+            + "   <data key=\"entry\">true</data>\n"
+            + "  </node>\n"
+            + " </graph>\n"
+            + "</graphml>\n";
+    assertThat(AutomatonGraphmlParser.getWitnessType(writeWitness(correctnessWitness)))
+        .isEqualTo(WitnessType.CORRECTNESS_WITNESS);
+  }
+
+  @Test(expected = WitnessParseException.class)
+  public void rejectUndefinedState() throws Exception {
+    parse(writeWitness(VIOLATION_WITNESS.replace("target=\"N2\"", "target=\"N3\"")));
+  }
+
+  @Test(expected = WitnessParseException.class)
+  public void rejectMultipleGraphs() throws Exception {
+    parse(
+        writeWitness(
+            VIOLATION_WITNESS.replace(
+                "</graphml>", " <graph edgedefault=\"directed\"></graph>\n</graphml>")));
+  }
+}
@@ -89,6 +89,9 @@ public class AutomatonInternalState {
   /** Outgoing transitions of this state. */
   private final ImmutableList<AutomatonTransition> transitions;
 
+  /** Index of the outgoing transitions by the source locations they match on. */
+  private final AutomatonTransitionIndex transitionIndex;
+
   private final boolean mIsTarget;
 
   /**
@@ -106,6 +109,7 @@ public class AutomatonInternalState {
       boolean pIsCycleStart) {
     this.name = pName;
     this.transitions = ImmutableList.copyOf(pTransitions);
+    this.transitionIndex = AutomatonTransitionIndex.create(transitions);
     this.mIsTarget = pIsTarget;
     this.mAllTransitions = pAllTransitions;
     this.isCycleStart = pIsCycleStart;
@@ -176,6 +180,10 @@ public class AutomatonInternalState {
     return transitions;
   }
 
+  AutomatonTransitionIndex getTransitionIndex() {
+    return transitionIndex;
+  }
+
   @Override
   public String toString() {
     return this.name;
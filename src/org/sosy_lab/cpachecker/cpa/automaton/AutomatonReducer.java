@@ -0,0 +1,76 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.NoOpReducer;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState.AutomatonUnknownState;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonVariable.AutomatonIntVariable;
+
+/**
+ * A {@link NoOpReducer} that can encode automaton states canonically, if they have no
+ * assumptions and only integer variables.
+ */
+class AutomatonReducer extends NoOpReducer {
+
+  static final AutomatonReducer INSTANCE = new AutomatonReducer();
+
+  private AutomatonReducer() {}
+
+  @Override
+  public @Nullable String getCanonicalEncoding(
+      AbstractState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    // the precision is not part of the cache key (cf. getHashCodeForState)
+    AutomatonState state = (AutomatonState) pStateKey;
+    if (state instanceof AutomatonUnknownState || !state.getAssumptions().isEmpty()) {
+      return null;
+    }
+
+    // like AutomatonState.equals, i.e., internal state and variables
+    List<String> result = new ArrayList<>();
+    result.add(state.getOwningAutomatonName());
+    result.add(state.getInternalStateName());
+    for (Map.Entry<String, AutomatonVariable> var : new TreeMap<>(state.getVars()).entrySet()) {
+      if (!(var.getValue() instanceof AutomatonIntVariable)) {
+        return null;
+      }
+      result.add(var.getKey());
+      result.add(Integer.toString(var.getValue().getValue()));
+    }
+    return Reducer.concatEncodings(result);
+  }
+}
@@ -35,6 +35,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -181,7 +182,6 @@ class AutomatonTransferRelation implements TransferRelation {
     Collection<AutomatonState> lSuccessors = Sets.newLinkedHashSetWithExpectedSize(2);
     AutomatonExpressionArguments exprArgs = new AutomatonExpressionArguments(state, state.getVars(), otherElements, edge, logger);
     boolean edgeMatched = false;
-    int failedMatches = 0;
     boolean nonDetState = state.getInternalState().isNonDetState();
 
     // these transitions cannot be evaluated until last, because they might have sideeffects on
@@ -191,7 +191,12 @@ class AutomatonTransferRelation implements TransferRelation {
     List<Pair<AutomatonTransition, Map<Integer, AAstNode>>> transitionsToBeTaken =
         new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+    // transitions that are not candidates for this edge do not match, so we can skip them
+    List<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    BitSet candidates = state.getInternalState().getTransitionIndex().getCandidateTransitions(edge);
+
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      AutomatonTransition t = transitions.get(i);
       exprArgs.clearTransitionVariables();
 
       matchTime.start();
@@ -254,9 +259,6 @@ class AutomatonTransferRelation implements TransferRelation {
             // not a nondet State, break on the first matching edge
             break;
           }
-        } else {
-          // do nothing if the edge did not match
-          failedMatches++;
         }
       }
     }
@@ -304,6 +306,7 @@ class AutomatonTransferRelation implements TransferRelation {
       return lSuccessors;
     } else {
       // stay in same state, no transitions to be executed here (no transition matched)
+      int failedMatches = transitions.size();
       AutomatonState stateNewCounters = AutomatonState.automatonStateFactory(state.getVars(), state.getInternalState(), cpa, state.getMatches(), state.getFailedMatches() + failedMatches, null);
       return Collections.singleton(stateNewCounters);
     }
@@ -0,0 +1,211 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.OffsetMatcher;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
+
+/**
+ * Index of the outgoing transitions of an {@link AutomatonInternalState} by the source locations
+ * they match on.
+ *
+ * <p>A transition is indexed if its trigger is a conjunction that contains a {@link
+ * MatchLocationDescriptor}. Such a trigger evaluates to false for every edge whose file locations
+ * do not match the descriptor, regardless of the other conjuncts. This is typical for witness
+ * automata, which have many transitions per state that match on line numbers or offsets. For a
+ * given CFA edge the index returns only the transitions that might match, so that the transfer
+ * relation does not need to evaluate all triggers.
+ */
+final class AutomatonTransitionIndex {
+
+  /** Transitions that are not indexed and always need to be evaluated. */
+  private final BitSet unguardedTransitions;
+
+  /** Indexed transitions, grouped by the main-function entry used for computing locations. */
+  private final Map<FunctionEntryNode, LocationIndex> locationIndices;
+
+  private AutomatonTransitionIndex(
+      BitSet pUnguardedTransitions, Map<FunctionEntryNode, LocationIndex> pLocationIndices) {
+    unguardedTransitions = pUnguardedTransitions;
+    locationIndices = pLocationIndices;
+  }
+
+  static AutomatonTransitionIndex create(List<AutomatonTransition> pTransitions) {
+    BitSet unguardedTransitions = new BitSet(pTransitions.size());
+    Map<FunctionEntryNode, LocationIndex> locationIndices = new LinkedHashMap<>(1);
+
+    for (int i = 0; i < pTransitions.size(); i++) {
+      MatchLocationDescriptor guard = findLocationGuard(pTransitions.get(i).getTrigger());
+      if (guard == null) {
+        unguardedTransitions.set(i);
+      } else {
+        locationIndices
+            .computeIfAbsent(guard.getMainEntry(), k -> new LocationIndex())
+            .add(i, guard.getMatchDescriptor());
+      }
+    }
+    return new AutomatonTransitionIndex(unguardedTransitions, locationIndices);
+  }
+
+  /**
+   * Find a location descriptor that needs to match for the given expression to evaluate to true.
+   * We look only at conjunctions, because {@link AutomatonBoolExpr.And} evaluates to false if any
+   * of its operands evaluates to false.
+   */
+  private static @Nullable MatchLocationDescriptor findLocationGuard(AutomatonBoolExpr pExpr) {
+    if (pExpr instanceof MatchLocationDescriptor) {
+      return (MatchLocationDescriptor) pExpr;
+    }
+    if (pExpr instanceof AutomatonBoolExpr.And) {
+      AutomatonBoolExpr.And and = (AutomatonBoolExpr.And) pExpr;
+      MatchLocationDescriptor result = findLocationGuard(and.a);
+      if (result == null) {
+        result = findLocationGuard(and.b);
+      }
+      return result;
+    }
+    return null;
+  }
+
+  /**
+   * Get the indices of all transitions that might match the given edge. All other transitions
+   * evaluate to false for this edge. The result must not be modified.
+   */
+  BitSet getCandidateTransitions(CFAEdge pEdge) {
+    if (locationIndices.isEmpty()) {
+      return unguardedTransitions;
+    }
+    BitSet result = (BitSet) unguardedTransitions.clone();
+    for (Map.Entry<FunctionEntryNode, LocationIndex> entry : locationIndices.entrySet()) {
+      Collection<FileLocation> locations =
+          AutomatonGraphmlCommon.getFileLocationsFromCfaEdge(pEdge, entry.getKey());
+      for (FileLocation location : locations) {
+        entry.getValue().collectMatches(location, result);
+      }
+    }
+    return result;
+  }
+
+  /** The location descriptors of the indexed transitions, split by what they match on. */
+  private static class LocationIndex {
+
+    private final RangeIndex originLines = new RangeIndex();
+    private final RangeIndex lines = new RangeIndex();
+    private final RangeIndex offsets = new RangeIndex();
+
+    /** Descriptors that cannot be indexed and are checked for each location. */
+    private final List<Guard> otherGuards = new ArrayList<>(0);
+
+    private void add(int pTransition, Predicate<FileLocation> pDescriptor) {
+      Guard guard = new Guard(pTransition, pDescriptor);
+      if (pDescriptor instanceof LineMatcher) {
+        LineMatcher lineMatcher = (LineMatcher) pDescriptor;
+        (lineMatcher.isOrigin() ? originLines : lines)
+            .add(lineMatcher.getStartLineNumber(), lineMatcher.getEndLineNumber(), guard);
+      } else if (pDescriptor instanceof OffsetMatcher) {
+        OffsetMatcher offsetMatcher = (OffsetMatcher) pDescriptor;
+        offsets.add(offsetMatcher.getStartOffset(), offsetMatcher.getEndOffset(), guard);
+      } else {
+        otherGuards.add(guard);
+      }
+    }
+
+    private void collectMatches(FileLocation pLocation, BitSet pResult) {
+      originLines.collectMatches(
+          pLocation.getStartingLineInOrigin(), pLocation.getEndingLineInOrigin(),
+          pLocation, pResult);
+      lines.collectMatches(
+          pLocation.getStartingLineNumber(), pLocation.getEndingLineNumber(),
+          pLocation, pResult);
+      offsets.collectMatches(
+          pLocation.getNodeOffset(), pLocation.getNodeOffset() + pLocation.getNodeLength() - 1,
+          pLocation, pResult);
+      for (Guard guard : otherGuards) {
+        guard.collectIfMatches(pLocation, pResult);
+      }
+    }
+  }
+
+  /**
+   * Guards that match on ranges of lines or offsets, sorted by the start of the range. The
+   * guards whose range overlaps a given range start at most {@link #maxLength} before it.
+   */
+  private static class RangeIndex {
+
+    private final NavigableMap<Integer, List<Guard>> guardsByStart = new TreeMap<>();
+
+    private int maxLength = 0;
+
+    private void add(int pStart, int pEnd, Guard pGuard) {
+      guardsByStart.computeIfAbsent(pStart, k -> new ArrayList<>(1)).add(pGuard);
+      maxLength = Math.max(maxLength, pEnd - pStart);
+    }
+
+    private void collectMatches(int pStart, int pEnd, FileLocation pLocation, BitSet pResult) {
+      int from = pStart - maxLength;
+      if (guardsByStart.isEmpty() || from > pEnd) {
+        return;
+      }
+      for (List<Guard> guards : guardsByStart.subMap(from, true, pEnd, true).values()) {
+        for (Guard guard : guards) {
+          // the descriptor also checks the end of the range and the file name
+          guard.collectIfMatches(pLocation, pResult);
+        }
+      }
+    }
+  }
+
+  private static class Guard {
+
+    private final int transition;
+
+    private final Predicate<FileLocation> descriptor;
+
+    private Guard(int pTransition, Predicate<FileLocation> pDescriptor) {
+      transition = pTransition;
+      descriptor = pDescriptor;
+    }
+
+    private void collectIfMatches(FileLocation pLocation, BitSet pResult) {
+      if (!pResult.get(transition) && descriptor.test(pLocation)) {
+        pResult.set(transition);
+      }
+    }
+  }
+}
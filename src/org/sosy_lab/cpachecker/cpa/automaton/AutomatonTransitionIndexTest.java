@@ -0,0 +1,156 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.OffsetMatcher;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class AutomatonTransitionIndexTest {
+
+  private static final String[] PROGRAM = {
+    "int main() {",
+    "  int x = 0;",
+    "  int y = 1;",
+    "  if (x < y) {",
+    "    x = y + 1;",
+    "  }",
+    "  return x;",
+    "}"
+  };
+
+  private CFA cfa;
+
+  @Before
+  public void setUp() throws Exception {
+    cfa = TestDataTools.makeCFA(PROGRAM);
+  }
+
+  private AutomatonBoolExpr matchLocation(Predicate<FileLocation> pDescriptor) {
+    return new MatchLocationDescriptor(cfa.getMainFunction(), pDescriptor);
+  }
+
+  private static AutomatonTransition transition(AutomatonBoolExpr pTrigger) {
+    return new AutomatonTransition(
+        pTrigger, ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), "target");
+  }
+
+  private List<AutomatonTransition> createTransitions() {
+    List<AutomatonTransition> transitions = new ArrayList<>();
+    transitions.add(transition(AutomatonBoolExpr.TRUE));
+    for (int line = 0; line <= PROGRAM.length + 1; line++) {
+      LineMatcher lineMatcher = new LineMatcher(Optional.empty(), line, line);
+      transitions.add(transition(matchLocation(lineMatcher)));
+      // location guards nested in conjunctions are indexed, too
+      transitions.add(
+          transition(
+              new AutomatonBoolExpr.And(
+                  AutomatonBoolExpr.MatchProgramEntry.INSTANCE,
+                  new AutomatonBoolExpr.And(
+                      matchLocation(new LineMatcher(Optional.empty(), line, line + 2, false)),
+                      AutomatonBoolExpr.TRUE))));
+      // guards in other expressions are not indexed
+      transitions.add(
+          transition(
+              new AutomatonBoolExpr.Negation(
+                  matchLocation(new LineMatcher(Optional.empty(), line, line)))));
+    }
+    for (int offset = 0; offset < 120; offset += 7) {
+      transitions.add(
+          transition(matchLocation(new OffsetMatcher(Optional.empty(), offset, offset))));
+      transitions.add(
+          transition(matchLocation(new OffsetMatcher(Optional.empty(), offset, offset + 10))));
+    }
+    transitions.add(transition(matchLocation(new OffsetMatcher(Optional.of("other.c"), 0, 120))));
+    return transitions;
+  }
+
+  /** Whether the transition might match the edge, according to its location guard. */
+  private static boolean mayMatch(AutomatonTransition pTransition, CFAEdge pEdge) {
+    AutomatonBoolExpr trigger = pTransition.getTrigger();
+    if (trigger instanceof AutomatonBoolExpr.And) {
+      trigger = ((AutomatonBoolExpr.And) ((AutomatonBoolExpr.And) trigger).b).a;
+    }
+    if (trigger instanceof MatchLocationDescriptor) {
+      return ((MatchLocationDescriptor) trigger).eval(pEdge);
+    }
+    return true;
+  }
+
+  @Test
+  public void candidatesAreExactlyTheTransitionsWithMatchingLocations() {
+    List<AutomatonTransition> transitions = createTransitions();
+    AutomatonTransitionIndex index = AutomatonTransitionIndex.create(transitions);
+
+    boolean someGuardMatched = false;
+    for (CFANode node : cfa.getAllNodes()) {
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < transitions.size(); i++) {
+          if (mayMatch(transitions.get(i), edge)) {
+            expected.set(i);
+          }
+        }
+        BitSet candidates = index.getCandidateTransitions(edge);
+        assertWithMessage("candidate transitions for edge %s", edge)
+            .that(candidates)
+            .isEqualTo(expected);
+        someGuardMatched |= expected.cardinality() > 1 + PROGRAM.length + 2;
+      }
+    }
+    assertThat(someGuardMatched).isTrue();
+  }
+
+  @Test
+  public void transitionsWithoutLocationGuardAreAlwaysCandidates() {
+    List<AutomatonTransition> transitions =
+        ImmutableList.of(
+            transition(AutomatonBoolExpr.TRUE),
+            transition(new AutomatonBoolExpr.MatchFunctionCall("main")));
+    AutomatonTransitionIndex index = AutomatonTransitionIndex.create(transitions);
+
+    for (CFANode node : cfa.getAllNodes()) {
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        assertThat(index.getCandidateTransitions(edge).cardinality()).isEqualTo(2);
+      }
+    }
+  }
+}
@@ -61,6 +61,7 @@ import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithBA
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
@@ -250,6 +251,11 @@ public class ControlAutomatonCPA
     return new AutomatonTransferRelation(this, logger, cfa.getMachineModel());
   }
 
+  @Override
+  public Reducer getReducer() {
+    return AutomatonReducer.INSTANCE;
+  }
+
   public AutomatonState getBottomState() {
     return this.bottomState;
   }
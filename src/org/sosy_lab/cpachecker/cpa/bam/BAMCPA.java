@@ -48,7 +48,6 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheAggressiveImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
@@ -101,11 +100,22 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
       this.wrappedProofChecker = null;
     }
 
-    final BAMCache cache;
+    final BAMCacheImpl cache;
     if (aggressiveCaching) {
-      cache = new BAMCacheAggressiveImpl(config, getReducer(), logger);
+      cache = new BAMCacheAggressiveImpl(
+              config, getReducer(), pReachedSetFactory, pSpecification, logger);
     } else {
-      cache = new BAMCacheImpl(config, getReducer(), logger);
+      cache = new BAMCacheImpl(config, getReducer(), pReachedSetFactory, pSpecification, logger);
+    }
+    if (cache.evictsEntries() && useCopyOnWriteRefinement()) {
+      throw new InvalidConfigurationException(
+          "Eviction of BAM cache entries (cpa.bam.maxCachedStates) "
+              + "is not supported by copy-on-write refinement.");
+    }
+    if (cache.readsSummaries() && useCopyOnWriteRefinement()) {
+      throw new InvalidConfigurationException(
+          "Reusing BAM summaries of a previous run (cpa.bam.summaries.inputFile) "
+              + "is not supported by copy-on-write refinement.");
     }
     data = new BAMDataManagerImpl(cache, pReachedSetFactory, pLogger);
 
@@ -116,6 +126,11 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
         getReducer(),
         this,
         data);
+    if (cache.readsSummaries() && bamPccManager.isPCCEnabled()) {
+      throw new InvalidConfigurationException(
+          "Reusing BAM summaries of a previous run (cpa.bam.summaries.inputFile) "
+              + "is not supported for proof generation.");
+    }
 
     AlgorithmFactory factory = new CPAAlgorithmFactory(this, logger, config, pShutdownNotifier);
     if (useCEGAR) {
@@ -231,6 +231,12 @@ public class BAMSubgraphComputer {
       final ARGState reducedTarget =
           (ARGState) data.getReducedStateForExpandedState(newExpandedTarget.getARGState());
 
+      if (data.getCache().removeRestoredSummary(reducedTarget)) {
+        logger.log(Level.FINE,
+            "Target state refers to a restored block summary without subtree. Updating it.");
+        throw new MissingBlockException();
+      }
+
       // first check, if the cached state is valid.
       if (reducedTarget.isDestroyed()) {
         logger.log(Level.FINE,
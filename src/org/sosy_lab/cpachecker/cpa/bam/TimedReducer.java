@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.cpa.bam;
 
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -138,4 +140,13 @@ class TimedReducer implements Reducer {
   public boolean canBeUsedInCache(AbstractState pState) {
     return wrappedReducer.canBeUsedInCache(pState);
   }
+
+  @Override
+  public @Nullable String getCanonicalEncoding(
+      AbstractState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    return wrappedReducer.getCanonicalEncoding(pStateKey, pPrecisionKey, pContext, pNodeEncoding);
+  }
 }
@@ -0,0 +1,536 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.io.IO;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.blocks.ReferencedVariable;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl.AbstractStateHash;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.globalinfo.CFAInfo;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+
+/**
+ * Persistent store of the block summaries of the BAM cache, i.e., of the mapping from the reduced
+ * entry state and precision of a block to its reduced exit states. The summaries of one run are
+ * loaded in a later run, e.g., for a changed version of the program, and the cache reuses the
+ * summaries of unchanged blocks instead of analyzing them again.
+ *
+ * <p>A summary is identified by a fingerprint of its block and the canonical encoding of the entry
+ * state and precision (cf. {@link Reducer#getCanonicalEncoding}). Both do not depend on the
+ * numbers of the CFA nodes, but on the position of the nodes in a traversal of the block. The
+ * fingerprint covers the edges of the block and its referenced variables.
+ *
+ * <p>The exit states are stored in serialized form. Their references to CFA nodes are translated
+ * to the nodes of the current CFA when they are restored. The reached-set of a restored summary
+ * only contains its entry and exit states, thus counterexample reconstruction treats the block as
+ * missing and analyzes it again (cf. {@link BAMCache#removeRestoredSummary}).
+ *
+ * <p>The file starts with a hash of the CPAchecker version, the configuration, and the
+ * specification. Summaries are only reused if this hash matches the current run, because they
+ * depend on all of them, e.g., on the abstract domains and on the specification automata.
+ */
+@Options(prefix = "cpa.bam.summaries")
+class BAMBlockSummaryStore {
+
+  @Option(
+    name = "inputFile",
+    description =
+        "File with the summaries of the BAM cache of a previous run (cf. "
+            + "cpa.bam.summaries.outputFile). Summaries of unchanged blocks are reused instead "
+            + "of analyzing the blocks again. This requires that all CPAs support a canonical "
+            + "encoding of their reduced states (e.g., predicate analysis). The summaries are "
+            + "ignored if the previous run used a different CPAchecker version, configuration, "
+            + "or specification. "
+            + "Not supported by parallel BAM, copy-on-write refinement, and proof generation."
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path inputFile = null;
+
+  @Option(
+    secure = true,
+    name = "outputFile",
+    description =
+        "File for storing the summaries of the BAM cache at the end of the analysis, "
+            + "such that a later run can reuse them (cf. cpa.bam.summaries.inputFile)."
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path outputFile = null;
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+  private static final Splitter FIELD_SPLITTER = Splitter.on(' ');
+  private static final Splitter NODE_SPLITTER = Splitter.on(',');
+  private static final Joiner NODE_JOINER = Joiner.on(',');
+  private static final BaseEncoding STATE_ENCODING = BaseEncoding.base64();
+
+  /** Prefixes of options that do not influence the summaries. */
+  private static final ImmutableList<String> IRRELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "analysis.programNames",
+          "cpa.bam.summaries.",
+          "limits.",
+          "log.",
+          "output.",
+          "statistics.");
+
+  private static final String HEADER_PREFIX = "# ";
+
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  /** The first line of the file, identifying the version, configuration, and specification. */
+  private final String header;
+
+  /** The summaries of the previous run that were not restored (yet), mapped from their keys. */
+  private final Map<HashCode, StoredSummary> previousSummaries = new LinkedHashMap<>();
+
+  /** The summaries of the previous run that were restored, mapped from their keys. */
+  private final Map<HashCode, StoredSummary> restoredSummaries = new LinkedHashMap<>();
+
+  private final Map<Block, BlockEncoding> blockEncodings = new HashMap<>();
+
+  private int loadedSummaries = 0;
+  private int failedRestores = 0;
+
+  BAMBlockSummaryStore(
+      Configuration pConfig, Reducer pReducer, Specification pSpecification, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    reducer = pReducer;
+    logger = pLogger;
+    header = HEADER_PREFIX + computeConfigurationHash(pConfig, pSpecification);
+
+    if (inputFile != null && Files.isReadable(inputFile)) {
+      try {
+        List<String> lines = Files.readAllLines(inputFile, UTF_8);
+        if (!lines.isEmpty() && !lines.get(0).equals(header)) {
+          logger.log(
+              Level.WARNING,
+              "BAM summaries of previous run were computed with a different CPAchecker version,",
+              "configuration, or specification, ignoring them.");
+          lines = ImmutableList.of();
+        }
+        for (String line : lines) {
+          List<String> fields = FIELD_SPLITTER.splitToList(line);
+          if (fields.size() == 2 || fields.size() == 4) {
+            previousSummaries.put(
+                HashCode.fromString(fields.get(0)),
+                new StoredSummary(
+                    HashCode.fromString(fields.get(1)),
+                    fields.size() == 4 ? fields.get(2) : null,
+                    fields.size() == 4 ? fields.get(3) : null));
+          }
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not read BAM summaries of previous run, ignoring them");
+        previousSummaries.clear();
+      }
+      loadedSummaries = previousSummaries.size();
+    }
+  }
+
+  /**
+   * Compute a hash of everything besides the program that the summaries depend on: the CPAchecker
+   * version, the configuration (without options for input and output), and the specification.
+   */
+  private static HashCode computeConfigurationHash(
+      Configuration pConfig, Specification pSpecification) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(CPAchecker.getCPAcheckerVersion(), UTF_8);
+    List<String> options = new ArrayList<>();
+    for (String line : LINE_SPLITTER.split(pConfig.asPropertiesString())) {
+      if (IRRELEVANT_OPTION_PREFIXES.stream().noneMatch(line::startsWith)) {
+        options.add(line);
+      }
+    }
+    options.sort(null);
+    for (String option : options) {
+      hasher.putString(option, UTF_8).putChar('\n');
+    }
+    for (Automaton automaton : pSpecification.getPathToSpecificationAutomata().values()) {
+      hasher.putString(automaton.toString(), UTF_8).putChar('\n');
+    }
+    return hasher.hash();
+  }
+
+  boolean isEnabled() {
+    return inputFile != null || outputFile != null;
+  }
+
+  /** Whether summaries of a previous run are reused. */
+  boolean readsSummaries() {
+    return inputFile != null;
+  }
+
+  /**
+   * Compute the key of a summary from the block and the canonical encoding of its reduced entry
+   * state and precision.
+   *
+   * @return the key, or null if the entry state or precision cannot be encoded
+   */
+  @Nullable HashCode computeKey(AbstractState pStateKey, Precision pPrecisionKey, Block pBlock) {
+    BlockEncoding block = getBlockEncoding(pBlock);
+    String encoding = reducer.getCanonicalEncoding(pStateKey, pPrecisionKey, pBlock, block::encode);
+    if (encoding == null) {
+      return null;
+    }
+    return Hashing.sha256()
+        .newHasher()
+        .putBytes(block.fingerprint.asBytes())
+        .putString(encoding, UTF_8)
+        .hash();
+  }
+
+  /**
+   * Compute the hash of the canonical encodings of the exit states of a summary.
+   *
+   * @return the hash, or null if an exit state cannot be encoded
+   */
+  private @Nullable HashCode computeExitKey(
+      Collection<AbstractState> pExitStates, Precision pPrecisionKey, Block pBlock) {
+    BlockEncoding block = getBlockEncoding(pBlock);
+    List<String> encodings = new ArrayList<>(pExitStates.size());
+    for (AbstractState exitState : pExitStates) {
+      String encoding =
+          reducer.getCanonicalEncoding(exitState, pPrecisionKey, pBlock, block::encode);
+      if (encoding == null) {
+        return null;
+      }
+      encodings.add(encoding);
+    }
+    // the order of exit states depends on the exploration order, which does not matter
+    encodings.sort(null);
+    return Hashing.sha256().hashString(Reducer.concatEncodings(encodings), UTF_8);
+  }
+
+  /**
+   * Restore the reduced exit states of the summary with the given key from the previous run. Each
+   * summary is restored at most once, because a restored summary is removed from the cache when
+   * its block needs to be analyzed again.
+   *
+   * @return the restored states (without ARG), or null if there is no restorable summary
+   */
+  @Nullable List<AbstractState> restoreExitStates(HashCode pKey, Block pBlock) {
+    StoredSummary summary = previousSummaries.get(pKey);
+    if (summary == null || summary.exitStates == null) {
+      return null;
+    }
+    previousSummaries.remove(pKey);
+
+    Optional<CFAInfo> cfaInfo = GlobalInfo.getInstance().getCFAInfo();
+    List<String> nodeNumbers = NODE_SPLITTER.splitToList(summary.nodeNumbers);
+    List<CFANode> nodes = getBlockEncoding(pBlock).nodes;
+    if (!cfaInfo.isPresent() || nodeNumbers.size() != nodes.size()) {
+      failedRestores++;
+      return null;
+    }
+
+    List<AbstractState> exitStates = new ArrayList<>();
+    try {
+      // the states refer to the nodes of the previous run, at the same positions in the block
+      Map<Integer, CFANode> translation = new HashMap<>();
+      for (int i = 0; i < nodes.size(); i++) {
+        translation.put(Integer.parseInt(nodeNumbers.get(i)), nodes.get(i));
+      }
+      cfaInfo.get().setNodeNumberTranslation(translation);
+
+      byte[] serialized = STATE_ENCODING.decode(summary.exitStates);
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+        for (Object state : (List<?>) in.readObject()) {
+          exitStates.add((AbstractState) state);
+        }
+      }
+    } catch (IOException
+        | ClassNotFoundException
+        | ClassCastException
+        | IllegalArgumentException e) {
+      // IllegalArgumentException also for unknown node numbers
+      logger.logDebugException(e, "Could not restore BAM summary of previous run");
+      failedRestores++;
+      return null;
+    } finally {
+      cfaInfo.get().setNodeNumberTranslation(null);
+    }
+
+    restoredSummaries.put(pKey, summary);
+    return exitStates;
+  }
+
+  private BlockEncoding getBlockEncoding(Block pBlock) {
+    return blockEncodings.computeIfAbsent(pBlock, BlockEncoding::new);
+  }
+
+  /** Write the summaries of all restored and all given (completely analyzed) cache entries. */
+  void writeSummaries(Map<AbstractStateHash, BAMCacheEntry> pEntries) {
+    if (outputFile == null) {
+      return;
+    }
+    try (Writer w = IO.openOutputFile(outputFile, UTF_8)) {
+      w.append(header).append('\n');
+      Map<HashCode, StoredSummary> summaries = new LinkedHashMap<>(restoredSummaries);
+      for (Map.Entry<AbstractStateHash, BAMCacheEntry> entry : pEntries.entrySet()) {
+        AbstractStateHash hash = entry.getKey();
+        HashCode key = computeKey(hash.stateKey, hash.precisionKey, hash.context);
+        List<AbstractState> exitStates = entry.getValue().getExitStates();
+        HashCode exitKey = computeExitKey(exitStates, hash.precisionKey, hash.context);
+        if (key != null && exitKey != null) {
+          summaries.put(key, createSummary(exitKey, exitStates, hash.context));
+        }
+      }
+      for (Map.Entry<HashCode, StoredSummary> summary : summaries.entrySet()) {
+        w.append(summary.getKey().toString()).append(' ').append(summary.getValue().toString());
+        w.append('\n');
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write BAM summaries");
+    }
+  }
+
+  private StoredSummary createSummary(
+      HashCode pExitKey, List<AbstractState> pExitStates, Block pBlock) {
+    List<AbstractState> states = new ArrayList<>(pExitStates.size());
+    for (AbstractState exitState : pExitStates) {
+      // ARGStates reference their complete subgraph, only the wrapped state is relevant
+      states.add(((ARGState) exitState).getWrappedState());
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(states);
+    } catch (IOException e) {
+      // e.g., NotSerializableException for some component of the state,
+      // the summary can still be compared with later runs, but not restored
+      logger.logDebugException(e, "Could not serialize exit states of BAM summary");
+      return new StoredSummary(pExitKey, null, null);
+    }
+    List<Integer> nodeNumbers = new ArrayList<>();
+    for (CFANode node : getBlockEncoding(pBlock).nodes) {
+      nodeNumbers.add(node.getNodeNumber());
+    }
+    return new StoredSummary(
+        pExitKey, NODE_JOINER.join(nodeNumbers), STATE_ENCODING.encode(bytes.toByteArray()));
+  }
+
+  /**
+   * Compare the summaries of the given cache entries with those of the previous run.
+   *
+   * @param pEntries the completely analyzed entries of the cache that were not restored
+   * @param pReanalyzedSummaries the number of restored summaries whose blocks were analyzed again
+   */
+  void printStatistics(
+      PrintStream out, Map<AbstractStateHash, BAMCacheEntry> pEntries, int pReanalyzedSummaries) {
+    int matchingEntries = 0;
+    int identicalExitStates = 0;
+    long reanalyzedStates = 0;
+    for (Map.Entry<AbstractStateHash, BAMCacheEntry> entry : pEntries.entrySet()) {
+      AbstractStateHash hash = entry.getKey();
+      HashCode key = computeKey(hash.stateKey, hash.precisionKey, hash.context);
+      StoredSummary previousSummary = key == null ? null : previousSummaries.get(key);
+      if (previousSummary != null) {
+        matchingEntries++;
+        reanalyzedStates += entry.getValue().getReachedSet().size();
+        HashCode exitKey =
+            computeExitKey(entry.getValue().getExitStates(), hash.precisionKey, hash.context);
+        if (previousSummary.exitKey.equals(exitKey)) {
+          identicalExitStates++;
+        }
+      }
+    }
+    out.println("Number of block summaries from previous run:         " + loadedSummaries);
+    out.println(
+        "  Restored summaries:                                "
+            + restoredSummaries.size()
+            + " ("
+            + failedRestores
+            + " failed, "
+            + pReanalyzedSummaries
+            + " analyzed again for counterexamples)");
+    out.println(
+        "  Matching summaries of current run:                 "
+            + matchingEntries
+            + " ("
+            + toPercent(matchingEntries, pEntries.size())
+            + " of all computed summaries, "
+            + reanalyzedStates
+            + " states)");
+    out.println("  Matching summaries with identical exit states:     " + identicalExitStates);
+  }
+
+  /** A summary as stored in the file. */
+  private static final class StoredSummary {
+
+    private final HashCode exitKey;
+
+    /** The numbers of the nodes of the block in the order of {@link BlockEncoding#nodes}. */
+    private final @Nullable String nodeNumbers;
+
+    /** The serialized exit states, or null if they could not be serialized. */
+    private final @Nullable String exitStates;
+
+    private StoredSummary(
+        HashCode pExitKey, @Nullable String pNodeNumbers, @Nullable String pExitStates) {
+      exitKey = pExitKey;
+      nodeNumbers = pNodeNumbers;
+      exitStates = pExitStates;
+    }
+
+    @Override
+    public String toString() {
+      return exitStates == null
+          ? exitKey.toString()
+          : exitKey + " " + nodeNumbers + " " + exitStates;
+    }
+  }
+
+  /**
+   * The nodes of a block in a canonical order, which does not depend on the node numbers, and a
+   * fingerprint of the block based on this order.
+   */
+  private static final class BlockEncoding {
+
+    /**
+     * The nodes of the block in breadth-first order from the call nodes, following the leaving
+     * edges in their order. Nodes that are not reachable this way follow ordered by number.
+     */
+    private final ImmutableList<CFANode> nodes;
+
+    private final ImmutableMap<CFANode, Integer> positions;
+
+    private final HashCode fingerprint;
+
+    private BlockEncoding(Block pBlock) {
+      List<CFANode> order = new ArrayList<>(pBlock.getNodes().size());
+      Map<CFANode, Integer> index = new HashMap<>();
+      Deque<CFANode> waitlist = new ArrayDeque<>();
+      for (CFANode callNode :
+          Ordering.natural()
+              .onResultOf(CFANode::getFunctionName)
+              .compound(Ordering.natural())
+              .sortedCopy(pBlock.getCallNodes())) {
+        if (index.putIfAbsent(callNode, order.size()) == null) {
+          order.add(callNode);
+          waitlist.add(callNode);
+        }
+      }
+      while (!waitlist.isEmpty()) {
+        for (CFANode successor : CFAUtils.allSuccessorsOf(waitlist.poll())) {
+          if (pBlock.getNodes().contains(successor)
+              && index.putIfAbsent(successor, order.size()) == null) {
+            order.add(successor);
+            waitlist.add(successor);
+          }
+        }
+      }
+      for (CFANode node : Ordering.natural().sortedCopy(pBlock.getNodes())) {
+        if (index.putIfAbsent(node, order.size()) == null) {
+          order.add(node);
+        }
+      }
+      nodes = ImmutableList.copyOf(order);
+      positions = ImmutableMap.copyOf(index);
+      fingerprint = computeFingerprint(pBlock);
+    }
+
+    /** The canonical encoding of a node of the block, or null for nodes outside of the block. */
+    private @Nullable String encode(CFANode pNode) {
+      Integer position = positions.get(pNode);
+      return position == null ? null : "N" + position;
+    }
+
+    private HashCode computeFingerprint(Block pBlock) {
+      List<String> encoding = new ArrayList<>();
+      for (CFANode node : nodes) {
+        encoding.add(node.getFunctionName());
+        encoding.add(pBlock.isCallNode(node) + " " + pBlock.isReturnNode(node));
+        for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+          CFANode successor = edge.getSuccessor();
+          String successorEncoding = encode(successor);
+          encoding.add(edge.getEdgeType().name());
+          encoding.add(edge.getDescription());
+          encoding.add(
+              successorEncoding != null
+                  ? successorEncoding
+                  : "outside " + successor.getFunctionName());
+        }
+        encoding.add("");
+      }
+      List<ReferencedVariable> variables =
+          Ordering.natural()
+              .onResultOf(ReferencedVariable::getName)
+              .sortedCopy(pBlock.getReferencedVariables());
+      for (ReferencedVariable variable : variables) {
+        encoding.add(variable.getName() + " " + variable.occursInCondition());
+      }
+      return Hashing.sha256().hashString(Reducer.concatEncodings(encoding), UTF_8);
+    }
+  }
+}
@@ -28,6 +28,7 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -75,6 +76,24 @@ public interface BAMCache extends Statistics {
    *  then there is a way to clear all caches and to restore ARG completely. */
   void clear();
 
+  /**
+   * Register a listener that is called for every entry that is evicted from the cache, such that
+   * all further references to its reached-set can be removed. Caches that never evict entries
+   * ignore the listener.
+   */
+  default void setEvictionListener(Consumer<BAMCacheEntry> pListener) {}
+
+  /**
+   * Remove the entry with the given reduced exit state from the cache, if the entry was restored
+   * from the summaries of a previous run. Such an entry has no reached-set for the inner states of
+   * its block, thus the block has to be analyzed again, e.g., for reconstructing a counterexample.
+   *
+   * @return whether the exit state belonged to a restored entry, which is now removed
+   */
+  default boolean removeRestoredSummary(AbstractState reducedExitState) {
+    return false;
+  }
+
   class BAMCacheEntry {
     private final ReachedSet rs;
     private List<AbstractState> exitStates;
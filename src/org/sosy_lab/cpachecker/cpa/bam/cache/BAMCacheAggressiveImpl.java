@@ -23,6 +23,8 @@
  */
 package org.sosy_lab.cpachecker.cpa.bam.cache;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -31,9 +33,11 @@ import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 
 /**
  * This implementation of BAMCache uses an heuristic to improve the cache-hit-rate. Whenever
@@ -45,9 +49,18 @@ public class BAMCacheAggressiveImpl extends BAMCacheImpl {
 
   private final Map<AbstractStateHash, BAMCacheEntry> impreciseReachedCache = new LinkedHashMap<>();
 
-  public BAMCacheAggressiveImpl(Configuration config, Reducer reducer, LogManager logger)
+  /** The keys of each entry in {@link #impreciseReachedCache}, for removing evicted entries. */
+  private final Multimap<BAMCacheEntry, AbstractStateHash> impreciseKeys =
+      ArrayListMultimap.create();
+
+  public BAMCacheAggressiveImpl(
+      Configuration config,
+      Reducer reducer,
+      ReachedSetFactory reachedSetFactory,
+      Specification specification,
+      LogManager logger)
       throws InvalidConfigurationException {
-    super(config, reducer, logger);
+    super(config, reducer, reachedSetFactory, specification, logger);
   }
 
   @Override
@@ -69,6 +82,7 @@ public class BAMCacheAggressiveImpl extends BAMCacheImpl {
     if (result != null) {
       // found similar element, use this
       impreciseReachedCache.put(hash, result);
+      impreciseKeys.put(result, hash);
       lastAnalyzedEntry = result;
       logger.log(Level.FINEST, "CACHE_ACCESS: imprecise entry, searched in cache");
       return result;
@@ -98,4 +112,11 @@ public class BAMCacheAggressiveImpl extends BAMCacheImpl {
 
     return result;
   }
+
+  @Override
+  protected void removeEvictedEntry(BAMCacheEntry pEntry) {
+    for (AbstractStateHash hash : impreciseKeys.removeAll(pEntry)) {
+      impreciseReachedCache.remove(hash, pEntry);
+    }
+  }
 }
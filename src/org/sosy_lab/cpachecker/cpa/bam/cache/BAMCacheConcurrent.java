@@ -0,0 +1,238 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Collections2;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+
+/**
+ * A thread-safe cache without global locking. The entries are stored as futures in a concurrent
+ * map, such that the creation of a new entry is done by exactly one thread, and other threads
+ * requesting the same entry wait for its creation instead of creating a duplicate.
+ *
+ * <p>In contrast to {@link BAMCacheImpl}, this cache does not support eviction of entries or the
+ * analysis of cache misses.
+ */
+public class BAMCacheConcurrent implements BAMCache {
+
+  private final ConcurrentMap<CacheKey, CompletableFuture<BAMCacheEntry>> cache =
+      new ConcurrentHashMap<>();
+
+  private final Reducer reducer;
+
+  /**
+   * The entry of the last cache hit of each thread, or null after a cache miss. In contrast to a
+   * global last entry, this is deterministic for the thread that continues with the entry.
+   */
+  private final ThreadLocal<BAMCacheEntry> lastAnalyzedEntry = new ThreadLocal<>();
+
+  private final StatCounter cacheMisses = new StatCounter("Number of cache misses");
+  private final StatCounter partialCacheHits = new StatCounter("Number of partial cache hits");
+  private final StatCounter fullCacheHits = new StatCounter("Number of full cache hits");
+  private final StatCounter contendedAccesses =
+      new StatCounter("Number of accesses waiting for an entry in creation");
+  private final StatCounter coalescedCreations =
+      new StatCounter("Number of entries created concurrently by another thread");
+
+  public BAMCacheConcurrent(Reducer pReducer) {
+    reducer = pReducer;
+  }
+
+  private CacheKey getKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return new CacheKey(reducer.getHashCodeForState(stateKey, precisionKey), context);
+  }
+
+  @Override
+  public BAMCacheEntry put(
+      AbstractState stateKey, Precision precisionKey, Block context, ReachedSet item) {
+    BAMCacheEntry entry = new BAMCacheEntry(item);
+    cache.put(getKey(stateKey, precisionKey, context), CompletableFuture.completedFuture(entry));
+    return entry;
+  }
+
+  /**
+   * Return the entry for the given key, or create a new entry with a reached-set from the given
+   * supplier if there is none. If several threads request the same missing entry at the same time,
+   * only one of them creates the reached-set and all of them get the same entry.
+   */
+  public BAMCacheEntry getOrCreate(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Supplier<ReachedSet> reachedSetSupplier) {
+    CacheKey key = getKey(stateKey, precisionKey, context);
+    CompletableFuture<BAMCacheEntry> newFuture = new CompletableFuture<>();
+    CompletableFuture<BAMCacheEntry> existingFuture = cache.putIfAbsent(key, newFuture);
+    if (existingFuture != null) {
+      coalescedCreations.inc();
+      BAMCacheEntry entry = await(existingFuture);
+      lastAnalyzedEntry.set(entry);
+      return entry;
+    }
+    lastAnalyzedEntry.remove();
+    try {
+      BAMCacheEntry entry = new BAMCacheEntry(reachedSetSupplier.get());
+      newFuture.complete(entry);
+      return entry;
+    } catch (RuntimeException | Error e) {
+      // do not leave an incomplete entry in the cache, waiting threads get the exception
+      cache.remove(key, newFuture);
+      newFuture.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  @Override
+  public @Nullable BAMCacheEntry get(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    CompletableFuture<BAMCacheEntry> future = cache.get(getKey(stateKey, precisionKey, context));
+    if (future == null) {
+      cacheMisses.inc();
+      lastAnalyzedEntry.remove();
+      return null;
+    }
+    BAMCacheEntry entry = await(future);
+    lastAnalyzedEntry.set(entry);
+    if (entry.getExitStates() == null) {
+      partialCacheHits.inc();
+    } else {
+      fullCacheHits.inc();
+    }
+    return entry;
+  }
+
+  private BAMCacheEntry await(CompletableFuture<BAMCacheEntry> future) {
+    if (!future.isDone()) {
+      // another thread is currently creating the entry, this only takes a short time
+      contendedAccesses.inc();
+    }
+    return future.join();
+  }
+
+  /**
+   * Return the root-state of the block of the last cache hit in the current thread, or null if the
+   * last access of the current thread was a cache miss.
+   */
+  @Override
+  @Deprecated
+  public @Nullable ARGState getLastAnalyzedBlock() {
+    BAMCacheEntry entry = lastAnalyzedEntry.get();
+    return entry == null ? null : entry.getRootOfBlock();
+  }
+
+  @Override
+  public boolean containsPreciseKey(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    return cache.containsKey(getKey(stateKey, precisionKey, context));
+  }
+
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return Collections2.transform(cache.values(), f -> await(f).getReachedSet());
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+    // entries of other threads are cleared on their next access
+    lastAnalyzedEntry.remove();
+  }
+
+  /** The number of accesses that had to wait for another thread creating the requested entry. */
+  public StatCounter getContendedAccesses() {
+    return contendedAccesses;
+  }
+
+  /**
+   * The number of requests for creating an entry that was already created by another thread, i.e.,
+   * the number of coalesced duplicate block analyses.
+   */
+  public StatCounter getCoalescedCreations() {
+    return coalescedCreations;
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsUtils.write(pOut, 0, 50, "Number of cached reached-sets", cache.size());
+    StatisticsUtils.write(pOut, 0, 50, cacheMisses);
+    StatisticsUtils.write(pOut, 0, 50, partialCacheHits);
+    StatisticsUtils.write(pOut, 0, 50, fullCacheHits);
+  }
+
+  @Override
+  public String getName() {
+    return "BAMCache";
+  }
+
+  private static final class CacheKey {
+
+    private final Object wrappedHash;
+    private final Block context;
+
+    CacheKey(Object pWrappedHash, Block pContext) {
+      wrappedHash = checkNotNull(pWrappedHash);
+      context = checkNotNull(pContext);
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) pObj;
+      return context.equals(other.context) && wrappedHash.equals(other.wrappedHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return wrappedHash.hashCode() * 17 + context.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "CacheKey [wrappedHash=" + wrappedHash + ", context=" + context + "]";
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+
+/**
+ * Checks that concurrent requests for the same missing entry of {@link BAMCacheConcurrent} and
+ * {@link BAMDataManagerConcurrent} create the entry exactly once.
+ */
+public class BAMCacheConcurrentTest {
+
+  private static final int THREADS = 8;
+  private static final int KEYS = 200;
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  /** State with identity-based equality, as reduced states in the cache. */
+  private static class DummyState implements AbstractState, Partitionable {
+    private final int value;
+
+    private DummyState(int pValue) {
+      value = pValue;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return "DummyState " + value;
+    }
+  }
+
+  private ExecutorService executor;
+  private Block block;
+  private BAMCacheConcurrent cache;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(THREADS);
+    block = mock(Block.class);
+    Reducer reducer = mock(Reducer.class);
+    when(reducer.getHashCodeForState(any(), any())).thenAnswer(call -> call.getArgument(0));
+    cache = new BAMCacheConcurrent(reducer);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test(timeout = 60000)
+  public void getOrCreateWaitsForEntryInCreation() throws Exception {
+    DummyState state = new DummyState(0);
+    AtomicInteger creations = new AtomicInteger();
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    List<Future<BAMCacheEntry>> results = new ArrayList<>();
+
+    for (int t = 0; t < THREADS; t++) {
+      Callable<BAMCacheEntry> task =
+          () -> {
+            barrier.await();
+            return cache.getOrCreate(
+                state,
+                PRECISION,
+                block,
+                () -> {
+                  creations.incrementAndGet();
+                  // finish only when all other threads requested the entry in creation
+                  while (cache.getCoalescedCreations().getValue() < THREADS - 1
+                      && !Thread.currentThread().isInterrupted()) {
+                    Thread.yield();
+                  }
+                  return new PartitionedReachedSet(TraversalMethod.DFS);
+                });
+          };
+      results.add(executor.submit(task));
+    }
+
+    BAMCacheEntry entry = results.get(0).get();
+    for (Future<BAMCacheEntry> result : results) {
+      assertThat(result.get()).isSameAs(entry);
+    }
+    assertThat(creations.get()).isEqualTo(1);
+    assertThat(cache.getCoalescedCreations().getValue()).isEqualTo(THREADS - 1);
+    assertThat(cache.get(state, PRECISION, block)).isSameAs(entry);
+  }
+
+  @Test(timeout = 60000)
+  public void getOrCreateReachedSetCreatesEachReachedSetOnce() throws Exception {
+    List<DummyState> states = new ArrayList<>();
+    for (int i = 0; i < KEYS; i++) {
+      states.add(new DummyState(i));
+    }
+    AtomicInteger creations = new AtomicInteger();
+    ReachedSetFactory reachedSetFactory = mock(ReachedSetFactory.class);
+    when(reachedSetFactory.create())
+        .thenAnswer(
+            call -> {
+              creations.incrementAndGet();
+              return new PartitionedReachedSet(TraversalMethod.DFS);
+            });
+    BAMDataManagerConcurrent data =
+        new BAMDataManagerConcurrent(cache, reachedSetFactory, LogManager.createTestLogManager());
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    List<Future<List<BAMCacheEntry>>> results = new ArrayList<>();
+
+    for (int t = 0; t < THREADS; t++) {
+      Callable<List<BAMCacheEntry>> task =
+          () -> {
+            List<BAMCacheEntry> entries = new ArrayList<>();
+            barrier.await();
+            for (DummyState state : states) {
+              entries.add(data.getOrCreateReachedSet(state, PRECISION, block));
+            }
+            return entries;
+          };
+      results.add(executor.submit(task));
+    }
+
+    List<BAMCacheEntry> entries = results.get(0).get();
+    for (Future<List<BAMCacheEntry>> result : results) {
+      List<BAMCacheEntry> otherEntries = result.get();
+      for (int i = 0; i < KEYS; i++) {
+        assertThat(otherEntries.get(i)).isSameAs(entries.get(i));
+      }
+    }
+    assertThat(creations.get()).isEqualTo(KEYS);
+    for (int i = 0; i < KEYS; i++) {
+      ReachedSet reached = entries.get(i).getReachedSet();
+      assertThat(reached.asCollection()).containsExactly(states.get(i));
+      assertThat(cache.get(states.get(i), PRECISION, block)).isSameAs(entries.get(i));
+    }
+  }
+}
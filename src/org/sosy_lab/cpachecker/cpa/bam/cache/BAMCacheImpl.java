@@ -27,12 +27,22 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
 import com.google.common.collect.Collections2;
+import com.google.common.hash.HashCode;
 import java.io.PrintStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -40,12 +50,15 @@ import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
 
 @Options(prefix = "cpa.bam")
@@ -55,6 +68,19 @@ public class BAMCacheImpl implements BAMCache {
       + "for each cache miss to find the cause of the miss.")
   private boolean gatherCacheMissStatistics = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Maximum number of abstract states in all reached-sets of the cache (0 for no limit). "
+            + "If the limit is exceeded, the least-recently used reached-sets of completely "
+            + "analyzed blocks are evicted and the blocks are analyzed again when needed "
+            + "(also for counterexample reconstruction). "
+            + "The size of a reached-set is counted when its block is completely analyzed. "
+            + "Not supported by parallel BAM and copy-on-write refinement."
+  )
+  @IntegerOption(min = 0)
+  private int maxCachedStates = 0;
+
   private final Timer hashingTimer = new Timer();
   private final Timer equalsTimer = new Timer();
 
@@ -66,36 +92,193 @@ public class BAMCacheImpl implements BAMCache {
   private int precisionCausedMisses = 0;
   private int noSimilarCausedMisses = 0;
 
+  private int evictedEntries = 0;
+  private long evictedStates = 0;
+
+  private int reanalyzedSummaries = 0;
+
+  /**
+   * The number of states in the reached-sets of all completely analyzed entries of the precise
+   * cache (counted when their exit states are set).
+   */
+  private long cachedStates = 0;
+
+  private Consumer<BAMCacheEntry> evictionListener = entry -> {};
+
+  /**
+   * The evicted reached-sets and their sizes, such that we can report afterwards how many of them
+   * could be garbage collected.
+   */
+  private final List<Pair<WeakReference<ReachedSet>, Integer>> evictedReachedSets =
+      new ArrayList<>();
+
   // we use LinkedHashMaps to avoid non-determinism
   protected final Map<AbstractStateHash, BAMCacheEntry> preciseReachedCache = new LinkedHashMap<>();
 
+  /**
+   * All entries of the precise cache (and entries that were replaced there) with their keys, in the
+   * order of their last usage. Only used if {@link #maxCachedStates} is set.
+   */
+  private final Map<CountingCacheEntry, AbstractStateHash> recentlyUsedEntries =
+      new LinkedHashMap<>();
+
+  /**
+   * The reduced exit states of all entries that were restored from the summaries of a previous
+   * run, with the keys of their entries.
+   */
+  private final Map<AbstractState, AbstractStateHash> restoredExitStates = new HashMap<>();
+
   protected BAMCacheEntry lastAnalyzedEntry = null;
   protected final Reducer reducer;
   protected final LogManager logger;
 
+  private final ReachedSetFactory reachedSetFactory;
+  private final BAMBlockSummaryStore summaryStore;
+
   public BAMCacheImpl(
       Configuration config,
       Reducer reducer,
+      ReachedSetFactory reachedSetFactory,
+      Specification specification,
       LogManager logger) throws InvalidConfigurationException {
     config.inject(this, BAMCacheImpl.class);
     this.reducer = reducer;
+    this.reachedSetFactory = reachedSetFactory;
     this.logger = logger;
+    summaryStore = new BAMBlockSummaryStore(config, reducer, specification, logger);
   }
 
   protected AbstractStateHash getHashCode(AbstractState stateKey, Precision precisionKey, Block context) {
     return new AbstractStateHash(stateKey, precisionKey, context);
   }
 
+  /** Whether entries are evicted from this cache if it grows too large. */
+  public boolean evictsEntries() {
+    return maxCachedStates > 0;
+  }
+
+  /** Whether summaries of a previous run are restored into this cache. */
+  public boolean readsSummaries() {
+    return summaryStore.readsSummaries();
+  }
+
+  @Override
+  public void setEvictionListener(Consumer<BAMCacheEntry> pListener) {
+    evictionListener = checkNotNull(pListener);
+  }
+
   @Override
   public BAMCacheEntry put(
       AbstractState stateKey, Precision precisionKey, Block context, ReachedSet rs) {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
-    BAMCacheEntry entry = new BAMCacheEntry(rs);
+    CountingCacheEntry entry = new CountingCacheEntry(rs);
     // assert !preciseReachedCache.containsKey(hash);
-    preciseReachedCache.put(hash, entry);
+    BAMCacheEntry oldEntry = preciseReachedCache.put(hash, entry);
+    if (oldEntry != null) {
+      ((CountingCacheEntry) oldEntry).removeFromCount();
+      recentlyUsedEntries.remove(oldEntry);
+      removeRestoredExitStates(oldEntry);
+    }
+    if (maxCachedStates > 0) {
+      recentlyUsedEntries.put(entry, hash);
+      evictIfNecessary();
+    }
     return entry;
   }
 
+  /**
+   * Evict least-recently used entries until the cached reached-sets contain at most {@link
+   * #maxCachedStates} states. Entries without exit states are not evicted, because their
+   * reached-sets might currently be analyzed (they are not counted, either).
+   */
+  private void evictIfNecessary() {
+    Iterator<Entry<CountingCacheEntry, AbstractStateHash>> it =
+        recentlyUsedEntries.entrySet().iterator();
+    while (cachedStates > maxCachedStates && it.hasNext()) {
+      Entry<CountingCacheEntry, AbstractStateHash> lruEntry = it.next();
+      CountingCacheEntry entry = lruEntry.getKey();
+      if (entry.getExitStates() == null) {
+        continue;
+      }
+
+      it.remove();
+      int size = entry.countedStates;
+      evict(entry, lruEntry.getValue());
+
+      evictedEntries++;
+      evictedStates += size;
+      evictedReachedSets.add(Pair.of(new WeakReference<>(entry.getReachedSet()), size));
+      logger.log(Level.FINEST, "CACHE_EVICTION:", entry);
+    }
+  }
+
+  /**
+   * Remove an entry from the cache and all further references to it. The caller has to remove it
+   * from {@link #recentlyUsedEntries}.
+   */
+  private void evict(CountingCacheEntry entry, AbstractStateHash hash) {
+    preciseReachedCache.remove(hash);
+    entry.removeFromCount();
+    removeRestoredExitStates(entry);
+    removeEvictedEntry(entry);
+    evictionListener.accept(entry);
+    if (lastAnalyzedEntry == entry) {
+      lastAnalyzedEntry = null;
+    }
+  }
+
+  private void removeRestoredExitStates(BAMCacheEntry entry) {
+    if (!restoredExitStates.isEmpty() && entry.getExitStates() != null) {
+      restoredExitStates.keySet().removeAll(entry.getExitStates());
+    }
+  }
+
+  @Override
+  public boolean removeRestoredSummary(AbstractState reducedExitState) {
+    AbstractStateHash hash = restoredExitStates.get(reducedExitState);
+    if (hash == null) {
+      return false;
+    }
+    CountingCacheEntry entry = (CountingCacheEntry) preciseReachedCache.get(hash);
+    recentlyUsedEntries.remove(entry);
+    evict(entry, hash);
+    reanalyzedSummaries++;
+    return true;
+  }
+
+  /** A cache entry that keeps {@link BAMCacheImpl#cachedStates} up-to-date. */
+  private final class CountingCacheEntry extends BAMCacheEntry {
+
+    /** The number of states of this entry in {@link BAMCacheImpl#cachedStates}, or -1. */
+    private int countedStates = 0;
+
+    private CountingCacheEntry(ReachedSet pRs) {
+      super(pRs);
+    }
+
+    @Override
+    public void setExitStates(List<AbstractState> pExitStates) {
+      super.setExitStates(pExitStates);
+      if (countedStates >= 0) {
+        int size = getReachedSet().size();
+        cachedStates += size - countedStates;
+        countedStates = size;
+      }
+    }
+
+    /** Stop counting the states of this entry, e.g., because it was removed from the cache. */
+    private void removeFromCount() {
+      if (countedStates > 0) {
+        cachedStates -= countedStates;
+      }
+      countedStates = -1;
+    }
+  }
+
+  /** Remove all further references to an entry that was evicted from the precise cache. */
+  @SuppressWarnings("unused") /* parameter used in subclass */
+  protected void removeEvictedEntry(BAMCacheEntry pEntry) {}
+
   protected static boolean allStatesContainedInReachedSet(Collection<AbstractState> pElements, ReachedSet reached) {
     return reached.asCollection().containsAll(pElements);
   }
@@ -106,6 +289,14 @@ public class BAMCacheImpl implements BAMCache {
 
     final BAMCacheEntry entry = get0(stateKey, precisionKey, context);
 
+    if (entry != null && maxCachedStates > 0) {
+      // mark entry as recently used
+      AbstractStateHash hash = recentlyUsedEntries.remove(entry);
+      if (hash != null) {
+        recentlyUsedEntries.put(entry, hash);
+      }
+    }
+
     // get some statistics
     if (entry == null) {
       cacheMisses++;
@@ -136,9 +327,51 @@ public class BAMCacheImpl implements BAMCache {
       return result;
     }
 
+    if (summaryStore.readsSummaries()) {
+      result = restoreSummary(stateKey, precisionKey, context, hash);
+      if (result != null) {
+        lastAnalyzedEntry = result;
+        logger.log(Level.FINEST, "CACHE_ACCESS: entry restored from previous run");
+        return result;
+      }
+    }
+
     return getIfNotExistant(stateKey, precisionKey, context, hash);
   }
 
+  /**
+   * Create a cache entry from the summary of a previous run, if available. The reached-set of the
+   * entry only contains the initial state and the restored exit states as its children.
+   */
+  private @Nullable BAMCacheEntry restoreSummary(
+      final AbstractState stateKey,
+      final Precision precisionKey,
+      final Block context,
+      AbstractStateHash hash) {
+    HashCode key = summaryStore.computeKey(stateKey, precisionKey, context);
+    List<AbstractState> restoredStates =
+        key == null ? null : summaryStore.restoreExitStates(key, context);
+    if (restoredStates == null) {
+      return null;
+    }
+    ReachedSet reached = reachedSetFactory.create();
+    reached.add(stateKey, precisionKey);
+    reached.removeOnlyFromWaitlist(stateKey);
+    List<AbstractState> exitStates = new ArrayList<>(restoredStates.size());
+    for (AbstractState restoredState : restoredStates) {
+      ARGState exitState = new ARGState(restoredState, (ARGState) stateKey);
+      reached.add(exitState, precisionKey);
+      reached.removeOnlyFromWaitlist(exitState);
+      exitStates.add(exitState);
+    }
+    BAMCacheEntry entry = put(stateKey, precisionKey, context, reached);
+    entry.setExitStates(exitStates);
+    for (AbstractState exitState : exitStates) {
+      restoredExitStates.put(exitState, hash);
+    }
+    return entry;
+  }
+
   @SuppressWarnings("unused") /* parameters used in subclass */
   protected BAMCacheEntry getIfNotExistant(
       final AbstractState stateKey,
@@ -193,7 +426,7 @@ public class BAMCacheImpl implements BAMCache {
   class AbstractStateHash {
 
     private final Object wrappedHash;
-    private final Block context;
+    final Block context;
     final AbstractState stateKey;
     final Precision precisionKey;
 
@@ -267,10 +500,44 @@ public class BAMCacheImpl implements BAMCache {
       out.println("  Number of precision caused misses:                 " + precisionCausedMisses + " (" + toPercent(precisionCausedMisses, cacheMisses) + " of all misses)");
       out.println("  Number of misses with no similar elements:         " + noSimilarCausedMisses + " (" + toPercent(noSimilarCausedMisses, cacheMisses) + " of all misses)");
     }
+    if (maxCachedStates > 0) {
+      long freedStates = 0;
+      int freedEntries = 0;
+      for (Pair<WeakReference<ReachedSet>, Integer> evicted : evictedReachedSets) {
+        if (evicted.getFirst().get() == null) {
+          freedEntries++;
+          freedStates += evicted.getSecond();
+        }
+      }
+      out.println("Number of evicted reached-sets:                      " + evictedEntries + " (" + evictedStates + " states)");
+      out.println("  Garbage collected so far:                          " + freedEntries + " (" + freedStates + " states, " + toPercent(freedStates, evictedStates) + " of evicted states)");
+      out.println("  Still referenced (e.g., for counterexamples):      " + (evictedEntries - freedEntries) + " (" + (evictedStates - freedStates) + " states)");
+    }
+    if (summaryStore.isEnabled()) {
+      summaryStore.printStatistics(out, getSummaries(), reanalyzedSummaries);
+    }
     out.println("Time for checking equality of abstract states:       " + equalsTimer + " (Calls: " + equalsTimer.getNumberOfIntervals() + ")");
     out.println("Time for computing the hashCode of abstract states:  " + hashingTimer + " (Calls: " + hashingTimer.getNumberOfIntervals() + ")");
   }
 
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    summaryStore.writeSummaries(getSummaries());
+  }
+
+  /** Get all completely analyzed entries of the cache that were not restored. */
+  private Map<AbstractStateHash, BAMCacheEntry> getSummaries() {
+    Map<AbstractStateHash, BAMCacheEntry> summaries = new LinkedHashMap<>();
+    for (Entry<AbstractStateHash, BAMCacheEntry> entry : preciseReachedCache.entrySet()) {
+      List<AbstractState> exitStates = entry.getValue().getExitStates();
+      if (exitStates != null
+          && (exitStates.isEmpty() || !restoredExitStates.containsKey(exitStates.get(0)))) {
+        summaries.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return summaries;
+  }
+
   @Override
   public String getName() {
     return "BAMCache";
@@ -278,7 +545,13 @@ public class BAMCacheImpl implements BAMCache {
 
   @Override
   public void clear() {
+    for (BAMCacheEntry entry : preciseReachedCache.values()) {
+      ((CountingCacheEntry) entry).removeFromCount();
+    }
+    assert cachedStates == 0;
     preciseReachedCache.clear();
+    recentlyUsedEntries.clear();
+    restoredExitStates.clear();
     lastAnalyzedEntry = null;
   }
 }
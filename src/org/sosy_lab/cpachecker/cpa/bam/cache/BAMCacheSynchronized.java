@@ -31,10 +31,12 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
@@ -46,9 +48,26 @@ public class BAMCacheSynchronized implements BAMCache {
   private final BAMCache cache;
   private final StatTimer timer = new StatTimer("Time for cache-access");
 
-  public BAMCacheSynchronized(Configuration pConfig, Reducer pReducer, LogManager pLogger)
+  public BAMCacheSynchronized(
+      Configuration pConfig,
+      Reducer pReducer,
+      ReachedSetFactory pReachedSetFactory,
+      Specification pSpecification,
+      LogManager pLogger)
       throws InvalidConfigurationException {
-    cache = new BAMCacheImpl(pConfig, pReducer, pLogger);
+    BAMCacheImpl cacheImpl =
+        new BAMCacheImpl(pConfig, pReducer, pReachedSetFactory, pSpecification, pLogger);
+    if (cacheImpl.evictsEntries()) {
+      throw new InvalidConfigurationException(
+          "Eviction of BAM cache entries (cpa.bam.maxCachedStates) "
+              + "is not supported by parallel BAM.");
+    }
+    if (cacheImpl.readsSummaries()) {
+      throw new InvalidConfigurationException(
+          "Reusing BAM summaries of a previous run (cpa.bam.summaries.inputFile) "
+              + "is not supported by parallel BAM.");
+    }
+    cache = cacheImpl;
   }
 
   @Override
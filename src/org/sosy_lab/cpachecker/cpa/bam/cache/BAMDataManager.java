@@ -50,6 +50,15 @@ public interface BAMDataManager {
   BAMCacheEntry createAndRegisterNewReachedSet(
       AbstractState initialState, Precision initialPrecision, Block context);
 
+  /**
+   * Return the cache entry for the given key, or create a new reached-set with the given state as
+   * root and register it in the cache if there is none. The check and the creation are done
+   * atomically, such that concurrent requests for the same block do not create several
+   * reached-sets.
+   */
+  BAMCacheEntry getOrCreateReachedSet(
+      AbstractState initialState, Precision initialPrecision, Block context);
+
   ReachedSetFactory getReachedSetFactory();
 
   /**
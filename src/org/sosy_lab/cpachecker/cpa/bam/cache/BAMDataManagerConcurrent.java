@@ -0,0 +1,308 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+
+/**
+ * A thread-safe data manager without global locking, based on concurrent maps. It is the
+ * counterpart of {@link BAMDataManagerImpl} for the parallel BAM algorithm.
+ *
+ * <p>Each single operation is atomic, sequences of operations are not. This is sufficient for the
+ * parallel BAM algorithm, because all states of a reached-set (and thus all keys related to them)
+ * are only modified by the single thread that currently analyzes the reached-set.
+ */
+public class BAMDataManagerConcurrent implements BAMDataManager {
+
+  private final LogManager logger;
+
+  private final BAMCacheConcurrent bamCache;
+
+  private final ReachedSetFactory reachedSetFactory;
+
+  /** Mapping of non-reduced initial states and non-expanded exit states to {@link ReachedSet}. */
+  private final ConcurrentMap<AbstractState, ConcurrentMap<AbstractState, ReachedSet>>
+      initialStateToReachedSet = new ConcurrentHashMap<>();
+
+  /** Mapping of reduced initial states to non-reduced initial states. */
+  private final ConcurrentMap<AbstractState, Set<AbstractState>> reducedToNonReduced =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<AbstractState, BlockExitData> expandedStateToBlockExit =
+      new ConcurrentHashMap<>();
+
+  private static class BlockExitData {
+
+    private final AbstractState reducedState;
+    private final Block block;
+    private final Precision expandedPrecision;
+
+    BlockExitData(AbstractState pReducedState, Block pBlock, Precision pExpandedPrecision) {
+      reducedState = pReducedState;
+      block = pBlock;
+      expandedPrecision = pExpandedPrecision;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Data <%s, %s, %s>", reducedState, block, expandedPrecision);
+    }
+  }
+
+  public BAMDataManagerConcurrent(
+      BAMCacheConcurrent pCache, ReachedSetFactory pReachedSetFactory, LogManager pLogger) {
+    bamCache = pCache;
+    reachedSetFactory = pReachedSetFactory;
+    logger = pLogger;
+  }
+
+  @Override
+  public void replaceStateInCaches(
+      AbstractState oldState, AbstractState newState, boolean oldStateMustExist) {
+    if (oldState.equals(newState)) {
+      return; // nothing to do
+    }
+    final BlockExitData entry = expandedStateToBlockExit.remove(oldState);
+    assert entry != null || !oldStateMustExist : "missing data for state " + oldState;
+    if (entry != null) {
+      expandedStateToBlockExit.put(newState, entry);
+    }
+  }
+
+  @Override
+  public BAMCacheEntry createAndRegisterNewReachedSet(
+      AbstractState initialState, Precision initialPrecision, Block context) {
+    return bamCache.put(
+        initialState, initialPrecision, context, createReachedSet(initialState, initialPrecision));
+  }
+
+  @Override
+  public BAMCacheEntry getOrCreateReachedSet(
+      AbstractState initialState, Precision initialPrecision, Block context) {
+    return bamCache.getOrCreate(
+        initialState,
+        initialPrecision,
+        context,
+        () -> createReachedSet(initialState, initialPrecision));
+  }
+
+  private ReachedSet createReachedSet(AbstractState initialState, Precision initialPrecision) {
+    final ReachedSet reached = reachedSetFactory.create();
+    reached.add(initialState, initialPrecision);
+    return reached;
+  }
+
+  @Override
+  public ReachedSetFactory getReachedSetFactory() {
+    return reachedSetFactory;
+  }
+
+  @Override
+  public void registerExpandedState(
+      AbstractState expandedState,
+      Precision expandedPrecision,
+      AbstractState reducedState,
+      Block innerBlock) {
+    BlockExitData previousValue =
+        expandedStateToBlockExit.put(
+            expandedState, new BlockExitData(reducedState, innerBlock, expandedPrecision));
+    assert previousValue == null
+        : "expanded state was registered before with data " + previousValue;
+  }
+
+  @Override
+  public boolean alreadyReturnedFromSameBlock(AbstractState state, Block block) {
+    BlockExitData data = expandedStateToBlockExit.get(state);
+    while (data != null) {
+      if (block == data.block) {
+        return true;
+      }
+      data = expandedStateToBlockExit.get(data.reducedState);
+    }
+    return false;
+  }
+
+  @Override
+  public AbstractState getInnermostState(AbstractState state) {
+    BlockExitData data = expandedStateToBlockExit.get(state);
+    while (data != null) {
+      state = data.reducedState;
+      data = expandedStateToBlockExit.get(state);
+    }
+    return state;
+  }
+
+  @Override
+  public List<AbstractState> getExpandedStatesList(AbstractState state) {
+    List<AbstractState> lst = new ArrayList<>();
+    BlockExitData data;
+    while (true) {
+      data = expandedStateToBlockExit.get(state);
+      if (data == null) {
+        break;
+      }
+      lst.add(state);
+      state = data.reducedState;
+    }
+    return Lists.reverse(lst);
+  }
+
+  @Override
+  public void registerInitialState(
+      AbstractState initialState, AbstractState exitState, ReachedSet reachedSet) {
+    ReachedSet oldReachedSet =
+        initialStateToReachedSet
+            .computeIfAbsent(initialState, k -> new ConcurrentHashMap<>())
+            .put(exitState, reachedSet);
+    if (oldReachedSet != null && oldReachedSet != reachedSet) {
+      logger.logf(
+          Level.ALL,
+          "New root state %s with exit state %s overrides old reachedset %s with new reachedset %s.",
+          initialState,
+          exitState,
+          oldReachedSet.getFirstState(),
+          reachedSet.getFirstState());
+    }
+    reducedToNonReduced
+        .computeIfAbsent(reachedSet.getFirstState(), k -> ConcurrentHashMap.newKeySet())
+        .add(initialState);
+  }
+
+  @Override
+  public ReachedSet getReachedSetForInitialState(
+      AbstractState initialState, AbstractState exitState) {
+    Map<AbstractState, ReachedSet> exitStates = initialStateToReachedSet.get(initialState);
+    ReachedSet reached = exitStates == null ? null : exitStates.get(exitState);
+    assert reached != null : "no block matching states: " + initialState + " -> " + exitState;
+    assert reached.contains(exitState)
+        : "reachedset should contain exit state for block: " + exitState;
+    return checkNotNull(reached);
+  }
+
+  @Override
+  public boolean hasInitialState(AbstractState state) {
+    return initialStateToReachedSet.containsKey(state);
+  }
+
+  @Override
+  public ImmutableSet<AbstractState> getNonReducedInitialStates(AbstractState pReducedState) {
+    return ImmutableSet.copyOf(
+        reducedToNonReduced.getOrDefault(pReducedState, Collections.emptySet()));
+  }
+
+  @Override
+  public AbstractState getReducedStateForExpandedState(AbstractState state) {
+    assert hasExpandedState(state) : "no match for state: " + state;
+    return expandedStateToBlockExit.get(state).reducedState;
+  }
+
+  @Override
+  public Block getInnerBlockForExpandedState(AbstractState state) {
+    assert hasExpandedState(state) : "no match for state: " + state;
+    return expandedStateToBlockExit.get(state).block;
+  }
+
+  @Override
+  public boolean hasExpandedState(AbstractState state) {
+    return expandedStateToBlockExit.containsKey(state);
+  }
+
+  @Override
+  public BAMCacheConcurrent getCache() {
+    return bamCache;
+  }
+
+  @Override
+  public @Nullable Precision getExpandedPrecisionForState(AbstractState pState) {
+    final BlockExitData data = expandedStateToBlockExit.get(pState);
+    return data == null ? null : data.expandedPrecision;
+  }
+
+  @Override
+  public void clear() {
+    initialStateToReachedSet.clear();
+    expandedStateToBlockExit.clear();
+    bamCache.clear();
+    reducedToNonReduced.clear();
+  }
+
+  @Override
+  public boolean addUncachedBlockEntry(CFANode pNode) {
+    // same as in BAMDataManagerSynchronized, the option is not supported with ParallelBAM
+    return true;
+  }
+
+  @Override
+  public boolean isUncachedBlockEntry(CFANode pNode) {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder("BAM DATA MANAGER\n");
+    str.append("initial state to (first state of) reached set:\n");
+    initialStateToReachedSet.forEach(
+        (initialState, exitStates) ->
+            exitStates.forEach(
+                (exitState, reached) ->
+                    str.append(
+                        String.format(
+                            "    (%s, %s) -> %s%n",
+                            getId(initialState),
+                            getId(exitState),
+                            getId(reached.getFirstState())))));
+    str.append("expanded state to reduced state:\n");
+    expandedStateToBlockExit.forEach(
+        (expandedState, data) ->
+            str.append(
+                String.format(
+                    "    %s -> %s%n", getId(expandedState), getId(data.reducedState))));
+    return str.toString();
+  }
+
+  private static int getId(AbstractState state) {
+    return ((ARGState) state).getStateId();
+  }
+}
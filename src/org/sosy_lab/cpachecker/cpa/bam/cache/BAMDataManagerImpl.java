@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
@@ -80,6 +81,15 @@ public class BAMDataManagerImpl implements BAMDataManager {
 
   private final Map<AbstractState, BlockExitData> expandedStateToBlockExit = new HashMap<>();
 
+  /**
+   * Non-reduced initial states whose reached-sets were all evicted from the cache. They are still
+   * initial states of blocks, but the reduced exit states of these blocks are destroyed, such that
+   * counterexample reconstruction detects a missing block. Weak, because the states are not needed
+   * anymore when they are removed from the ARG.
+   */
+  private final Set<AbstractState> initialStatesOfEvictedBlocks =
+      Collections.newSetFromMap(new WeakHashMap<>());
+
 
   private static class BlockExitData {
 
@@ -111,6 +121,28 @@ public class BAMDataManagerImpl implements BAMDataManager {
     bamCache = pArgCache;
     reachedSetFactory = pReachedSetFactory;
     logger = pLogger;
+    bamCache.setEvictionListener(this::removeEvictedEntry);
+  }
+
+  /**
+   * Remove all references to the reached-set of an entry that was evicted from the cache, such
+   * that it can be garbage collected. Its exit states are destroyed, thus counterexample
+   * reconstruction treats the block as missing and it is analyzed again.
+   */
+  private void removeEvictedEntry(BAMCacheEntry pEntry) {
+    ReachedSet reached = pEntry.getReachedSet();
+    for (AbstractState exitState : checkNotNull(pEntry.getExitStates())) {
+      if (!((ARGState) exitState).isDestroyed()) {
+        ((ARGState) exitState).removeFromARG();
+      }
+    }
+    for (AbstractState initialState : reducedToNonReduced.removeAll(reached.getFirstState())) {
+      Map<AbstractState, ReachedSet> blocks = initialStateToReachedSet.row(initialState);
+      blocks.values().removeIf(rs -> rs == reached);
+      if (blocks.isEmpty()) {
+        initialStatesOfEvictedBlocks.add(initialState);
+      }
+    }
   }
 
   /**
@@ -141,6 +173,16 @@ public class BAMDataManagerImpl implements BAMDataManager {
     return bamCache.put(initialState, initialPrecision, context, reached);
   }
 
+  @Override
+  public BAMCacheEntry getOrCreateReachedSet(
+      AbstractState initialState, Precision initialPrecision, Block context) {
+    BAMCacheEntry entry = bamCache.get(initialState, initialPrecision, context);
+    if (entry == null) {
+      entry = createAndRegisterNewReachedSet(initialState, initialPrecision, context);
+    }
+    return entry;
+  }
+
   @Override
   public ReachedSetFactory getReachedSetFactory() {
     return reachedSetFactory;
@@ -235,6 +277,7 @@ public class BAMDataManagerImpl implements BAMDataManager {
     }
     initialStateToReachedSet.put(initialState, exitState, reachedSet);
     reducedToNonReduced.put(reachedSet.getFirstState(), initialState);
+    initialStatesOfEvictedBlocks.remove(initialState);
   }
 
   @Override
@@ -250,7 +293,8 @@ public class BAMDataManagerImpl implements BAMDataManager {
 
   @Override
   public boolean hasInitialState(AbstractState state) {
-    return initialStateToReachedSet.containsRow(state);
+    return initialStateToReachedSet.containsRow(state)
+        || initialStatesOfEvictedBlocks.contains(state);
   }
 
   @Override
@@ -328,6 +372,7 @@ public class BAMDataManagerImpl implements BAMDataManager {
     expandedStateToBlockExit.clear();
     bamCache.clear();
     reducedToNonReduced.clear();
+    initialStatesOfEvictedBlocks.clear();
   }
 
   @Override
@@ -23,11 +23,16 @@
  */
 package org.sosy_lab.cpachecker.cpa.callstack;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
 import org.sosy_lab.cpachecker.core.defaults.GenericReducer;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 
 
 class CallstackReducer extends GenericReducer<CallstackState, Precision> {
@@ -81,6 +86,25 @@ class CallstackReducer extends GenericReducer<CallstackState, Precision> {
     return new CallstackStateEqualsWrapper(pElementKey);
   }
 
+  @Override
+  protected @Nullable String getCanonicalEncoding0(
+      CallstackState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    // like CallstackStateEqualsWrapper, i.e., function names and call nodes of all frames
+    List<String> frames = new ArrayList<>(pStateKey.getDepth() * 2);
+    for (CallstackState state = pStateKey; state != null; state = state.getPreviousState()) {
+      String callNode = pNodeEncoding.apply(state.getCallNode());
+      if (callNode == null) {
+        return null;
+      }
+      frames.add(state.getCurrentFunction());
+      frames.add(callNode);
+    }
+    return Reducer.concatEncodings(frames);
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(Precision pPrecision, Block pContext) {
     return pPrecision;
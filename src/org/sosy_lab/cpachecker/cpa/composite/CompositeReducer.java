@@ -25,6 +25,8 @@ package org.sosy_lab.cpachecker.cpa.composite;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
@@ -88,6 +90,29 @@ class CompositeReducer extends GenericReducer<CompositeState, CompositePrecision
     return result;
   }
 
+  @Override
+  protected @Nullable String getCanonicalEncoding0(
+      CompositeState pStateKey,
+      CompositePrecision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    List<AbstractState> states = pStateKey.getWrappedStates();
+    List<Precision> precisions = pPrecisionKey.getWrappedPrecisions();
+
+    List<String> result = new ArrayList<>(wrappedReducers.size());
+    for (int i = 0; i < wrappedReducers.size(); i++) {
+      String encoding =
+          wrappedReducers
+              .get(i)
+              .getCanonicalEncoding(states.get(i), precisions.get(i), pContext, pNodeEncoding);
+      if (encoding == null) {
+        return null;
+      }
+      result.add(encoding);
+    }
+    return Reducer.concatEncodings(result);
+  }
+
   @Override
   protected Precision getVariableReducedPrecision0(CompositePrecision pPrecision, Block pContext) {
     List<Precision> precisions = pPrecision.getWrappedPrecisions();
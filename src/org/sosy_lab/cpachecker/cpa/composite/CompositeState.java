@@ -38,6 +38,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
@@ -48,7 +49,7 @@ import org.sosy_lab.cpachecker.cpa.arg.Splitable;
 
 public class CompositeState
     implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable, Serializable,
-        Graphable, Splitable {
+        Graphable, Splitable, AbstractStateWithCoverageSignature {
   private static final long serialVersionUID = -5143296331663510680L;
   private final ImmutableList<AbstractState> states;
   private transient Object partitionKey; // lazily initialized
@@ -200,6 +201,22 @@ public class CompositeState
     return pseudoHashCode;
   }
 
+  /**
+   * The signature is the union of the signatures of all component states. This is valid, because
+   * this state is only 'lessOrEqual' to another state if this holds for all components. The
+   * signature is not cached, because the components are responsible for caching.
+   */
+  @Override
+  public long getCoverageSignature() {
+    long signature = 0;
+    for (AbstractState element : states) {
+      if (element instanceof AbstractStateWithCoverageSignature) {
+        signature |= ((AbstractStateWithCoverageSignature) element).getCoverageSignature();
+      }
+    }
+    return signature;
+  }
+
   private static final class CompositePartitionKey implements Serializable {
 
     private static final long serialVersionUID = 1L;
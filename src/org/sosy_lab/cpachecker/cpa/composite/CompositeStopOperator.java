@@ -26,10 +26,13 @@ package org.sosy_lab.cpachecker.cpa.composite;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ForcedCoveringStopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -41,17 +44,31 @@ class CompositeStopOperator implements StopOperator, ForcedCoveringStopOperator
 
   private final ImmutableList<StopOperator> stopOperators;
 
+  /**
+   * Whether the coverage signatures of the composite states can be used to skip reached states.
+   * This is only valid if all components use the partial order of their domain for stopping.
+   */
+  private final boolean useCoverageSignatures;
+
   CompositeStopOperator(ImmutableList<StopOperator> stopOperators) {
     this.stopOperators = stopOperators;
+    useCoverageSignatures = Iterables.all(stopOperators, op -> op instanceof StopSepOperator);
   }
 
   @Override
   public boolean stop(AbstractState element, Collection<AbstractState> reached, Precision precision) throws CPAException, InterruptedException {
     CompositeState compositeState = (CompositeState) element;
     CompositePrecision compositePrecision = (CompositePrecision) precision;
+    long signature = useCoverageSignatures ? compositeState.getCoverageSignature() : 0;
 
     for (AbstractState e : reached) {
-      if (stop(compositeState, (CompositeState)e, compositePrecision)) {
+      CompositeState compositeReachedState = (CompositeState) e;
+      if (useCoverageSignatures
+          && !AbstractStateWithCoverageSignature.mayBeLessOrEqual(
+              signature, compositeReachedState.getCoverageSignature())) {
+        continue;
+      }
+      if (stop(compositeState, compositeReachedState, compositePrecision)) {
         return true;
       }
     }
@@ -29,9 +29,15 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -55,6 +61,8 @@ import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
 import org.sosy_lab.cpachecker.util.predicates.regions.Region;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 
 @Options(prefix="cpa.predicate.bam")
@@ -64,6 +72,7 @@ public class BAMPredicateReducer implements Reducer {
   private final PredicateAbstractionManager pamgr;
   private final BAMPredicateCPA cpa;
   private final LogManager logger;
+  private final FormulaManagerView fmgr;
   private final BooleanFormulaManager bfmgr;
 
   /** A meaning of the following options is a number of problems in BAM:
@@ -87,7 +96,8 @@ public class BAMPredicateReducer implements Reducer {
     pConfig.inject(this);
     this.pmgr = cpa.getPathFormulaManager();
     this.pamgr = cpa.getPredicateManager();
-    this.bfmgr = cpa.getSolver().getFormulaManager().getBooleanFormulaManager();
+    this.fmgr = cpa.getSolver().getFormulaManager();
+    this.bfmgr = fmgr.getBooleanFormulaManager();
     this.logger = cpa.getLogger();
     this.cpa = cpa;
   }
@@ -209,6 +219,56 @@ public class BAMPredicateReducer implements Reducer {
     return Triple.of(element.getAbstractionFormula().asRegion(), precision, cpa.getRelevantPredicatesComputer());
   }
 
+  @Override
+  public @Nullable String getCanonicalEncoding(
+      AbstractState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Function<CFANode, String> pNodeEncoding) {
+    PredicateAbstractState element = (PredicateAbstractState) pStateKey;
+    PredicatePrecision precision = (PredicatePrecision) pPrecisionKey;
+    if (!element.isAbstractionState() || !precision.getLocationInstancePredicates().isEmpty()) {
+      return null;
+    }
+
+    // like getHashCodeForState, i.e., abstraction and precision, formulas are dumped as SMT-LIB
+    List<String> result = new ArrayList<>();
+    result.add(dumpFormula(element.getAbstractionFormula().asFormula()));
+    result.add(encodePredicates(precision.getGlobalPredicates()));
+    for (Map.Entry<String, Collection<AbstractionPredicate>> functionPredicates :
+        new TreeMap<>(precision.getFunctionPredicates().asMap()).entrySet()) {
+      result.add(functionPredicates.getKey());
+      result.add(encodePredicates(functionPredicates.getValue()));
+    }
+    Map<String, String> localPredicates = new TreeMap<>();
+    for (Map.Entry<CFANode, Collection<AbstractionPredicate>> nodePredicates :
+        precision.getLocalPredicates().asMap().entrySet()) {
+      String node = pNodeEncoding.apply(nodePredicates.getKey());
+      if (node == null) {
+        return null;
+      }
+      localPredicates.put(node, encodePredicates(nodePredicates.getValue()));
+    }
+    for (Map.Entry<String, String> nodePredicates : localPredicates.entrySet()) {
+      result.add(nodePredicates.getKey());
+      result.add(nodePredicates.getValue());
+    }
+    return Reducer.concatEncodings(result);
+  }
+
+  private String encodePredicates(Collection<AbstractionPredicate> pPredicates) {
+    List<String> predicates = new ArrayList<>(pPredicates.size());
+    for (AbstractionPredicate predicate : pPredicates) {
+      predicates.add(dumpFormula(predicate.getSymbolicAtom()));
+    }
+    predicates.sort(null);
+    return Reducer.concatEncodings(predicates);
+  }
+
+  private String dumpFormula(BooleanFormula pFormula) {
+    return fmgr.dumpFormula(pFormula).toString();
+  }
+
   @Override
   public Precision getVariableExpandedPrecision(Precision pRootPrecision, Block pRootContext,
       Precision pReducedPrecision) {
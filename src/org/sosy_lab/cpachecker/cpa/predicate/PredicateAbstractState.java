@@ -34,6 +34,7 @@ import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.NonMergeableAbstractState;
@@ -52,10 +53,18 @@ import java.util.Collection;
  * AbstractState for Symbolic Predicate Abstraction CPA
  */
 public abstract class PredicateAbstractState
-    implements AbstractState, Partitionable, Serializable, Splitable {
+    implements AbstractState, Partitionable, Serializable, Splitable,
+        AbstractStateWithCoverageSignature {
 
   private static final long serialVersionUID = -265763837277453447L;
 
+  /**
+   * Signature bit of non-abstraction states. An abstraction state is never 'lessOrEqual' to a
+   * non-abstraction state (cf. {@link PredicateAbstractDomain}), but a non-abstraction state may be
+   * 'lessOrEqual' to an abstraction state (symbolic coverage check).
+   */
+  private static final long NON_ABSTRACTION_SIGNATURE = 1L;
+
   public final static Predicate<AbstractState> CONTAINS_ABSTRACTION_STATE =
       Predicates.compose(
           PredicateAbstractState::isAbstractionState,
@@ -201,6 +210,11 @@ public abstract class PredicateAbstractState
 
   public abstract boolean isAbstractionState();
 
+  @Override
+  public long getCoverageSignature() {
+    return isAbstractionState() ? 0L : NON_ABSTRACTION_SIGNATURE;
+  }
+
   PredicateAbstractState getMergedInto() {
     throw new UnsupportedOperationException("Assuming wrong PredicateAbstractStates were merged!");
   }
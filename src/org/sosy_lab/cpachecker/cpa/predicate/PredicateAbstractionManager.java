@@ -29,12 +29,18 @@ import static com.google.common.base.Predicates.equalTo;
 import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
@@ -42,8 +48,6 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -69,6 +73,7 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.cpa.predicate.persistence.PersistentAbstractionCache;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage.AbstractionNode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
@@ -105,6 +110,7 @@ public class PredicateAbstractionManager {
     public int numSymbolicAbstractions = 0; // precision completely empty, no computation
     public int numSatCheckAbstractions = 0; // precision was {false}, only sat check
     public int numCallsAbstractionCached = 0; // result was cached, no computation
+    public int numCallsAbstractionPersistentlyCached = 0; // result was cached on disk
     public int numInductivePathFormulaCacheUsed = 0; // loop was cached, no new computation
 
     public int numTotalPredicates = 0;
@@ -135,6 +141,7 @@ public class PredicateAbstractionManager {
   private final FormulaManagerView fmgr;
   private final BooleanFormulaManagerView bfmgr;
   private final PredicateAbstractionsStorage abstractionStorage;
+  private final @Nullable PersistentAbstractionCache persistentCache;
   private final AbstractionManager amgr;
   private final RegionCreator rmgr;
   private final PathFormulaManager pfmgr;
@@ -177,6 +184,50 @@ public class PredicateAbstractionManager {
   @Option(secure=true, name = "abs.useCache", description = "use caching of abstractions")
   private boolean useCache = true;
 
+  @Option(
+    secure = true,
+    name = "abs.cache.maximumSize",
+    description =
+        "maximum number of entries in each of the abstraction caches"
+            + " (least-recently used entries are evicted first, 0 for no limit)"
+  )
+  private long cacheMaximumSize = 0;
+
+  @Option(
+    secure = true,
+    name = "abs.cache.softValues",
+    description =
+        "let the garbage collector evict cached abstraction results if memory is low"
+            + " (uses soft references; the caches of satisfiability and cartesian-abstraction"
+            + " results are limited to 100000 entries instead if no maximum size is given)"
+  )
+  private boolean cacheSoftValues = false;
+
+  /**
+   * Size limit for the caches of satisfiability and cartesian-abstraction results if soft values
+   * are used without a maximum size, because these caches cannot make use of soft values.
+   */
+  private static final long CONSTANT_VALUE_CACHE_SIZE_WITH_SOFT_VALUES = 100_000;
+
+  @Option(
+    secure = true,
+    name = "abs.persistentCache.file",
+    description =
+        "file in which abstraction results are cached across runs of CPAchecker"
+            + " (only used together with cpa.predicate.abs.useCache)"
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path persistentCacheFile = null;
+
+  @Option(
+    secure = true,
+    name = "abs.persistentCache.maxFileSize",
+    description =
+        "maximum size in bytes of the persistent abstraction cache,"
+            + " no new entries are added if it is full"
+  )
+  private long persistentCacheMaxFileSize = 512L * 1024 * 1024;
+
   @Option(secure=true, name="refinement.splitItpAtoms",
       description="split each arithmetic equality into two inequalities when extracting predicates from interpolants")
   private boolean splitItpAtoms = false;
@@ -193,16 +244,18 @@ public class PredicateAbstractionManager {
 
   private boolean abstractionReuseDisabledBecauseOfAmbiguity = false;
 
-  private final Map<Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
+  // All caches are thread-safe and bounded according to the configuration.
+  private final Cache<Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
       abstractionCache;
 
   // Cache for satisfiability queries: if formula is contained, it is unsat
-  private final Set<BooleanFormula> unsatisfiabilityCache;
+  // (the value is always TRUE)
+  private final Cache<BooleanFormula, Boolean> unsatisfiabilityCache;
 
   //cache for cartesian abstraction queries. For each predicate, the values
   // are -1: predicate is false, 0: predicate is don't care,
   // 1: predicate is true
-  private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
+  private final Cache<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
@@ -239,21 +292,120 @@ public class PredicateAbstractionManager {
       weakeningManager = null;
     }
 
+    if (cacheMaximumSize < 0) {
+      throw new InvalidConfigurationException(
+          "Invalid value " + cacheMaximumSize + " for option cpa.predicate.abs.cache.maximumSize");
+    }
+
     if (useCache) {
-      abstractionCache = new HashMap<>();
-      unsatisfiabilityCache = new HashSet<>();
+      abstractionCache = newCacheBuilder().build();
+      unsatisfiabilityCache = newConstantValueCacheBuilder().build();
     } else {
       abstractionCache = null;
       unsatisfiabilityCache = null;
     }
 
     if (useCache && (abstractionType != AbstractionType.BOOLEAN)) {
-      cartesianAbstractionCache = new HashMap<>();
+      cartesianAbstractionCache = newConstantValueCacheBuilder().build();
     } else {
       cartesianAbstractionCache = null;
     }
 
     abstractionStorage = new PredicateAbstractionsStorage(reuseAbstractionsFrom, logger, fmgr, null);
+
+    if (useCache && persistentCacheFile != null
+        && invariantSupplier != TrivialInvariantSupplier.INSTANCE) {
+      // abstractions are strengthened with invariants, which are specific to this run
+      logger.log(
+          Level.WARNING,
+          "Persistent abstraction cache cannot be used together with invariants, it will be"
+              + " ignored.");
+    } else if (useCache && persistentCacheFile != null) {
+      if (persistentCacheMaxFileSize <= 0 || persistentCacheMaxFileSize > Integer.MAX_VALUE) {
+        throw new InvalidConfigurationException(
+            "Invalid value "
+                + persistentCacheMaxFileSize
+                + " for option cpa.predicate.abs.persistentCache.maxFileSize");
+      }
+      PersistentAbstractionCache cache;
+      try {
+        cache =
+            new PersistentAbstractionCache(
+                persistentCacheFile,
+                persistentCacheMaxFileSize,
+                getPersistentCacheConfiguration(pConfig),
+                logger,
+                fmgr);
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not open persistent abstraction cache, it will not be used");
+        cache = null;
+      }
+      persistentCache = cache;
+    } else {
+      persistentCache = null;
+    }
+  }
+
+  /**
+   * Describe all settings that influence the result of {@link #computeAbstraction}, such that
+   * entries of the persistent cache are only reused with the same settings.
+   */
+  private String getPersistentCacheConfiguration(Configuration pConfig) {
+    StringBuilder result = new StringBuilder();
+    result.append("abstraction.computation=").append(abstractionType).append('\n');
+    result.append("abstraction.identifyTrivialPredicates=").append(identifyTrivialPredicates);
+    if (abstractionType == AbstractionType.CARTESIAN_BY_WEAKENING) {
+      for (String line : Splitter.on('\n').split(pConfig.asPropertiesString())) {
+        if (line.startsWith("cpa.slicing.")) {
+          result.append('\n').append(line);
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  /** Builder for caches whose values can be garbage collected if soft values are configured. */
+  private CacheBuilder<Object, Object> newCacheBuilder() {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+    if (cacheMaximumSize > 0) {
+      builder = builder.maximumSize(cacheMaximumSize);
+    }
+    if (cacheSoftValues) {
+      builder = builder.softValues();
+    }
+    return builder;
+  }
+
+  /**
+   * Builder for caches whose values are shared constants (like {@link Boolean#TRUE}). These are
+   * always strongly reachable, so soft references would never be cleared. Instead, these caches
+   * get a size limit if soft values are configured without a maximum size.
+   */
+  private CacheBuilder<Object, Object> newConstantValueCacheBuilder() {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+    if (cacheMaximumSize > 0) {
+      builder = builder.maximumSize(cacheMaximumSize);
+    } else if (cacheSoftValues) {
+      builder = builder.maximumSize(CONSTANT_VALUE_CACHE_SIZE_WITH_SOFT_VALUES);
+    }
+    return builder;
+  }
+
+  /**
+   * Return the hit/miss/eviction statistics of the abstraction caches that are in use, indexed by
+   * a human-readable name of each cache.
+   */
+  ImmutableMap<String, CacheStats> getCacheStatistics() {
+    ImmutableMap.Builder<String, CacheStats> result = ImmutableMap.builder();
+    if (abstractionCache != null) {
+      result.put("Abstraction cache", abstractionCache.stats());
+      result.put("Unsatisfiability cache", unsatisfiabilityCache.stats());
+    }
+    if (cartesianAbstractionCache != null) {
+      result.put("Cartesian abstraction cache", cartesianAbstractionCache.stats());
+    }
+    return result.build();
   }
 
   /**
@@ -291,10 +443,30 @@ public class PredicateAbstractionManager {
         noAbstractionReuse);
   }
 
+  /** Release resources held by this instance, e.g., the file of the persistent cache. */
+  void close() {
+    if (persistentCache != null) {
+      try {
+        persistentCache.close();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not close persistent abstraction cache");
+      }
+    }
+  }
+
+  void printPersistentCacheStatistics(PrintStream out) {
+    if (persistentCache != null) {
+      persistentCache.printStatistics(out);
+    }
+  }
+
   public void clear() {
     if (useCache) {
-      abstractionCache.clear();
-      unsatisfiabilityCache.clear();
+      abstractionCache.invalidateAll();
+      unsatisfiabilityCache.invalidateAll();
+      if (cartesianAbstractionCache != null) {
+        cartesianAbstractionCache.invalidateAll();
+      }
     }
   }
   /**
@@ -363,12 +535,13 @@ public class PredicateAbstractionManager {
 
     // caching
     Pair<BooleanFormula, ImmutableSet<BooleanFormula>> absKey = null;
+    HashCode persistentKey = null;
     if (useCache) {
       ImmutableSet<BooleanFormula> instantiatedPreds =
           Collections3.transformedImmutableSetCopy(
               remainingPredicates, pred -> instantiator.apply(pred.getSymbolicAtom()));
       absKey = Pair.of(f, instantiatedPreds);
-      AbstractionFormula result = abstractionCache.get(absKey);
+      AbstractionFormula result = abstractionCache.getIfPresent(absKey);
 
       if (result != null) {
         // create new abstraction object to have a unique abstraction id
@@ -385,8 +558,8 @@ public class PredicateAbstractionManager {
         return result;
       }
 
-      boolean unsatisfiable = unsatisfiabilityCache.contains(symbFormula)
-                            || unsatisfiabilityCache.contains(f);
+      boolean unsatisfiable = unsatisfiabilityCache.getIfPresent(symbFormula) != null
+                            || unsatisfiabilityCache.getIfPresent(f) != null;
       if (unsatisfiable) {
         // block is infeasible
         logger.log(Level.FINEST, "Block feasibility of abstraction", stats.numCallsAbstraction, "was cached and is false.");
@@ -395,6 +568,23 @@ public class PredicateAbstractionManager {
             bfmgr.makeFalse(), bfmgr.makeFalse(),
             pathFormula, noAbstractionReuse);
       }
+
+      if (persistentCache != null) {
+        persistentKey = persistentCache.computeKey(f, absKey.getSecond());
+        BooleanFormula persistentResult = persistentCache.get(persistentKey);
+        if (persistentResult != null) {
+          logger.log(Level.FINEST, "Abstraction", stats.numCallsAbstraction, "was cached on disk");
+          result =
+              makeAbstractionFormula(
+                  amgr.convertFormulaToRegion(persistentResult), ssa, pathFormula);
+          abstractionCache.put(absKey, result);
+          if (result.isFalse()) {
+            unsatisfiabilityCache.put(f, Boolean.TRUE);
+          }
+          stats.numCallsAbstractionPersistentlyCached++;
+          return result;
+        }
+      }
     }
 
 
@@ -442,7 +632,10 @@ public class PredicateAbstractionManager {
       abstractionCache.put(absKey, result);
 
       if (result.isFalse()) {
-        unsatisfiabilityCache.add(f);
+        unsatisfiabilityCache.put(f, Boolean.TRUE);
+      }
+      if (persistentKey != null) {
+        persistentCache.put(persistentKey, result.asFormula());
       }
     }
 
@@ -484,7 +677,7 @@ public class PredicateAbstractionManager {
       return bfmgr.makeTrue();
     }
 
-    if (unsatisfiabilityCache.contains(pF)) {
+    if (useCache && unsatisfiabilityCache.getIfPresent(pF) != null) {
       stats.numCallsAbstractionCached++;
       return bfmgr.makeFalse();
     }
@@ -502,8 +695,8 @@ public class PredicateAbstractionManager {
       symbolicAbs = fmgr.simplify(symbolicAbs);
     }
 
-    if (bfmgr.isFalse(symbolicAbs)) {
-      unsatisfiabilityCache.add(pF);
+    if (useCache && bfmgr.isFalse(symbolicAbs)) {
+      unsatisfiabilityCache.put(pF, Boolean.TRUE);
     }
 
     return symbolicAbs;
@@ -856,8 +1049,9 @@ public class PredicateAbstractionManager {
       while (predicateIt.hasNext()) {
         final AbstractionPredicate p = predicateIt.next();
         Pair<BooleanFormula, AbstractionPredicate> cacheKey = Pair.of(f, p);
-        if (useCache && cartesianAbstractionCache.containsKey(cacheKey)) {
-          byte predVal = cartesianAbstractionCache.get(cacheKey);
+        Byte cachedPredVal = useCache ? cartesianAbstractionCache.getIfPresent(cacheKey) : null;
+        if (cachedPredVal != null) {
+          byte predVal = cachedPredVal;
           stats.numCartesianAbsPredicatesCached++;
 
           stats.abstractionEnumTime.getCurentInnerTimer().start();
@@ -27,8 +27,11 @@ import static java.util.Collections.unmodifiableList;
 import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.getPredicateState;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsWriter.writingStatisticsTo;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
@@ -37,10 +40,23 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -61,6 +77,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -75,7 +92,7 @@ import org.sosy_lab.java_smt.api.SolverException;
  * abstraction, this is left to an instance of {@link GlobalRefinementStrategy}.
  */
 @Options(prefix="cpa.predicate.refinement.global")
-public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
+public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider, AutoCloseable {
 
   @Option(secure = true,
           description = "Instead of updating precision and arg we say that the refinement was not successful"
@@ -84,19 +101,48 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
   @IntegerOption(min = 0)
   private int stopAfterNRefinements = 0;
 
+  @Option(
+    secure = true,
+    description =
+        "Number of threads for checking the feasibility of the paths to the target states"
+            + " and for interpolating them concurrently. Each thread uses its own solver instance,"
+            + " formulas are passed to it via their SMT-LIB2 representation."
+            + " With 1, all paths are handled sequentially in a depth-first traversal"
+            + " that shares the common prefixes of the paths."
+  )
+  @IntegerOption(min = 1)
+  private int threads = 1;
+
   // statistics
   private final StatTimer totalTime = new StatTimer("Time for refinement");
   private final StatTimer interpolationTime = new StatTimer("Time for interpolation");
   private final StatTimer satCheckTime = new StatTimer("Time for sat-checks");
+  private final StatTimer concurrentCheckTime =
+      new StatTimer("Time for concurrent sat-checks and interpolation");
+  private final StatCounter concurrentlyCheckedPaths =
+      new StatCounter("Number of concurrently checked paths");
 
+  private final Configuration config;
   private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
   private final GlobalRefinementStrategy strategy;
   private final Solver solver;
+  private final FormulaManagerView fmgr;
   private final BooleanFormulaManager bfmgr;
   private final ARGCPA argCPA;
 
+  /**
+   * Solver instances for concurrent refinement, which are created on first use and kept for
+   * later refinements. They are replaced only if a refinement was aborted, because then their
+   * shutdown notifier (from {@link #pathSolversShutdown}) has been triggered.
+   */
+  private @Nullable BlockingQueue<Solver> pathSolvers = null;
+
+  private @Nullable ShutdownManager pathSolversShutdown = null;
+
   public PredicateCPAGlobalRefiner(
       final LogManager pLogger,
+      final ShutdownNotifier pShutdownNotifier,
       final FormulaManagerView pFmgr,
       final GlobalRefinementStrategy pStrategy,
       final Solver pSolver,
@@ -104,7 +150,10 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       final Configuration pConfig) throws InvalidConfigurationException {
     pConfig.inject(this);
 
+    config = pConfig;
     logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    fmgr = pFmgr;
     bfmgr = pFmgr.getBooleanFormulaManager();
     solver = pSolver;
     strategy = pStrategy;
@@ -129,7 +178,10 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
 
       ARGReachedSet argReachedSet = new ARGReachedSet(pReached, argCPA);
       strategy.initializeGlobalRefinement();
-      Optional<ARGState> errorState = doPathWiseRefinement(argReachedSet, targets);
+      Optional<ARGState> errorState =
+          threads > 1
+              ? doConcurrentRefinement(argReachedSet, targets)
+              : doPathWiseRefinement(argReachedSet, targets);
 
       // TODO fix handling of counterexamples
       // + 1 for update count as the current interval is not finished
@@ -163,7 +215,32 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
 
     Map<ARGState, ARGState> predecessors = Maps.newHashMap();
     SetMultimap<ARGState, ARGState> successors = HashMultimap.create();
+    collectAbstractionStates(targets, predecessors, successors);
+    final ARGState root = (ARGState) pReached.asReachedSet().getFirstState();
+    assert successors.containsKey(root);
 
+    // Now predecessors/successors contains all abstraction states on all error
+    // paths and their relations.
+    // These states and the relation form a tree.
+    // We now iterate through this tree in a depth-first order.
+    // For each state, we check reachability.
+    // We do not descend beyond unreachable states,
+    // but instead perform refinement on them.
+
+    try (InterpolatingProverEnvironment<?> itpProver =
+        solver.newProverEnvironmentWithInterpolation()) {
+      return doPathWiseRefinement(root, successors, predecessors, pReached, targets, itpProver);
+    }
+  }
+
+  /**
+   * Build the predecessor/successor relations for all abstraction states on the paths to the
+   * given target states.
+   */
+  private void collectAbstractionStates(
+      List<AbstractState> targets,
+      Map<ARGState, ARGState> predecessors,
+      SetMultimap<ARGState, ARGState> successors) {
     Deque<AbstractState> todo = new ArrayDeque<>(targets);
 
     while (!todo.isEmpty()) {
@@ -182,21 +259,6 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       predecessors.put(currentAbstractionState, currentState);
       successors.put(currentState, currentAbstractionState);
     }
-    final ARGState root = (ARGState) pReached.asReachedSet().getFirstState();
-    assert successors.containsKey(root);
-
-    // Now predecessors/successors contains all abstraction states on all error
-    // paths and their relations.
-    // These states and the relation form a tree.
-    // We now iterate through this tree in a depth-first order.
-    // For each state, we check reachability.
-    // We do not descend beyond unreachable states,
-    // but instead perform refinement on them.
-
-    try (InterpolatingProverEnvironment<?> itpProver =
-        solver.newProverEnvironmentWithInterpolation()) {
-      return doPathWiseRefinement(root, successors, predecessors, pReached, targets, itpProver);
-    }
   }
 
   // This is just a separate method to get the generics right.
@@ -352,6 +414,260 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
     strategy.performRefinement(reached, pAbstractionStatesTrace, interpolants, false);
   }
 
+  /**
+   * Do refinement for a set of target states, checking the paths to the target states
+   * concurrently.
+   *
+   * <p>In contrast to {@link #doPathWiseRefinement(ARGReachedSet, List)}, each path from the root
+   * to a target state is checked separately (common prefixes are checked once per path) by one of
+   * {@link #threads} solver instances. Solver instances cannot share formulas, so the block
+   * formulas and interpolants are exchanged as SMT-LIB2 strings, which are created and parsed by
+   * the main solver in this thread. Afterwards, the interpolants of all infeasible paths are
+   * passed to the strategy sequentially and in the order of the target states, such that the
+   * resulting precision update does not depend on the scheduling of the threads.
+   */
+  private Optional<ARGState> doConcurrentRefinement(
+      ARGReachedSet pReached, List<AbstractState> targets)
+      throws CPAException, InterruptedException, SolverException {
+    logger.log(
+        Level.FINE,
+        "Starting concurrent refinement for",
+        targets.size(),
+        "elements with",
+        threads,
+        "threads.");
+
+    Map<ARGState, ARGState> predecessors = Maps.newHashMap();
+    SetMultimap<ARGState, ARGState> successors = HashMultimap.create();
+    collectAbstractionStates(targets, predecessors, successors);
+
+    Map<ARGState, String> blockFormulas = Maps.newHashMap();
+    List<List<ARGState>> paths = new ArrayList<>(targets.size());
+    List<List<String>> pathFormulas = new ArrayList<>(targets.size());
+    for (AbstractState target : targets) {
+      Deque<ARGState> path = new ArrayDeque<>();
+      ARGState current = (ARGState) target;
+      while (predecessors.containsKey(current)) {
+        path.addFirst(current);
+        current = predecessors.get(current);
+      }
+      assert current == pReached.asReachedSet().getFirstState();
+
+      List<String> formulas = new ArrayList<>(path.size());
+      for (ARGState state : path) {
+        formulas.add(
+            blockFormulas.computeIfAbsent(
+                state,
+                s ->
+                    fmgr.dumpFormula(
+                            getPredicateState(s)
+                                .getAbstractionFormula()
+                                .getBlockFormula()
+                                .getFormula())
+                        .toString()));
+      }
+      paths.add(ImmutableList.copyOf(path));
+      pathFormulas.add(formulas);
+    }
+
+    List<PathCheckResult> results = new ArrayList<>(paths.size());
+    BlockingQueue<Solver> solvers;
+    try {
+      solvers = getPathSolvers();
+    } catch (InvalidConfigurationException e) {
+      throw new CPAException("Could not create solver for concurrent refinement", e);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    boolean finished = false;
+    concurrentCheckTime.start();
+    try {
+      List<Future<PathCheckResult>> futures = new ArrayList<>(paths.size());
+      for (List<String> formulas : pathFormulas) {
+        futures.add(executor.submit(() -> checkPath(formulas, solvers)));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        PathCheckResult result = getResult(futures.get(i));
+        concurrentlyCheckedPaths.inc();
+        if (result.isFeasible()) {
+          // We have found a reachable target state, immediately abort refinement.
+          ARGState target = Iterables.getLast(paths.get(i));
+          logger.log(Level.FINE, "Found reachable target state", target);
+          return Optional.of(target);
+        }
+        results.add(result);
+      }
+      finished = true;
+
+    } finally {
+      if (!finished) {
+        // abort solver calls of tasks that are still running
+        pathSolversShutdown.requestShutdown("Concurrent refinement was aborted");
+      }
+      executor.shutdownNow();
+      try {
+        // Tasks react quickly to the shutdown request, but we need to wait for them
+        // even if this thread is interrupted, because they may still use the solvers.
+        awaitTerminationUninterruptibly(executor);
+      } finally {
+        if (!finished) {
+          closePathSolvers();
+        }
+        concurrentCheckTime.stop();
+      }
+    }
+
+    // Several paths may share the same infeasible prefix, refine each prefix only once.
+    Set<ARGState> unreachableStates = new HashSet<>();
+    for (int i = 0; i < results.size(); i++) {
+      PathCheckResult result = results.get(i);
+      List<ARGState> path = paths.get(i);
+      ARGState unreachableState = path.get(result.firstInfeasibleBlock);
+      if (!unreachableStates.add(unreachableState)) {
+        continue;
+      }
+      logger.log(Level.FINE, "Found unreachable state", unreachableState);
+
+      List<BooleanFormula> interpolants = new ArrayList<>(path.size() - 1);
+      for (String interpolant : result.interpolants) {
+        interpolants.add(fmgr.parse(interpolant));
+      }
+      // fill up interpolants with false as the states are unreachable,
+      // except for the last one which is always false
+      while (interpolants.size() < path.size() - 1) {
+        interpolants.add(bfmgr.makeFalse());
+      }
+
+      // TODO repeated counterexample is always false currently, we also ignore the return value
+      strategy.performRefinement(pReached, path, interpolants, false);
+    }
+    return Optional.empty();
+  }
+
+  private BlockingQueue<Solver> getPathSolvers() throws InvalidConfigurationException {
+    if (pathSolvers == null) {
+      ShutdownManager shutdown = ShutdownManager.createWithParent(shutdownNotifier);
+      BlockingQueue<Solver> solvers = new ArrayBlockingQueue<>(threads);
+      try {
+        for (int i = 0; i < threads; i++) {
+          solvers.add(Solver.create(config, logger, shutdown.getNotifier()));
+        }
+      } catch (InvalidConfigurationException e) {
+        solvers.forEach(Solver::close);
+        throw e;
+      }
+      pathSolvers = solvers;
+      pathSolversShutdown = shutdown;
+    }
+    return pathSolvers;
+  }
+
+  /** Close the solvers for concurrent refinement, they must not be in use. */
+  private void closePathSolvers() {
+    if (pathSolvers != null) {
+      pathSolvers.forEach(Solver::close);
+      pathSolvers = null;
+      pathSolversShutdown = null;
+    }
+  }
+
+  /**
+   * Release the solvers for concurrent refinement. The refiner can still be used afterwards, new
+   * solvers are created if necessary.
+   */
+  @Override
+  public void close() {
+    closePathSolvers();
+  }
+
+  private static void awaitTerminationUninterruptibly(ExecutorService pExecutor) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (pExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+          break;
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static PathCheckResult getResult(Future<PathCheckResult> future)
+      throws SolverException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      Throwables.propagateIfPossible(t, SolverException.class, InterruptedException.class);
+      throw new UnexpectedCheckedException("concurrent refinement", t);
+    }
+  }
+
+  /**
+   * Check the feasibility of one path with one of the given solver instances, and compute the
+   * interpolants up to the first infeasible block if the path is infeasible.
+   *
+   * @param pBlockFormulas The SMT-LIB2 representation of the block formulas of the path.
+   * @param pSolvers The solver instances that are currently not used by another thread.
+   */
+  private static PathCheckResult checkPath(
+      List<String> pBlockFormulas, BlockingQueue<Solver> pSolvers)
+      throws SolverException, InterruptedException {
+    Solver pathSolver = pSolvers.take();
+    try (InterpolatingProverEnvironment<?> itpProver =
+        pathSolver.newProverEnvironmentWithInterpolation()) {
+      return checkPath(pBlockFormulas, pathSolver.getFormulaManager(), itpProver);
+    } finally {
+      pSolvers.put(pathSolver);
+    }
+  }
+
+  // This is just a separate method to get the generics right.
+  private static <T> PathCheckResult checkPath(
+      List<String> pBlockFormulas,
+      FormulaManagerView pFmgr,
+      InterpolatingProverEnvironment<T> itpProver)
+      throws SolverException, InterruptedException {
+    List<T> itpStack = new ArrayList<>(pBlockFormulas.size());
+    for (String blockFormula : pBlockFormulas) {
+      itpStack.add(itpProver.push(pFmgr.parse(blockFormula)));
+      if (itpProver.isUnsat()) {
+        List<String> interpolants = new ArrayList<>(itpStack.size() - 1);
+        for (int i = 1; i < itpStack.size(); i++) {
+          BooleanFormula interpolant = itpProver.getInterpolant(itpStack.subList(0, i));
+          interpolants.add(pFmgr.dumpFormula(interpolant).toString());
+        }
+        return new PathCheckResult(itpStack.size() - 1, interpolants);
+      }
+    }
+    return PathCheckResult.FEASIBLE;
+  }
+
+  /** Result of checking a single path to a target state in {@link #doConcurrentRefinement}. */
+  private static class PathCheckResult {
+
+    private static final PathCheckResult FEASIBLE = new PathCheckResult(-1, ImmutableList.of());
+
+    /** The index of the first block that makes the path infeasible, or -1. */
+    private final int firstInfeasibleBlock;
+
+    /** The SMT-LIB2 representation of the interpolants before the first infeasible block. */
+    private final List<String> interpolants;
+
+    private PathCheckResult(int pFirstInfeasibleBlock, List<String> pInterpolants) {
+      firstInfeasibleBlock = pFirstInfeasibleBlock;
+      interpolants = pInterpolants;
+    }
+
+    boolean isFeasible() {
+      return firstInfeasibleBlock < 0;
+    }
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(new Stats());
@@ -366,6 +682,9 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       w0.put("Number of predicate refinements", numberOfRefinements);
       if (numberOfRefinements > 0) {
         w0.put(totalTime).put(interpolationTime).put(satCheckTime);
+        if (concurrentlyCheckedPaths.getValue() > 0) {
+          w0.put(concurrentCheckTime).put(concurrentlyCheckedPaths);
+        }
       }
     }
 
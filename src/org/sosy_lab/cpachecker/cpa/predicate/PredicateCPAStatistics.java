@@ -29,6 +29,7 @@ import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.valueWithPercentage;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
@@ -41,6 +42,7 @@ import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import org.sosy_lab.common.configuration.Configuration;
@@ -283,6 +285,9 @@ class PredicateCPAStatistics implements Statistics {
       out.println("  Times precision was empty:       " + valueWithPercentage(as.numSymbolicAbstractions, as.numCallsAbstraction));
       out.println("  Times precision was {false}:     " + valueWithPercentage(as.numSatCheckAbstractions, as.numCallsAbstraction));
       out.println("  Times result was cached:         " + valueWithPercentage(as.numCallsAbstractionCached, as.numCallsAbstraction));
+      if (as.numCallsAbstractionPersistentlyCached > 0) {
+        out.println("  Times result was cached on disk: " + valueWithPercentage(as.numCallsAbstractionPersistentlyCached, as.numCallsAbstraction));
+      }
       out.println("  Times cartesian abs was used:    " + valueWithPercentage(as.cartesianAbstractionTime.getNumberOfIntervals(), as.numCallsAbstraction));
       out.println("  Times boolean abs was used:      " + valueWithPercentage(as.booleanAbstractionTime.getNumberOfIntervals(), as.numCallsAbstraction));
       out.println("  Times result was 'false':        " + valueWithPercentage(statistics.numAbstractionsFalse.getUpdateCount(), numAbstractions));
@@ -309,6 +314,7 @@ class PredicateCPAStatistics implements Statistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    out.println("  cached (shared):                 " + solver.sharedCachedSatChecks);
     out.println();
     out.println("Max ABE block size:                       " + statistics.blockSize.getMaxValue());
     put(out, 0, statistics.blockSize);
@@ -319,7 +325,7 @@ class PredicateCPAStatistics implements Statistics {
       out.println("Avg number of predicates per location:    " + avgPredsPerLocation);
     }
     if (as.numCallsAbstraction - as.numSymbolicAbstractions > 0) {
-      int numRealAbstractions = as.numCallsAbstraction - as.numSymbolicAbstractions - as.numCallsAbstractionCached;
+      int numRealAbstractions = as.numCallsAbstraction - as.numSymbolicAbstractions - as.numCallsAbstractionCached - as.numCallsAbstractionPersistentlyCached;
       out.println("Total predicates per abstraction:         " + as.numTotalPredicates);
       out.println("Max number of predicates per abstraction: " + as.maxPredicates);
       out.println("Avg number of predicates per abstraction: " + div(as.numTotalPredicates, numRealAbstractions));
@@ -343,6 +349,20 @@ class PredicateCPAStatistics implements Statistics {
         out.println("  Avg number of models for allsat:        " + div(as.allSatCount, as.booleanAbstractionTime.getNumberOfIntervals()));
       }
     }
+    amgr.printPersistentCacheStatistics(out);
+    for (Map.Entry<String, CacheStats> cache : amgr.getCacheStatistics().entrySet()) {
+      CacheStats cacheStats = cache.getValue();
+      if (cacheStats.requestCount() > 0) {
+        out.println(
+            String.format(
+                "%-42s%d (hits: %d (%s), evictions: %d)",
+                cache.getKey() + " lookups:",
+                cacheStats.requestCount(),
+                cacheStats.hitCount(),
+                toPercent(cacheStats.hitCount(), cacheStats.requestCount()),
+                cacheStats.evictionCount()));
+      }
+    }
     out.println();
 
     put(out, 0, statistics.postTimer);
@@ -0,0 +1,464 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.Ordering;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * A content-addressed cache of abstraction results that is stored on disk and can be reused
+ * across verification runs (and JVMs).
+ *
+ * <p>The key of an entry is a SHA-256 hash over a description of the configuration of the
+ * abstraction computation and over the normalized SMT-LIB2 representation of the (instantiated)
+ * block formula and of the set of (instantiated) predicates, the value is the SMT-LIB2
+ * representation of the (uninstantiated) abstraction result. Thus the cache is independent of
+ * solver instances and of the order of declarations in the SMT-LIB2 output, and results of
+ * different configurations (e.g., Boolean and Cartesian abstraction) are kept apart.
+ *
+ * <p>The file is an append-only log of entries (later entries override earlier ones for the
+ * same key). Entries that exist when the cache is opened are read from a memory-mapped view of
+ * the file, new entries are appended immediately. If the file would grow beyond the given size
+ * limit, new entries are not written anymore. Duplicate entries and entries beyond a size limit
+ * can be removed with {@link #compact(Path, long)}, which is also available from the command
+ * line via {@link #main(String[])}.
+ *
+ * <p>Only one process at a time can write to the file (or compact it), other processes that try
+ * to use the same file concurrently get read-only access. Instances of this class are
+ * thread-safe.
+ */
+public class PersistentAbstractionCache {
+
+  private static final long MAGIC = 0x4350414142534331L; // "CPAABSC1"
+  private static final int HEADER_SIZE = Long.BYTES;
+  private static final int KEY_SIZE = 32; // SHA-256
+  private static final int ENTRY_OVERHEAD = KEY_SIZE + Integer.BYTES;
+
+  private final FormulaManagerView fmgr;
+  private final LogManager logger;
+  private final long maxFileSize;
+  private final String configuration;
+
+  /** Read-only view of the entries that were already present when the cache was opened. */
+  private final @Nullable MappedByteBuffer existingEntries;
+
+  /** Offsets into {@link #existingEntries} (pointing to the value length) for each key. */
+  private final Map<HashCode, Integer> existingEntryOffsets = new ConcurrentHashMap<>();
+
+  /** Entries that were added by this instance. */
+  private final Map<HashCode, String> newEntries = new ConcurrentHashMap<>();
+
+  // guarded by this
+  private final @Nullable FileChannel output;
+  private final @Nullable FileLock outputLock;
+  private long fileSize;
+  private boolean sizeLimitReached = false;
+
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+  private final AtomicInteger writtenEntries = new AtomicInteger();
+
+  /**
+   * Open the cache in the given file, creating the file if it does not exist.
+   *
+   * @param pFile The file that contains the cache.
+   * @param pMaxFileSize The maximal size of the file in bytes (must be at most 2GB).
+   * @param pConfiguration A description of all settings that influence the abstraction results,
+   *     it becomes part of every key.
+   */
+  public PersistentAbstractionCache(
+      Path pFile,
+      long pMaxFileSize,
+      String pConfiguration,
+      LogManager pLogger,
+      FormulaManagerView pFmgr)
+      throws IOException {
+    checkArgument(
+        pMaxFileSize > HEADER_SIZE && pMaxFileSize <= Integer.MAX_VALUE,
+        "Invalid size limit %s for persistent abstraction cache",
+        pMaxFileSize);
+    fmgr = pFmgr;
+    logger = pLogger;
+    maxFileSize = pMaxFileSize;
+    configuration = checkNotNull(pConfiguration);
+
+    Path parent = pFile.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    FileChannel channel =
+        FileChannel.open(
+            pFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    FileLock lock = tryLock(channel);
+
+    if (channel.size() == 0 && lock != null) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putLong(MAGIC).flip();
+      writeFully(channel, header, 0);
+    }
+
+    long size = Math.min(channel.size(), Integer.MAX_VALUE);
+    if (size < HEADER_SIZE) {
+      // empty file that is being created by another process
+      fileSize = size;
+    } else {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header, 0);
+      if (header.getLong(0) != MAGIC) {
+        channel.close();
+        throw new IOException(pFile + " is not a file with cached abstractions");
+      }
+      fileSize = readIndex(channel, size, existingEntryOffsets);
+    }
+
+    if (lock != null) {
+      // Cut off a possibly incomplete last entry, e.g., from an interrupted process.
+      // This needs to happen before the file is mapped,
+      // because truncating a mapped region is not allowed on all platforms.
+      channel.truncate(fileSize);
+    }
+    existingEntries =
+        fileSize > HEADER_SIZE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize) : null;
+
+    if (lock != null) {
+      output = channel;
+      outputLock = lock;
+    } else {
+      logger.log(
+          Level.INFO,
+          "Persistent abstraction cache",
+          pFile,
+          "is in use by another process, new abstractions will not be stored.");
+      channel.close(); // the mapping stays valid
+      output = null;
+      outputLock = null;
+    }
+  }
+
+  /**
+   * Read all complete entries from the first bytes of the given file and store the offsets of
+   * their values. Only the key and length of each entry are read.
+   *
+   * @return the position after the last complete entry
+   */
+  private static int readIndex(FileChannel pChannel, long pSize, Map<HashCode, Integer> pOffsets)
+      throws IOException {
+    int pos = HEADER_SIZE;
+    ByteBuffer entryHeader = ByteBuffer.allocate(ENTRY_OVERHEAD);
+    while (pos + ENTRY_OVERHEAD <= pSize) {
+      entryHeader.clear();
+      readFully(pChannel, entryHeader, pos);
+      byte[] key = new byte[KEY_SIZE];
+      entryHeader.flip();
+      entryHeader.get(key);
+      int length = entryHeader.getInt();
+      if (length < 0 || pos + ENTRY_OVERHEAD + (long) length > pSize) {
+        break;
+      }
+      pOffsets.put(HashCode.fromBytes(key), pos + KEY_SIZE);
+      pos += ENTRY_OVERHEAD + length;
+    }
+    return pos;
+  }
+
+  private static void readFully(FileChannel pChannel, ByteBuffer pBuffer, long pPosition)
+      throws IOException {
+    long position = pPosition;
+    while (pBuffer.hasRemaining()) {
+      int read = pChannel.read(pBuffer, position);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      position += read;
+    }
+  }
+
+  private static void writeFully(FileChannel pChannel, ByteBuffer pBuffer, long pPosition)
+      throws IOException {
+    long position = pPosition;
+    while (pBuffer.hasRemaining()) {
+      position += pChannel.write(pBuffer, position);
+    }
+  }
+
+  /**
+   * Compute the key for the abstraction of a formula with a set of predicates.
+   *
+   * @param pFormula The instantiated block formula.
+   * @param pPredicates The instantiated predicates.
+   */
+  public HashCode computeKey(BooleanFormula pFormula, Collection<BooleanFormula> pPredicates) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(configuration, UTF_8);
+    hasher.putChar('\0');
+    hasher.putString(fmgr.dumpNormalizedFormula(pFormula), UTF_8);
+    List<String> predicates = new ArrayList<>(pPredicates.size());
+    for (BooleanFormula predicate : pPredicates) {
+      predicates.add(fmgr.dumpNormalizedFormula(predicate));
+    }
+    predicates.sort(Ordering.natural());
+    for (String predicate : predicates) {
+      hasher.putChar('\0');
+      hasher.putString(predicate, UTF_8);
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Look up the abstraction result for a key.
+   *
+   * @return The uninstantiated abstraction formula, or null if there is no entry.
+   */
+  public @Nullable BooleanFormula get(HashCode pKey) {
+    String value = getEntry(pKey);
+    if (value == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    BooleanFormula result;
+    try {
+      result = fmgr.parse(value);
+    } catch (IllegalArgumentException e) {
+      logger.logDebugException(e, "Ignoring invalid entry in persistent abstraction cache");
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return result;
+  }
+
+  /**
+   * Store the abstraction result for a key.
+   *
+   * @param pAbstraction The uninstantiated abstraction formula.
+   */
+  public void put(HashCode pKey, BooleanFormula pAbstraction) {
+    if (output != null) {
+      putEntry(pKey, fmgr.dumpFormula(pAbstraction).toString());
+    }
+  }
+
+  @Nullable
+  String getEntry(HashCode pKey) {
+    String value = newEntries.get(pKey);
+    if (value == null && existingEntries != null) {
+      Integer offset = existingEntryOffsets.get(pKey);
+      if (offset != null) {
+        ByteBuffer view = existingEntries.duplicate();
+        view.position(offset);
+        byte[] bytes = new byte[view.getInt()];
+        view.get(bytes);
+        value = new String(bytes, UTF_8);
+      }
+    }
+    return value;
+  }
+
+  synchronized void putEntry(HashCode pKey, String pValue) {
+    checkArgument(pKey.bits() == KEY_SIZE * Byte.SIZE);
+    if (output == null || sizeLimitReached || newEntries.containsKey(pKey)) {
+      return;
+    }
+    byte[] value = pValue.getBytes(UTF_8);
+    if (fileSize + ENTRY_OVERHEAD + value.length > maxFileSize) {
+      sizeLimitReached = true;
+      logger.log(
+          Level.INFO,
+          "Persistent abstraction cache reached its size limit of",
+          maxFileSize,
+          "bytes, new abstractions will not be stored.");
+      return;
+    }
+
+    ByteBuffer entry = ByteBuffer.allocate(ENTRY_OVERHEAD + value.length);
+    entry.put(pKey.asBytes()).putInt(value.length).put(value).flip();
+    try {
+      writeFully(output, entry, fileSize);
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not write to persistent abstraction cache");
+      sizeLimitReached = true; // do not try again
+      return;
+    }
+    fileSize += entry.limit();
+    newEntries.put(pKey, pValue);
+    writtenEntries.incrementAndGet();
+  }
+
+  /** Write all data to disk and release the file. */
+  public synchronized void close() throws IOException {
+    if (output != null && output.isOpen()) {
+      output.force(false);
+      outputLock.release();
+      output.close();
+    }
+  }
+
+  public void printStatistics(PrintStream out) {
+    out.println("Persistent abstraction cache:");
+    out.println("  Number of loaded entries:       " + existingEntryOffsets.size());
+    out.println("  Number of hits:                 " + hits.get());
+    out.println("  Number of misses:               " + misses.get());
+    out.println("  Number of written entries:      " + writtenEntries.get());
+  }
+
+  /**
+   * Remove all entries from a cache file that are overridden by later entries. Afterwards, if the
+   * file is still larger than the given limit, remove the oldest entries until the file fits. The
+   * file is replaced atomically. The file is locked during compaction, if it is in use by
+   * another instance of this class (in any process) compaction fails.
+   *
+   * @param pFile The file that contains the cache.
+   * @param pMaxFileSize The maximal size of the file in bytes after compaction.
+   * @return The number of removed entries.
+   */
+  public static int compact(Path pFile, long pMaxFileSize) throws IOException {
+    checkArgument(pMaxFileSize >= HEADER_SIZE);
+    Map<HashCode, ByteBuffer> entries = new LinkedHashMap<>();
+    int totalEntries = 0;
+
+    try (FileChannel input =
+            FileChannel.open(pFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = tryLock(input)) {
+      if (lock == null) {
+        throw new IOException(pFile + " is in use and cannot be compacted");
+      }
+      MappedByteBuffer buffer =
+          input.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(input.size(), Integer.MAX_VALUE));
+      checkState(
+          buffer.limit() >= HEADER_SIZE && buffer.getLong(0) == MAGIC,
+          "%s is not a file with cached abstractions",
+          pFile);
+
+      int pos = HEADER_SIZE;
+      while (pos + ENTRY_OVERHEAD <= buffer.limit()) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(pos);
+        byte[] key = new byte[KEY_SIZE];
+        view.get(key);
+        int length = view.getInt();
+        if (length < 0 || pos + ENTRY_OVERHEAD + length > buffer.limit()) {
+          break;
+        }
+        view.position(pos).limit(pos + ENTRY_OVERHEAD + length);
+        HashCode hash = HashCode.fromBytes(key);
+        entries.remove(hash); // such that the latest entry is sorted last
+        entries.put(hash, view.slice());
+        totalEntries++;
+        pos += ENTRY_OVERHEAD + length;
+      }
+
+      long size = HEADER_SIZE;
+      for (ByteBuffer entry : entries.values()) {
+        size += entry.remaining();
+      }
+      Iterator<ByteBuffer> oldestEntries = entries.values().iterator();
+      while (size > pMaxFileSize) {
+        size -= oldestEntries.next().remaining();
+        oldestEntries.remove();
+      }
+
+      Path parent = pFile.toAbsolutePath().getParent();
+      Path tmpFile = Files.createTempFile(parent, pFile.getFileName().toString(), ".tmp");
+      try (FileChannel output = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC).flip();
+        long outputPos = 0;
+        writeFully(output, header, outputPos);
+        outputPos += HEADER_SIZE;
+        for (ByteBuffer entry : entries.values()) {
+          int length = entry.remaining();
+          writeFully(output, entry, outputPos);
+          outputPos += length;
+        }
+        output.force(false);
+      } catch (IOException e) {
+        Files.deleteIfExists(tmpFile);
+        throw e;
+      }
+      Files.move(
+          tmpFile, pFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    return totalEntries - entries.size();
+  }
+
+  private static @Nullable FileLock tryLock(FileChannel pChannel) throws IOException {
+    try {
+      return pChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      return null; // locked by another instance in this JVM
+    }
+  }
+
+  /**
+   * Compact a cache file from the command line. Usage: {@code PersistentAbstractionCache <file>
+   * [<maximal size in bytes>]}
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println(
+          "Usage: java "
+              + PersistentAbstractionCache.class.getName()
+              + " <cache file> [<maximal size in bytes>]");
+      System.exit(1);
+    }
+    long maxSize = args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE;
+    int removed = compact(Paths.get(args[0]), maxSize);
+    System.out.println("Removed " + removed + " entries from " + args[0]);
+  }
+}
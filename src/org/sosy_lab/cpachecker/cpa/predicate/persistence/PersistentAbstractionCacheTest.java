@@ -0,0 +1,202 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assert_;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class PersistentAbstractionCacheTest extends SolverViewBasedTest0 {
+
+  private static final long MAX_SIZE = 1024 * 1024;
+  private static final String CONFIGURATION = "abstraction.computation=BOOLEAN";
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private PersistentAbstractionCache open(Path pFile) throws IOException {
+    return new PersistentAbstractionCache(pFile, MAX_SIZE, CONFIGURATION, logger, mgrv);
+  }
+
+  private static HashCode key(String pName) {
+    return Hashing.sha256().hashString(pName, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void entriesSurviveReopening() throws IOException, SolverException, InterruptedException {
+    Path file = tmp.getRoot().toPath().resolve("abstractions.cache");
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula block = imgr.greaterThan(x, imgr.makeNumber(5));
+    BooleanFormula pred = imgr.greaterThan(x, imgr.makeNumber(0));
+    BooleanFormula abstraction = pred;
+
+    PersistentAbstractionCache cache = open(file);
+    HashCode key = cache.computeKey(block, ImmutableList.of(pred));
+    assertThat(cache.get(key)).isNull();
+    cache.put(key, abstraction);
+    assertThatFormula(cache.get(key)).isEquivalentTo(abstraction);
+    cache.close();
+
+    PersistentAbstractionCache reopened = open(file);
+    HashCode reopenedKey = reopened.computeKey(block, ImmutableList.of(pred));
+    assertThat(reopenedKey).isEqualTo(key);
+    assertThatFormula(reopened.get(reopenedKey)).isEquivalentTo(abstraction);
+    reopened.close();
+  }
+
+  @Test
+  public void keyIsIndependentOfPredicateOrder() throws IOException {
+    PersistentAbstractionCache cache = open(tmp.newFile().toPath());
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula y = imgr.makeVariable("y");
+    BooleanFormula block = imgr.equal(x, y);
+    BooleanFormula pred1 = imgr.lessThan(x, imgr.makeNumber(1));
+    BooleanFormula pred2 = imgr.lessThan(y, imgr.makeNumber(2));
+
+    assertThat(cache.computeKey(block, ImmutableList.of(pred1, pred2)))
+        .isEqualTo(cache.computeKey(block, ImmutableList.of(pred2, pred1)));
+    assertThat(cache.computeKey(block, ImmutableList.of(pred1)))
+        .isNotEqualTo(cache.computeKey(block, ImmutableList.of(pred2)));
+    cache.close();
+  }
+
+  @Test
+  public void keyDependsOnConfiguration() throws IOException {
+    Path file = tmp.newFile().toPath();
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula block = imgr.greaterThan(x, imgr.makeNumber(5));
+    BooleanFormula pred = imgr.greaterThan(x, imgr.makeNumber(0));
+
+    PersistentAbstractionCache cache = open(file);
+    HashCode key = cache.computeKey(block, ImmutableList.of(pred));
+    cache.close();
+    PersistentAbstractionCache otherConfiguration =
+        new PersistentAbstractionCache(
+            file, MAX_SIZE, "abstraction.computation=CARTESIAN", logger, mgrv);
+    assertThat(otherConfiguration.computeKey(block, ImmutableList.of(pred))).isNotEqualTo(key);
+    otherConfiguration.close();
+  }
+
+  @Test
+  public void normalizationIgnoresDeclarationOrderAndWhitespace() {
+    assertThat(
+            FormulaManagerView.normalizeDump(
+                "(declare-fun x () Int)\n(declare-fun y () Int)\n(assert (<  x\n y))"))
+        .isEqualTo(
+            FormulaManagerView.normalizeDump(
+                "(declare-fun y () Int)\n  (declare-fun x () Int)\n(assert (< x y))\n"));
+  }
+
+  @Test
+  public void incompleteEntryIsIgnored() throws IOException {
+    Path file = tmp.getRoot().toPath().resolve("abstractions.cache");
+    PersistentAbstractionCache cache = open(file);
+    cache.putEntry(key("a"), "(assert true)");
+    cache.putEntry(key("b"), "(assert false)");
+    cache.close();
+
+    // simulate a process that was killed while writing the second entry
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    PersistentAbstractionCache reopened = open(file);
+    assertThat(reopened.getEntry(key("a"))).isEqualTo("(assert true)");
+    assertThat(reopened.getEntry(key("b"))).isNull();
+    reopened.putEntry(key("c"), "(assert true)");
+    reopened.close();
+
+    PersistentAbstractionCache reopenedAgain = open(file);
+    assertThat(reopenedAgain.getEntry(key("a"))).isEqualTo("(assert true)");
+    assertThat(reopenedAgain.getEntry(key("c"))).isEqualTo("(assert true)");
+    reopenedAgain.close();
+  }
+
+  @Test
+  public void compactionRemovesDuplicatesAndOldestEntries() throws IOException {
+    Path file = tmp.getRoot().toPath().resolve("abstractions.cache");
+    PersistentAbstractionCache cache = open(file);
+    cache.putEntry(key("a"), "(assert true)");
+    cache.putEntry(key("b"), "(assert false)");
+    cache.close();
+    cache = open(file);
+    cache.putEntry(key("a"), "(assert false)");
+    cache.close();
+
+    assertThat(PersistentAbstractionCache.compact(file, Long.MAX_VALUE)).isEqualTo(1);
+    long sizeWithTwoEntries = Files.size(file);
+    cache = open(file);
+    assertThat(cache.getEntry(key("a"))).isEqualTo("(assert false)");
+    assertThat(cache.getEntry(key("b"))).isEqualTo("(assert false)");
+    cache.close();
+
+    // the file cannot be compacted while it is in use
+    cache = open(file);
+    try {
+      PersistentAbstractionCache.compact(file, Long.MAX_VALUE);
+      assert_().fail("compaction of file that is in use succeeded");
+    } catch (IOException expected) {
+    }
+    cache.close();
+
+    // "b" is older than the latest entry for "a" and is removed first
+    assertThat(PersistentAbstractionCache.compact(file, sizeWithTwoEntries - 1)).isEqualTo(1);
+    cache = open(file);
+    assertThat(cache.getEntry(key("a"))).isEqualTo("(assert false)");
+    assertThat(cache.getEntry(key("b"))).isNull();
+    cache.close();
+  }
+
+  @Test
+  public void sizeLimitIsRespected() throws IOException {
+    Path file = tmp.getRoot().toPath().resolve("abstractions.cache");
+    PersistentAbstractionCache cache =
+        new PersistentAbstractionCache(file, 100, CONFIGURATION, logger, mgrv);
+    cache.putEntry(key("a"), "(assert true)");
+    cache.putEntry(key("b"), "(assert true)");
+    cache.close();
+    assertThat(Files.size(file)).isAtMost(100L);
+
+    cache = open(file);
+    assertThat(cache.getEntry(key("a"))).isEqualTo("(assert true)");
+    assertThat(cache.getEntry(key("b"))).isNull();
+    cache.close();
+  }
+}
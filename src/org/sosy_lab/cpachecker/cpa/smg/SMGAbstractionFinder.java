@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -60,8 +61,23 @@ public abstract class SMGAbstractionFinder {
     return traverse(pSmg, pSMGState, ImmutableSet.of());
   }
 
-  public abstract Set<SMGAbstractionCandidate> traverse(
+  public Set<SMGAbstractionCandidate> traverse(
       CLangSMG pSmg, UnmodifiableSMGState pSMGState, Set<SMGAbstractionBlock> abstractionBlocks)
+      throws SMGInconsistentException {
+    return traverse(pSmg, pSMGState, abstractionBlocks, pSmg.getHeapObjects());
+  }
+
+  /**
+   * Search for abstraction candidates that start at one of the given heap objects. Candidates
+   * consist only of objects that are connected by pointers, so searching each connected component
+   * of the heap separately yields the same candidates as searching the whole heap. The SMG is not
+   * modified, thus different sets of objects may be searched concurrently.
+   */
+  public abstract Set<SMGAbstractionCandidate> traverse(
+      CLangSMG pSmg,
+      UnmodifiableSMGState pSMGState,
+      Set<SMGAbstractionBlock> abstractionBlocks,
+      Collection<SMGObject> pHeapObjects)
       throws SMGInconsistentException;
 
   protected boolean isSubSmgSeperate(
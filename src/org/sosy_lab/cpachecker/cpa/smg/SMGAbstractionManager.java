@@ -23,13 +23,30 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.CLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValueFilter;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGNullObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedListFinder;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.sll.SMGSingleLinkedListFinder;
 
@@ -43,44 +60,166 @@ public class SMGAbstractionManager {
   private final Set<SMGAbstractionBlock> blocks;
   private final SMGDoublyLinkedListFinder dllCandidateFinder;
   private final SMGSingleLinkedListFinder sllCandidateFinder;
+  private final ExecutorService executor;
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate) {
-    smg = pSMG;
-    smgState = pSMGstate;
-    logger = pLogger;
-    blocks = ImmutableSet.of();
-    dllCandidateFinder = new SMGDoublyLinkedListFinder();
-    sllCandidateFinder = new SMGSingleLinkedListFinder();
+    this(pLogger, pSMG, pSMGstate, ImmutableSet.of());
   }
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate,
       Set<SMGAbstractionBlock> pBlocks) {
-    smg = pSMG;
-    smgState = pSMGstate;
-    logger = pLogger;
-    blocks = pBlocks;
-    dllCandidateFinder = new SMGDoublyLinkedListFinder();
-    sllCandidateFinder = new SMGSingleLinkedListFinder();
+    this(
+        pLogger,
+        pSMG,
+        pSMGstate,
+        pBlocks,
+        new SMGDoublyLinkedListFinder(),
+        new SMGSingleLinkedListFinder(),
+        MoreExecutors.newDirectExecutorService());
   }
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate,
       Set<SMGAbstractionBlock> pBlocks, int equalSeq, int entailSeq, int incSeq) {
+    this(
+        pLogger,
+        pSMG,
+        pSMGstate,
+        pBlocks,
+        equalSeq,
+        entailSeq,
+        incSeq,
+        MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * @param pExecutor the executor on which the connected components of the heap are searched for
+   *     candidates, it is not shut down by this class.
+   */
+  public SMGAbstractionManager(
+      LogManager pLogger,
+      CLangSMG pSMG,
+      SMGState pSMGstate,
+      Set<SMGAbstractionBlock> pBlocks,
+      int equalSeq,
+      int entailSeq,
+      int incSeq,
+      ExecutorService pExecutor) {
+    this(
+        pLogger,
+        pSMG,
+        pSMGstate,
+        pBlocks,
+        new SMGDoublyLinkedListFinder(equalSeq, entailSeq, incSeq),
+        new SMGSingleLinkedListFinder(equalSeq, entailSeq, incSeq),
+        pExecutor);
+  }
+
+  private SMGAbstractionManager(
+      LogManager pLogger,
+      CLangSMG pSMG,
+      SMGState pSMGstate,
+      Set<SMGAbstractionBlock> pBlocks,
+      SMGDoublyLinkedListFinder pDllCandidateFinder,
+      SMGSingleLinkedListFinder pSllCandidateFinder,
+      ExecutorService pExecutor) {
     smg = pSMG;
     smgState = pSMGstate;
     logger = pLogger;
     blocks = pBlocks;
-    dllCandidateFinder = new SMGDoublyLinkedListFinder(equalSeq, entailSeq, incSeq);
-    sllCandidateFinder = new SMGSingleLinkedListFinder(equalSeq, entailSeq, incSeq);
+    dllCandidateFinder = pDllCandidateFinder;
+    sllCandidateFinder = pSllCandidateFinder;
+    executor = Preconditions.checkNotNull(pExecutor);
   }
 
-  private boolean hasCandidates() throws SMGInconsistentException {
+  /**
+   * Search for candidates in each connected component of the heap. The candidates are collected
+   * in a fixed order (all list candidates of the components in order of their smallest object,
+   * first for doubly-linked lists, then for singly-linked lists), such that the best candidate
+   * does not depend on the number of threads.
+   */
+  private boolean hasCandidates() throws SMGInconsistentException, InterruptedException {
+    List<List<SMGObject>> components = getConnectedHeapComponents();
 
-    abstractionCandidates.addAll(dllCandidateFinder.traverse(smg, smgState, blocks));
-    abstractionCandidates.addAll(sllCandidateFinder.traverse(smg, smgState, blocks));
+    // with a single component there is nothing to parallelize
+    ExecutorService searchExecutor =
+        components.size() > 1 ? executor : MoreExecutors.newDirectExecutorService();
+    List<Future<Set<SMGAbstractionCandidate>>> searches = new ArrayList<>();
+    try {
+      for (SMGAbstractionFinder finder : ImmutableList.of(dllCandidateFinder, sllCandidateFinder)) {
+        for (List<SMGObject> component : components) {
+          searches.add(
+              searchExecutor.submit(() -> finder.traverse(smg, smgState, blocks, component)));
+        }
+      }
+      for (Future<Set<SMGAbstractionCandidate>> search : searches) {
+        abstractionCandidates.addAll(search.get());
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), SMGInconsistentException.class);
+      throw new UnexpectedCheckedException("search for abstraction candidates", e.getCause());
+    } finally {
+      // the executor is shared, so stop only our own remaining searches
+      for (Future<?> search : searches) {
+        search.cancel(true);
+      }
+    }
 
     return (!abstractionCandidates.isEmpty());
   }
 
+  /**
+   * Partition the heap objects into sets of objects that are connected by pointers between them,
+   * ignoring the direction of the pointers. Pointers to the NULL object (e.g., the terminating
+   * NULL of a list) and to invalid objects do not connect objects, otherwise all NULL-terminated
+   * lists would be in the same component. The components and the objects in them are sorted.
+   */
+  @VisibleForTesting
+  List<List<SMGObject>> getConnectedHeapComponents() {
+    Map<SMGObject, SMGObject> representatives = new HashMap<>();
+    for (SMGObject object : smg.getHeapObjects()) {
+      representatives.put(object, object);
+    }
+    for (SMGObject object : smg.getHeapObjects()) {
+      for (SMGEdgeHasValue hve : smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(object))) {
+        if (smg.isPointer(hve.getValue())) {
+          SMGObject target = smg.getPointer(hve.getValue()).getObject();
+          if (representatives.containsKey(target)
+              && target != SMGNullObject.INSTANCE
+              && smg.isObjectValid(target)) {
+            SMGObject rep1 = getRepresentative(object, representatives);
+            SMGObject rep2 = getRepresentative(target, representatives);
+            if (!rep1.equals(rep2)) {
+              representatives.put(rep1, rep2);
+            }
+          }
+        }
+      }
+    }
+
+    // objects are added in ascending order, so the components are sorted by their first object
+    Map<SMGObject, List<SMGObject>> components = new LinkedHashMap<>();
+    for (SMGObject object : Ordering.natural().sortedCopy(representatives.keySet())) {
+      components
+          .computeIfAbsent(getRepresentative(object, representatives), k -> new ArrayList<>())
+          .add(object);
+    }
+    return new ArrayList<>(components.values());
+  }
+
+  private static SMGObject getRepresentative(
+      SMGObject pObject, Map<SMGObject, SMGObject> pRepresentatives) {
+    SMGObject current = pObject;
+    SMGObject next = pRepresentatives.get(current);
+    while (!next.equals(current)) {
+      // path halving keeps the chains short
+      SMGObject nextNext = pRepresentatives.get(next);
+      pRepresentatives.put(current, nextNext);
+      current = nextNext;
+      next = pRepresentatives.get(current);
+    }
+    return current;
+  }
+
   private SMGAbstractionCandidate getBestCandidate() {
 
     SMGAbstractionCandidate bestCandidate = abstractionCandidates.get(0);
@@ -94,7 +233,7 @@ public class SMGAbstractionManager {
     return bestCandidate;
   }
 
-  public boolean execute() throws SMGInconsistentException {
+  public boolean execute() throws SMGInconsistentException, InterruptedException {
 
     SMGAbstractionCandidate currentAbstraction = executeOneStep();
 
@@ -109,7 +248,8 @@ public class SMGAbstractionManager {
     return true;
   }
 
-  public SMGAbstractionCandidate executeOneStep() throws SMGInconsistentException {
+  public SMGAbstractionCandidate executeOneStep()
+      throws SMGInconsistentException, InterruptedException {
 
     if (hasCandidates()) {
       SMGAbstractionCandidate best = getBestCandidate();
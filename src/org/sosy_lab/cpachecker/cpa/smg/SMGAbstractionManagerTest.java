@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.Set;
 import org.junit.Assert;
@@ -48,12 +49,15 @@ public class SMGAbstractionManagerTest {
   @Before
   public void setUp() {
     smg = new CLangSMG(MachineModel.LINUX64);
+    addList("pointer", 20);
+  }
 
-    SMGRegion globalVar = new SMGRegion(64, "pointer");
+  private void addList(String pGlobalVar, int pLength) {
+    SMGRegion globalVar = new SMGRegion(64, pGlobalVar);
 
     SMGRegion next = null;
-    for (int i = 0; i < 20; i++) {
-      SMGRegion node = new SMGRegion(128, "node " + i);
+    for (int i = 0; i < pLength; i++) {
+      SMGRegion node = new SMGRegion(128, pGlobalVar + " node " + i);
       SMGEdgeHasValue hv;
       smg.addHeapObject(node);
       if (next != null) {
@@ -78,13 +82,8 @@ public class SMGAbstractionManagerTest {
     smg.addHasValueEdge(hv);
   }
 
-  @Test
-  public void testExecute() throws SMGInconsistentException, InvalidConfigurationException {
-    SMGState dummyState = new SMGState(LogManager.createTestLogManager(), MachineModel.LINUX32, new SMGOptions(Configuration.defaultConfiguration()));
-    SMGAbstractionManager manager = new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState);
-    manager.execute();
-
-    SMGRegion globalVar = smg.getObjectForVisibleVariable("pointer");
+  private void assertPointsToAbstractSegment(String pGlobalVar) {
+    SMGRegion globalVar = smg.getObjectForVisibleVariable(pGlobalVar);
     Set<SMGEdgeHasValue> hvs = smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(globalVar));
     Assert.assertEquals(1, hvs.size());
     SMGEdgeHasValue hv = Iterables.getOnlyElement(hvs);
@@ -92,4 +91,44 @@ public class SMGAbstractionManagerTest {
     SMGObject segment = pt.getObject();
     Assert.assertTrue(segment.isAbstract());
   }
+
+  @Test
+  public void testExecute()
+      throws SMGInconsistentException, InvalidConfigurationException, InterruptedException {
+    SMGState dummyState = new SMGState(LogManager.createTestLogManager(), MachineModel.LINUX32, new SMGOptions(Configuration.defaultConfiguration()));
+    SMGAbstractionManager manager = new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState);
+    manager.execute();
+
+    assertPointsToAbstractSegment("pointer");
+  }
+
+  @Test
+  public void testExecuteWithSeparateListsInParallel()
+      throws SMGInconsistentException, InvalidConfigurationException, InterruptedException {
+    addList("pointer2", 10);
+    addList("pointer3", 5);
+    SMGOptions options =
+        new SMGOptions(
+            Configuration.builder().setOption("cpa.smg.heapAbstractionThreads", "3").build());
+    SMGState dummyState =
+        new SMGState(LogManager.createTestLogManager(), MachineModel.LINUX32, options);
+    SMGAbstractionManager manager =
+        new SMGAbstractionManager(
+            LogManager.createTestLogManager(),
+            smg,
+            dummyState,
+            ImmutableSet.of(),
+            2,
+            2,
+            2,
+            options.getHeapAbstractionExecutor());
+    // the NULL terminators of the lists must not connect them, such that each list (and the NULL
+    // object itself) is searched separately
+    Assert.assertEquals(4, manager.getConnectedHeapComponents().size());
+    Assert.assertTrue(manager.execute());
+
+    assertPointsToAbstractSegment("pointer");
+    assertPointsToAbstractSegment("pointer2");
+    assertPointsToAbstractSegment("pointer3");
+  }
 }
@@ -48,10 +48,8 @@ import org.sosy_lab.cpachecker.core.counterexample.CFAPathWithAdditionalInfo;
 import org.sosy_lab.cpachecker.core.counterexample.ConcreteStatePath;
 import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
 import org.sosy_lab.cpachecker.core.defaults.DelegateAbstractDomain;
-import org.sosy_lab.cpachecker.core.defaults.MergeJoinOperator;
 import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
 import org.sosy_lab.cpachecker.core.defaults.StopNeverOperator;
-import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
@@ -92,6 +90,15 @@ public class SMGCPA
       description="which merge operator to use for the SMGCPA")
   private String mergeType = "SEP";
 
+  @Option(
+    secure = true,
+    name = "joinCache.maximumSize",
+    description =
+        "maximum number of pairs of states for which the results of the merge and stop operator"
+            + " are cached (least-recently used entries are evicted first, 0 disables the cache)"
+  )
+  private long joinCacheMaximumSize = 10000;
+
   private final SMGPredicateManager smgPredicateManager;
   private final BlockOperator blockOperator;
   private final MachineModel machineModel;
@@ -104,7 +111,8 @@ public class SMGCPA
   private final AssumptionToEdgeAllocator assumptionToEdgeAllocator;
   private final SMGOptions options;
   private final SMGExportDotOption exportOptions;
-  private final SMGStatistics stats = new SMGStatistics();
+  private final SMGJoinCache joinCache;
+  private final SMGStatistics stats;
 
   // flag whether we perform CEGAR or static analysis.
   private SMGTransferRelationKind kind = SMGTransferRelationKind.STATIC;
@@ -116,6 +124,13 @@ public class SMGCPA
       CFA pCfa) throws InvalidConfigurationException {
     pConfig.inject(this);
 
+    if (joinCacheMaximumSize < 0) {
+      throw new InvalidConfigurationException(
+          "Invalid value " + joinCacheMaximumSize + " for option cpa.smg.joinCache.maximumSize");
+    }
+    joinCache = new SMGJoinCache(joinCacheMaximumSize);
+    stats = new SMGStatistics(joinCache);
+
     config = pConfig;
     cfa = pCfa;
     machineModel = cfa.getMachineModel();
@@ -169,7 +184,7 @@ public class SMGCPA
       case "SEP":
         return MergeSepOperator.getInstance();
       case "JOIN":
-        return new MergeJoinOperator(getAbstractDomain());
+        return new SMGMergeOperator(joinCache);
       default:
         throw new AssertionError("unknown mergetype for SMGCPA");
     }
@@ -179,11 +194,11 @@ public class SMGCPA
   public StopOperator getStopOperator() {
     switch (stopType) {
       case "END_BLOCK":
-        return new SMGStopOperator(getAbstractDomain());
+        return new SMGStopOperator(joinCache, true);
       case "NEVER":
         return StopNeverOperator.getInstance();
       case "SEP":
-        return new StopSepOperator(getAbstractDomain());
+        return new SMGStopOperator(joinCache, false);
       default:
         throw new AssertionError("unknown stoptype for SMGCPA");
     }
@@ -255,6 +270,14 @@ public class SMGCPA
     exportOptions.nextRefinement();
   }
 
+  /**
+   * Drop the cached results of the merge and stop operator for a state that is removed from the
+   * reached set, e.g., by refinement.
+   */
+  public void removeFromJoinCache(UnmodifiableSMGState pState) {
+    joinCache.removeState(pState);
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(stats);
@@ -0,0 +1,173 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
+import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoinStatus;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+
+/**
+ * Memo table for the results of joining and comparing pairs of SMG states, shared by {@link
+ * SMGMergeOperator} and {@link SMGStopOperator}.
+ *
+ * <p>For each new state, the merge operator joins it with the reached states at the same location,
+ * and afterwards the stop operator checks whether one of them covers it. With heap abstraction,
+ * both operations are based on the same {@link SMGJoin} of the two heaps, which is the most
+ * expensive operation of the analysis. This table stores the results of both operations, and the
+ * parts of the heap join that the coverage check needs until both results are known, for each
+ * pair of states, identified by {@link UnmodifiableSMGState#getId()}. Ids are never reused, so
+ * entries do not become wrong, but entries of states that are removed from the reached set (by the
+ * merge operator or by refinement) are dropped immediately. All other entries are evicted in
+ * least-recently-used order once the table is full.
+ *
+ * <p>Instances of this class are not thread-safe.
+ */
+final class SMGJoinCache {
+
+  /** The results for a pair of a new state and a reached state. */
+  private static final class Entry {
+
+    /**
+     * {@link SMGJoin#getStatus()} of the join of the heaps of both states, or null if the coverage
+     * check is already known or the heaps were not yet joined.
+     */
+    private @Nullable SMGJoinStatus heapJoinStatus = null;
+
+    /** {@link SMGJoin#isDefined()} of the join of the heaps, valid if heapJoinStatus is known. */
+    private boolean isHeapJoinDefined = false;
+
+    private @Nullable UnmodifiableSMGState join = null;
+
+    private @Nullable Boolean isLessOrEqual = null;
+  }
+
+  private final Cache<Long, Entry> entries;
+
+  /** The keys of all entries in the table for each state id, with the state on either side. */
+  private final SetMultimap<Integer, Long> keysByState = HashMultimap.create();
+
+  final StatCounter joinQueries = new StatCounter("Number of SMG joins requested");
+  final StatCounter lessOrEqualQueries = new StatCounter("Number of SMG coverage checks requested");
+  final StatCounter cachedResults = new StatCounter("Number of results taken from join cache");
+  final StatCounter reusedHeapJoins =
+      new StatCounter("Number of coverage checks with already joined heaps");
+
+  /** @param pMaximumSize the maximum number of pairs of states stored, 0 disables the cache. */
+  SMGJoinCache(long pMaximumSize) {
+    entries =
+        CacheBuilder.newBuilder()
+            .maximumSize(pMaximumSize)
+            .removalListener(this::entryRemoved)
+            .build();
+  }
+
+  private static long key(int pStateId, int pReachedStateId) {
+    return ((long) pStateId << Integer.SIZE) | (pReachedStateId & 0xFFFFFFFFL);
+  }
+
+  private static int stateId(long pKey) {
+    return (int) (pKey >>> Integer.SIZE);
+  }
+
+  private static int reachedStateId(long pKey) {
+    return (int) pKey;
+  }
+
+  private Entry getEntry(UnmodifiableSMGState pState, UnmodifiableSMGState pReachedState) {
+    long key = key(pState.getId(), pReachedState.getId());
+    Entry entry = entries.getIfPresent(key);
+    if (entry == null) {
+      entry = new Entry();
+      // update the index first, an eviction caused by the insertion immediately cleans it up
+      keysByState.put(pState.getId(), key);
+      keysByState.put(pReachedState.getId(), key);
+      entries.put(key, entry);
+    }
+    return entry;
+  }
+
+  private void entryRemoved(RemovalNotification<Long, Entry> pNotification) {
+    if (pNotification.getCause() != RemovalCause.REPLACED) {
+      long key = pNotification.getKey();
+      keysByState.remove(stateId(key), key);
+      keysByState.remove(reachedStateId(key), key);
+    }
+  }
+
+  /** Returns the result of {@link SMGState#join(UnmodifiableSMGState)}. */
+  UnmodifiableSMGState join(SMGState pState, UnmodifiableSMGState pReachedState)
+      throws SMGInconsistentException {
+    joinQueries.inc();
+    Entry entry = getEntry(pState, pReachedState);
+    if (entry.join != null) {
+      cachedResults.inc();
+      return entry.join;
+    }
+    SMGJoin heapJoin = pState.joinHeaps(pReachedState);
+    entry.join = pState.join(pReachedState, heapJoin);
+    if (entry.isLessOrEqual == null) {
+      // the joint SMG is part of the join result if needed, the coverage check needs only these
+      entry.heapJoinStatus = heapJoin.getStatus();
+      entry.isHeapJoinDefined = heapJoin.isDefined();
+    }
+    return entry.join;
+  }
+
+  /** Returns the result of {@link SMGState#isLessOrEqual(UnmodifiableSMGState)}. */
+  boolean isLessOrEqual(SMGState pState, UnmodifiableSMGState pReachedState)
+      throws SMGInconsistentException {
+    lessOrEqualQueries.inc();
+    Entry entry = getEntry(pState, pReachedState);
+    if (entry.isLessOrEqual != null) {
+      cachedResults.inc();
+      return entry.isLessOrEqual;
+    }
+    if (entry.heapJoinStatus != null) {
+      reusedHeapJoins.inc();
+    }
+    entry.isLessOrEqual =
+        pState.isLessOrEqual(pReachedState, entry.heapJoinStatus, entry.isHeapJoinDefined);
+    entry.heapJoinStatus = null;
+    return entry.isLessOrEqual;
+  }
+
+  /** Drop all entries of a state that was removed from the reached set. */
+  void removeState(UnmodifiableSMGState pState) {
+    // copy, because the removal listener modifies the index
+    entries.invalidateAll(ImmutableList.copyOf(keysByState.get(pState.getId())));
+  }
+
+  /** Returns the number of pairs of states in the table. */
+  long size() {
+    return entries.size();
+  }
+}
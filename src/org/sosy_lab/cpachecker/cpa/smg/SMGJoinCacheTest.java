@@ -0,0 +1,158 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
+
+public class SMGJoinCacheTest {
+
+  private static final LogManager logger = LogManager.createTestLogManager();
+  private static final CType intType = TypeUtils.createTypeWithLength(32);
+
+  private SMGOptions options;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    options =
+        new SMGOptions(
+            Configuration.builder().setOption("cpa.smg.enableHeapAbstraction", "true").build());
+  }
+
+  private SMGState createState(int pValue) throws SMGInconsistentException {
+    SMGState state = new SMGState(logger, MachineModel.LINUX32, options);
+    SMGObject global = state.addGlobalVariable(32, "global");
+    state.writeValue(global, 0, intType, SMGKnownSymValue.valueOf(pValue));
+    return state;
+  }
+
+  @Test
+  public void resultsAreEqualToUncachedResults() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(100);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+    SMGState copy = state1.copyOf();
+
+    for (SMGState state : new SMGState[] {state1, state2, copy}) {
+      for (SMGState reached : new SMGState[] {state1, state2, copy}) {
+        assertThat(cache.join(state, reached) == reached)
+            .isEqualTo(state.join(reached) == reached);
+        assertThat(cache.isLessOrEqual(state, reached)).isEqualTo(state.isLessOrEqual(reached));
+      }
+    }
+    assertThat(cache.joinQueries.getValue()).isEqualTo(9);
+    assertThat(cache.reusedHeapJoins.getValue()).isEqualTo(9);
+  }
+
+  @Test
+  public void resultsAreCached() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(100);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+
+    UnmodifiableSMGState join = cache.join(state1, state2);
+    boolean isLessOrEqual = cache.isLessOrEqual(state1, state2);
+    assertThat(cache.reusedHeapJoins.getValue()).isEqualTo(1);
+    assertThat(cache.cachedResults.getValue()).isEqualTo(0);
+
+    assertThat(cache.join(state1, state2)).isSameAs(join);
+    assertThat(cache.isLessOrEqual(state1, state2)).isEqualTo(isLessOrEqual);
+    assertThat(cache.cachedResults.getValue()).isEqualTo(2);
+
+    // the order of the states matters
+    cache.isLessOrEqual(state2, state1);
+    assertThat(cache.cachedResults.getValue()).isEqualTo(2);
+  }
+
+  @Test
+  public void removedStatesAreForgotten() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(100);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+    SMGState state3 = createState(3);
+
+    cache.join(state1, state2);
+    cache.join(state1, state3);
+    cache.removeState(state2);
+
+    cache.isLessOrEqual(state1, state2);
+    assertThat(cache.reusedHeapJoins.getValue()).isEqualTo(0);
+    cache.isLessOrEqual(state1, state3);
+    assertThat(cache.reusedHeapJoins.getValue()).isEqualTo(1);
+  }
+
+  @Test
+  public void removedStatesAreForgottenOnBothSides() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(100);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+    SMGState state3 = createState(3);
+
+    cache.join(state1, state2);
+    cache.join(state2, state3);
+    cache.join(state1, state3);
+    assertThat(cache.size()).isEqualTo(3);
+
+    cache.removeState(state2);
+    assertThat(cache.size()).isEqualTo(1);
+    cache.removeState(state1);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void evictedEntriesAreRemovedFromIndex() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(1);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+    SMGState state3 = createState(3);
+
+    cache.join(state1, state2);
+    cache.join(state1, state3);
+    assertThat(cache.size()).isEqualTo(1);
+
+    // the evicted entry must not be removed again, the remaining one has to be removed
+    cache.removeState(state1);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void disabledCache() throws SMGInconsistentException {
+    SMGJoinCache cache = new SMGJoinCache(0);
+    SMGState state1 = createState(1);
+    SMGState state2 = createState(2);
+
+    cache.isLessOrEqual(state1, state2);
+    cache.isLessOrEqual(state1, state2);
+    assertThat(cache.cachedResults.getValue()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+
+/**
+ * Merge-join operator for SMG states that takes the joins from the {@link SMGJoinCache} shared with
+ * the {@link SMGStopOperator}.
+ */
+public class SMGMergeOperator implements MergeOperator {
+
+  private final SMGJoinCache joinCache;
+
+  SMGMergeOperator(SMGJoinCache pJoinCache) {
+    joinCache = pJoinCache;
+  }
+
+  @Override
+  public AbstractState merge(AbstractState el1, AbstractState el2, Precision p)
+      throws CPAException, InterruptedException {
+    UnmodifiableSMGState reachedState = (UnmodifiableSMGState) el2;
+    UnmodifiableSMGState result = joinCache.join((SMGState) el1, reachedState);
+    if (result != reachedState) {
+      // the reached state will be replaced by the result in the reached set
+      joinCache.removeState(reachedState);
+    }
+    return result;
+  }
+}
@@ -24,9 +24,14 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.FileOption.Type;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -159,6 +164,16 @@ public class SMGOptions {
       description = "with this option enabled, heap abstraction will be enabled.")
   private boolean enableHeapAbstraction = false;
 
+  @Option(
+      secure = true,
+      name = "heapAbstractionThreads",
+      description =
+          "Number of threads for searching heap-abstraction candidates. "
+              + "Parts of the heap that are not connected by pointers are searched in parallel. "
+              + "The chosen abstraction does not depend on this option.")
+  @IntegerOption(min = 1)
+  private int heapAbstractionThreads = 1;
+
   @Option(
       secure = true,
       name = "memoryErrors",
@@ -204,6 +219,13 @@ public class SMGOptions {
           "Handle external variables with incomplete type (extern int array[]) as external allocation")
   private boolean handleIncompleteExternalVariableAsExternalAllocation = false;
 
+  /**
+   * Executor for the search of heap-abstraction candidates, which is reused by all abstractions
+   * of the CPA that owns these options. The threads are daemon threads, so the executor does not
+   * need to be shut down.
+   */
+  private final ExecutorService heapAbstractionExecutor;
+
   public enum SMGExportLevel {
     NEVER,
     LEAF,
@@ -213,6 +235,15 @@ public class SMGOptions {
 
   public SMGOptions(Configuration config) throws InvalidConfigurationException {
     config.inject(this);
+    heapAbstractionExecutor =
+        heapAbstractionThreads > 1
+            ? Executors.newFixedThreadPool(
+                heapAbstractionThreads,
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("SMG heap abstraction %d")
+                    .build())
+            : MoreExecutors.newDirectExecutorService();
   }
 
   public boolean isCheckForMemLeaksAtEveryFrameDrop() {
@@ -287,6 +318,10 @@ public class SMGOptions {
     return enableHeapAbstraction;
   }
 
+  public ExecutorService getHeapAbstractionExecutor() {
+    return heapAbstractionExecutor;
+  }
+
   public boolean isMemoryErrorTarget() {
     return memoryErrors;
   }
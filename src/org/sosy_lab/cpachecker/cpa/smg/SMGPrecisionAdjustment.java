@@ -96,7 +96,8 @@ public class SMGPrecisionAdjustment implements PrecisionAdjustment, StatisticsPr
   }
 
   private Optional<PrecisionAdjustmentResult> prec(
-      UnmodifiableSMGState pState, SMGPrecision pPrecision, CFANode node) throws CPAException {
+      UnmodifiableSMGState pState, SMGPrecision pPrecision, CFANode node)
+      throws CPAException, InterruptedException {
 
     boolean allowsFieldAbstraction = pPrecision.getAbstractionOptions().allowsFieldAbstraction();
     boolean allowsHeapAbstraction = pPrecision.allowsHeapAbstractionOnNode(node, blockOperator);
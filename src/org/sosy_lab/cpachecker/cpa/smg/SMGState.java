@@ -26,7 +26,6 @@ package org.sosy_lab.cpachecker.cpa.smg;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.ArrayList;
@@ -86,6 +85,7 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoinStatus;
 import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGMemoryPath;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentBiMap;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 
@@ -106,7 +106,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   private final int predecessorId;
   private final int id;
 
-  private final BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues = HashBiMap.create();
+  private PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues;
   private final CLangSMG heap;
 
   private final boolean blockEnded;
@@ -166,7 +166,15 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       CLangSMG pHeap,
       int pPredId,
       Map<SMGKnownSymbolicValue, SMGKnownExpValue> pMergedExplicitValues) {
-    this(pLogger, pOptions, pHeap, pPredId, pMergedExplicitValues, SMGErrorInfo.of(), false);
+    this(
+        pLogger,
+        pOptions,
+        pHeap,
+        pPredId,
+        PersistentBiMap.<SMGKnownSymbolicValue, SMGKnownExpValue>of()
+            .putAllAndCopy(pMergedExplicitValues),
+        SMGErrorInfo.of(),
+        false);
   }
 
   /** Copy constructor. */
@@ -175,7 +183,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       SMGOptions pOptions,
       CLangSMG pHeap,
       int pPredId,
-      Map<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
+      PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
       SMGErrorInfo pErrorInfo,
       boolean pBlockEnded) {
     options = pOptions;
@@ -183,9 +191,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     logger = pLogger;
     predecessorId = pPredId;
     id = ID_COUNTER.getAndIncrement();
-    Preconditions.checkArgument(!pExplicitValues.containsKey(null));
-    Preconditions.checkArgument(!pExplicitValues.containsValue(null));
-    explicitValues.putAll(pExplicitValues);
+    explicitValues = pExplicitValues;
     errorInfo = pErrorInfo;
     blockEnded = pBlockEnded;
   }
@@ -196,7 +202,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     blockEnded = pOriginalState.blockEnded;
     errorInfo = pOriginalState.errorInfo.withProperty(pProperty);
   }
@@ -208,7 +214,14 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public SMGState copyWith(CLangSMG pSmg, BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pValues) {
-    return new SMGState(logger, options, pSmg, id, pValues, errorInfo, blockEnded);
+    return new SMGState(
+        logger,
+        options,
+        pSmg,
+        id,
+        PersistentBiMap.<SMGKnownSymbolicValue, SMGKnownExpValue>of().putAllAndCopy(pValues),
+        errorInfo,
+        blockEnded);
   }
 
   @Override
@@ -221,10 +234,14 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     if (errorInfo.equals(pOther.errorInfo)) {
       return this;
     }
-    SMGState result =
-        new SMGState(logger, options, heap, ID_COUNTER.getAndIncrement(), explicitValues);
-    result.errorInfo = result.errorInfo.mergeWith(pOther.errorInfo);
-    return result;
+    return new SMGState(
+        logger,
+        options,
+        heap,
+        ID_COUNTER.getAndIncrement(),
+        explicitValues,
+        SMGErrorInfo.of().mergeWith(pOther.errorInfo),
+        false);
   }
 
   /**
@@ -368,7 +385,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   @Override
   public String toDot(String pName, String pLocation) {
     SMGPlotter plotter = new SMGPlotter();
-    return plotter.smgAsDot(heap, pName, pLocation, explicitValues);
+    return plotter.smgAsDot(heap, pName, pLocation, explicitValues.asMap());
   }
 
   /**
@@ -1189,9 +1206,8 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     SMGEdgeHasValue new_edge = new SMGEdgeHasValue(pType, pOffset, pObject, pValue);
 
     // Check if the edge is  not present already
-    SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(pObject);
-
-    Set<SMGEdgeHasValue> edges = heap.getHVEdges(filter);
+    long size = heap.getMachineModel().getSizeofInBits(pType).longValueExact();
+    Set<SMGEdgeHasValue> edges = heap.getOverlappingHVEdges(pObject, pOffset, pOffset + size);
     if (edges.contains(new_edge)) {
       performConsistencyCheck(SMGRuntimeCheck.HALF);
       return new SMGStateEdgePair(this, new_edge);
@@ -1205,16 +1221,10 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
      * and remember all overlapping zero edges to shrink them later
      */
     for (SMGEdgeHasValue hv : edges) {
-
-      boolean hvEdgeOverlaps = new_edge.overlapsWith(hv, heap.getMachineModel());
-      boolean hvEdgeIsZero = hv.getValue() == SMGZeroValue.INSTANCE;
-
-      if (hvEdgeOverlaps) {
-        if (hvEdgeIsZero) {
-          overlappingZeroEdges.add(hv);
-        } else {
-          heap.removeHasValueEdge(hv);
-        }
+      if (hv.getValue() == SMGZeroValue.INSTANCE) {
+        overlappingZeroEdges.add(hv);
+      } else {
+        heap.removeHasValueEdge(hv);
       }
     }
 
@@ -1315,9 +1325,23 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   public UnmodifiableSMGState join(UnmodifiableSMGState reachedState)
       throws SMGInconsistentException {
     // Not necessary if merge_SEP and stop_SEP is used.
+    return join(reachedState, joinHeaps(reachedState));
+  }
 
-    SMGJoin join = new SMGJoin(this.heap, reachedState.getHeap(), this, reachedState);
+  /**
+   * Computes the join of the heap of this state and the heap of the reached state. This is the
+   * expensive part of {@link #join(UnmodifiableSMGState)} and, with heap abstraction, of {@link
+   * #isLessOrEqual(UnmodifiableSMGState)}, and can be shared between both.
+   */
+  SMGJoin joinHeaps(UnmodifiableSMGState reachedState) throws SMGInconsistentException {
+    return new SMGJoin(this.heap, reachedState.getHeap(), this, reachedState);
+  }
 
+  /**
+   * Same as {@link #join(UnmodifiableSMGState)}, but based on the given result of {@link
+   * #joinHeaps(UnmodifiableSMGState)} for the same reached state.
+   */
+  UnmodifiableSMGState join(UnmodifiableSMGState reachedState, SMGJoin join) {
     if (!(join.getStatus() == SMGJoinStatus.INCOMPARABLE && join.isDefined())) {
       return reachedState;
     }
@@ -1350,19 +1374,41 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
    */
   @Override
   public boolean isLessOrEqual(UnmodifiableSMGState reachedState) throws SMGInconsistentException {
+    return isLessOrEqual(reachedState, null, false);
+  }
+
+  /**
+   * Same as {@link #isLessOrEqual(UnmodifiableSMGState)}, but uses the given result of {@link
+   * #joinHeaps(UnmodifiableSMGState)} for the same reached state if a join of the heaps is needed.
+   *
+   * @param pJoinStatus {@link SMGJoin#getStatus()} of the join of the heaps, or null if the heaps
+   *     were not yet joined.
+   * @param pIsJoinDefined {@link SMGJoin#isDefined()} of the join of the heaps, ignored if
+   *     pJoinStatus is null.
+   */
+  boolean isLessOrEqual(
+      UnmodifiableSMGState reachedState,
+      @Nullable SMGJoinStatus pJoinStatus,
+      boolean pIsJoinDefined)
+      throws SMGInconsistentException {
 
     if(!getErrorPredicateRelation().isEmpty() || !reachedState.getErrorPredicateRelation().isEmpty()) {
       return false;
     }
 
     if (options.isHeapAbstractionEnabled()) {
-      SMGJoin join = new SMGJoin(heap, reachedState.getHeap(), this, reachedState);
+      SMGJoinStatus jss = pJoinStatus;
+      boolean isJoinDefined = pIsJoinDefined;
+      if (jss == null) {
+        SMGJoin join = joinHeaps(reachedState);
+        jss = join.getStatus();
+        isJoinDefined = join.isDefined();
+      }
 
-      if (!join.isDefined()) {
+      if (!isJoinDefined) {
         return false;
       }
 
-      SMGJoinStatus jss = join.getStatus();
       if (jss != SMGJoinStatus.EQUAL && jss != SMGJoinStatus.RIGHT_ENTAIL) {
         return false;
       }
@@ -1672,48 +1718,43 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     long targetRangeSize = pTargetOffset + copyRange;
 
-    SMGEdgeHasValueFilter filterSource = SMGEdgeHasValueFilter.objectFilter(pSource);
-    SMGEdgeHasValueFilter filterTarget = SMGEdgeHasValueFilter.objectFilter(pTarget);
-
     // Remove all target edges in range
-    for (SMGEdgeHasValue edge : getHVEdges(filterTarget)) {
-      if (edge.overlapsWith(pTargetOffset, targetRangeSize, heap.getMachineModel())) {
-        heap.removeHasValueEdge(edge);
+    for (SMGEdgeHasValue edge :
+        heap.getOverlappingHVEdges(pTarget, pTargetOffset, targetRangeSize)) {
+      heap.removeHasValueEdge(edge);
 
-        // Shrink overlapping zero edge
-        if (edge.getValue() == SMGZeroValue.INSTANCE) {
-          SMGObject object = edge.getObject();
-
-          long zeroEdgeOffset = edge.getOffset();
-          if (zeroEdgeOffset < pTargetOffset) {
-            heap.addHasValueEdge(
-                new SMGEdgeHasValue(
-                    Math.toIntExact(pTargetOffset - zeroEdgeOffset),
-                    zeroEdgeOffset,
-                    object,
-                    SMGZeroValue.INSTANCE));
-          }
+      // Shrink overlapping zero edge
+      if (edge.getValue() == SMGZeroValue.INSTANCE) {
+        SMGObject object = edge.getObject();
+
+        long zeroEdgeOffset = edge.getOffset();
+        if (zeroEdgeOffset < pTargetOffset) {
+          heap.addHasValueEdge(
+              new SMGEdgeHasValue(
+                  Math.toIntExact(pTargetOffset - zeroEdgeOffset),
+                  zeroEdgeOffset,
+                  object,
+                  SMGZeroValue.INSTANCE));
+        }
 
-          long zeroEdgeOffset2 = zeroEdgeOffset + edge.getSizeInBits(heap.getMachineModel());
-          if (targetRangeSize < zeroEdgeOffset2) {
-            heap.addHasValueEdge(
-                new SMGEdgeHasValue(
-                    Math.toIntExact(zeroEdgeOffset2 - targetRangeSize),
-                    targetRangeSize,
-                    object,
-                    SMGZeroValue.INSTANCE));
-          }
+        long zeroEdgeOffset2 = zeroEdgeOffset + edge.getSizeInBits(heap.getMachineModel());
+        if (targetRangeSize < zeroEdgeOffset2) {
+          heap.addHasValueEdge(
+              new SMGEdgeHasValue(
+                  Math.toIntExact(zeroEdgeOffset2 - targetRangeSize),
+                  targetRangeSize,
+                  object,
+                  SMGZeroValue.INSTANCE));
         }
       }
     }
 
     // Shift the source edge offset depending on the target range offset
     long copyShift = pTargetOffset - pSourceOffset;
-    for (SMGEdgeHasValue edge : getHVEdges(filterSource)) {
-      if (edge.overlapsWith(pSourceOffset, pSourceLastCopyBitOffset, heap.getMachineModel())) {
-        long offset = edge.getOffset() + copyShift;
-        newSMGState = writeValue0(pTarget, offset, edge.getType(), edge.getValue()).getState();
-      }
+    for (SMGEdgeHasValue edge :
+        heap.getOverlappingHVEdges(pSource, pSourceOffset, pSourceLastCopyBitOffset)) {
+      long offset = edge.getOffset() + copyShift;
+      newSMGState = writeValue0(pTarget, offset, edge.getType(), edge.getValue()).getState();
     }
 
     performConsistencyCheck(SMGRuntimeCheck.FULL);
@@ -1753,9 +1794,9 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
 
     heap.replaceValue(pKnownVal1, pKnownVal2);
-    SMGKnownExpValue expVal = explicitValues.remove(pKnownVal2);
+    SMGKnownExpValue expVal = explicitValues.get(pKnownVal2);
     if (expVal != null) {
-      explicitValues.put(pKnownVal1, expVal);
+      explicitValues = explicitValues.removeAndCopy(pKnownVal2).putAndCopy(pKnownVal1, expVal);
     }
   }
 
@@ -1780,7 +1821,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
       logger.logf(
           Level.FINER, "SymValue1 %s %s SymValue2 %s AddPredicate: %s", pV1, temp, pV2, pEdge);
-      getPathPredicateRelation().addRelation(pV1, pCType1, pV2, pCType2, temp);
+      heap.addPathPredicateRelation(pV1, pCType1, pV2, pCType2, temp);
   }
 }
 
@@ -1796,7 +1837,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       }
       logger.logf(
           Level.FINER, "SymValue %s %s; ExplValue %s; AddPredicate: %s", pV1, temp, pV2, pEdge);
-      getPathPredicateRelation().addExplicitRelation(pV1, pCType1, pV2, pCType2, temp);
+      heap.addPathPredicateExplicitRelation(pV1, pCType1, pV2, pCType2, temp);
     }
   }
 
@@ -1812,9 +1853,8 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       logger.log(Level.FINER, "Add Error Predicate: SymValue  ",
           pSymbolicValue, " ; ExplValue", " ",
           pExplicitValue, "; on edge: ", pEdge);
-      getErrorPredicateRelation()
-          .addExplicitRelation(
-              pSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
+      heap.addErrorPredicateExplicitRelation(
+          pSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
     }
   }
 
@@ -1838,30 +1878,30 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     Preconditions.checkNotNull(pKey);
     Preconditions.checkNotNull(pValue);
 
-    if (explicitValues.inverse().containsKey(pValue)) {
-      SMGKnownSymbolicValue symValue = explicitValues.inverse().get(pValue);
+    if (explicitValues.containsValue(pValue)) {
+      SMGKnownSymbolicValue symValue = explicitValues.getKey(pValue);
 
       if (!pKey.equals(symValue)) {
-        explicitValues.remove(symValue);
+        explicitValues = explicitValues.removeAndCopy(symValue);
         if (symValue.isZero()) { // swap values, we prefer ZERO in the SMG.
           heap.replaceValue(symValue, pKey);
         } else {
           heap.replaceValue(pKey, symValue);
         }
-        explicitValues.put(pKey, pValue);
+        explicitValues = explicitValues.putAndCopy(pKey, pValue);
         return symValue;
       }
 
       return null;
     }
 
-    explicitValues.put(pKey, pValue);
+    explicitValues = explicitValues.putAndCopy(pKey, pValue);
     return null;
   }
 
   @Deprecated // unused
   public void clearExplicit(SMGKnownSymbolicValue pKey) {
-    explicitValues.remove(pKey);
+    explicitValues = explicitValues.removeAndCopy(pKey);
   }
 
   @Override
@@ -1940,18 +1980,20 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
    * Try to abstract heap segments meaningfully.
    * @throws SMGInconsistentException Join lead to inconsistent smg.
    */
-  public void executeHeapAbstraction() throws SMGInconsistentException {
+  public void executeHeapAbstraction() throws SMGInconsistentException, InterruptedException {
     SMGAbstractionManager manager = new SMGAbstractionManager(logger, heap, this);
     manager.execute();
     performConsistencyCheck(SMGRuntimeCheck.HALF);
   }
 
   public boolean executeHeapAbstraction(Set<SMGAbstractionBlock> blocks)
-      throws SMGInconsistentException {
+      throws SMGInconsistentException, InterruptedException {
     final SMGAbstractionManager manager;
     boolean usesHeapInterpolation = true; // TODO do we need this flag?
     if (usesHeapInterpolation) {
-      manager = new SMGAbstractionManager(logger, heap, this, blocks, 2, 2, 2);
+      manager =
+          new SMGAbstractionManager(
+              logger, heap, this, blocks, 2, 2, 2, options.getHeapAbstractionExecutor());
     } else {
       manager = new SMGAbstractionManager(logger, heap, this, blocks);
     }
@@ -1977,8 +2019,10 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   }
 
   public SMGAbstractionCandidate executeHeapAbstractionOneStep(Set<SMGAbstractionBlock> pResult)
-      throws SMGInconsistentException {
-    SMGAbstractionManager manager = new SMGAbstractionManager(logger, heap, this, pResult, 2, 2, 2);
+      throws SMGInconsistentException, InterruptedException {
+    SMGAbstractionManager manager =
+        new SMGAbstractionManager(
+            logger, heap, this, pResult, 2, 2, 2, options.getHeapAbstractionExecutor());
     SMGAbstractionCandidate result = manager.executeOneStep();
     performConsistencyCheck(SMGRuntimeCheck.HALF);
     return result;
@@ -2124,6 +2168,6 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public Set<Entry<SMGKnownSymbolicValue, SMGKnownExpValue>> getExplicitValues() {
-    return Collections.unmodifiableSet(explicitValues.entrySet());
+    return explicitValues.entrySet();
   }
 }
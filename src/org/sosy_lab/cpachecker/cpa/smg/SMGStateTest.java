@@ -81,7 +81,8 @@ public class SMGStateTest {
   private CType pointerType = new CPointerType(false, false, unspecifiedType);
 
   @Test
-  public void abstractionTest() throws SMGInconsistentException, InvalidConfigurationException {
+  public void abstractionTest()
+      throws SMGInconsistentException, InvalidConfigurationException, InterruptedException {
 
     CLangSMG smg1 = new CLangSMG(MachineModel.LINUX32);
 
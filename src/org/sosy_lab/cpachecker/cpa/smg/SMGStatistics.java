@@ -32,12 +32,22 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 
 public class SMGStatistics implements Statistics {
 
+  private final SMGJoinCache joinCache;
+
+  SMGStatistics(SMGJoinCache pJoinCache) {
+    joinCache = pJoinCache;
+  }
+
   @Override
   public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
     put(pOut, 0, SMGIsLessOrEqual.isLEQTimer);
     put(pOut, 1, SMGIsLessOrEqual.globalsTimer);
     put(pOut, 1, SMGIsLessOrEqual.stackTimer);
     put(pOut, 1, SMGIsLessOrEqual.heapTimer);
+    put(pOut, 0, joinCache.joinQueries);
+    put(pOut, 0, joinCache.lessOrEqualQueries);
+    put(pOut, 1, joinCache.cachedResults);
+    put(pOut, 1, joinCache.reusedHeapJoins);
   }
 
   @Override
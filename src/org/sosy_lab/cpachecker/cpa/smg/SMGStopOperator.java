@@ -24,26 +24,39 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import java.util.Collection;
-import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
-import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 
-public class SMGStopOperator extends StopSepOperator{
-  /**
-   * Creates a stop-sep operator based on the given partial order
-   */
-  public SMGStopOperator(AbstractDomain d) {
-    super(d);
+/**
+ * Stop-sep operator for SMG states that takes the coverage checks from the {@link SMGJoinCache}
+ * shared with the {@link SMGMergeOperator}.
+ */
+public class SMGStopOperator implements StopOperator {
+
+  private final SMGJoinCache joinCache;
+
+  /** Whether only states at the end of a block may be covered. */
+  private final boolean stopOnlyAtBlockEnd;
+
+  SMGStopOperator(SMGJoinCache pJoinCache, boolean pStopOnlyAtBlockEnd) {
+    joinCache = pJoinCache;
+    stopOnlyAtBlockEnd = pStopOnlyAtBlockEnd;
   }
 
   @Override
   public boolean stop(AbstractState el, Collection<AbstractState> reached, Precision precision)
       throws CPAException, InterruptedException {
-    if (el instanceof SMGState && !((UnmodifiableSMGState) el).isBlockEnded()) {
+    SMGState state = (SMGState) el;
+    if (stopOnlyAtBlockEnd && !state.isBlockEnded()) {
       return false;
     }
-    return super.stop(el, reached, precision);
+    for (AbstractState reachedState : reached) {
+      if (joinCache.isLessOrEqual(state, (UnmodifiableSMGState) reachedState)) {
+        return true;
+      }
+    }
+    return false;
   }
 }
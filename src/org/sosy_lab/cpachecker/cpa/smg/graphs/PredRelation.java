@@ -23,116 +23,170 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGExplicitValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownAddressValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
 import org.sosy_lab.cpachecker.util.Pair;
 
-public class PredRelation {
-  /** The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as pair (V,K). */
-  private final SetMultimap<Pair<SMGValue, SMGValue>, SymbolicRelation> smgValuesRelation =
-      HashMultimap.create();
-
-  private final SetMultimap<SMGValue, SMGValue> smgValuesDependency = HashMultimap.create();
-  private final SetMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation =
-      HashMultimap.create();
-  private final Map<SMGValue, Integer> smgValueSizeInBits = new HashMap<>();
-
-  /** Copy PredRelation */
-  public void putAll(PredRelation pPred) {
-    smgValuesRelation.putAll(pPred.smgValuesRelation);
-    smgValuesDependency.putAll(pPred.smgValuesDependency);
-    smgExplicitValueRelation.putAll(pPred.smgExplicitValueRelation);
-    smgValueSizeInBits.putAll(pPred.smgValueSizeInBits);
+/**
+ * This class tracks predicates over SMGValues. Implemented as an immutable structure, such that
+ * copies of an SMG share their relations.
+ */
+public final class PredRelation {
+
+  private static final PredRelation EMPTY =
+      new PredRelation(
+          PersistentMultimap.of(),
+          PersistentMultimap.of(),
+          PersistentMultimap.of(),
+          PathCopyingPersistentTreeMap.of());
+
+  /** Each relation between (K,V) is stored for K and also for V. */
+  private final PersistentMultimap<SMGValue, SymbolicRelation> smgValuesRelation;
+
+  private final PersistentMultimap<SMGValue, SMGValue> smgValuesDependency;
+  private final PersistentMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation;
+  private final PersistentMap<SMGValue, Integer> smgValueSizeInBits;
+
+  private PredRelation(
+      PersistentMultimap<SMGValue, SymbolicRelation> pValuesRelation,
+      PersistentMultimap<SMGValue, SMGValue> pValuesDependency,
+      PersistentMultimap<SMGValue, ExplicitRelation> pExplicitValueRelation,
+      PersistentMap<SMGValue, Integer> pValueSizeInBits) {
+    smgValuesRelation = pValuesRelation;
+    smgValuesDependency = pValuesDependency;
+    smgExplicitValueRelation = pExplicitValueRelation;
+    smgValueSizeInBits = pValueSizeInBits;
+  }
+
+  public static PredRelation of() {
+    return EMPTY;
   }
 
-  public void addRelation(SMGSymbolicValue pOne, int pCType1,
-                          SMGSymbolicValue pTwo, int pCType2,
-                          BinaryOperator pOperator) {
+  public PredRelation addRelationAndCopy(
+      SMGSymbolicValue pOne, int pCType1, SMGSymbolicValue pTwo, int pCType2,
+      BinaryOperator pOperator) {
     // TODO: track address values
     if (!pOne.isUnknown()
         && !pTwo.isUnknown()
         && !(pOne instanceof SMGKnownAddressValue)
         && !(pTwo instanceof SMGKnownAddressValue)) {
-      addRelation(pOne, pTwo, pOperator);
-      addValueSize(pOne, pCType1);
-      addValueSize(pTwo, pCType2);
+      return addRelationAndCopy(pOne, pTwo, pOperator)
+          .addValueSizeAndCopy(pOne, pCType1)
+          .addValueSizeAndCopy(pTwo, pCType2);
     }
+    return this;
   }
 
-  private void addValueSize(SMGValue pValue, Integer pCType2) {
-    if (!smgValueSizeInBits.containsKey(pValue)) {
-      smgValueSizeInBits.put(pValue, pCType2);
+  private PredRelation addValueSizeAndCopy(SMGValue pValue, Integer pCType2) {
+    if (smgValueSizeInBits.containsKey(pValue)) {
+      return this;
     }
+    return new PredRelation(
+        smgValuesRelation,
+        smgValuesDependency,
+        smgExplicitValueRelation,
+        smgValueSizeInBits.putAndCopy(pValue, pCType2));
   }
 
-  public void addRelation(SMGValue pOne, SMGValue pTwo, BinaryOperator pOperator) {
+  public PredRelation addRelationAndCopy(SMGValue pOne, SMGValue pTwo, BinaryOperator pOperator) {
     SymbolicRelation relation = new SymbolicRelation(pOne, pTwo, pOperator);
-    if (!smgValuesDependency.containsEntry(pOne, pTwo)) {
-      smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-      smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      smgValuesDependency.put(pOne, pTwo);
-      smgValuesDependency.put(pTwo, pOne);
-    } else {
-      if (!smgValuesRelation.containsEntry(Pair.of(pOne, pTwo), relation)) {
-        smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-        smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      }
+    if (smgValuesRelation.contains(pOne, relation)) {
+      return this;
     }
+    return new PredRelation(
+        smgValuesRelation.putAndCopy(pOne, relation).putAndCopy(pTwo, relation),
+        smgValuesDependency.putAndCopy(pOne, pTwo).putAndCopy(pTwo, pOne),
+        smgExplicitValueRelation,
+        smgValueSizeInBits);
   }
 
-  public void addExplicitRelation(SMGSymbolicValue pSymbolicValue, Integer pCType1,
-                                  SMGExplicitValue pExplicitValue, Integer pCType2,
-                                  BinaryOperator pOp) {
+  public PredRelation addExplicitRelationAndCopy(
+      SMGSymbolicValue pSymbolicValue, Integer pCType1,
+      SMGExplicitValue pExplicitValue, Integer pCType2,
+      BinaryOperator pOp) {
     assert(pCType1.equals(pCType2));
-    addExplicitRelation(pSymbolicValue, pExplicitValue, pOp);
-    addValueSize(pSymbolicValue, pCType1);
+    return addExplicitRelationAndCopy(pSymbolicValue, pExplicitValue, pOp)
+        .addValueSizeAndCopy(pSymbolicValue, pCType1);
   }
 
-  public void addExplicitRelation(
+  public PredRelation addExplicitRelationAndCopy(
       SMGValue pSymbolicValue, SMGExplicitValue pExplicitValue, BinaryOperator pOp) {
     ExplicitRelation relation = new ExplicitRelation(pSymbolicValue, pExplicitValue, pOp);
-    if (!smgExplicitValueRelation.containsEntry(pSymbolicValue, relation)) {
-      smgExplicitValueRelation.put(pSymbolicValue, relation);
+    if (smgExplicitValueRelation.contains(pSymbolicValue, relation)) {
+      return this;
     }
+    return new PredRelation(
+        smgValuesRelation,
+        smgValuesDependency,
+        smgExplicitValueRelation.putAndCopy(pSymbolicValue, relation),
+        smgValueSizeInBits);
   }
 
-  public void removeValue(SMGValue pValue) {
-    for (SMGValue pOposit : smgValuesDependency.removeAll(pValue)) {
-
-      smgValuesDependency.remove(pOposit, pValue);
-
-      smgValuesRelation.removeAll(Pair.of(pOposit, pValue));
-      smgValuesRelation.removeAll(Pair.of(pValue, pOposit));
+  /** Remove all symbolic relations and dependencies of the value. */
+  private PredRelation removeSymbolicRelationsAndCopy(SMGValue pValue) {
+    if (smgValuesDependency.get(pValue).isEmpty()) {
+      return this;
+    }
+    PersistentMultimap<SMGValue, SymbolicRelation> newRelation =
+        smgValuesRelation.removeAndCopy(pValue);
+    PersistentMultimap<SMGValue, SMGValue> newDependency =
+        smgValuesDependency.removeAndCopy(pValue);
+    for (SMGValue pOposit : smgValuesDependency.get(pValue)) {
+      newDependency = newDependency.removeAndCopy(pOposit, pValue);
+      for (SymbolicRelation relation : smgValuesRelation.get(pOposit)) {
+        if (relation.involves(pValue)) {
+          newRelation = newRelation.removeAndCopy(pOposit, relation);
+        }
+      }
     }
-    smgExplicitValueRelation.removeAll(pValue);
-    smgValueSizeInBits.remove(pValue);
+    return new PredRelation(
+        newRelation, newDependency, smgExplicitValueRelation, smgValueSizeInBits);
+  }
+
+  public PredRelation removeValueAndCopy(SMGValue pValue) {
+    PredRelation result = removeSymbolicRelationsAndCopy(pValue);
+    return new PredRelation(
+        result.smgValuesRelation,
+        result.smgValuesDependency,
+        result.smgExplicitValueRelation.removeAndCopy(pValue),
+        result.smgValueSizeInBits.removeAndCopy(pValue));
   }
 
   /** replace the old value with a fresh value. */
-  public void replace(SMGValue fresh, SMGValue old) {
-    for (SMGValue relatedValue : smgValuesDependency.removeAll(old)) {
-      smgValuesDependency.remove(relatedValue, old);
-      smgValuesRelation.removeAll(Pair.of(old, relatedValue));
-        //TODO: modify predicates on merge values
-      smgValuesRelation.removeAll(Pair.of(relatedValue, old));
-    }
-    for (ExplicitRelation explicitRelation: smgExplicitValueRelation.removeAll(old)) {
-      addExplicitRelation(fresh, explicitRelation.explicitValue, explicitRelation.getOperator());
-      addValueSize(fresh, getSymbolicSize(old));
-    }
-    smgValueSizeInBits.remove(old);
+  public PredRelation replaceValueAndCopy(SMGValue fresh, SMGValue old) {
+    //TODO: modify predicates on merge values
+    PredRelation result = removeSymbolicRelationsAndCopy(old);
+    result =
+        new PredRelation(
+            result.smgValuesRelation,
+            result.smgValuesDependency,
+            result.smgExplicitValueRelation.removeAndCopy(old),
+            result.smgValueSizeInBits);
+    for (ExplicitRelation explicitRelation : smgExplicitValueRelation.get(old)) {
+      result =
+          result
+              .addExplicitRelationAndCopy(
+                  fresh, explicitRelation.explicitValue, explicitRelation.getOperator())
+              .addValueSizeAndCopy(fresh, getSymbolicSize(old));
+    }
+    return new PredRelation(
+        result.smgValuesRelation,
+        result.smgValuesDependency,
+        result.smgExplicitValueRelation,
+        result.smgValueSizeInBits.removeAndCopy(old));
   }
 
   public Integer getSymbolicSize(SMGValue pSymbolic) {
@@ -142,12 +196,13 @@ public class PredRelation {
   /** Returns closure list of symbolic values which affects pRelation */
   public Set<SMGValue> closureDependencyFor(PredRelation pRelation) {
     Set<SMGValue> toAdd = new HashSet<>();
-    for (Entry<SMGValue, SMGValue> entry : pRelation.smgValuesDependency.entries()) {
+    for (Entry<SMGValue, ImmutableSet<SMGValue>> entry : pRelation.smgValuesDependency.entries()) {
       SMGValue key = entry.getKey();
-      SMGValue value = entry.getValue();
-      if (key.compareTo(value) > 0) {
-        toAdd.add(key);
-        toAdd.add(value);
+      for (SMGValue value : entry.getValue()) {
+        if (key.compareTo(value) > 0) {
+          toAdd.add(key);
+          toAdd.add(value);
+        }
       }
     }
     Set<SMGValue> result = new HashSet<>();
@@ -164,7 +219,7 @@ public class PredRelation {
   }
 
   public boolean isEmpty() {
-    return smgExplicitValueRelation.isEmpty() && smgValuesRelation.isEmpty();
+    return smgExplicitValueRelation.size() == 0 && smgValuesRelation.size() == 0;
   }
 
   @Override
@@ -195,27 +250,60 @@ public class PredRelation {
     return smgExplicitValueRelation.values();
   }
 
+  /**
+   * Returns all symbolic relations, indexed by the pair of values they relate. Each relation is
+   * contained for both orders of its values.
+   */
   public Set<Entry<Pair<SMGValue, SMGValue>, SymbolicRelation>> getValuesRelations() {
-    return smgValuesRelation.entries();
+    ImmutableSet.Builder<Entry<Pair<SMGValue, SMGValue>, SymbolicRelation>> result =
+        ImmutableSet.builder();
+    for (Entry<SMGValue, ImmutableSet<SymbolicRelation>> entry : smgValuesRelation.entries()) {
+      SMGValue key = entry.getKey();
+      for (SymbolicRelation relation : entry.getValue()) {
+        result.add(Maps.immutableEntry(Pair.of(key, relation.getOtherValue(key)), relation));
+      }
+    }
+    return result.build();
+  }
+
+  private static <K, V> int entryCount(PersistentMultimap<K, V> pMultimap) {
+    int count = 0;
+    for (Entry<K, ImmutableSet<V>> entry : pMultimap.entries()) {
+      count += entry.getValue().size();
+    }
+    return count;
+  }
+
+  private static <K, V> boolean containsAllEntries(
+      PersistentMultimap<K, V> pContainer, PersistentMultimap<K, V> pContained) {
+    for (Entry<K, ImmutableSet<V>> entry : pContained.entries()) {
+      if (!pContainer.get(entry.getKey()).containsAll(entry.getValue())) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public boolean isLessOrEqual(PredRelation pPathPredicateRelation) {
-    if (smgValuesDependency.size() > pPathPredicateRelation.smgValuesDependency.size()) {
+    int otherDependencies = entryCount(pPathPredicateRelation.smgValuesDependency);
+    if (entryCount(smgValuesDependency) > otherDependencies) {
       return false;
     }
-    if (smgExplicitValueRelation.size() > pPathPredicateRelation.smgExplicitValueRelation.size()) {
+    if (entryCount(smgExplicitValueRelation)
+        > entryCount(pPathPredicateRelation.smgExplicitValueRelation)) {
       return false;
     }
-    if (smgValuesRelation.size() > pPathPredicateRelation.smgValuesDependency.size()) {
+    if (entryCount(smgValuesRelation) > otherDependencies) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesDependency.entries().containsAll(smgValuesDependency.entries())) {
+    if (!containsAllEntries(pPathPredicateRelation.smgValuesDependency, smgValuesDependency)) {
       return false;
     }
-    if (!pPathPredicateRelation.smgExplicitValueRelation.entries().containsAll(smgExplicitValueRelation.entries())) {
+    if (!containsAllEntries(
+        pPathPredicateRelation.smgExplicitValueRelation, smgExplicitValueRelation)) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesRelation.entries().containsAll(smgValuesRelation.entries())) {
+    if (!containsAllEntries(pPathPredicateRelation.smgValuesRelation, smgValuesRelation)) {
       return false;
     }
     return true;
@@ -223,8 +311,8 @@ public class PredRelation {
 
   static public class SymbolicRelation {
     final SMGValue valueOne;
-    SMGValue valueTwo;
-    BinaryOperator operator;
+    final SMGValue valueTwo;
+    final BinaryOperator operator;
 
     public SymbolicRelation(SMGValue pValueOne, SMGValue pValueTwo, BinaryOperator pOperator) {
       valueOne = pValueOne;
@@ -244,6 +332,15 @@ public class PredRelation {
       return valueTwo;
     }
 
+    boolean involves(SMGValue pValue) {
+      return valueOne.equals(pValue) || valueTwo.equals(pValue);
+    }
+
+    /** Returns the value related to the given one, which must be one of the relation's values. */
+    SMGValue getOtherValue(SMGValue pValue) {
+      return valueOne.equals(pValue) ? valueTwo : valueOne;
+    }
+
     @Override
     public boolean equals(Object pO) {
       if (this == pO) {
@@ -276,9 +373,9 @@ public class PredRelation {
 
 
   static public class ExplicitRelation {
-    SMGValue symbolicValue;
-    SMGExplicitValue explicitValue;
-    BinaryOperator operator;
+    final SMGValue symbolicValue;
+    final SMGExplicitValue explicitValue;
+    final BinaryOperator operator;
 
     public ExplicitRelation(
         SMGValue pSymbolicValue, SMGExplicitValue pExplicitValue, BinaryOperator pOperator) {
@@ -328,10 +425,4 @@ public class PredRelation {
           '}';
     }
   }
-
-  public void clear() {
-    smgExplicitValueRelation.clear();
-    smgValuesDependency.clear();
-    smgValuesRelation.clear();
-  }
 }
@@ -33,6 +33,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdge;
@@ -42,6 +43,8 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsToFilter;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGNullObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGExplicitValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
@@ -62,8 +65,8 @@ public class SMG implements UnmodifiableSMG {
   private PersistentSet<SMGObject> externalObjectAllocation;
   private NeqRelation neq = new NeqRelation();
 
-  private final PredRelation pathPredicate = new PredRelation();
-  private PredRelation errorPredicate = new PredRelation();
+  private PredRelation pathPredicate = PredRelation.of();
+  private PredRelation errorPredicate = PredRelation.of();
 
 
   private final MachineModel machine_model;
@@ -81,7 +84,7 @@ public class SMG implements UnmodifiableSMG {
   public SMG(final MachineModel pMachineModel) {
     objects = PersistentSet.of();
     values = PersistentSet.of();
-    hv_edges = new SMGHasValueEdgeSet();
+    hv_edges = new SMGHasValueEdgeSet(pMachineModel);
     pt_edges = new SMGPointsToMap();
     validObjects = PersistentSet.of();
     externalObjectAllocation = PersistentSet.of();
@@ -103,8 +106,8 @@ public class SMG implements UnmodifiableSMG {
     hv_edges = pHeap.hv_edges;
     pt_edges = pHeap.pt_edges;
     neq = pHeap.neq;
-    pathPredicate.putAll(pHeap.pathPredicate);
-    errorPredicate.putAll(pHeap.errorPredicate);
+    pathPredicate = pHeap.pathPredicate;
+    errorPredicate = pHeap.errorPredicate;
     validObjects = pHeap.validObjects;
     externalObjectAllocation = pHeap.externalObjectAllocation;
     objects = pHeap.objects;
@@ -167,8 +170,8 @@ public class SMG implements UnmodifiableSMG {
     Preconditions.checkArgument(!pValue.isZero(), "Can not remove NULL from SMG");
     values = values.removeAndCopy(pValue);
     neq = neq.removeValueAndCopy(pValue);
-    pathPredicate.removeValue(pValue);
-    errorPredicate.removeValue(pValue);
+    pathPredicate = pathPredicate.removeValueAndCopy(pValue);
+    errorPredicate = errorPredicate.removeValueAndCopy(pValue);
   }
   /**
    * Remove pObj from the SMG. This method does not remove
@@ -341,7 +344,25 @@ public class SMG implements UnmodifiableSMG {
   }
 
   public void resetErrorRelation() {
-    errorPredicate = new PredRelation();
+    errorPredicate = PredRelation.of();
+  }
+
+  /** Adds a relation between two symbolic values to the path predicate. */
+  public void addPathPredicateRelation(
+      SMGSymbolicValue pV1, int pCType1, SMGSymbolicValue pV2, int pCType2, BinaryOperator pOp) {
+    pathPredicate = pathPredicate.addRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
+  }
+
+  /** Adds a relation between a symbolic and an explicit value to the path predicate. */
+  public void addPathPredicateExplicitRelation(
+      SMGSymbolicValue pV1, int pCType1, SMGExplicitValue pV2, int pCType2, BinaryOperator pOp) {
+    pathPredicate = pathPredicate.addExplicitRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
+  }
+
+  /** Adds a relation between a symbolic and an explicit value to the error predicate. */
+  public void addErrorPredicateExplicitRelation(
+      SMGSymbolicValue pV1, int pCType1, SMGExplicitValue pV2, int pCType2, BinaryOperator pOp) {
+    errorPredicate = errorPredicate.addExplicitRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
   }
 
   /* ********************************************* */
@@ -388,6 +409,20 @@ public class SMG implements UnmodifiableSMG {
     return ImmutableSet.copyOf(pFilter.filter(hv_edges));
   }
 
+  /**
+   * Getter for the Has-Value edges of an object whose fields overlap a range of the object. This
+   * does not iterate over all edges of the object.
+   *
+   * @param pObject the object the edges belong to
+   * @param pStart the first offset of the range
+   * @param pEnd the offset after the last offset of the range
+   * @return A set of Has-Value edges of pObject overlapping the range
+   */
+  @Override
+  public Set<SMGEdgeHasValue> getOverlappingHVEdges(SMGObject pObject, long pStart, long pEnd) {
+    return hv_edges.getOverlappingEdges(pObject, pStart, pEnd);
+  }
+
   @Override
   public Set<SMGEdgePointsTo> getPtEdges(SMGEdgePointsToFilter pFilter) {
     return ImmutableSet.copyOf(pFilter.filter(pt_edges));
@@ -565,7 +600,7 @@ public class SMG implements UnmodifiableSMG {
     addValue(fresh);
 
     neq = neq.replaceValueAndCopy(fresh, old);
-    pathPredicate.replace(fresh, old);
+    pathPredicate = pathPredicate.replaceValueAndCopy(fresh, old);
 
     removeValue(old);
 
@@ -600,10 +635,10 @@ public class SMG implements UnmodifiableSMG {
 
   protected void clearValuesHvePte() {
     values = PersistentSet.of();
-    hv_edges = new SMGHasValueEdgeSet();
+    hv_edges = new SMGHasValueEdgeSet(machine_model);
     pt_edges = new SMGPointsToMap();
     neq = new NeqRelation();
-    pathPredicate.clear();
+    pathPredicate = PredRelation.of();
     initializeNullAddress();
   }
 
@@ -24,52 +24,120 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.common.collect.PersistentSortedMap;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
-import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
 
+/**
+ * Has-value edges indexed by their object and, within each object, sorted by their offset. This
+ * allows to find the edges at an offset and the edges overlapping a range of an object without
+ * iterating over all fields of the object.
+ */
 public class SMGHasValueEdgeSet implements SMGHasValueEdges {
 
-  private final PersistentMultimap<SMGObject, SMGEdgeHasValue> map;
+  private final PersistentMap<SMGObject, ObjectEdges> map;
+
+  private final MachineModel machineModel;
 
-  public SMGHasValueEdgeSet() {
-    map = PersistentMultimap.of();
+  public SMGHasValueEdgeSet(MachineModel pMachineModel) {
+    map = PathCopyingPersistentTreeMap.of();
+    machineModel = pMachineModel;
   }
 
-  private SMGHasValueEdgeSet(PersistentMultimap<SMGObject, SMGEdgeHasValue> pMap) {
+  private SMGHasValueEdgeSet(
+      PersistentMap<SMGObject, ObjectEdges> pMap, MachineModel pMachineModel) {
     map = pMap;
+    machineModel = pMachineModel;
   }
 
   @Override
   public SMGHasValueEdgeSet removeAllEdgesOfObjectAndCopy(SMGObject obj) {
-    return new SMGHasValueEdgeSet(map.removeAndCopy(obj));
+    return new SMGHasValueEdgeSet(map.removeAndCopy(obj), machineModel);
   }
 
   @Override
   public SMGHasValueEdgeSet addEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    return new SMGHasValueEdgeSet(map.putAndCopy(pEdge.getObject(), pEdge));
+    SMGObject object = pEdge.getObject();
+    ObjectEdges edges = map.get(object);
+    if (edges == null) {
+      edges = ObjectEdges.EMPTY;
+    }
+    ObjectEdges updated = edges.addEdge(pEdge, pEdge.getSizeInBits(machineModel));
+    if (edges == updated) {
+      return this;
+    } else {
+      return new SMGHasValueEdgeSet(map.putAndCopy(object, updated), machineModel);
+    }
   }
 
   @Override
   public SMGHasValueEdgeSet removeEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    PersistentMultimap<SMGObject, SMGEdgeHasValue> updated =
-        map.removeAndCopy(pEdge.getObject(), pEdge);
-    if (map == updated) {
+    SMGObject object = pEdge.getObject();
+    ObjectEdges edges = map.get(object);
+    if (edges == null) {
+      return this;
+    }
+    ObjectEdges updated = edges.removeEdge(pEdge);
+    if (edges == updated) {
       return this;
+    } else if (updated.isEmpty()) {
+      return new SMGHasValueEdgeSet(map.removeAndCopy(object), machineModel);
     } else {
-      return new SMGHasValueEdgeSet(updated);
+      return new SMGHasValueEdgeSet(map.putAndCopy(object, updated), machineModel);
     }
   }
 
   @Override
   public ImmutableSet<SMGEdgeHasValue> getHvEdges() {
-    return map.values();
+    ImmutableSet.Builder<SMGEdgeHasValue> result = ImmutableSet.builder();
+    for (ObjectEdges edges : map.values()) {
+      result.addAll(edges.all());
+    }
+    return result.build();
   }
 
   @Override
   public @Nullable ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject) {
-    return map.get(pObject);
+    ObjectEdges edges = map.get(pObject);
+    return edges == null ? ImmutableSet.of() : edges.all();
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset) {
+    ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet<SMGEdgeHasValue> result = edges.edgesByOffset.get(pOffset);
+    return result == null ? ImmutableSet.of() : result;
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getOverlappingEdges(
+      SMGObject pObject, long pStart, long pEnd) {
+    ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    // an overlapping edge starts at most maxSizeInBits before the range,
+    // and an edge starting exactly at the range always overlaps it
+    long from = pStart - edges.maxSizeInBits;
+    long to = Math.max(pStart + 1, pEnd);
+    ImmutableSet.Builder<SMGEdgeHasValue> result = ImmutableSet.builder();
+    for (ImmutableSet<SMGEdgeHasValue> edgesAtOffset :
+        edges.edgesByOffset.subMap(from, to).values()) {
+      for (SMGEdgeHasValue edge : edgesAtOffset) {
+        if (edge.overlapsWith(pStart, pEnd, machineModel)) {
+          result.add(edge);
+        }
+      }
+    }
+    return result.build();
   }
 
   @Override
@@ -90,4 +158,87 @@ public class SMGHasValueEdgeSet implements SMGHasValueEdges {
   public String toString() {
     return map.toString();
   }
-}
\ No newline at end of file
+
+  /** The edges of a single object, sorted by their offset. */
+  private static final class ObjectEdges {
+
+    private static final ObjectEdges EMPTY = new ObjectEdges(PathCopyingPersistentTreeMap.of(), 0);
+
+    private final PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> edgesByOffset;
+
+    /**
+     * An upper bound for the size of all edges. It is not decreased when edges are removed, which
+     * only makes searching for overlapping edges slightly less precise.
+     */
+    private final long maxSizeInBits;
+
+    /** All edges of the object, computed lazily. Races only lead to redundant computations. */
+    private @Nullable ImmutableSet<SMGEdgeHasValue> allEdges = null;
+
+    private ObjectEdges(
+        PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> pEdgesByOffset,
+        long pMaxSizeInBits) {
+      edgesByOffset = pEdgesByOffset;
+      maxSizeInBits = pMaxSizeInBits;
+    }
+
+    private ObjectEdges addEdge(SMGEdgeHasValue pEdge, long pSizeInBits) {
+      long offset = pEdge.getOffset();
+      ImmutableSet<SMGEdgeHasValue> old = edgesByOffset.get(offset);
+      ImmutableSet<SMGEdgeHasValue> fresh;
+      if (old == null) {
+        fresh = ImmutableSet.of(pEdge);
+      } else if (old.contains(pEdge)) {
+        return this;
+      } else {
+        fresh = ImmutableSet.<SMGEdgeHasValue>builder().addAll(old).add(pEdge).build();
+      }
+      return new ObjectEdges(
+          edgesByOffset.putAndCopy(offset, fresh), Math.max(maxSizeInBits, pSizeInBits));
+    }
+
+    private ObjectEdges removeEdge(SMGEdgeHasValue pEdge) {
+      long offset = pEdge.getOffset();
+      ImmutableSet<SMGEdgeHasValue> old = edgesByOffset.get(offset);
+      if (old == null || !old.contains(pEdge)) {
+        return this;
+      }
+      ImmutableSet<SMGEdgeHasValue> fresh =
+          ImmutableSet.copyOf(Iterables.filter(old, e -> !e.equals(pEdge)));
+      if (fresh.isEmpty()) {
+        return new ObjectEdges(edgesByOffset.removeAndCopy(offset), maxSizeInBits);
+      } else {
+        return new ObjectEdges(edgesByOffset.putAndCopy(offset, fresh), maxSizeInBits);
+      }
+    }
+
+    private boolean isEmpty() {
+      return edgesByOffset.isEmpty();
+    }
+
+    private ImmutableSet<SMGEdgeHasValue> all() {
+      ImmutableSet<SMGEdgeHasValue> result = allEdges;
+      if (result == null) {
+        result = ImmutableSet.copyOf(Iterables.concat(edgesByOffset.values()));
+        allEdges = result;
+      }
+      return result;
+    }
+
+    @Override
+    public int hashCode() {
+      return edgesByOffset.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof ObjectEdges
+          && edgesByOffset.equals(((ObjectEdges) pObj).edgesByOffset);
+    }
+
+    @Override
+    public String toString() {
+      return all().toString();
+    }
+  }
+}
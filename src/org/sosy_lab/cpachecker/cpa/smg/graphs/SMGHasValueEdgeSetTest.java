@@ -0,0 +1,114 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.graphs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
+
+public class SMGHasValueEdgeSetTest {
+
+  private static final MachineModel MODEL = MachineModel.LINUX64;
+
+  private final SMGObject obj1 = new SMGRegion(256, "object-1");
+  private final SMGObject obj2 = new SMGRegion(256, "object-2");
+
+  private ImmutableList<SMGEdgeHasValue> edges;
+  private SMGHasValueEdges edgeSet;
+
+  @Before
+  public void setUp() {
+    edges =
+        ImmutableList.of(
+            new SMGEdgeHasValue(256, 0, obj1, SMGZeroValue.INSTANCE),
+            new SMGEdgeHasValue(32, 0, obj1, SMGKnownSymValue.of()),
+            new SMGEdgeHasValue(64, 32, obj1, SMGKnownSymValue.of()),
+            new SMGEdgeHasValue(8, 128, obj1, SMGKnownSymValue.of()),
+            new SMGEdgeHasValue(8, 136, obj1, SMGKnownSymValue.of()),
+            new SMGEdgeHasValue(64, 192, obj1, SMGKnownSymValue.of()),
+            new SMGEdgeHasValue(64, 64, obj2, SMGKnownSymValue.of()));
+    edgeSet = new SMGHasValueEdgeSet(MODEL);
+    for (SMGEdgeHasValue edge : edges) {
+      edgeSet = edgeSet.addEdgeAndCopy(edge);
+    }
+  }
+
+  @Test
+  public void overlappingEdgesAreExactlyThoseOverlappingTheRange() {
+    for (long start = 0; start <= 264; start += 8) {
+      for (long end = start; end <= 264; end += 8) {
+        ImmutableSet.Builder<SMGEdgeHasValue> expected = ImmutableSet.builder();
+        for (SMGEdgeHasValue edge : edges) {
+          if (edge.getObject() == obj1 && edge.overlapsWith(start, end, MODEL)) {
+            expected.add(edge);
+          }
+        }
+        assertWithMessage("edges overlapping [%s, %s)", start, end)
+            .that(edgeSet.getOverlappingEdges(obj1, start, end))
+            .containsExactlyElementsIn(expected.build());
+      }
+    }
+  }
+
+  @Test
+  public void edgesAtOffset() {
+    assertThat(edgeSet.getEdgesForObjectAtOffset(obj1, 0))
+        .containsExactly(edges.get(0), edges.get(1));
+    assertThat(edgeSet.getEdgesForObjectAtOffset(obj1, 64)).isEmpty();
+    assertThat(edgeSet.getEdgesForObjectAtOffset(obj2, 64)).containsExactly(edges.get(6));
+  }
+
+  @Test
+  public void removedEdgesAreNotFound() {
+    SMGHasValueEdges removed = edgeSet.removeEdgeAndCopy(edges.get(0));
+    assertThat(removed.getOverlappingEdges(obj1, 96, 128)).isEmpty();
+    assertThat(removed.getEdgesForObject(obj1)).doesNotContain(edges.get(0));
+    assertThat(edgeSet.getOverlappingEdges(obj1, 96, 128)).containsExactly(edges.get(0));
+
+    removed = removed.removeAllEdgesOfObjectAndCopy(obj1);
+    assertThat(removed.getEdgesForObject(obj1)).isEmpty();
+    assertThat(removed.getHvEdges()).containsExactly(edges.get(6));
+  }
+
+  @Test
+  public void equalityIsIndependentOfInsertionOrder() {
+    SMGHasValueEdges reversed = new SMGHasValueEdgeSet(MODEL);
+    for (SMGEdgeHasValue edge : edges.reverse()) {
+      reversed = reversed.addEdgeAndCopy(edge);
+    }
+    assertThat(reversed).isEqualTo(edgeSet);
+    assertThat(reversed.hashCode()).isEqualTo(edgeSet.hashCode());
+    assertThat(edgeSet.addEdgeAndCopy(edges.get(3))).isEqualTo(edgeSet);
+  }
+}
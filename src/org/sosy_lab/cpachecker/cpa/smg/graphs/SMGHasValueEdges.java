@@ -45,4 +45,14 @@ public interface SMGHasValueEdges {
 
   @Nullable
   ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject);
+
+  /** Returns the edges of the object that start at the given offset. */
+  ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset);
+
+  /**
+   * Returns the edges of the object whose field overlaps the range from pStart (inclusive) to pEnd
+   * (exclusive), as defined by {@link SMGEdgeHasValue#overlapsWith(long, long,
+   * org.sosy_lab.cpachecker.cfa.types.MachineModel)}.
+   */
+  ImmutableSet<SMGEdgeHasValue> getOverlappingEdges(SMGObject pObject, long pStart, long pEnd);
 }
\ No newline at end of file
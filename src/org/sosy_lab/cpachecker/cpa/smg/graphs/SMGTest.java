@@ -32,6 +32,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cpa.smg.TypeUtils;
@@ -42,6 +43,7 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownExpValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
 
@@ -213,6 +215,35 @@ public class SMGTest {
     assertThat(smg1.getPTEdges()).doesNotContain(pt);
   }
 
+  @Test
+  public void predicateRelationsOfCopyAreIndependent() {
+    SMGKnownSymbolicValue sym1 = SMGKnownSymValue.valueOf(11);
+    SMGKnownSymbolicValue sym2 = SMGKnownSymValue.valueOf(12);
+    smg.addValue(sym1);
+    smg.addValue(sym2);
+    smg.addPathPredicateRelation(sym1, 32, sym2, 32, BinaryOperator.LESS_THAN);
+
+    SMG smg_copy = smg.copyOf();
+    assertThat(smg_copy.getPathPredicateRelation()).isSameAs(smg.getPathPredicateRelation());
+
+    smg_copy.addPathPredicateExplicitRelation(
+        sym1, 32, SMGKnownExpValue.valueOf(5), 32, BinaryOperator.EQUALS);
+    smg_copy.addErrorPredicateExplicitRelation(
+        sym2, 32, SMGKnownExpValue.valueOf(7), 32, BinaryOperator.GREATER_THAN);
+    assertThat(smg.getPathPredicateRelation().getExplicitRelations()).isEmpty();
+    assertThat(smg.getErrorPredicateRelation().isEmpty()).isTrue();
+    assertThat(smg_copy.getPathPredicateRelation().getExplicitRelations()).hasSize(1);
+    assertThat(smg_copy.getErrorPredicateRelation().isEmpty()).isFalse();
+    assertThat(smg.getPathPredicateRelation().isLessOrEqual(smg_copy.getPathPredicateRelation()))
+        .isTrue();
+
+    smg_copy.replaceValue(sym2, sym1);
+    assertThat(smg_copy.getPathPredicateRelation().getValuesRelations()).isEmpty();
+    assertThat(smg_copy.getPathPredicateRelation().getSymbolicSize(sym1)).isNull();
+    assertThat(smg.getPathPredicateRelation().getValuesRelations()).hasSize(2);
+    assertThat(smg.getPathPredicateRelation().getSymbolicSize(sym1)).isEqualTo(32);
+  }
+
   @Test
   public void validityTest() {
     Assert.assertFalse(smg.isObjectValid(SMGNullObject.INSTANCE));
@@ -61,6 +61,8 @@ public interface UnmodifiableSMG {
 
   Set<SMGEdgeHasValue> getHVEdges(SMGEdgeHasValueFilter pFilter);
 
+  Set<SMGEdgeHasValue> getOverlappingHVEdges(SMGObject pObject, long pStart, long pEnd);
+
   Set<SMGEdgePointsTo> getPtEdges(SMGEdgePointsToFilter pFilter);
 
   SMGPointsToEdges getPTEdges();
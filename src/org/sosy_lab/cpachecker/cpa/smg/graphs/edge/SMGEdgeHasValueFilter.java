@@ -98,7 +98,9 @@ public class SMGEdgeHasValueFilter {
 
   public Iterable<SMGEdgeHasValue> filter(SMGHasValueEdges pEdges) {
     Set<SMGEdgeHasValue> filtered;
-    if (object != null) {
+    if (object != null && offset != null) {
+      filtered = pEdges.getEdgesForObjectAtOffset(object, offset);
+    } else if (object != null) {
       filtered = pEdges.getEdgesForObject(object);
       if (filtered == null) {
         return ImmutableSet.of();
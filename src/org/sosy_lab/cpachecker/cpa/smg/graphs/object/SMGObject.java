@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs.object;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 
@@ -37,7 +38,8 @@ public abstract class SMGObject implements Comparable<SMGObject> {
   private final String label;
   private final int level;
   private final SMGObjectKind kind;
-  private static int count;
+  // objects are also created concurrently during the search for abstraction candidates
+  private static final AtomicInteger count = new AtomicInteger(0);
   private final int id;
 
   public SMGObjectKind getKind() {
@@ -100,8 +102,7 @@ public abstract class SMGObject implements Comparable<SMGObject> {
   }
 
   private static int getNewId() {
-    count++;
-    return count;
+    return count.incrementAndGet();
   }
 
   public int getId() {
@@ -140,7 +140,8 @@ public class SMGAttachRegionToListTest {
   }
 
   @Test
-  public void testAbstractionOfListWithPrependedRegion() throws SMGInconsistentException {
+  public void testAbstractionOfListWithPrependedRegion()
+      throws SMGInconsistentException, InterruptedException {
 
     SMGValue firstAddress = addressOfRegion;
     SMGValue secondAddress = addressOfList;
@@ -167,7 +168,8 @@ public class SMGAttachRegionToListTest {
   }
 
   @Test
-  public void testAbstractonOfListWithAppendedRegion() throws SMGInconsistentException {
+  public void testAbstractonOfListWithAppendedRegion()
+      throws SMGInconsistentException, InterruptedException {
 
     SMGValue firstAddress = addressOfList;
     SMGValue secondAddress = addressOfRegion;
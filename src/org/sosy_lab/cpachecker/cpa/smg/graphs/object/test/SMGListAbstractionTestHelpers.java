@@ -457,7 +457,7 @@ public final class SMGListAbstractionTestHelpers {
   }
 
   public static void executeHeapAbstractionWithConsistencyChecks(SMGState pState, CLangSMG pSmg)
-      throws SMGInconsistentException {
+      throws SMGInconsistentException, InterruptedException {
     SMGAbstractionManager manager =
         new SMGAbstractionManager(LogManager.createTestLogManager(), pSmg, pState);
     pState.performConsistencyCheck(SMGRuntimeCheck.FORCED);
@@ -118,7 +118,7 @@ public class SMGListsWithValuesTest {
   }
 
   @Test
-  public void testAbstractionOfLinkedLists() throws SMGInconsistentException {
+  public void testAbstractionOfLinkedLists() throws SMGInconsistentException, InterruptedException {
 
     SMGListAbstractionTestHelpers.executeHeapAbstractionWithConsistencyChecks(state, smg);
 
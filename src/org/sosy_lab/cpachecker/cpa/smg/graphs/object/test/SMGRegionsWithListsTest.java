@@ -121,7 +121,8 @@ public class SMGRegionsWithListsTest {
   }
 
   @Test
-  public void testAbstractionOfLinkedRegionsWithSublists() throws SMGInconsistentException {
+  public void testAbstractionOfLinkedRegionsWithSublists()
+      throws SMGInconsistentException, InterruptedException {
 
     SMGListAbstractionTestHelpers.executeHeapAbstractionWithConsistencyChecks(state, smg);
 
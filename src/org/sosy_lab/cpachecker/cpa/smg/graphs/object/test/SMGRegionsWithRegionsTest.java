@@ -135,7 +135,8 @@ public class SMGRegionsWithRegionsTest {
   }
 
   @Test
-  public void testAbstractionOfLinkedRegionsWithSubregions() throws SMGInconsistentException {
+  public void testAbstractionOfLinkedRegionsWithSubregions()
+      throws SMGInconsistentException, InterruptedException {
 
     SMGListAbstractionTestHelpers.executeHeapAbstractionWithConsistencyChecks(state, smg);
 
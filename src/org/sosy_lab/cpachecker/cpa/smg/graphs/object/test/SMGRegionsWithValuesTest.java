@@ -118,7 +118,8 @@ public class SMGRegionsWithValuesTest {
   }
 
   @Test
-  public void testAbstractionOfLinkedRegionsWithIntegerData() throws SMGInconsistentException {
+  public void testAbstractionOfLinkedRegionsWithIntegerData()
+      throws SMGInconsistentException, InterruptedException {
 
     SMGListAbstractionTestHelpers.executeHeapAbstractionWithConsistencyChecks(state, smg);
 
@@ -187,13 +187,13 @@ class SMGJoinFields {
     SMGEdgeHasValueFilter nonNullPtrInSmg1 =
         SMGEdgeHasValueFilter.objectFilter(pObj1).filterNotHavingValue(SMGZeroValue.INSTANCE);
 
+    TreeMap<Long, Integer> newNullEdgesOffsetToSize =
+        pSMG1.getNullEdgesMapOffsetToSizeForObject(pObj1);
+
     for (SMGEdgeHasValue edge : pSMG2.getHVEdges(nonNullPtrInSmg2)) {
       nonNullPtrInSmg1.filterAtOffset(edge.getOffset());
 
       if (pSMG1.getHVEdges(nonNullPtrInSmg1).isEmpty()) {
-        TreeMap <Long, Integer> newNullEdgesOffsetToSize =
-            pSMG1.getNullEdgesMapOffsetToSizeForObject(pObj1);
-
         long min = edge.getOffset();
         long max = edge.getOffset() + edge.getSizeInBits(pSMG1.getMachineModel());
 
@@ -66,6 +66,7 @@ import org.sosy_lab.cpachecker.cpa.smg.SMGPredicateManager;
 import org.sosy_lab.cpachecker.cpa.smg.SMGTransferRelationKind;
 import org.sosy_lab.cpachecker.cpa.smg.UnmodifiableSMGState;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.refinement.InterpolationTree;
 import org.sosy_lab.cpachecker.util.refinement.PathExtractor;
@@ -237,6 +238,7 @@ public class SMGRefiner implements Refiner {
     if (feasiblePath != null) {
       for (ARGPath others : pErrorPaths) {
         if (others != feasiblePath) {
+          removeFromJoinCache(others.getLastState());
           pReached.removeSubtree(others.getLastState());
         }
       }
@@ -347,10 +349,22 @@ public class SMGRefiner implements Refiner {
       shutdownNotifier.shutdownIfNecessary();
       List<Predicate<? super Precision>> precisionTypes =
           Lists.newArrayList(Predicates.instanceOf(SMGPrecision.class));
+      removeFromJoinCache(info.getKey());
       pReached.removeSubtree(info.getKey(), info.getValue(), precisionTypes);
     }
   }
 
+  /** Drop the cached merge and stop results for all states of a subtree that will be removed. */
+  private void removeFromJoinCache(ARGState pRoot) {
+    for (ARGState state : pRoot.getSubgraph()) {
+      UnmodifiableSMGState smgState =
+          AbstractStates.extractStateByType(state, UnmodifiableSMGState.class);
+      if (smgState != null) {
+        smgCpa.removeFromJoinCache(smgState);
+      }
+    }
+  }
+
   private SMGPrecision mergeSMGPrecisionsForSubgraph(
       final ARGState pRefinementRoot,
       final ARGReachedSet pReached
@@ -0,0 +1,430 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.types.Type;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Persistent map from memory locations to values of type long (and their types), which is used
+ * by {@link ValueAnalysisState} for numeric values if cpa.value.compactNumericValues is enabled.
+ *
+ * <p>Compared to a {@link org.sosy_lab.common.collect.PathCopyingPersistentTreeMap} with {@link
+ * ValueAndType} values, this map stores the values unboxed in its leaves and uses the integer ids
+ * of memory locations ({@link MemoryLocation#getId()}) as keys, such that an entry consists of a
+ * single object and lookups do not need to compare the names of memory locations.
+ *
+ * <p>The implementation is a big-endian Patricia trie (Okasaki and Gill, "Fast Mergeable Integer
+ * Maps", 1998). Its shape depends only on the set of keys, so equal maps can be compared
+ * structurally, and unchanged subtrees are shared between copies. Iteration is in the order of
+ * the ids. Instances are immutable. Because the ids are specific to a JVM, instances are
+ * serialized as a list of entries, from which the trie is rebuilt.
+ */
+final class PersistentNumericValueMap implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final PersistentNumericValueMap EMPTY = new PersistentNumericValueMap(null);
+
+  private final @Nullable Node root;
+
+  private PersistentNumericValueMap(@Nullable Node pRoot) {
+    root = pRoot;
+  }
+
+  static PersistentNumericValueMap of() {
+    return EMPTY;
+  }
+
+  private static PersistentNumericValueMap of(@Nullable Node pRoot) {
+    return pRoot == null ? EMPTY : new PersistentNumericValueMap(pRoot);
+  }
+
+  /** The entry of this map, which contains the memory location together with its value. */
+  static final class NumericEntry extends Node {
+
+    private final int id;
+    private final MemoryLocation location;
+    private final long value;
+    private final @Nullable Type type;
+
+    private NumericEntry(MemoryLocation pLocation, long pValue, @Nullable Type pType) {
+      super(1, pLocation.hashCode() ^ ValueAndType.hashCode(Long.hashCode(pValue), pType));
+      id = pLocation.getId();
+      location = pLocation;
+      value = pValue;
+      type = pType;
+    }
+
+    MemoryLocation getLocation() {
+      return location;
+    }
+
+    long getValue() {
+      return value;
+    }
+
+    @Nullable Type getType() {
+      return type;
+    }
+
+    ValueAndType toValueAndType() {
+      return new ValueAndType(new NumericValue(value), type);
+    }
+
+    boolean hasSameValue(NumericEntry pOther) {
+      return value == pOther.value && Objects.equals(type, pOther.type);
+    }
+  }
+
+  private static final class Branch extends Node {
+
+    /** The bits of all keys in this subtree that are above the branching bit. */
+    private final int prefix;
+
+    /** The highest bit in which the keys of the two subtrees differ. */
+    private final int branchingBit;
+
+    private final Node left;
+    private final Node right;
+
+    private Branch(int pPrefix, int pBranchingBit, Node pLeft, Node pRight) {
+      super(pLeft.size + pRight.size, pLeft.hashCode + pRight.hashCode);
+      prefix = pPrefix;
+      branchingBit = pBranchingBit;
+      left = pLeft;
+      right = pRight;
+    }
+
+    private boolean hasPrefixOf(int pKey) {
+      return mask(pKey, branchingBit) == prefix;
+    }
+  }
+
+  private abstract static class Node {
+
+    private final int size;
+
+    /** Sum of the hash codes of the entries, as defined by {@link java.util.Map#hashCode()}. */
+    private final int hashCode;
+
+    private Node(int pSize, int pHashCode) {
+      size = pSize;
+      hashCode = pHashCode;
+    }
+  }
+
+  private static int mask(int pKey, int pBranchingBit) {
+    return pKey & ~(pBranchingBit | (pBranchingBit - 1));
+  }
+
+  private static boolean isLeft(int pKey, int pBranchingBit) {
+    return (pKey & pBranchingBit) == 0;
+  }
+
+  private static @Nullable Node makeBranch(
+      int pPrefix, int pBranchingBit, @Nullable Node pLeft, @Nullable Node pRight) {
+    if (pLeft == null) {
+      return pRight;
+    } else if (pRight == null) {
+      return pLeft;
+    }
+    return new Branch(pPrefix, pBranchingBit, pLeft, pRight);
+  }
+
+  /** Combine two non-empty subtrees whose keys have different prefixes. */
+  private static Node join(int pPrefix1, Node pNode1, int pPrefix2, Node pNode2) {
+    int branchingBit = Integer.highestOneBit(pPrefix1 ^ pPrefix2);
+    int prefix = mask(pPrefix1, branchingBit);
+    return isLeft(pPrefix1, branchingBit)
+        ? new Branch(prefix, branchingBit, pNode1, pNode2)
+        : new Branch(prefix, branchingBit, pNode2, pNode1);
+  }
+
+  int size() {
+    return root == null ? 0 : root.size;
+  }
+
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  @Nullable NumericEntry get(MemoryLocation pLocation) {
+    int key = pLocation.getId();
+    Node node = root;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      node = isLeft(key, branch.branchingBit) ? branch.left : branch.right;
+    }
+    if (node != null && ((NumericEntry) node).id == key) {
+      return (NumericEntry) node;
+    }
+    return null;
+  }
+
+  boolean containsKey(MemoryLocation pLocation) {
+    return get(pLocation) != null;
+  }
+
+  PersistentNumericValueMap putAndCopy(
+      MemoryLocation pLocation, long pValue, @Nullable Type pType) {
+    NumericEntry entry = new NumericEntry(checkNotNull(pLocation), pValue, pType);
+    Node newRoot = root == null ? entry : put(root, entry);
+    return newRoot == root ? this : of(newRoot);
+  }
+
+  private static Node put(Node pNode, NumericEntry pEntry) {
+    if (pNode instanceof NumericEntry) {
+      NumericEntry oldEntry = (NumericEntry) pNode;
+      if (oldEntry.id == pEntry.id) {
+        return oldEntry.hasSameValue(pEntry) ? oldEntry : pEntry;
+      }
+      return join(pEntry.id, pEntry, oldEntry.id, oldEntry);
+    }
+
+    Branch branch = (Branch) pNode;
+    if (!branch.hasPrefixOf(pEntry.id)) {
+      return join(pEntry.id, pEntry, branch.prefix, branch);
+    }
+    if (isLeft(pEntry.id, branch.branchingBit)) {
+      Node newLeft = put(branch.left, pEntry);
+      return newLeft == branch.left
+          ? branch
+          : new Branch(branch.prefix, branch.branchingBit, newLeft, branch.right);
+    } else {
+      Node newRight = put(branch.right, pEntry);
+      return newRight == branch.right
+          ? branch
+          : new Branch(branch.prefix, branch.branchingBit, branch.left, newRight);
+    }
+  }
+
+  PersistentNumericValueMap removeAndCopy(MemoryLocation pLocation) {
+    if (root == null) {
+      return this;
+    }
+    Node newRoot = remove(root, pLocation.getId());
+    return newRoot == root ? this : of(newRoot);
+  }
+
+  private static @Nullable Node remove(Node pNode, int pKey) {
+    if (pNode instanceof NumericEntry) {
+      return ((NumericEntry) pNode).id == pKey ? null : pNode;
+    }
+
+    Branch branch = (Branch) pNode;
+    if (!branch.hasPrefixOf(pKey)) {
+      return branch;
+    }
+    if (isLeft(pKey, branch.branchingBit)) {
+      Node newLeft = remove(branch.left, pKey);
+      return newLeft == branch.left
+          ? branch
+          : makeBranch(branch.prefix, branch.branchingBit, newLeft, branch.right);
+    } else {
+      Node newRight = remove(branch.right, pKey);
+      return newRight == branch.right
+          ? branch
+          : makeBranch(branch.prefix, branch.branchingBit, branch.left, newRight);
+    }
+  }
+
+  /** Iterate over all entries in the order of the ids of their memory locations. */
+  Iterable<NumericEntry> entries() {
+    return () -> new EntryIterator(root);
+  }
+
+  /** An unmodifiable view of the memory locations in this map. */
+  Set<MemoryLocation> keySet() {
+    return new AbstractSet<MemoryLocation>() {
+
+      @Override
+      public Iterator<MemoryLocation> iterator() {
+        Iterator<NumericEntry> entries = new EntryIterator(root);
+        return new Iterator<MemoryLocation>() {
+
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public MemoryLocation next() {
+            return entries.next().location;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return PersistentNumericValueMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object pObject) {
+        return pObject instanceof MemoryLocation && containsKey((MemoryLocation) pObject);
+      }
+    };
+  }
+
+  private static final class EntryIterator implements Iterator<NumericEntry> {
+
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    private EntryIterator(@Nullable Node pRoot) {
+      if (pRoot != null) {
+        stack.push(pRoot);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !stack.isEmpty();
+    }
+
+    @Override
+    public NumericEntry next() {
+      if (stack.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Node node = stack.pop();
+      while (node instanceof Branch) {
+        stack.push(((Branch) node).right);
+        node = ((Branch) node).left;
+      }
+      return (NumericEntry) node;
+    }
+  }
+
+  @Override
+  public boolean equals(Object pOther) {
+    return pOther instanceof PersistentNumericValueMap
+        && equals(root, ((PersistentNumericValueMap) pOther).root);
+  }
+
+  private static boolean equals(@Nullable Node pNode1, @Nullable Node pNode2) {
+    if (pNode1 == pNode2) {
+      return true;
+    }
+    if (pNode1 == null
+        || pNode2 == null
+        || pNode1.size != pNode2.size
+        || pNode1.hashCode != pNode2.hashCode) {
+      return false;
+    }
+    // the shape of the trie depends only on the keys, so we can compare structurally
+    if (pNode1 instanceof NumericEntry) {
+      return pNode2 instanceof NumericEntry
+          && ((NumericEntry) pNode1).id == ((NumericEntry) pNode2).id
+          && ((NumericEntry) pNode1).hasSameValue((NumericEntry) pNode2);
+    }
+    if (!(pNode2 instanceof Branch)) {
+      return false;
+    }
+    Branch branch1 = (Branch) pNode1;
+    Branch branch2 = (Branch) pNode2;
+    return branch1.prefix == branch2.prefix
+        && branch1.branchingBit == branch2.branchingBit
+        && equals(branch1.left, branch2.left)
+        && equals(branch1.right, branch2.right);
+  }
+
+  /** The hash code is defined as for a {@link java.util.Map} with {@link ValueAndType} values. */
+  @Override
+  public int hashCode() {
+    return root == null ? 0 : root.hashCode;
+  }
+
+  private Object writeReplace() {
+    return new SerializationProxy(this);
+  }
+
+  /**
+   * javadoc to remove unused parameter warning
+   * @param in the input stream
+   */
+  @SuppressWarnings("unused")
+  private void readObject(ObjectInputStream in) throws IOException {
+    throw new InvalidObjectException("Proxy required");
+  }
+
+  /** Ids of memory locations are specific to a JVM, so we serialize the entries instead. */
+  private static class SerializationProxy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final MemoryLocation[] locations;
+    private final long[] values;
+    private final @Nullable Type[] types;
+
+    private SerializationProxy(PersistentNumericValueMap pMap) {
+      int size = pMap.size();
+      locations = new MemoryLocation[size];
+      values = new long[size];
+      types = new Type[size];
+      int i = 0;
+      for (NumericEntry entry : pMap.entries()) {
+        locations[i] = entry.location;
+        values[i] = entry.value;
+        types[i] = entry.type;
+        i++;
+      }
+    }
+
+    private Object readResolve() {
+      PersistentNumericValueMap result = of();
+      for (int i = 0; i < locations.length; i++) {
+        result = result.putAndCopy(locations[i], values[i], types[i]);
+      }
+      return result;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (NumericEntry entry : entries()) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(entry.location).append('=').append(entry.toValueAndType());
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.PersistentNumericValueMap.NumericEntry;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+public class PersistentNumericValueMapTest {
+
+  private static List<MemoryLocation> createLocations(int pCount) {
+    List<MemoryLocation> result = new ArrayList<>();
+    for (int i = 0; i < pCount; i++) {
+      result.add(MemoryLocation.valueOf("f", "var" + i));
+    }
+    return result;
+  }
+
+  @Test
+  public void putGetRemove() {
+    MemoryLocation x = MemoryLocation.valueOf("f", "x");
+    MemoryLocation y = MemoryLocation.valueOf("f", "y");
+    PersistentNumericValueMap empty = PersistentNumericValueMap.of();
+
+    PersistentNumericValueMap map = empty.putAndCopy(x, 1, CNumericTypes.INT);
+    map = map.putAndCopy(y, -5, CNumericTypes.LONG_INT);
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map.get(x).getValue()).isEqualTo(1L);
+    assertThat(map.get(y).getValue()).isEqualTo(-5L);
+    assertThat(map.get(y).getType()).isEqualTo(CNumericTypes.LONG_INT);
+    assertThat(map.keySet()).containsExactly(x, y);
+
+    // persistent: the old versions are not changed
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(map.putAndCopy(x, 1, CNumericTypes.INT)).isSameAs(map);
+    assertThat(map.putAndCopy(x, 2, CNumericTypes.INT).get(x).getValue()).isEqualTo(2L);
+    assertThat(map.get(x).getValue()).isEqualTo(1L);
+
+    PersistentNumericValueMap removed = map.removeAndCopy(x);
+    assertThat(removed.containsKey(x)).isFalse();
+    assertThat(removed.size()).isEqualTo(1);
+    assertThat(map.containsKey(x)).isTrue();
+    assertThat(removed.removeAndCopy(y)).isEqualTo(empty);
+  }
+
+  @Test
+  public void shapeIsIndependentOfInsertionOrder() {
+    List<MemoryLocation> locations = createLocations(200);
+    Random random = new Random(0);
+    Map<MemoryLocation, ValueAndType> expected = new HashMap<>();
+    PersistentNumericValueMap map1 = PersistentNumericValueMap.of();
+    for (MemoryLocation location : locations) {
+      long value = random.nextInt(10);
+      map1 = map1.putAndCopy(location, value, CNumericTypes.INT);
+      expected.put(location, new ValueAndType(new NumericValue(value), CNumericTypes.INT));
+    }
+
+    List<MemoryLocation> shuffled = new ArrayList<>(locations);
+    Collections.shuffle(shuffled, random);
+    PersistentNumericValueMap map2 = PersistentNumericValueMap.of();
+    for (MemoryLocation location : shuffled) {
+      map2 = map2.putAndCopy(location, map1.get(location).getValue(), CNumericTypes.INT);
+    }
+
+    assertThat(map2).isEqualTo(map1);
+    assertThat(map2.hashCode()).isEqualTo(map1.hashCode());
+    assertThat(map1.hashCode()).isEqualTo(expected.hashCode());
+
+    List<Integer> ids = new ArrayList<>();
+    for (NumericEntry entry : map1.entries()) {
+      ids.add(entry.getLocation().getId());
+      assertThat(entry.toValueAndType()).isEqualTo(expected.get(entry.getLocation()));
+    }
+    assertThat(ids).isInStrictOrder();
+    assertThat(ids).hasSize(locations.size());
+
+    MemoryLocation first = shuffled.get(0);
+    assertThat(map2.putAndCopy(first, 42, CNumericTypes.INT)).isNotEqualTo(map1);
+    assertThat(map2.putAndCopy(first, map1.get(first).getValue(), CNumericTypes.LONG_INT))
+        .isNotEqualTo(map1);
+
+    for (MemoryLocation location : shuffled) {
+      map2 = map2.removeAndCopy(location);
+    }
+    assertThat(map2.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void serialization() throws IOException, ClassNotFoundException {
+    PersistentNumericValueMap map = PersistentNumericValueMap.of();
+    for (MemoryLocation location : createLocations(20)) {
+      map = map.putAndCopy(location, location.getId() * 3L, CNumericTypes.INT);
+    }
+    map = map.putAndCopy(MemoryLocation.valueOf("f", "x"), Long.MIN_VALUE, null);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(map);
+    }
+    Object result;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      result = in.readObject();
+    }
+
+    assertThat(result).isEqualTo(map);
+    assertThat(result.hashCode()).isEqualTo(map.hashCode());
+    assertThat(((PersistentNumericValueMap) result).get(MemoryLocation.valueOf("f", "x")).getType())
+        .isNull();
+  }
+}
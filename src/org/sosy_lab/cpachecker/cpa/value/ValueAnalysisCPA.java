@@ -107,6 +107,14 @@ public class ValueAnalysisCPA extends AbstractCPA
           + " Otherwise, symbolic values will be created, but not evaluated.")
   private boolean useSymbolicValues = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Store values of type long in a compact map that is keyed by ids of memory locations"
+              + " instead of wrapping each value in its own objects."
+              + " This reduces the memory consumption of the abstract states.")
+  private boolean compactNumericValues = false;
+
   public static CPAFactory factory() {
     return AutomaticCPAFactory.forType(ValueAnalysisCPA.class);
   }
@@ -255,7 +263,7 @@ public class ValueAnalysisCPA extends AbstractCPA
 
   @Override
   public AbstractState getInitialState(CFANode pNode, StateSpacePartition pPartition) {
-    return new ValueAnalysisState(cfa.getMachineModel());
+    return new ValueAnalysisState(cfa.getMachineModel(), compactNumericValues);
   }
 
   @Override
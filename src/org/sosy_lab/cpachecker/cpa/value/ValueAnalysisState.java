@@ -28,11 +28,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -51,9 +57,11 @@ import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
+import org.sosy_lab.cpachecker.cpa.value.PersistentNumericValueMap.NumericEntry;
 import org.sosy_lab.cpachecker.cpa.value.refiner.ValueAnalysisInterpolant;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.type.ConstantSymbolicExpression;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicIdentifier;
@@ -77,7 +85,8 @@ import org.sosy_lab.java_smt.api.FormulaType.FloatingPointType;
 public class ValueAnalysisState
     implements AbstractQueryableState, FormulaReportingState,
         ForgetfulState<ValueAnalysisInformation>, Serializable, Graphable,
-        LatticeAbstractState<ValueAnalysisState>, PseudoPartitionable {
+        LatticeAbstractState<ValueAnalysisState>, PseudoPartitionable,
+        AbstractStateWithCoverageSignature {
 
   private static final long serialVersionUID = -3152134511524554358L;
 
@@ -92,29 +101,45 @@ public class ValueAnalysisState
    */
   private PersistentMap<MemoryLocation, ValueAndType> constantsMap;
 
+  /**
+   * the map that keeps the values of type long if compact numeric values are enabled (null
+   * otherwise), a memory location is never contained in both maps
+   */
+  private @Nullable PersistentNumericValueMap numericValues;
+
   private final @Nullable MachineModel machineModel;
 
+  /** cache for the coverage signature, only valid for the map it was computed for */
+  private transient @Nullable CoverageSignature coverageSignature = null;
+
   public ValueAnalysisState(MachineModel pMachineModel) {
+    this(pMachineModel, false);
+  }
+
+  ValueAnalysisState(MachineModel pMachineModel, boolean pCompactNumericValues) {
     this(
         checkNotNull(pMachineModel),
-        PathCopyingPersistentTreeMap.of());
+        PathCopyingPersistentTreeMap.of(),
+        pCompactNumericValues ? PersistentNumericValueMap.of() : null);
   }
 
   public ValueAnalysisState(
       Optional<MachineModel> pMachineModel,
       PersistentMap<MemoryLocation, ValueAndType> pConstantsMap) {
-    this(pMachineModel.orElse(null), pConstantsMap);
+    this(pMachineModel.orElse(null), pConstantsMap, null);
   }
 
   private ValueAnalysisState(
       @Nullable MachineModel pMachineModel,
-      PersistentMap<MemoryLocation, ValueAndType> pConstantsMap) {
+      PersistentMap<MemoryLocation, ValueAndType> pConstantsMap,
+      @Nullable PersistentNumericValueMap pNumericValues) {
     machineModel = pMachineModel;
     constantsMap = checkNotNull(pConstantsMap);
+    numericValues = pNumericValues;
   }
 
   public static ValueAnalysisState copyOf(ValueAnalysisState state) {
-    return new ValueAnalysisState(state.machineModel, state.constantsMap);
+    return new ValueAnalysisState(state.machineModel, state.constantsMap, state.numericValues);
   }
 
   /**
@@ -139,8 +164,20 @@ public class ValueAnalysisState
       valueToAdd = ((SymbolicValue) valueToAdd).copyForLocation(pMemLoc);
     }
 
-    constantsMap =
-        constantsMap.putAndCopy(pMemLoc, new ValueAndType(checkNotNull(valueToAdd), pType));
+    if (numericValues == null) {
+      constantsMap = constantsMap.putAndCopy(pMemLoc, new ValueAndType(valueToAdd, pType));
+
+    } else if (valueToAdd instanceof NumericValue
+        && ((NumericValue) valueToAdd).getNumber() instanceof Long) {
+      // only values of type Long, because NumericValue.equals() distinguishes the number types
+      numericValues =
+          numericValues.putAndCopy(pMemLoc, ((NumericValue) valueToAdd).longValue(), pType);
+      constantsMap = constantsMap.removeAndCopy(pMemLoc);
+
+    } else {
+      constantsMap = constantsMap.putAndCopy(pMemLoc, new ValueAndType(valueToAdd, pType));
+      numericValues = numericValues.removeAndCopy(pMemLoc);
+    }
   }
 
   /**
@@ -207,12 +244,15 @@ public class ValueAnalysisState
   @Override
   public ValueAnalysisInformation forget(MemoryLocation pMemoryLocation) {
 
-    if (!constantsMap.containsKey(pMemoryLocation)) {
+    ValueAndType value = getValueAndTypeOrNull(pMemoryLocation);
+    if (value == null) {
       return ValueAnalysisInformation.EMPTY;
     }
 
-    ValueAndType value = constantsMap.get(pMemoryLocation);
     constantsMap = constantsMap.removeAndCopy(pMemoryLocation);
+    if (numericValues != null) {
+      numericValues = numericValues.removeAndCopy(pMemoryLocation);
+    }
 
     PersistentMap<MemoryLocation, ValueAndType> valueAssignment = PathCopyingPersistentTreeMap.of();
     valueAssignment = valueAssignment.putAndCopy(pMemoryLocation, value);
@@ -234,7 +274,7 @@ public class ValueAnalysisState
   @Deprecated
   public void retainAll(Set<MemoryLocation> toRetain) {
     Set<MemoryLocation> toRemove = new HashSet<>();
-    for (MemoryLocation memoryLocation : constantsMap.keySet()) {
+    for (MemoryLocation memoryLocation : getTrackedMemoryLocations()) {
       if (!toRetain.contains(memoryLocation)) {
         toRemove.add(memoryLocation);
       }
@@ -251,7 +291,7 @@ public class ValueAnalysisState
    * @param functionName the name of the function that is about to be left
    */
   void dropFrame(String functionName) {
-    for (MemoryLocation variableName : constantsMap.keySet()) {
+    for (MemoryLocation variableName : getTrackedMemoryLocations()) {
       if (variableName.isOnFunctionStack(functionName)) {
         forget(variableName);
       }
@@ -289,7 +329,18 @@ public class ValueAnalysisState
    * @return the value and type associated with the given variable
    */
   public ValueAndType getValueAndTypeFor(MemoryLocation memLoc) {
-    return checkNotNull(constantsMap.get(memLoc));
+    return checkNotNull(getValueAndTypeOrNull(memLoc));
+  }
+
+  private @Nullable ValueAndType getValueAndTypeOrNull(MemoryLocation pMemLoc) {
+    ValueAndType result = constantsMap.get(pMemLoc);
+    if (result == null && numericValues != null) {
+      NumericEntry entry = numericValues.get(pMemLoc);
+      if (entry != null) {
+        result = entry.toValueAndType();
+      }
+    }
+    return result;
   }
 
   /**
@@ -299,7 +350,8 @@ public class ValueAnalysisState
    * @return true, if the variable is contained, else false
    */
   public boolean contains(MemoryLocation pMemoryLocation) {
-    return constantsMap.containsKey(pMemoryLocation);
+    return constantsMap.containsKey(pMemoryLocation)
+        || (numericValues != null && numericValues.containsKey(pMemoryLocation));
   }
 
   /**
@@ -309,7 +361,7 @@ public class ValueAnalysisState
    */
   @Override
   public int getSize() {
-    return constantsMap.size();
+    return constantsMap.size() + (numericValues == null ? 0 : numericValues.size());
   }
 
   /**
@@ -320,7 +372,7 @@ public class ValueAnalysisState
   int getNumberOfGlobalVariables() {
     int numberOfGlobalVariables = 0;
 
-    for (MemoryLocation variableName : constantsMap.keySet()) {
+    for (MemoryLocation variableName : getTrackedMemoryLocations()) {
       if (!variableName.isOnFunctionStack()) {
         numberOfGlobalVariables++;
       }
@@ -343,17 +395,48 @@ public class ValueAnalysisState
       MemoryLocation key = otherEntry.getKey();
       ValueAndType value = otherEntry.getValue();
 
-      if (Objects.equals(value, constantsMap.get(key))) {
+      if (Objects.equals(value, getValueAndTypeOrNull(key))) {
         newConstantsMap = newConstantsMap.putAndCopy(key, value);
       }
     }
 
+    PersistentNumericValueMap newNumericValues = reachedState.numericValues;
+    if (newNumericValues != null) {
+      for (NumericEntry otherEntry : reachedState.numericValues.entries()) {
+        if (!containsEntry(otherEntry, true)) {
+          newNumericValues = newNumericValues.removeAndCopy(otherEntry.getLocation());
+        }
+      }
+    }
+
     // return the reached state if both maps are equal
-    if (newConstantsMap.size() == reachedState.constantsMap.size()) {
+    if (newConstantsMap.size() == reachedState.constantsMap.size()
+        && newNumericValues == reachedState.numericValues) {
       return reachedState;
     } else {
-      return new ValueAnalysisState(machineModel, newConstantsMap);
+      return new ValueAnalysisState(machineModel, newConstantsMap, newNumericValues);
+    }
+  }
+
+  /**
+   * Check whether this state assigns the value of the given entry to its memory location.
+   *
+   * @param pEntry the entry to look for
+   * @param pCompareTypes whether the type also has to be equal
+   */
+  private boolean containsEntry(NumericEntry pEntry, boolean pCompareTypes) {
+    if (numericValues != null) {
+      NumericEntry entry = numericValues.get(pEntry.getLocation());
+      if (entry != null) {
+        return entry.getValue() == pEntry.getValue()
+            && (!pCompareTypes || Objects.equals(entry.getType(), pEntry.getType()));
+      }
     }
+    // values of type long are stored in constantsMap only if this state is not compact
+    ValueAndType valueAndType = constantsMap.get(pEntry.getLocation());
+    return valueAndType != null
+        && valueAndType.getValue().equals(new NumericValue(pEntry.getValue()))
+        && (!pCompareTypes || Objects.equals(valueAndType.getType(), pEntry.getType()));
   }
 
   /**
@@ -366,7 +449,7 @@ public class ValueAnalysisState
   public boolean isLessOrEqual(ValueAnalysisState other) {
 
     // also, this element is not less or equal than the other element, if it contains less elements
-    if (constantsMap.size() < other.constantsMap.size()) {
+    if (getSize() < other.getSize()) {
       return false;
     }
 
@@ -383,11 +466,18 @@ public class ValueAnalysisState
     for (Entry<MemoryLocation, ValueAndType> otherEntry : other.constantsMap.entrySet()) {
       MemoryLocation key = otherEntry.getKey();
       Value otherValue = otherEntry.getValue().getValue();
-      ValueAndType thisValueAndType = constantsMap.get(key);
+      ValueAndType thisValueAndType = getValueAndTypeOrNull(key);
       if (thisValueAndType == null || !otherValue.equals(thisValueAndType.getValue())) {
         return false;
       }
     }
+    if (other.numericValues != null) {
+      for (NumericEntry otherEntry : other.numericValues.entries()) {
+        if (!containsEntry(otherEntry, false)) {
+          return false;
+        }
+      }
+    }
 
     return true;
   }
@@ -407,19 +497,26 @@ public class ValueAnalysisState
     }
 
     ValueAnalysisState otherElement = (ValueAnalysisState) other;
-    return otherElement.constantsMap.equals(constantsMap);
+    if ((numericValues == null) == (otherElement.numericValues == null)) {
+      // both states use the same representation, which is unique for each assignment
+      return otherElement.constantsMap.equals(constantsMap)
+          && Objects.equals(otherElement.numericValues, numericValues);
+    }
+    return otherElement.getSize() == getSize()
+        && otherElement.getAllConstants().equals(getAllConstants());
   }
 
   @Override
   public int hashCode() {
-    return constantsMap.hashCode();
+    // consistent with the hash code of getAllConstants()
+    return constantsMap.hashCode() + (numericValues == null ? 0 : numericValues.hashCode());
   }
 
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
     sb.append("[");
-    for (Entry<MemoryLocation, ValueAndType> entry : constantsMap.entrySet()) {
+    for (Entry<MemoryLocation, ValueAndType> entry : getAllConstants().entrySet()) {
       MemoryLocation key = entry.getKey();
       sb.append(" <");
       sb.append(key.getAsSimpleString());
@@ -428,7 +525,7 @@ public class ValueAnalysisState
       sb.append(">\n");
     }
 
-    return sb.append("] size->  ").append(constantsMap.size()).toString();
+    return sb.append("] size->  ").append(getSize()).toString();
   }
 
   /**
@@ -441,7 +538,7 @@ public class ValueAnalysisState
     StringBuilder sb = new StringBuilder();
 
     sb.append("[");
-    Joiner.on(", ").withKeyValueSeparator("=").appendTo(sb, constantsMap);
+    Joiner.on(", ").withKeyValueSeparator("=").appendTo(sb, getAllConstants());
     sb.append("]");
 
     return sb.toString();
@@ -458,11 +555,11 @@ public class ValueAnalysisState
 
     if (pProperty.startsWith("contains(")) {
       String varName = pProperty.substring("contains(".length(), pProperty.length() - 1);
-      return this.constantsMap.containsKey(MemoryLocation.valueOf(varName));
+      return contains(MemoryLocation.valueOf(varName));
     } else {
       List<String> parts = Splitter.on("==").trimResults().splitToList(pProperty);
       if (parts.size() != 2) {
-        ValueAndType value = this.constantsMap.get(MemoryLocation.valueOf(pProperty));
+        ValueAndType value = getValueAndTypeOrNull(MemoryLocation.valueOf(pProperty));
         if (value != null && value.getValue().isExplicitlyKnown()) {
           return value.getValue();
         } else {
@@ -485,7 +582,7 @@ public class ValueAnalysisState
           + "\" is invalid. Could not split the property string correctly.");
     } else {
       // The following is a hack
-      ValueAndType val = this.constantsMap.get(MemoryLocation.valueOf(parts.get(0)));
+      ValueAndType val = getValueAndTypeOrNull(MemoryLocation.valueOf(parts.get(0)));
       if (val == null) {
         return false;
       }
@@ -584,7 +681,7 @@ public class ValueAnalysisState
     BitvectorFormulaManagerView bitvectorFMGR = manager.getBitvectorFormulaManager();
     FloatingPointFormulaManagerView floatFMGR = manager.getFloatingPointFormulaManager();
 
-    for (Entry<MemoryLocation, ValueAndType> entry : constantsMap.entrySet()) {
+    for (Entry<MemoryLocation, ValueAndType> entry : getAllConstants().entrySet()) {
       NumericValue num = entry.getValue().getValue().asNumericValue();
 
       if (num != null) {
@@ -645,7 +742,7 @@ public class ValueAnalysisState
   public Set<MemoryLocation> getDifference(ValueAnalysisState other) {
     Set<MemoryLocation> difference = new HashSet<>();
 
-    for (MemoryLocation variableName : other.constantsMap.keySet()) {
+    for (MemoryLocation variableName : other.getTrackedMemoryLocations()) {
       if (!contains(variableName)) {
         difference.add(variableName);
 
@@ -666,7 +763,7 @@ public class ValueAnalysisState
   public Set<String> getTrackedVariableNames() {
     Set<String> result = new HashSet<>();
 
-    for (MemoryLocation loc : constantsMap.keySet()) {
+    for (MemoryLocation loc : getTrackedMemoryLocations()) {
       result.add(loc.getAsSimpleString());
     }
 
@@ -676,12 +773,135 @@ public class ValueAnalysisState
 
   @Override
   public Set<MemoryLocation> getTrackedMemoryLocations() {
-    // no copy necessary, set is immutable
-    return constantsMap.keySet();
+    // no copy necessary, sets are immutable
+    if (numericValues == null) {
+      return constantsMap.keySet();
+    }
+    return Sets.union(constantsMap.keySet(), numericValues.keySet());
   }
 
   public Set<Entry<MemoryLocation, ValueAndType>> getConstants() {
-    return Collections.unmodifiableSet(constantsMap.entrySet());
+    return Collections.unmodifiableSet(getAllConstants().entrySet());
+  }
+
+  /**
+   * Return a map with the values of both maps of this state. This is an unmodifiable view of the
+   * current values, later changes of this state are not reflected.
+   */
+  private PersistentMap<MemoryLocation, ValueAndType> getAllConstants() {
+    if (numericValues == null || numericValues.isEmpty()) {
+      return constantsMap;
+    }
+    return new AllConstantsView(constantsMap, numericValues);
+  }
+
+  /**
+   * View of the two (disjoint) maps of a state as a single map. Read operations do not copy,
+   * only {@link #putAndCopy(MemoryLocation, ValueAndType)} and {@link #removeAndCopy(Object)}
+   * create a new map with all values. Iteration is not sorted.
+   */
+  private static final class AllConstantsView extends AbstractMap<MemoryLocation, ValueAndType>
+      implements PersistentMap<MemoryLocation, ValueAndType>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PersistentMap<MemoryLocation, ValueAndType> constants;
+    private final PersistentNumericValueMap numbers;
+
+    private AllConstantsView(
+        PersistentMap<MemoryLocation, ValueAndType> pConstants,
+        PersistentNumericValueMap pNumbers) {
+      constants = pConstants;
+      numbers = pNumbers;
+    }
+
+    @Override
+    public @Nullable ValueAndType get(Object pKey) {
+      if (!(pKey instanceof MemoryLocation)) {
+        return null;
+      }
+      ValueAndType result = constants.get(pKey);
+      if (result == null) {
+        NumericEntry entry = numbers.get((MemoryLocation) pKey);
+        return entry == null ? null : entry.toValueAndType();
+      }
+      return result;
+    }
+
+    @Override
+    public boolean containsKey(Object pKey) {
+      return pKey instanceof MemoryLocation
+          && (constants.containsKey(pKey) || numbers.containsKey((MemoryLocation) pKey));
+    }
+
+    @Override
+    public int size() {
+      return constants.size() + numbers.size();
+    }
+
+    @Override
+    public Set<Entry<MemoryLocation, ValueAndType>> entrySet() {
+      return new AbstractSet<Entry<MemoryLocation, ValueAndType>>() {
+
+        @Override
+        public Iterator<Entry<MemoryLocation, ValueAndType>> iterator() {
+          return Iterators.concat(
+              Iterators.unmodifiableIterator(constants.entrySet().iterator()),
+              Iterators.transform(
+                  numbers.entries().iterator(),
+                  entry -> Maps.immutableEntry(entry.getLocation(), entry.toValueAndType())));
+        }
+
+        @Override
+        public int size() {
+          return AllConstantsView.this.size();
+        }
+
+        @Override
+        public boolean contains(Object pObject) {
+          if (!(pObject instanceof Entry)) {
+            return false;
+          }
+          Entry<?, ?> entry = (Entry<?, ?>) pObject;
+          return entry.getValue() != null && entry.getValue().equals(get(entry.getKey()));
+        }
+      };
+    }
+
+    /** Consistent with {@link java.util.Map#hashCode()}, but without iterating. */
+    @Override
+    public int hashCode() {
+      return constants.hashCode() + numbers.hashCode();
+    }
+
+    private PersistentMap<MemoryLocation, ValueAndType> copy() {
+      PersistentMap<MemoryLocation, ValueAndType> result = constants;
+      for (NumericEntry entry : numbers.entries()) {
+        result = result.putAndCopy(entry.getLocation(), entry.toValueAndType());
+      }
+      return result;
+    }
+
+    @Override
+    public PersistentMap<MemoryLocation, ValueAndType> putAndCopy(
+        MemoryLocation pKey, ValueAndType pValue) {
+      return copy().putAndCopy(pKey, pValue);
+    }
+
+    @Override
+    public PersistentMap<MemoryLocation, ValueAndType> removeAndCopy(Object pKey) {
+      return containsKey(pKey) ? copy().removeAndCopy(pKey) : this;
+    }
+
+    @Override
+    public PersistentMap<MemoryLocation, ValueAndType> empty() {
+      return PathCopyingPersistentTreeMap.of();
+    }
+
+    /** The view might end up in a state (e.g., from an interpolant), so serialize it as a copy. */
+    private Object writeReplace() {
+      return copy();
+    }
   }
 
   /**
@@ -690,18 +910,18 @@ public class ValueAnalysisState
    * @return the value-analysis interpolant reflecting the value assignment of this state
    */
   public ValueAnalysisInterpolant createInterpolant() {
-    return new ValueAnalysisInterpolant(constantsMap);
+    return new ValueAnalysisInterpolant(getAllConstants());
   }
 
   public ValueAnalysisInformation getInformation() {
-    return new ValueAnalysisInformation(constantsMap);
+    return new ValueAnalysisInformation(getAllConstants());
   }
 
   @Deprecated
   public Set<MemoryLocation> getMemoryLocationsOnStack(String pFunctionName) {
     Set<MemoryLocation> result = new HashSet<>();
 
-    for (MemoryLocation memoryLocation : constantsMap.keySet()) {
+    for (MemoryLocation memoryLocation : getTrackedMemoryLocations()) {
       if (memoryLocation.isOnFunctionStack() && memoryLocation.getFunctionName().equals(pFunctionName)) {
         result.add(memoryLocation);
       }
@@ -715,7 +935,7 @@ public class ValueAnalysisState
   public Set<MemoryLocation> getGlobalMemoryLocations() {
     Set<MemoryLocation> result = new HashSet<>();
 
-    for (MemoryLocation memoryLocation : constantsMap.keySet()) {
+    for (MemoryLocation memoryLocation : getTrackedMemoryLocations()) {
       if (!memoryLocation.isOnFunctionStack()) {
         result.add(memoryLocation);
       }
@@ -727,9 +947,9 @@ public class ValueAnalysisState
 
   @Deprecated
   public void forgetValuesWithIdentifier(String pIdentifier) {
-    for (MemoryLocation memoryLocation : constantsMap.keySet()) {
+    for (MemoryLocation memoryLocation : getTrackedMemoryLocations()) {
       if (memoryLocation.getIdentifier().equals(pIdentifier)) {
-        constantsMap = constantsMap.removeAndCopy(memoryLocation);
+        forget(memoryLocation);
       }
     }
   }
@@ -784,6 +1004,53 @@ public class ValueAnalysisState
     return this;
   }
 
+  /**
+   * The signature contains one bit per assignment (variable and value), because this state is
+   * 'lessOrEqual' to another state only if it contains all assignments of the other state (the
+   * types are ignored, cf. {@link #isLessOrEqual(ValueAnalysisState)}).
+   */
+  @Override
+  public long getCoverageSignature() {
+    CoverageSignature signature = coverageSignature;
+    if (signature == null
+        || signature.constantsMap != constantsMap
+        || signature.numericValues != numericValues) {
+      // the maps are persistent, so we need to recompute the signature only if one was replaced
+      long bits = 0;
+      for (Entry<MemoryLocation, ValueAndType> entry : constantsMap.entrySet()) {
+        bits |=
+            AbstractStateWithCoverageSignature.bitForHashCode(
+                31 * entry.getKey().hashCode() + entry.getValue().getValue().hashCode());
+      }
+      if (numericValues != null) {
+        for (NumericEntry entry : numericValues.entries()) {
+          // same as for NumericValue.hashCode()
+          bits |=
+              AbstractStateWithCoverageSignature.bitForHashCode(
+                  31 * entry.getLocation().hashCode() + Long.hashCode(entry.getValue()));
+        }
+      }
+      signature = new CoverageSignature(constantsMap, numericValues, bits);
+      coverageSignature = signature;
+    }
+    return signature.bits;
+  }
+
+  private static final class CoverageSignature {
+    private final PersistentMap<MemoryLocation, ValueAndType> constantsMap;
+    private final @Nullable PersistentNumericValueMap numericValues;
+    private final long bits;
+
+    private CoverageSignature(
+        PersistentMap<MemoryLocation, ValueAndType> pConstantsMap,
+        @Nullable PersistentNumericValueMap pNumericValues,
+        long pBits) {
+      constantsMap = pConstantsMap;
+      numericValues = pNumericValues;
+      bits = pBits;
+    }
+  }
+
   public static class ValueAndType implements Serializable {
     private static final long serialVersionUID = 1L;
     private final Value value;
@@ -814,7 +1081,12 @@ public class ValueAnalysisState
 
     @Override
     public int hashCode() {
-      return Objects.hash(value, type);
+      return hashCode(value.hashCode(), type);
+    }
+
+    /** Same as {@link #hashCode()}, but computed from the hash code of the value. */
+    static int hashCode(int pValueHashCode, @Nullable Type pType) {
+      return 31 * (31 + pValueHashCode) + Objects.hashCode(pType);
     }
 
     @Override
@@ -0,0 +1,214 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSignature.mayBeLessOrEqual;
+
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+public class ValueAnalysisStateTest {
+
+  private static final MachineModel MACHINE_MODEL = MachineModel.LINUX32;
+
+  private static ValueAnalysisState createState(Random pRandom, int pVariables, int pValues) {
+    ValueAnalysisState state = new ValueAnalysisState(MACHINE_MODEL);
+    for (int i = 0; i < pVariables; i++) {
+      if (pRandom.nextBoolean()) {
+        state.assignConstant(
+            MemoryLocation.valueOf("main", "x" + i),
+            new NumericValue(pRandom.nextInt(pValues)),
+            CNumericTypes.INT);
+      }
+    }
+    return state;
+  }
+
+  @Test
+  public void coverageSignatureIsSound() {
+    Random random = new Random(0);
+    List<ValueAnalysisState> states = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      states.add(createState(random, 8, 2));
+    }
+
+    int covered = 0;
+    for (ValueAnalysisState state1 : states) {
+      for (ValueAnalysisState state2 : states) {
+        if (state1.isLessOrEqual(state2)) {
+          covered++;
+          assertThat(
+                  mayBeLessOrEqual(
+                      state1.getCoverageSignature(), state2.getCoverageSignature()))
+              .isTrue();
+        }
+      }
+    }
+    // check that the test is meaningful
+    assertThat(covered).isGreaterThan(states.size());
+  }
+
+  @Test
+  public void coverageSignatureIsUpdated() {
+    ValueAnalysisState state1 = new ValueAnalysisState(MACHINE_MODEL);
+    ValueAnalysisState state2 = new ValueAnalysisState(MACHINE_MODEL);
+    MemoryLocation x = MemoryLocation.valueOf("main", "x");
+    state2.assignConstant(x, new NumericValue(1), CNumericTypes.INT);
+    assertThat(mayBeLessOrEqual(state2.getCoverageSignature(), state1.getCoverageSignature()))
+        .isTrue();
+
+    // the signature of state1 was computed before and needs to change
+    state1.assignConstant(x, new NumericValue(1), CNumericTypes.INT);
+    assertThat(state1.isLessOrEqual(state2)).isTrue();
+    assertThat(mayBeLessOrEqual(state1.getCoverageSignature(), state2.getCoverageSignature()))
+        .isTrue();
+
+    state1.forget(x);
+    assertThat(state1.getCoverageSignature()).isEqualTo(0L);
+  }
+
+  @Test
+  public void compactStatesEqualNonCompactStates() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      ValueAnalysisState compact = new ValueAnalysisState(MACHINE_MODEL, true);
+      ValueAnalysisState nonCompact = new ValueAnalysisState(MACHINE_MODEL);
+      for (int j = 0; j < 8; j++) {
+        if (random.nextBoolean()) {
+          MemoryLocation loc = MemoryLocation.valueOf("main", "x" + j);
+          NumericValue value =
+              random.nextBoolean()
+                  ? new NumericValue((long) random.nextInt(3))
+                  : new NumericValue(random.nextDouble());
+          compact.assignConstant(loc, value, CNumericTypes.INT);
+          nonCompact.assignConstant(loc, value, CNumericTypes.INT);
+        }
+      }
+
+      assertThat(compact).isEqualTo(nonCompact);
+      assertThat(nonCompact).isEqualTo(compact);
+      assertThat(compact.hashCode()).isEqualTo(nonCompact.hashCode());
+      assertThat(compact.getCoverageSignature()).isEqualTo(nonCompact.getCoverageSignature());
+      assertThat(compact.getConstants()).containsExactlyElementsIn(nonCompact.getConstants());
+      assertThat(compact.getTrackedMemoryLocations())
+          .containsExactlyElementsIn(nonCompact.getTrackedMemoryLocations());
+    }
+  }
+
+  @Test
+  public void compactStatesJoinAndCompare() {
+    Random random = new Random(0);
+    List<ValueAnalysisState> compactStates = new ArrayList<>();
+    List<ValueAnalysisState> nonCompactStates = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      ValueAnalysisState compact = new ValueAnalysisState(MACHINE_MODEL, true);
+      ValueAnalysisState nonCompact = new ValueAnalysisState(MACHINE_MODEL);
+      for (int j = 0; j < 6; j++) {
+        if (random.nextBoolean()) {
+          MemoryLocation loc = MemoryLocation.valueOf("main", "x" + j);
+          NumericValue value = new NumericValue((long) random.nextInt(2));
+          compact.assignConstant(loc, value, CNumericTypes.INT);
+          nonCompact.assignConstant(loc, value, CNumericTypes.INT);
+        }
+      }
+      compactStates.add(compact);
+      nonCompactStates.add(nonCompact);
+    }
+
+    for (int i = 0; i < compactStates.size(); i++) {
+      for (int j = 0; j < compactStates.size(); j++) {
+        ValueAnalysisState compact1 = compactStates.get(i);
+        ValueAnalysisState compact2 = compactStates.get(j);
+        ValueAnalysisState nonCompact1 = nonCompactStates.get(i);
+        ValueAnalysisState nonCompact2 = nonCompactStates.get(j);
+        assertThat(compact1.isLessOrEqual(compact2))
+            .isEqualTo(nonCompact1.isLessOrEqual(nonCompact2));
+        assertThat(compact1.join(compact2)).isEqualTo(nonCompact1.join(nonCompact2));
+      }
+    }
+  }
+
+  @Test
+  public void compactStateStoresLocationOnce() {
+    ValueAnalysisState state = new ValueAnalysisState(MACHINE_MODEL, true);
+    MemoryLocation x = MemoryLocation.valueOf("main", "x");
+
+    state.assignConstant(x, new NumericValue(1L), CNumericTypes.INT);
+    assertThat(state.getValueFor(x)).isEqualTo(new NumericValue(1L));
+    assertThat(state.getSize()).isEqualTo(1);
+
+    state.assignConstant(x, new NumericValue(1.5), CNumericTypes.DOUBLE);
+    assertThat(state.getValueFor(x)).isEqualTo(new NumericValue(1.5));
+    assertThat(state.getTypeForMemoryLocation(x)).isEqualTo(CNumericTypes.DOUBLE);
+    assertThat(state.getSize()).isEqualTo(1);
+
+    state.assignConstant(x, new NumericValue(2L), CNumericTypes.INT);
+    assertThat(state.getValueFor(x)).isEqualTo(new NumericValue(2L));
+    assertThat(state.getSize()).isEqualTo(1);
+
+    state.forget(x);
+    assertThat(state.contains(x)).isFalse();
+    assertThat(state.getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void constantsOfCompactStateAreSnapshot() {
+    ValueAnalysisState state = new ValueAnalysisState(MACHINE_MODEL, true);
+    MemoryLocation x = MemoryLocation.valueOf("main", "x");
+    MemoryLocation y = MemoryLocation.valueOf("main", "y");
+    state.assignConstant(x, new NumericValue(1L), CNumericTypes.INT);
+    state.assignConstant(y, new NumericValue(1.5), CNumericTypes.DOUBLE);
+
+    Set<Entry<MemoryLocation, ValueAndType>> constants = state.getConstants();
+    assertThat(constants).hasSize(2);
+    // forgetting values while iterating over the constants is allowed
+    for (Entry<MemoryLocation, ValueAndType> entry : constants) {
+      state.forget(entry.getKey());
+    }
+    assertThat(state.getSize()).isEqualTo(0);
+    assertThat(constants)
+        .containsExactly(
+            Maps.immutableEntry(x, new ValueAndType(new NumericValue(1L), CNumericTypes.INT)),
+            Maps.immutableEntry(y, new ValueAndType(new NumericValue(1.5), CNumericTypes.DOUBLE)));
+
+    state.assignConstant(x, new NumericValue(2L), CNumericTypes.INT);
+    ValueAnalysisInformation information = state.getInformation();
+    assertThat(information.getAssignments())
+        .containsExactly(x, new ValueAndType(new NumericValue(2L), CNumericTypes.INT));
+    assertThat(information.getAssignments().removeAndCopy(x)).isEmpty();
+    ValueAndType yValue = new ValueAndType(new NumericValue(3.5), CNumericTypes.DOUBLE);
+    assertThat(information.getAssignments().putAndCopy(y, yValue)).hasSize(2);
+  }
+}
@@ -28,6 +28,7 @@ import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.CFAUtils.hasBackWardsEdges;
 import static org.sosy_lab.cpachecker.util.CFAUtils.leavingEdges;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
@@ -44,6 +45,7 @@ import java.util.Collection;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -52,8 +54,12 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.Language;
 import org.sosy_lab.cpachecker.cfa.MutableCFA;
@@ -487,6 +493,33 @@ public final class LoopStructure implements Serializable {
     return new LoopStructure(loops.build());
   }
 
+  /**
+   * Like {@link #getLoopStructure(MutableCFA)}, but searches the loops of the functions
+   * concurrently with the given executor. The functions are independent of each other, and the
+   * result is the same as with the sequential version.
+   */
+  public static LoopStructure getLoopStructure(MutableCFA cfa, ExecutorService pExecutor)
+      throws ParserException, InterruptedException {
+    Map<String, Future<Collection<Loop>>> functionLoops = new LinkedHashMap<>();
+    for (String functionName : cfa.getAllFunctionNames()) {
+      SortedSet<CFANode> nodes = cfa.getFunctionNodes(functionName);
+      functionLoops.put(
+          functionName, pExecutor.submit(() -> findLoops(nodes, cfa.getLanguage())));
+    }
+
+    // collect results in the order of the function names to keep the result deterministic
+    ImmutableMultimap.Builder<String, Loop> loops = ImmutableMultimap.builder();
+    for (Entry<String, Future<Collection<Loop>>> entry : functionLoops.entrySet()) {
+      try {
+        loops.putAll(entry.getKey(), entry.getValue().get());
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), ParserException.class);
+        throw new UnexpectedCheckedException("loop detection", e.getCause());
+      }
+    }
+    return new LoopStructure(loops.build());
+  }
+
   /**
    * Find all loops inside a given set of CFA nodes.
    * The nodes in the given set may not be connected
@@ -27,6 +27,8 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
@@ -34,6 +36,7 @@ import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.CharStreams;
 import com.google.common.io.MoreFiles;
+import com.google.common.xml.XmlEscapers;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -345,6 +348,41 @@ public class AutomatonGraphmlCommon {
     return BaseEncoding.base16().lowerCase().encode(hash.asBytes());
   }
 
+  private static ListMultimap<KeyDef, String> getGraphData(
+      WitnessType pGraphType, CFA pCfa, VerificationTaskMetaData pVerificationTaskMetaData)
+      throws IOException {
+    ListMultimap<KeyDef, String> result = LinkedListMultimap.create();
+    result.put(KeyDef.WITNESS_TYPE, pGraphType.toString());
+    result.put(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString());
+    result.put(KeyDef.PRODUCER, "CPAchecker " + CPAchecker.getCPAcheckerVersion());
+
+    for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
+      result.put(KeyDef.SPECIFICATION, property.toString());
+    }
+    for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
+      result.put(
+          KeyDef.SPECIFICATION, MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim());
+    }
+    if (!result.containsKey(KeyDef.SPECIFICATION)) {
+      result.put(KeyDef.SPECIFICATION, "TRUE");
+    }
+
+    for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
+      result.put(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness));
+    }
+    for (Path programFile : pCfa.getFileNames()) {
+      result.put(KeyDef.PROGRAMFILE, programFile.toString());
+    }
+    for (Path programFile : pCfa.getFileNames()) {
+      result.put(KeyDef.PROGRAMHASH, computeHash(programFile));
+    }
+
+    result.put(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel()));
+    ZonedDateTime now = ZonedDateTime.now().withNano(0);
+    result.put(KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+    return result;
+  }
+
   public static class GraphMlBuilder {
 
     private final Document doc;
@@ -377,47 +415,10 @@ public class AutomatonGraphmlCommon {
       graph = doc.createElement("graph");
       root.appendChild(graph);
       graph.setAttribute("edgedefault", "directed");
-      graph.appendChild(createDataElement(KeyDef.WITNESS_TYPE, pGraphType.toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.PRODUCER, "CPAchecker " + CPAchecker.getCPAcheckerVersion()));
-
-      int nSpecs = 0;
-      for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, property.toString()));
-        ++nSpecs;
-      }
-
-      for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
-        graph.appendChild(
-            createDataElement(
-                KeyDef.SPECIFICATION,
-                MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim()));
-        ++nSpecs;
-      }
-
-      if (nSpecs == 0) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, "TRUE"));
-      }
-
-      for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
-        graph.appendChild(createDataElement(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness)));
-      }
-
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMFILE, programFile.toString()));
-      }
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMHASH, computeHash(programFile)));
+      for (Map.Entry<KeyDef, String> data :
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData).entries()) {
+        graph.appendChild(createDataElement(data.getKey(), data.getValue()));
       }
-
-      graph.appendChild(
-          createDataElement(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel())));
-      ZonedDateTime now = ZonedDateTime.now().withNano(0);
-      graph.appendChild(
-          createDataElement(
-              KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
     }
 
     private void defineKey(KeyDef pKeyDef) {
@@ -522,6 +523,138 @@ public class AutomatonGraphmlCommon {
 
   }
 
+  /**
+   * Writes a GraphML witness element by element into an {@link Appendable}. In contrast to {@link
+   * GraphMlBuilder}, no DOM tree of the whole graph is kept in memory. Because GraphML requires all
+   * key definitions before the graph, the keys used for nodes and edges have to be known when the
+   * writer is created.
+   *
+   * <p>Usage: create the writer, then write each node with {@link #startNode(String)}, {@link
+   * #addData(KeyDef, String)}, and {@link #endElement()} (edges accordingly with {@link
+   * #startEdge(String, String)}), and finally call {@link #finish()}.
+   */
+  public static class GraphMlStreamWriter {
+
+    private final Appendable out;
+    private final Set<KeyDef> definedKeys;
+
+    private @Nullable GraphMLTag openElement = null;
+    private boolean openElementHasChildren = false;
+
+    public GraphMlStreamWriter(
+        Appendable pTarget,
+        WitnessType pGraphType,
+        @Nullable String pDefaultSourceFileName,
+        CFA pCfa,
+        VerificationTaskMetaData pVerificationTaskMetaData,
+        Set<KeyDef> pUsedKeys)
+        throws IOException {
+      out = pTarget;
+      definedKeys = EnumSet.noneOf(KeyDef.class);
+      definedKeys.addAll(pUsedKeys);
+      definedKeys.add(KeyDef.ORIGINFILE);
+      for (KeyDef keyDef : KeyDef.values()) {
+        if (keyDef.keyFor == ElementType.GRAPH) {
+          definedKeys.add(keyDef);
+        }
+      }
+
+      out.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+      out.append("<graphml xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
+      out.append(" xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+      for (KeyDef keyDef : definedKeys) {
+        String defaultValue =
+            keyDef == KeyDef.ORIGINFILE && pDefaultSourceFileName != null
+                ? pDefaultSourceFileName
+                : keyDef.defaultValue;
+        writeKeyDef(keyDef, defaultValue);
+      }
+
+      out.append(" <graph edgedefault=\"directed\">\n");
+      for (Map.Entry<KeyDef, String> data :
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData).entries()) {
+        writeData("  ", data.getKey(), data.getValue());
+      }
+    }
+
+    private void writeKeyDef(KeyDef pKeyDef, @Nullable String pDefaultValue) throws IOException {
+      out.append(" <").append(GraphMLTag.KEY.toString());
+      appendAttribute("id", pKeyDef.id);
+      appendAttribute("for", pKeyDef.keyFor.toString());
+      appendAttribute("attr.name", pKeyDef.attrName);
+      appendAttribute("attr.type", pKeyDef.attrType);
+      if (pDefaultValue == null) {
+        out.append("/>\n");
+      } else {
+        out.append(">\n  <").append(GraphMLTag.DEFAULT.toString()).append(">");
+        out.append(XmlEscapers.xmlContentEscaper().escape(pDefaultValue));
+        out.append("</").append(GraphMLTag.DEFAULT.toString()).append(">\n");
+        out.append(" </").append(GraphMLTag.KEY.toString()).append(">\n");
+      }
+    }
+
+    private void appendAttribute(String pName, String pValue) throws IOException {
+      out.append(' ').append(pName).append("=\"");
+      out.append(XmlEscapers.xmlAttributeEscaper().escape(pValue));
+      out.append('"');
+    }
+
+    private void writeData(String pIndent, KeyDef pKey, String pValue) throws IOException {
+      Preconditions.checkArgument(
+          definedKeys.contains(pKey), "Key %s was not declared for this witness", pKey);
+      out.append(pIndent).append('<').append(GraphMLTag.DATA.toString());
+      appendAttribute("key", pKey.id);
+      out.append('>');
+      out.append(XmlEscapers.xmlContentEscaper().escape(pValue));
+      out.append("</").append(GraphMLTag.DATA.toString()).append(">\n");
+    }
+
+    public void startNode(String pNodeId) throws IOException {
+      startElement(GraphMLTag.NODE);
+      appendAttribute("id", pNodeId);
+    }
+
+    public void startEdge(String pSource, String pTarget) throws IOException {
+      startElement(GraphMLTag.EDGE);
+      appendAttribute("source", pSource);
+      appendAttribute("target", pTarget);
+    }
+
+    private void startElement(GraphMLTag pTag) throws IOException {
+      Preconditions.checkState(openElement == null, "Element %s was not ended", openElement);
+      openElement = pTag;
+      openElementHasChildren = false;
+      out.append("  <").append(pTag.toString());
+    }
+
+    /** Add a data element to the node or edge that is currently written. */
+    public void addData(KeyDef pKey, String pValue) throws IOException {
+      Preconditions.checkState(openElement != null, "No node or edge is currently written");
+      if (!openElementHasChildren) {
+        out.append(">\n");
+        openElementHasChildren = true;
+      }
+      writeData("   ", pKey, pValue);
+    }
+
+    /** End the node or edge that is currently written. */
+    public void endElement() throws IOException {
+      Preconditions.checkState(openElement != null, "No node or edge is currently written");
+      if (openElementHasChildren) {
+        out.append("  </").append(openElement.toString()).append(">\n");
+      } else {
+        out.append("/>\n");
+      }
+      openElement = null;
+    }
+
+    public void finish() throws IOException {
+      Preconditions.checkState(openElement == null, "Element %s was not ended", openElement);
+      out.append(" </graph>\n");
+      out.append("</graphml>\n");
+    }
+  }
+
   public static boolean handleAsEpsilonEdge(CFAEdge pEdge, CFAEdgeWithAdditionalInfo
       pAdditionalInfo) {
     if (pAdditionalInfo != null && !pAdditionalInfo.getInfos().isEmpty()) {
@@ -0,0 +1,244 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.Language;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlStreamWriter;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/** Checks that {@link GraphMlStreamWriter} writes the same witnesses as {@link GraphMlBuilder}. */
+public class AutomatonGraphmlCommonTest {
+
+  private static final String DEFAULT_FILE = "dir/a&b <c>.c";
+  private static final String ENTRY = "A";
+  private static final String VIOLATION = "B & <C> \"q\" 'r'";
+  private static final String ANNOTATION = "D";
+  private static final String PROPERTY = "x < 0 && \"y\" > 'z'";
+  private static final String SOURCE = "if (a < b && c > 'd') { s = \"x & y\"; }";
+  private static final String ASSUMPTION = "a < b; c == '&'; ä == é;";
+  private static final String ORIGIN = "other <file> & \"name\".c";
+
+  private static final Set<KeyDef> USED_KEYS =
+      Sets.immutableEnumSet(
+          KeyDef.ISENTRYNODE,
+          KeyDef.ISVIOLATIONNODE,
+          KeyDef.VIOLATEDPROPERTY,
+          KeyDef.NODETYPE,
+          KeyDef.SOURCECODE,
+          KeyDef.STARTLINE,
+          KeyDef.ASSUMPTION,
+          KeyDef.ORIGINFILE);
+
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private CFA cfa;
+  private VerificationTaskMetaData metaData;
+
+  @Before
+  public void setUp() throws IOException {
+    Path program = tmp.newFile("program.c").toPath();
+    Files.write(program, "int main() { return 0; }".getBytes(UTF_8));
+    cfa = mock(CFA.class);
+    when(cfa.getLanguage()).thenReturn(Language.C);
+    when(cfa.getMachineModel()).thenReturn(MachineModel.LINUX32);
+    when(cfa.getFileNames()).thenReturn(ImmutableList.of(program));
+    // no properties, specification files, or input witnesses
+    metaData = mock(VerificationTaskMetaData.class);
+  }
+
+  private String writeWithBuilder() throws Exception {
+    GraphMlBuilder builder =
+        new GraphMlBuilder(WitnessType.VIOLATION_WITNESS, DEFAULT_FILE, cfa, metaData);
+    Element entry = builder.createNodeElement(ENTRY, NodeType.ONPATH);
+    builder.addDataElementChild(entry, KeyDef.ISENTRYNODE, "true");
+    Element violation = builder.createNodeElement(VIOLATION, NodeType.ONPATH);
+    builder.addDataElementChild(violation, KeyDef.ISVIOLATIONNODE, "true");
+    builder.addDataElementChild(violation, KeyDef.VIOLATEDPROPERTY, PROPERTY);
+    builder.createNodeElement(ANNOTATION, NodeType.ANNOTATION);
+
+    Element edge = builder.createEdgeElement(ENTRY, VIOLATION);
+    builder.addDataElementChild(edge, KeyDef.SOURCECODE, SOURCE);
+    builder.addDataElementChild(edge, KeyDef.STARTLINE, "3");
+    builder.addDataElementChild(edge, KeyDef.ASSUMPTION, ASSUMPTION);
+    builder.addDataElementChild(edge, KeyDef.ORIGINFILE, ORIGIN);
+    builder.createEdgeElement(VIOLATION, ANNOTATION);
+
+    StringBuilder result = new StringBuilder();
+    builder.appendTo(result);
+    return result.toString();
+  }
+
+  private String writeWithStreamWriter() throws IOException {
+    StringBuilder result = new StringBuilder();
+    GraphMlStreamWriter writer =
+        new GraphMlStreamWriter(
+            result, WitnessType.VIOLATION_WITNESS, DEFAULT_FILE, cfa, metaData, USED_KEYS);
+    writer.startNode(ENTRY);
+    writer.addData(KeyDef.ISENTRYNODE, "true");
+    writer.endElement();
+    writer.startNode(VIOLATION);
+    writer.addData(KeyDef.ISVIOLATIONNODE, "true");
+    writer.addData(KeyDef.VIOLATEDPROPERTY, PROPERTY);
+    writer.endElement();
+    writer.startNode(ANNOTATION);
+    writer.addData(KeyDef.NODETYPE, NodeType.ANNOTATION.toString());
+    writer.endElement();
+
+    writer.startEdge(ENTRY, VIOLATION);
+    writer.addData(KeyDef.SOURCECODE, SOURCE);
+    writer.addData(KeyDef.STARTLINE, "3");
+    writer.addData(KeyDef.ASSUMPTION, ASSUMPTION);
+    writer.addData(KeyDef.ORIGINFILE, ORIGIN);
+    writer.endElement();
+    writer.startEdge(VIOLATION, ANNOTATION);
+    writer.endElement();
+
+    writer.finish();
+    return result.toString();
+  }
+
+  @Test
+  public void streamWriterMatchesBuilder() throws Exception {
+    Document expected = parse(writeWithBuilder());
+    Document actual = parse(writeWithStreamWriter());
+
+    assertThat(describeKeys(actual)).containsExactlyElementsIn(describeKeys(expected));
+    assertThat(describeGraph(actual)).containsExactlyElementsIn(describeGraph(expected)).inOrder();
+  }
+
+  @Test
+  public void streamWriterEscapesSpecialCharacters() throws Exception {
+    Document doc = parse(writeWithStreamWriter());
+
+    assertThat(describeKeys(doc)).contains("originfile edge originFileName string " + DEFAULT_FILE);
+    assertThat(describeGraph(doc))
+        .containsAllOf(
+            "node " + VIOLATION,
+            " violatedProperty=" + PROPERTY,
+            "edge " + ENTRY + " -> " + VIOLATION,
+            " sourcecode=" + SOURCE,
+            " assumption=" + ASSUMPTION,
+            " originfile=" + ORIGIN)
+        .inOrder();
+  }
+
+  private static Document parse(String pXml)
+      throws ParserConfigurationException, SAXException, IOException {
+    return DocumentBuilderFactory.newInstance()
+        .newDocumentBuilder()
+        .parse(new InputSource(new StringReader(pXml)));
+  }
+
+  /** Describe the key definitions, each as id, domain, name, type, and default value. */
+  private static List<String> describeKeys(Document pDoc) {
+    List<String> result = new ArrayList<>();
+    for (Element key : getChildElements(pDoc.getDocumentElement(), "key")) {
+      List<Element> defaults = getChildElements(key, "default");
+      result.add(
+          key.getAttribute("id")
+              + " "
+              + key.getAttribute("for")
+              + " "
+              + key.getAttribute("attr.name")
+              + " "
+              + key.getAttribute("attr.type")
+              + (defaults.isEmpty() ? "" : " " + defaults.get(0).getTextContent()));
+    }
+    return result;
+  }
+
+  /**
+   * Describe the data of the graph and its nodes and edges in document order. The creation time
+   * is left out, because it differs between the two witnesses.
+   */
+  private static List<String> describeGraph(Document pDoc) {
+    List<String> result = new ArrayList<>();
+    Element graph = getChildElements(pDoc.getDocumentElement(), "graph").get(0);
+    for (Element element : getChildElements(graph, null)) {
+      switch (element.getTagName()) {
+        case "data":
+          if (!element.getAttribute("key").equals(KeyDef.CREATIONTIME.id)) {
+            result.add(element.getAttribute("key") + "=" + element.getTextContent());
+          }
+          break;
+        case "node":
+          result.add("node " + element.getAttribute("id"));
+          break;
+        case "edge":
+          result.add(
+              "edge " + element.getAttribute("source") + " -> " + element.getAttribute("target"));
+          break;
+        default:
+          result.add("unexpected " + element.getTagName());
+      }
+      if (!element.getTagName().equals("data")) {
+        for (Element data : getChildElements(element, "data")) {
+          result.add(" " + data.getAttribute("key") + "=" + data.getTextContent());
+        }
+      }
+    }
+    return result;
+  }
+
+  private static List<Element> getChildElements(Element pParent, String pTagName) {
+    List<Element> result = new ArrayList<>();
+    for (Node child = pParent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element
+          && (pTagName == null || ((Element) child).getTagName().equals(pTagName))) {
+        result.add((Element) child);
+      }
+    }
+    return result;
+  }
+}
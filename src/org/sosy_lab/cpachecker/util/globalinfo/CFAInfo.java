@@ -24,6 +24,8 @@
 package org.sosy_lab.cpachecker.util.globalinfo;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.location.LocationStateFactory;
@@ -42,10 +44,38 @@ public class CFAInfo {
     this.cfa = cfa;
   }
 
+  /**
+   * The node numbers of another CFA (e.g., of a previous version of the program) and the
+   * corresponding nodes of this CFA, used instead of the node numbers of this CFA while objects
+   * from that CFA are deserialized by the current thread.
+   */
+  private final ThreadLocal<Map<Integer, CFANode>> nodeNumberTranslation = new ThreadLocal<>();
+
   public CFANode getNodeByNodeNumber(int nodeNumber) {
+    Map<Integer, CFANode> translation = nodeNumberTranslation.get();
+    if (translation != null) {
+      CFANode node = translation.get(nodeNumber);
+      if (node == null) {
+        throw new IllegalArgumentException("Unknown node number " + nodeNumber);
+      }
+      return node;
+    }
     return nodeNumberToNode.get(nodeNumber);
   }
 
+  /**
+   * Resolve node numbers with the given translation instead of the node numbers of this CFA in
+   * the current thread, until the translation is reset with null. Unknown node numbers cause an
+   * {@link IllegalArgumentException}.
+   */
+  public void setNodeNumberTranslation(@Nullable Map<Integer, CFANode> pTranslation) {
+    if (pTranslation == null) {
+      nodeNumberTranslation.remove();
+    } else {
+      nodeNumberTranslation.set(pTranslation);
+    }
+  }
+
   public void storeLocationStateFactory(LocationStateFactory pElementFactory) {
     locationStateFactory = pElementFactory;
   }
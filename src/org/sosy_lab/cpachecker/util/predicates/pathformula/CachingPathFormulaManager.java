@@ -25,11 +25,22 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
 import java.io.PrintStream;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToIntFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
@@ -48,30 +59,210 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 /**
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
+ *
+ * <p>The caches can be bounded (cf. {@link CachePolicy}), the weight of a cached
+ * path formula is estimated by its length (the number of edges it represents),
+ * because the size of the formula DAG grows with it and computing the exact size
+ * would be too expensive.
  */
+@Options(prefix = "cpa.predicate.pathFormulaCache")
 public class CachingPathFormulaManager implements PathFormulaManager {
 
+  public enum CachePolicy {
+    /** Never evict entries. */
+    UNBOUNDED,
+    /** Evict least-recently used entries if a cache has more than the limit of entries. */
+    SIZE,
+    /**
+     * Evict least-recently used entries if the estimated size of the formulas in a cache is
+     * larger than the limit.
+     */
+    WEIGHT,
+    /** Let the garbage collector evict entries if memory is low (uses soft references). */
+    SOFT,
+  }
+
+  @Option(secure = true, description = "eviction policy for the caches of path formulas")
+  private CachePolicy policy = CachePolicy.UNBOUNDED;
+
+  @Option(
+    secure = true,
+    description =
+        "maximum number of entries (policy SIZE) or maximum estimated size of formulas"
+            + " (policy WEIGHT) for each cache of path formulas"
+  )
+  private long limit = 100000;
+
   public final Timer pathFormulaComputationTimer = new Timer();
   public int pathFormulaCacheHits = 0;
 
   public final PathFormulaManager delegate;
 
-  private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
-            = new HashMap<>();
-  private final Map<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache
-            = new HashMap<>();
+  private final FormulaCache<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>>
+      andFormulaWithConditionsCache;
+  private final FormulaCache<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache;
 
-  private final Map<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache
-            = new HashMap<>();
+  private final FormulaCache<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache;
 
-  private final Map<PathFormula, PathFormula> emptyFormulaCache
-            = new HashMap<>();
+  private final FormulaCache<PathFormula, PathFormula> emptyFormulaCache;
 
   private final PathFormula emptyFormula;
 
-  public CachingPathFormulaManager(PathFormulaManager pDelegate) {
+  public CachingPathFormulaManager(PathFormulaManager pDelegate, Configuration pConfig)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (limit <= 0) {
+      throw new InvalidConfigurationException(
+          "Invalid value " + limit + " for option cpa.predicate.pathFormulaCache.limit");
+    }
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+
+    andFormulaWithConditionsCache =
+        new FormulaCache<>("makeAndWithErrorConditions", p -> p.getFirst().getLength());
+    andFormulaCache = new FormulaCache<>("makeAnd", PathFormula::getLength);
+    orFormulaCache = new FormulaCache<>("makeOr", PathFormula::getLength);
+    emptyFormulaCache = new FormulaCache<>("makeEmptyPathFormula", PathFormula::getLength);
+  }
+
+  /** Number of buckets for the histogram of hits per entry: 0, 1, 2-3, 4-7, ..., 64+. */
+  private static final int HIT_BUCKETS = 8;
+
+  /** A memoization cache that is bounded according to the configuration. */
+  private final class FormulaCache<K, V> {
+
+    private final String name;
+    private final Cache<K, CacheEntry<V>> cache;
+
+    private int lookups = 0;
+    private int hits = 0;
+    private int evictions = 0;
+
+    /** Histogram of the number of hits for entries that were already removed. */
+    private final long[] removedEntriesByHits = new long[HIT_BUCKETS];
+
+    /** Number of entries that were garbage collected, their number of hits is unknown. */
+    private long collectedEntries = 0;
+
+    private FormulaCache(String pName, ToIntFunction<V> pWeigher) {
+      name = pName;
+      RemovalListener<K, CacheEntry<V>> listener =
+          notification -> {
+            if (notification.wasEvicted()) {
+              evictions++;
+            }
+            CacheEntry<V> entry = notification.getValue();
+            if (entry == null) {
+              // soft value was garbage collected (RemovalCause.COLLECTED)
+              collectedEntries++;
+            } else {
+              removedEntriesByHits[bucket(entry.hits)]++;
+            }
+          };
+      CacheBuilder<K, CacheEntry<V>> builder = CacheBuilder.newBuilder().removalListener(listener);
+      switch (policy) {
+        case UNBOUNDED:
+          break;
+        case SIZE:
+          builder = builder.maximumSize(limit);
+          break;
+        case WEIGHT:
+          Weigher<K, CacheEntry<V>> weigher =
+              (key, entry) -> Math.max(1, pWeigher.applyAsInt(entry.value));
+          builder = builder.maximumWeight(limit).weigher(weigher);
+          break;
+        case SOFT:
+          builder = builder.softValues();
+          break;
+        default:
+          throw new AssertionError("Unhandled cache policy " + policy);
+      }
+      cache = builder.build();
+    }
+
+    /** Look up the value for a key, or for the alternative key if the former is not present. */
+    private @Nullable V get(K key, @Nullable K alternativeKey) {
+      lookups++;
+      CacheEntry<V> entry = cache.getIfPresent(key);
+      if (entry == null && alternativeKey != null) {
+        entry = cache.getIfPresent(alternativeKey);
+      }
+      if (entry == null) {
+        return null;
+      }
+      hits++;
+      pathFormulaCacheHits++;
+      entry.hits++;
+      return entry.value;
+    }
+
+    private @Nullable V get(K key) {
+      return get(key, null);
+    }
+
+    private void put(K key, V value) {
+      cache.put(key, new CacheEntry<>(value));
+    }
+
+    private void clear() {
+      cache.invalidateAll();
+    }
+
+    private void printStatistics(PrintStream out) {
+      if (lookups == 0) {
+        return;
+      }
+      cache.cleanUp();
+      long[] entriesByHits = removedEntriesByHits.clone();
+      for (CacheEntry<V> entry : cache.asMap().values()) {
+        entriesByHits[bucket(entry.hits)]++;
+      }
+      List<String> histogram = new ArrayList<>(HIT_BUCKETS);
+      for (int i = 0; i < HIT_BUCKETS; i++) {
+        if (entriesByHits[i] > 0) {
+          histogram.add(bucketName(i) + ": " + entriesByHits[i]);
+        }
+      }
+      if (collectedEntries > 0) {
+        histogram.add("unknown (collected): " + collectedEntries);
+      }
+
+      out.println("  Cache for " + name + ":");
+      out.println(
+          "    Lookups:                           "
+              + lookups
+              + " (hits: "
+              + toPercent(hits, lookups)
+              + ")");
+      out.println("    Current size:                      " + cache.size());
+      out.println("    Evictions:                         " + evictions);
+      out.println("    Entries by number of hits:         " + Joiner.on(", ").join(histogram));
+    }
+  }
+
+  private static final class CacheEntry<V> {
+    private final V value;
+    private int hits = 0;
+
+    private CacheEntry(V pValue) {
+      value = pValue;
+    }
+  }
+
+  private static int bucket(int hits) {
+    // 0 -> 0, 1 -> 1, 2-3 -> 2, 4-7 -> 3, ...
+    return Math.min(HIT_BUCKETS - 1, Integer.SIZE - Integer.numberOfLeadingZeros(hits));
+  }
+
+  private static String bucketName(int bucket) {
+    if (bucket <= 1) {
+      return Integer.toString(bucket);
+    }
+    int lower = 1 << (bucket - 1);
+    if (bucket == HIT_BUCKETS - 1) {
+      return lower + "+";
+    }
+    return lower + "-" + (2 * lower - 1);
   }
 
   @Override
@@ -85,9 +276,6 @@ public class CachingPathFormulaManager implements PathFormulaManager {
       result = delegate.makeAndWithErrorConditions(pOldFormula, pEdge);
       pathFormulaComputationTimer.stop();
       andFormulaWithConditionsCache.put(formulaCacheKey, result);
-
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -105,9 +293,6 @@ public class CachingPathFormulaManager implements PathFormulaManager {
       } finally {
         pathFormulaComputationTimer.stop();
       }
-
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -116,17 +301,12 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
     final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
 
-    PathFormula result = orFormulaCache.get(formulaCacheKey);
-    if (result == null) {
-      // try again with other order
-      result = orFormulaCache.get(Pair.of(pF2, pF1));
-    }
+    // try also with other order
+    PathFormula result = orFormulaCache.get(formulaCacheKey, Pair.of(pF2, pF1));
 
     if (result == null) {
       result = delegate.makeOr(pF1, pF2);
       orFormulaCache.put(formulaCacheKey, result);
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -142,8 +322,6 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
       emptyFormulaCache.put(pOldFormula, result);
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -234,6 +412,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
             + " ("
             + toPercent(cacheHits, totalPathFormulaComputations)
             + ")");
+    andFormulaWithConditionsCache.printStatistics(out);
+    andFormulaCache.printStatistics(out);
+    orFormulaCache.printStatistics(out);
+    emptyFormulaCache.printStatistics(out);
     out.println();
 
     out.println("Inside post operator:                  ");
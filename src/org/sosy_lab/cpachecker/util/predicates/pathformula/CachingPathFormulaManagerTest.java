@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+public class CachingPathFormulaManagerTest {
+
+  private PathFormulaManager delegate;
+  private PathFormula start;
+  private CFAEdge edge1;
+  private CFAEdge edge2;
+
+  private static PathFormula pathFormula(int length) {
+    return new PathFormula(
+        mock(BooleanFormula.class),
+        SSAMap.emptySSAMap(),
+        PointerTargetSet.emptyPointerTargetSet(),
+        length);
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    delegate = mock(PathFormulaManager.class);
+    start = pathFormula(0);
+    when(delegate.makeEmptyPathFormula()).thenReturn(start);
+    when(delegate.makeAnd(any(PathFormula.class), any(CFAEdge.class)))
+        .thenAnswer(invocation -> pathFormula(3));
+    edge1 = mock(CFAEdge.class);
+    edge2 = mock(CFAEdge.class);
+  }
+
+  private CachingPathFormulaManager create(String policy, int limit) throws Exception {
+    Configuration config =
+        Configuration.builder()
+            .setOption("cpa.predicate.pathFormulaCache.policy", policy)
+            .setOption("cpa.predicate.pathFormulaCache.limit", Integer.toString(limit))
+            .build();
+    return new CachingPathFormulaManager(delegate, config);
+  }
+
+  @Test
+  public void resultsAreCached() throws Exception {
+    CachingPathFormulaManager pfmgr = create("UNBOUNDED", 1);
+
+    PathFormula result1 = pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge2);
+    assertThat(pfmgr.makeAnd(start, edge1)).isSameAs(result1);
+
+    verify(delegate, times(2)).makeAnd(any(PathFormula.class), any(CFAEdge.class));
+    assertThat(pfmgr.pathFormulaCacheHits).isEqualTo(1);
+  }
+
+  @Test
+  public void sizePolicyEvictsEntries() throws Exception {
+    CachingPathFormulaManager pfmgr = create("SIZE", 1);
+
+    pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge2);
+    pfmgr.makeAnd(start, edge1);
+
+    verify(delegate, times(3)).makeAnd(any(PathFormula.class), any(CFAEdge.class));
+    assertThat(pfmgr.pathFormulaCacheHits).isEqualTo(0);
+  }
+
+  @Test
+  public void weightPolicyUsesFormulaLength() throws Exception {
+    // each formula has length 3, so only one fits
+    CachingPathFormulaManager pfmgr = create("WEIGHT", 5);
+
+    pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge2);
+    pfmgr.makeAnd(start, edge2);
+    pfmgr.makeAnd(start, edge1);
+
+    verify(delegate, times(3)).makeAnd(any(PathFormula.class), any(CFAEdge.class));
+    assertThat(pfmgr.pathFormulaCacheHits).isEqualTo(1);
+  }
+
+  @Test
+  public void statisticsContainHistogram() throws Exception {
+    CachingPathFormulaManager pfmgr = create("SIZE", 1);
+    pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge1);
+    pfmgr.makeAnd(start, edge2);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(output, true, "UTF-8")) {
+      pfmgr.printStatistics(out);
+    }
+    String statistics = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+    assertThat(statistics).contains("Cache for makeAnd:");
+    assertThat(statistics).contains("Evictions:                         1");
+    // edge1 was hit twice and evicted, edge2 was not hit
+    assertThat(statistics).contains("Entries by number of hits:         0: 1, 2-3: 1");
+  }
+}
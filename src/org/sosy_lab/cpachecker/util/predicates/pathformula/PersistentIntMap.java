@@ -0,0 +1,461 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A persistent (immutable) map from non-negative int keys to values. It is implemented as a
+ * bitmapped trie with 32-way branching that uses the key itself as hash (i.e., a hash array
+ * mapped trie without collisions), and all modifications copy only the path to the changed key.
+ *
+ * <p>The shape of the trie depends only on the set of keys and not on the order of
+ * modifications, which allows cheap equality checks and a merge operation that skips all
+ * subtrees that are shared by both maps. This is efficient for dense keys such as the ids
+ * handed out by {@link VariableInterner}.
+ *
+ * <p>Values are compared with {@link Object#equals(Object)}, null values are not allowed.
+ */
+final class PersistentIntMap<V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+  private static final class Leaf<V> {
+    private final int key;
+    private final V value;
+
+    private Leaf(int pKey, V pValue) {
+      key = pKey;
+      value = pValue;
+    }
+  }
+
+  /** An inner node. Never has only a single child that is a leaf. */
+  private static final class Branch {
+    private final int bitmap;
+    private final Object[] children; // Leaf or Branch instances
+
+    private Branch(int pBitmap, Object[] pChildren) {
+      assert Integer.bitCount(pBitmap) == pChildren.length;
+      bitmap = pBitmap;
+      children = pChildren;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  /** Callback for {@link PersistentIntMap#merge(PersistentIntMap, PersistentIntMap, Merger)}. */
+  interface Merger<V> {
+
+    /**
+     * Merge two values for the same key (that are not the same instance). May return one of the
+     * parameters in order to keep it.
+     */
+    V mergeValues(V left, V right);
+
+    /** Called for each entry that exists only in the left map, it will be kept in the result. */
+    void leftValueOnly(V left);
+
+    /** Called for each entry that exists only in the right map, it will be kept in the result. */
+    void rightValueOnly(V right);
+  }
+
+  private final @Nullable Object root; // null, Leaf, or Branch
+  private final int size;
+
+  private PersistentIntMap(@Nullable Object pRoot, int pSize) {
+    root = pRoot;
+    size = pSize;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> PersistentIntMap<V> of() {
+    return (PersistentIntMap<V>) EMPTY;
+  }
+
+  private static int bit(int key, int shift) {
+    return 1 << ((key >>> shift) & MASK);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  V get(int key) {
+    Object node = root;
+    int shift = 0;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      int bit = bit(key, shift);
+      if ((branch.bitmap & bit) == 0) {
+        return null;
+      }
+      node = branch.children[branch.index(bit)];
+      shift += BITS;
+    }
+    if (node != null && ((Leaf<V>) node).key == key) {
+      return ((Leaf<V>) node).value;
+    }
+    return null;
+  }
+
+  PersistentIntMap<V> putAndCopy(int key, V value) {
+    checkArgument(key >= 0, "Negative key %s", key);
+    Leaf<V> leaf = new Leaf<>(key, value);
+    Object newRoot = put(root, leaf, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentIntMap<>(newRoot, get(key) == null ? size + 1 : size);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Object put(@Nullable Object node, Leaf<V> leaf, int shift) {
+    if (node == null) {
+      return leaf;
+
+    } else if (node instanceof Leaf) {
+      Leaf<V> oldLeaf = (Leaf<V>) node;
+      if (oldLeaf.key == leaf.key) {
+        return oldLeaf.value.equals(leaf.value) ? oldLeaf : leaf;
+      }
+      return join(oldLeaf, leaf, shift);
+
+    } else {
+      Branch branch = (Branch) node;
+      int bit = bit(leaf.key, shift);
+      int idx = branch.index(bit);
+      if ((branch.bitmap & bit) == 0) {
+        Object[] children = new Object[branch.children.length + 1];
+        System.arraycopy(branch.children, 0, children, 0, idx);
+        children[idx] = leaf;
+        System.arraycopy(branch.children, idx, children, idx + 1, branch.children.length - idx);
+        return new Branch(branch.bitmap | bit, children);
+      }
+      Object child = branch.children[idx];
+      Object newChild = put(child, leaf, shift + BITS);
+      if (newChild == child) {
+        return branch;
+      }
+      Object[] children = branch.children.clone();
+      children[idx] = newChild;
+      return new Branch(branch.bitmap, children);
+    }
+  }
+
+  /** Create the subtree for two leaves with different keys. */
+  private static Object join(Leaf<?> leaf1, Leaf<?> leaf2, int shift) {
+    int bit1 = bit(leaf1.key, shift);
+    int bit2 = bit(leaf2.key, shift);
+    if (bit1 == bit2) {
+      return new Branch(bit1, new Object[] {join(leaf1, leaf2, shift + BITS)});
+    } else if (Integer.compareUnsigned(bit1, bit2) < 0) {
+      return new Branch(bit1 | bit2, new Object[] {leaf1, leaf2});
+    } else {
+      return new Branch(bit1 | bit2, new Object[] {leaf2, leaf1});
+    }
+  }
+
+  PersistentIntMap<V> removeAndCopy(int key) {
+    if (get(key) == null) {
+      return this;
+    }
+    return new PersistentIntMap<>(remove(root, key, 0), size - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static @Nullable Object remove(Object node, int key, int shift) {
+    if (node instanceof Leaf) {
+      return ((Leaf<?>) node).key == key ? null : node;
+    }
+
+    Branch branch = (Branch) node;
+    int bit = bit(key, shift);
+    if ((branch.bitmap & bit) == 0) {
+      return branch;
+    }
+    int idx = branch.index(bit);
+    Object child = branch.children[idx];
+    Object newChild = remove(child, key, shift + BITS);
+    if (newChild == child) {
+      return branch;
+    }
+
+    if (newChild == null) {
+      if (branch.children.length == 1) {
+        return null;
+      }
+      if (branch.children.length == 2) {
+        Object other = branch.children[1 - idx];
+        if (other instanceof Leaf) {
+          return other; // collapse, a branch never has a single leaf as child
+        }
+      }
+      Object[] children = new Object[branch.children.length - 1];
+      System.arraycopy(branch.children, 0, children, 0, idx);
+      System.arraycopy(branch.children, idx + 1, children, idx, children.length - idx);
+      return new Branch(branch.bitmap & ~bit, children);
+    }
+
+    if (branch.children.length == 1 && newChild instanceof Leaf) {
+      return newChild; // collapse
+    }
+    Object[] children = branch.children.clone();
+    children[idx] = newChild;
+    return new Branch(branch.bitmap, children);
+  }
+
+  /** Call the given consumer for all values in the order of their keys' bit pattern. */
+  void forEachValue(Consumer<? super V> consumer) {
+    forEachValue(root, consumer);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void forEachValue(@Nullable Object node, Consumer<? super V> consumer) {
+    if (node instanceof Leaf) {
+      consumer.accept(((Leaf<V>) node).value);
+    } else if (node instanceof Branch) {
+      for (Object child : ((Branch) node).children) {
+        forEachValue(child, consumer);
+      }
+    }
+  }
+
+  /** Iterate over all values in the same order as {@link #forEachValue(Consumer)}. */
+  Iterator<V> valueIterator() {
+    return new ValueIterator<>(root);
+  }
+
+  private static final class ValueIterator<V> extends AbstractIterator<V> {
+
+    // iterators over the children of all branches on the path to the current leaf
+    private final Deque<Iterator<Object>> stack = new ArrayDeque<>();
+
+    private ValueIterator(@Nullable Object pRoot) {
+      if (pRoot != null) {
+        stack.push(Iterators.singletonIterator(pRoot));
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected V computeNext() {
+      while (!stack.isEmpty()) {
+        Iterator<Object> children = stack.peek();
+        if (!children.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        Object node = children.next();
+        if (node instanceof Leaf) {
+          return ((Leaf<V>) node).value;
+        }
+        stack.push(Iterators.forArray(((Branch) node).children));
+      }
+      return endOfData();
+    }
+  }
+
+  /**
+   * Create a map that contains all entries of both given maps. For keys that are present in both
+   * maps with different instances as values, {@link Merger#mergeValues(Object, Object)}
+   * determines the value.
+   * Subtrees that are shared by both maps are skipped, so the cost is proportional to the size
+   * of the difference of both maps (and not to their size).
+   */
+  static <V> PersistentIntMap<V> merge(
+      PersistentIntMap<V> map1, PersistentIntMap<V> map2, Merger<V> merger) {
+    if (map1.root == map2.root) {
+      return map1;
+    }
+    int[] sizeDifference = new int[1]; // number of keys in the result that are not in map1
+    Object newRoot = merge(map1.root, map2.root, 0, merger, sizeDifference);
+    if (newRoot == map1.root) {
+      return map1;
+    } else if (newRoot == map2.root) {
+      return map2;
+    }
+    return new PersistentIntMap<>(newRoot, map1.size + sizeDifference[0]);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> @Nullable Object merge(
+      @Nullable Object node1,
+      @Nullable Object node2,
+      int shift,
+      Merger<V> merger,
+      int[] sizeDifference) {
+    if (node1 == node2) {
+      return node1;
+    } else if (node1 == null) {
+      forEachValue(node2, (V v) -> {
+        merger.rightValueOnly(v);
+        sizeDifference[0]++;
+      });
+      return node2;
+    } else if (node2 == null) {
+      forEachValue(node1, merger::leftValueOnly);
+      return node1;
+    }
+
+    if (node1 instanceof Leaf && node2 instanceof Leaf) {
+      Leaf<V> leaf1 = (Leaf<V>) node1;
+      Leaf<V> leaf2 = (Leaf<V>) node2;
+      if (leaf1.key == leaf2.key) {
+        V value = merger.mergeValues(leaf1.value, leaf2.value);
+        if (value == leaf1.value) {
+          return leaf1;
+        } else if (value == leaf2.value) {
+          return leaf2;
+        }
+        return new Leaf<>(leaf1.key, value);
+      }
+      merger.leftValueOnly(leaf1.value);
+      merger.rightValueOnly(leaf2.value);
+      sizeDifference[0]++;
+      return join(leaf1, leaf2, shift);
+    }
+
+    // At least one is a branch, treat a leaf like a branch with a single child.
+    Branch branch1 = asBranch(node1, shift);
+    Branch branch2 = asBranch(node2, shift);
+    int bitmap = branch1.bitmap | branch2.bitmap;
+    Object[] children = new Object[Integer.bitCount(bitmap)];
+    boolean sameAs1 = node1 instanceof Branch && bitmap == branch1.bitmap;
+    boolean sameAs2 = node2 instanceof Branch && bitmap == branch2.bitmap;
+    int i = 0;
+    for (int remaining = bitmap; remaining != 0; remaining &= remaining - 1) {
+      int bit = Integer.lowestOneBit(remaining);
+      Object child1 =
+          (branch1.bitmap & bit) != 0 ? branch1.children[branch1.index(bit)] : null;
+      Object child2 =
+          (branch2.bitmap & bit) != 0 ? branch2.children[branch2.index(bit)] : null;
+      Object child = merge(child1, child2, shift + BITS, merger, sizeDifference);
+      sameAs1 &= child == child1;
+      sameAs2 &= child == child2;
+      children[i++] = child;
+    }
+    if (sameAs1) {
+      return node1;
+    } else if (sameAs2) {
+      return node2;
+    }
+    return new Branch(bitmap, children);
+  }
+
+  private static Branch asBranch(Object node, int shift) {
+    if (node instanceof Branch) {
+      return (Branch) node;
+    }
+    return new Branch(bit(((Leaf<?>) node).key, shift), new Object[] {node});
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof PersistentIntMap)) {
+      return false;
+    }
+    PersistentIntMap<?> other = (PersistentIntMap<?>) obj;
+    return size == other.size && nodeEquals(root, other.root);
+  }
+
+  private static boolean nodeEquals(@Nullable Object node1, @Nullable Object node2) {
+    if (node1 == node2) {
+      return true;
+    } else if (node1 instanceof Leaf && node2 instanceof Leaf) {
+      Leaf<?> leaf1 = (Leaf<?>) node1;
+      Leaf<?> leaf2 = (Leaf<?>) node2;
+      return leaf1.key == leaf2.key && leaf1.value.equals(leaf2.value);
+    } else if (node1 instanceof Branch && node2 instanceof Branch) {
+      Branch branch1 = (Branch) node1;
+      Branch branch2 = (Branch) node2;
+      if (branch1.bitmap != branch2.bitmap) {
+        return false;
+      }
+      for (int i = 0; i < branch1.children.length; i++) {
+        if (!nodeEquals(branch1.children[i], branch2.children[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int[] hash = new int[1];
+    forEachEntry(root, (V value, int key) -> hash[0] += key ^ value.hashCode());
+    return hash[0];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEachEntry(
+        root,
+        (V value, int key) -> {
+          if (sb.length() > 1) {
+            sb.append(", ");
+          }
+          sb.append(key).append('=').append(value);
+        });
+    return sb.append('}').toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void forEachEntry(@Nullable Object node, ObjIntConsumer<V> consumer) {
+    if (node instanceof Leaf) {
+      Leaf<V> leaf = (Leaf<V>) node;
+      consumer.accept(leaf.value, leaf.key);
+    } else if (node instanceof Branch) {
+      for (Object child : ((Branch) node).children) {
+        forEachEntry(child, consumer);
+      }
+    }
+  }
+}
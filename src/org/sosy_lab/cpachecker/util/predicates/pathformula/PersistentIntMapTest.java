@@ -0,0 +1,191 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PersistentIntMapTest {
+
+  private static Map<Integer, String> toMap(PersistentIntMap<String> map) {
+    Map<Integer, String> result = new HashMap<>();
+    map.forEachValue(v -> result.put(Integer.valueOf(v.substring(1)), v));
+    return result;
+  }
+
+  private static String value(int key) {
+    return "v" + key;
+  }
+
+  @Test
+  public void emptyMap() {
+    PersistentIntMap<String> map = PersistentIntMap.of();
+    assertThat(map.isEmpty()).isTrue();
+    assertThat(map.get(0)).isNull();
+    assertThat(map.removeAndCopy(0)).isSameAs(map);
+  }
+
+  @Test
+  public void putGetRemoveMatchesTreeMap() {
+    Random random = new Random(42);
+    PersistentIntMap<String> map = PersistentIntMap.of();
+    TreeMap<Integer, String> expected = new TreeMap<>();
+
+    for (int i = 0; i < 5000; i++) {
+      // mostly dense keys, but also some large ones that need deep tries
+      int key = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        map = map.removeAndCopy(key);
+        expected.remove(key);
+      } else {
+        map = map.putAndCopy(key, value(key));
+        expected.put(key, value(key));
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+    assertThat(toMap(map)).isEqualTo(expected);
+    List<String> values = new ArrayList<>();
+    map.forEachValue(values::add);
+    assertThat(ImmutableList.copyOf(map.valueIterator()))
+        .containsExactlyElementsIn(values)
+        .inOrder();
+    for (int key = 0; key < 500; key++) {
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+  }
+
+  @Test
+  public void putOfEqualValueReturnsSameInstance() {
+    PersistentIntMap<String> map = PersistentIntMap.<String>of().putAndCopy(3, "a");
+    assertThat(map.putAndCopy(3, new String("a"))).isSameAs(map);
+  }
+
+  @Test
+  public void shapeIsIndependentOfModificationOrder() {
+    Random random = new Random(0);
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      keys.add(random.nextInt(2000));
+    }
+
+    PersistentIntMap<String> forward = PersistentIntMap.of();
+    for (int key : keys) {
+      forward = forward.putAndCopy(key, value(key));
+    }
+    // insert in reverse order, with additional keys that are removed again
+    PersistentIntMap<String> backward = PersistentIntMap.of();
+    for (int i = keys.size() - 1; i >= 0; i--) {
+      backward = backward.putAndCopy(keys.get(i), value(keys.get(i)));
+      backward = backward.putAndCopy(keys.get(i) + 5000, "tmp");
+    }
+    for (int key : keys) {
+      backward = backward.removeAndCopy(key + 5000);
+    }
+
+    assertThat(backward).isEqualTo(forward);
+    assertThat(backward.hashCode()).isEqualTo(forward.hashCode());
+    assertThat(backward.toString()).isEqualTo(forward.toString());
+  }
+
+  @Test
+  public void mergeContainsUnionAndReportsDifferences() {
+    PersistentIntMap<String> common = PersistentIntMap.of();
+    for (int key = 0; key < 200; key++) {
+      common = common.putAndCopy(key, value(key));
+    }
+    PersistentIntMap<String> left = common.putAndCopy(1000, value(1000)).putAndCopy(5, "left");
+    PersistentIntMap<String> right = common.putAndCopy(2000, value(2000)).putAndCopy(5, "right");
+
+    List<String> leftOnly = new ArrayList<>();
+    List<String> rightOnly = new ArrayList<>();
+    List<String> merged = new ArrayList<>();
+    PersistentIntMap<String> result =
+        PersistentIntMap.merge(
+            left,
+            right,
+            new PersistentIntMap.Merger<String>() {
+              @Override
+              public String mergeValues(String pLeft, String pRight) {
+                merged.add(pLeft + "+" + pRight);
+                return pRight;
+              }
+
+              @Override
+              public void leftValueOnly(String pLeft) {
+                leftOnly.add(pLeft);
+              }
+
+              @Override
+              public void rightValueOnly(String pRight) {
+                rightOnly.add(pRight);
+              }
+            });
+
+    // shared entries are not visited
+    assertThat(merged).containsExactly("left+right");
+    assertThat(leftOnly).containsExactly(value(1000));
+    assertThat(rightOnly).containsExactly(value(2000));
+
+    assertThat(result.size()).isEqualTo(202);
+    assertThat(result.get(5)).isEqualTo("right");
+    assertThat(result.get(1000)).isEqualTo(value(1000));
+    assertThat(result.get(2000)).isEqualTo(value(2000));
+    assertThat(result)
+        .isEqualTo(
+            common
+                .putAndCopy(5, "right")
+                .putAndCopy(1000, value(1000))
+                .putAndCopy(2000, value(2000)));
+  }
+
+  @Test
+  public void mergeWithSubsetReturnsSuperset() {
+    PersistentIntMap<String> small = PersistentIntMap.<String>of().putAndCopy(1, value(1));
+    PersistentIntMap<String> big = small.putAndCopy(33, value(33)).putAndCopy(2, value(2));
+    PersistentIntMap.Merger<String> merger =
+        new PersistentIntMap.Merger<String>() {
+          @Override
+          public String mergeValues(String pLeft, String pRight) {
+            return pLeft;
+          }
+
+          @Override
+          public void leftValueOnly(String pLeft) {}
+
+          @Override
+          public void rightValueOnly(String pRight) {}
+        };
+    assertThat(PersistentIntMap.merge(small, big, merger)).isSameAs(big);
+    assertThat(PersistentIntMap.merge(big, small, merger)).isSameAs(big);
+  }
+}
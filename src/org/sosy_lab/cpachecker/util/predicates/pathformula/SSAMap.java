@@ -25,17 +25,25 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import com.google.common.base.Equivalence;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Ordering;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.collect.MapsDifference;
-import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
-import org.sosy_lab.common.collect.PersistentSortedMap;
-import org.sosy_lab.common.collect.PersistentSortedMaps;
 import org.sosy_lab.common.collect.PersistentSortedMaps.MergeConflictHandler;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType.ComplexTypeKind;
@@ -44,10 +52,16 @@ import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
 import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.VariableInterner.VariableId;
 
 /**
  * Maps a variable name to its latest "SSA index", that should be used when
  * referring to that variable.
+ *
+ * <p>Internally, variable names are mapped to ids by {@link VariableInterner},
+ * and the index and type of each variable are stored in a {@link PersistentIntMap}
+ * with these ids as keys. This makes lookups cheap, and merging two SSAMaps
+ * only needs to look at those parts of the maps that are not shared.
  */
 public class SSAMap implements Serializable {
 
@@ -86,6 +100,55 @@ public class SSAMap implements Serializable {
         }
       };
 
+  /**
+   * The information about a single variable. Equality and hash code consider only name and
+   * index, the hash code is the same as for an entry of a map from name to index.
+   * The reference to the id keeps the id of the variable assigned while it is used as key.
+   */
+  private static final class Variable {
+    private final VariableId id;
+    private final String name;
+    private final int index;
+    private final CType type;
+
+    private Variable(VariableId pId, int pIndex, CType pType) {
+      id = pId;
+      name = pId.getName();
+      index = pIndex;
+      type = pType;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof Variable)) {
+        return false;
+      }
+      Variable other = (Variable) pObj;
+      return index == other.index && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return mapEntryHashCode(name, index);
+    }
+
+    @Override
+    public String toString() {
+      return name + "=" + index;
+    }
+  }
+
+  /**
+   * Not-null safe copy of {@link java.util.AbstractMap.SimpleImmutableEntry#hashCode()}
+   * for Object-to-int maps.
+   */
+  private static int mapEntryHashCode(Object key, int value) {
+    return key.hashCode() ^ value;
+  }
+
   /**
    * Builder for SSAMaps. Its state starts with an existing SSAMap, but may be
    * changed later. It supports read access, but it is not recommended to use
@@ -97,9 +160,8 @@ public class SSAMap implements Serializable {
   public static class SSAMapBuilder {
 
     private SSAMap ssa;
-    private PersistentSortedMap<String, Integer> vars; // Do not update without updating varsHashCode!
+    private PersistentIntMap<Variable> vars; // Do not update without updating varsHashCode!
     private FreshValueProvider freshValueProvider;
-    private PersistentSortedMap<String, CType> varTypes;
 
     // Instead of computing vars.hashCode(),
     // we calculate the hashCode ourselves incrementally
@@ -110,8 +172,6 @@ public class SSAMap implements Serializable {
       this.ssa = ssa;
       this.vars = ssa.vars;
       this.freshValueProvider = ssa.freshValueProvider;
-
-      this.varTypes = ssa.varTypes;
       this.varsHashCode = ssa.varsHashCode;
     }
 
@@ -125,26 +185,26 @@ public class SSAMap implements Serializable {
     }
 
     public CType getType(String name) {
-      return varTypes.get(name);
+      return SSAMap.getType(name, vars);
     }
 
     @SuppressWarnings("CheckReturnValue")
     public SSAMapBuilder setIndex(String name, CType type, int idx) {
       Preconditions.checkArgument(idx > 0, "Indices need to be positive for this SSAMap implementation:", name, type, idx);
-      int oldIdx = getIndex(name);
+      VariableId id = VariableInterner.getId(name);
+      Variable old = vars.get(id.getId());
+      int oldIdx = old == null ? ssa.defaultValue : old.index;
       Preconditions.checkArgument(idx >= oldIdx, "SSAMap updates need to be strictly monotone:", name, type, idx);
 
       type = type.getCanonicalType();
       assert !(type instanceof CFunctionType) : "Variable " + name + " has function type " + type;
-      CType oldType = varTypes.get(name);
-      if (oldType != null) {
-        TYPE_CONFLICT_CHECKER.resolveConflict(name, oldType, type);
-      } else {
-        varTypes = varTypes.putAndCopy(name, type);
+      if (old != null) {
+        TYPE_CONFLICT_CHECKER.resolveConflict(name, old.type, type);
+        type = old.type;
       }
 
       if (idx > oldIdx || idx == ssa.defaultValue) {
-        vars = vars.putAndCopy(name, idx);
+        vars = vars.putAndCopy(id.getId(), new Variable(id, idx, type));
         if (oldIdx != ssa.defaultValue) {
           varsHashCode -= mapEntryHashCode(name, oldIdx);
         }
@@ -159,19 +219,22 @@ public class SSAMap implements Serializable {
     }
 
     public SSAMapBuilder deleteVariable(String variable) {
-      int index = getIndex(variable);
-      if (index != ssa.defaultValue) {
-        vars = vars.removeAndCopy(variable);
-        varsHashCode -= mapEntryHashCode(variable, index);
-
-        varTypes = varTypes.removeAndCopy(variable);
+      Variable old = getVariable(variable, vars);
+      if (old != null) {
+        vars = vars.removeAndCopy(old.id.getId());
+        varsHashCode -= mapEntryHashCode(variable, old.index);
       }
 
       return this;
     }
 
-    public NavigableSet<String> allVariables() {
-      return varTypes.keySet();
+    /**
+     * Returns an unmodifiable view of the variables in the current state of the builder. The
+     * view does not reflect later changes, and, unlike {@link SSAMap#allVariables()}, it is not
+     * sorted, so creating it is cheap.
+     */
+    public Set<String> allVariables() {
+      return new VariableNames(vars);
     }
 
     /**
@@ -182,24 +245,16 @@ public class SSAMap implements Serializable {
         return ssa;
       }
 
-      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue);
+      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, ssa.defaultValue);
       return ssa;
     }
-
-    /**
-     * Not-null safe copy of {@link SimpleImmutableEntry#hashCode()}
-     * for Object-to-int maps.
-     */
-    private static int mapEntryHashCode(Object key, int value) {
-      return key.hashCode() ^ value;
-    }
   }
 
   private static final SSAMap EMPTY_SSA_MAP = new SSAMap(
-      PathCopyingPersistentTreeMap.of(),
+      PersistentIntMap.of(),
       new FreshValueProvider(),
       0,
-      PathCopyingPersistentTreeMap.of());
+      DEFAULT_DEFAULT_IDX);
 
   /**
    * Returns an empty immutable SSAMap.
@@ -209,14 +264,15 @@ public class SSAMap implements Serializable {
   }
 
   public SSAMap withDefault(final int pDefaultValue) {
-    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
+    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, pDefaultValue);
   }
 
   /**
    * Creates an unmodifiable SSAMap that contains all indices from two SSAMaps.
    * If there are conflicting indices, the maximum of both is used.
    * Further returns a list with all variables for which different indices
-   * were found, together with the two conflicting indices.
+   * were found, together with the two conflicting indices
+   * (ordered by variable name).
    */
   public static SSAMap merge(
       SSAMap s1, SSAMap s2, MapsDifference.Visitor<String, Integer> collectDifferences) {
@@ -228,67 +284,102 @@ public class SSAMap implements Serializable {
     // probably never be the case on a merge.
 
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
     if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
       // both are absolutely identical
       return s1;
+    }
 
-    } else {
-      vars =
-          PersistentSortedMaps.merge(
-              s1.vars,
-              s2.vars,
-              Equivalence.equals(),
-              PersistentSortedMaps.getMaximumMergeConflictHandler(),
-              collectDifferences);
-      freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
+    VariableMerger merger = new VariableMerger(s1.varsHashCode);
+    PersistentIntMap<Variable> vars = PersistentIntMap.merge(s1.vars, s2.vars, merger);
+    FreshValueProvider freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
+
+    // Report differences ordered by name, like a merge of sorted maps would do,
+    // such that the result does not depend on the order of the variable ids.
+    merger.differences.sort(Ordering.natural().onResultOf(MapsDifference.Entry::getKey));
+    for (MapsDifference.Entry<String, Integer> difference : merger.differences) {
+      if (!difference.getRightValue().isPresent()) {
+        collectDifferences.leftValueOnly(difference.getKey(), difference.getLeftValue().get());
+      } else if (!difference.getLeftValue().isPresent()) {
+        collectDifferences.rightValueOnly(difference.getKey(), difference.getRightValue().get());
+      } else {
+        collectDifferences.differingValues(
+            difference.getKey(), difference.getLeftValue().get(), difference.getRightValue().get());
+      }
     }
 
-    PersistentSortedMap<String, CType> varTypes =
-        PersistentSortedMaps.merge(
-            s1.varTypes,
-            s2.varTypes,
-            CTypes.canonicalTypeEquivalence(),
-            TYPE_CONFLICT_CHECKER,
-            MapsDifference.ignoreMapsDifference());
+    return new SSAMap(vars, freshValueProvider, merger.varsHashCode, s1.defaultValue);
+  }
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+  /**
+   * Merges the entries of two SSAMaps (maximum of indices, and checking that types are
+   * compatible), and records the differences and the hash code of the result.
+   */
+  private static class VariableMerger implements PersistentIntMap.Merger<Variable> {
+
+    private final List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+    private int varsHashCode;
+
+    private VariableMerger(int pLeftHashCode) {
+      varsHashCode = pLeftHashCode;
+    }
+
+    @Override
+    public Variable mergeValues(Variable left, Variable right) {
+      if (left.type != right.type
+          && !CTypes.canonicalTypeEquivalence().equivalent(left.type, right.type)) {
+        TYPE_CONFLICT_CHECKER.resolveConflict(left.name, left.type, right.type);
+      }
+      if (left.index == right.index) {
+        return left;
+      }
+      differences.add(
+          MapsDifference.Entry.forDifferingValues(left.name, left.index, right.index));
+      if (left.index > right.index) {
+        return left;
+      }
+      varsHashCode +=
+          mapEntryHashCode(right.name, right.index) - mapEntryHashCode(left.name, left.index);
+      // the type of the left variable is kept
+      return right.type == left.type ? right : new Variable(right.id, right.index, left.type);
+    }
+
+    @Override
+    public void leftValueOnly(Variable left) {
+      differences.add(MapsDifference.Entry.forLeftValueOnly(left.name, left.index));
+    }
+
+    @Override
+    public void rightValueOnly(Variable right) {
+      differences.add(MapsDifference.Entry.forRightValueOnly(right.name, right.index));
+      varsHashCode += mapEntryHashCode(right.name, right.index);
+    }
   }
 
-  private final PersistentSortedMap<String, Integer> vars;
+  private final transient PersistentIntMap<Variable> vars;
   private final FreshValueProvider freshValueProvider;
-  private final PersistentSortedMap<String, CType> varTypes;
 
   // Cache hashCode of potentially big map
   private final int varsHashCode;
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
+  // Lazily computed sorted set of variable names
+  private transient volatile @Nullable NavigableSet<String> allVariables;
+
+  private SSAMap(PersistentIntMap<Variable> vars,
                  FreshValueProvider freshValueProvider,
                  int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes,
                  int defaultSSAIdx) {
     this.vars = vars;
     this.freshValueProvider = freshValueProvider;
-    this.varTypes = varTypes;
-
-    if (varsHashCode == 0) {
-      this.varsHashCode = vars.hashCode();
-    } else {
-      this.varsHashCode = varsHashCode;
-      assert varsHashCode == vars.hashCode();
-    }
+    this.varsHashCode = varsHashCode;
+    assert varsHashCode == computeHashCode(vars);
 
     defaultValue = defaultSSAIdx;
   }
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
-                 FreshValueProvider freshValueProvider,
-                 int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes) {
-    this(vars, freshValueProvider, varsHashCode, varTypes, DEFAULT_DEFAULT_IDX);
+  private static int computeHashCode(PersistentIntMap<Variable> vars) {
+    int[] hashCode = new int[1];
+    vars.forEachValue(v -> hashCode[0] += v.hashCode());
+    return hashCode[0];
   }
 
   /**
@@ -298,12 +389,54 @@ public class SSAMap implements Serializable {
     return new SSAMapBuilder(this);
   }
 
-  private static int getIndex(String variable, Map<String, Integer> vars, int defaultValue) {
-    Integer value = vars.get(variable);
+  private static @Nullable Variable getVariable(
+      String variable, PersistentIntMap<Variable> vars) {
+    VariableId id = VariableInterner.getIdIfPresent(variable);
+    return id == null ? null : vars.get(id.getId());
+  }
+
+  private static int getIndex(String variable, PersistentIntMap<Variable> vars, int defaultValue) {
+    Variable value = getVariable(variable, vars);
     if (value == null) {
       return defaultValue;
     }
-    return value;
+    return value.index;
+  }
+
+  private static @Nullable CType getType(String variable, PersistentIntMap<Variable> vars) {
+    Variable value = getVariable(variable, vars);
+    return value == null ? null : value.type;
+  }
+
+  private static NavigableSet<String> allVariables(PersistentIntMap<Variable> vars) {
+    ImmutableSortedSet.Builder<String> names = ImmutableSortedSet.naturalOrder();
+    vars.forEachValue(v -> names.add(v.name));
+    return names.build();
+  }
+
+  /** Unsorted set view of the variable names in a map. */
+  private static final class VariableNames extends AbstractSet<String> {
+
+    private final PersistentIntMap<Variable> vars;
+
+    private VariableNames(PersistentIntMap<Variable> pVars) {
+      vars = pVars;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return Iterators.transform(vars.valueIterator(), v -> v.name);
+    }
+
+    @Override
+    public int size() {
+      return vars.size();
+    }
+
+    @Override
+    public boolean contains(Object pObj) {
+      return pObj instanceof String && getVariable((String) pObj, vars) != null;
+    }
   }
 
   /**
@@ -315,22 +448,30 @@ public class SSAMap implements Serializable {
   }
 
   public boolean containsVariable(String variable) {
-    return vars.containsKey(variable);
+    return getVariable(variable, vars) != null;
   }
 
   public CType getType(String name) {
-    return varTypes.get(name);
+    return getType(name, vars);
   }
 
   public NavigableSet<String> allVariables() {
-    return vars.keySet();
+    NavigableSet<String> result = allVariables;
+    if (result == null) {
+      result = allVariables(vars);
+      allVariables = result;
+    }
+    return result;
   }
 
   private static final Joiner joiner = Joiner.on(" ");
 
   @Override
   public String toString() {
-    return joiner.join(vars.entrySet());
+    List<Variable> sorted = new ArrayList<>(vars.size());
+    vars.forEachValue(sorted::add);
+    sorted.sort(Ordering.natural().onResultOf(v -> v.name));
+    return joiner.join(sorted);
   }
 
   @Override
@@ -352,4 +493,55 @@ public class SSAMap implements Serializable {
           && freshValueProvider.equals(other.freshValueProvider);
     }
   }
+
+  private Object writeReplace() {
+    return new SerializationProxy(this);
+  }
+
+  /**
+   * javadoc to remove unused parameter warning
+   * @param in the input stream
+   */
+  @SuppressWarnings("unused")
+  private void readObject(ObjectInputStream in) throws IOException {
+    throw new InvalidObjectException("Proxy required");
+  }
+
+  /** Variable ids are specific to a JVM, so we serialize names instead. */
+  private static class SerializationProxy implements Serializable {
+    private static final long serialVersionUID = 5376390157937839451L;
+
+    private final ImmutableSortedMap<String, Integer> indices;
+    private final ImmutableSortedMap<String, CType> types;
+    private final FreshValueProvider freshValueProvider;
+    private final int defaultValue;
+
+    private SerializationProxy(SSAMap pSsa) {
+      ImmutableSortedMap.Builder<String, Integer> indicesBuilder =
+          ImmutableSortedMap.naturalOrder();
+      ImmutableSortedMap.Builder<String, CType> typesBuilder = ImmutableSortedMap.naturalOrder();
+      pSsa.vars.forEachValue(
+          v -> {
+            indicesBuilder.put(v.name, v.index);
+            typesBuilder.put(v.name, v.type);
+          });
+      indices = indicesBuilder.build();
+      types = typesBuilder.build();
+      freshValueProvider = pSsa.freshValueProvider;
+      defaultValue = pSsa.defaultValue;
+    }
+
+    private Object readResolve() {
+      PersistentIntMap<Variable> vars = PersistentIntMap.of();
+      int varsHashCode = 0;
+      for (Map.Entry<String, Integer> entry : indices.entrySet()) {
+        String name = entry.getKey();
+        int index = entry.getValue();
+        VariableId id = VariableInterner.getId(name);
+        vars = vars.putAndCopy(id.getId(), new Variable(id, index, types.get(name)));
+        varsHashCode += mapEntryHashCode(name, index);
+      }
+      return new SSAMap(vars, freshValueProvider, varsHashCode, defaultValue);
+    }
+  }
 }
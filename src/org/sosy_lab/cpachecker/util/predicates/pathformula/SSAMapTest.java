@@ -0,0 +1,133 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.common.collect.MapsDifference.collectMapsDifferenceTo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+
+public class SSAMapTest {
+
+  private static SSAMap ssa(Object... nameIndexPairs) {
+    SSAMap.SSAMapBuilder builder = SSAMap.emptySSAMap().builder();
+    for (int i = 0; i < nameIndexPairs.length; i += 2) {
+      builder.setIndex(
+          (String) nameIndexPairs[i], CNumericTypes.INT, (Integer) nameIndexPairs[i + 1]);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void equalityIsIndependentOfInsertionOrder() {
+    SSAMap s1 = ssa("x", 1, "y", 2, "z", 3);
+    SSAMap s2 = ssa("z", 3, "y", 1, "x", 1, "y", 2);
+
+    assertThat(s1).isEqualTo(s2);
+    assertThat(s1.hashCode()).isEqualTo(s2.hashCode());
+    assertThat(s1.toString()).isEqualTo("x=1 y=2 z=3");
+    assertThat(s1.allVariables()).containsExactly("x", "y", "z").inOrder();
+    assertThat(ssa("x", 1, "y", 3)).isNotEqualTo(ssa("x", 1, "y", 2));
+  }
+
+  @Test
+  public void deleteVariable() {
+    SSAMap s = ssa("x", 1, "y", 2).builder().deleteVariable("x").build();
+
+    assertThat(s).isEqualTo(ssa("y", 2));
+    assertThat(s.hashCode()).isEqualTo(ssa("y", 2).hashCode());
+    assertThat(s.containsVariable("x")).isFalse();
+    assertThat(s.getIndex("x")).isEqualTo(-1);
+    assertThat(s.getType("x")).isNull();
+  }
+
+  @Test
+  public void builderVariablesAreSnapshotView() {
+    SSAMap.SSAMapBuilder builder = ssa("x", 1, "y", 2).builder();
+    Set<String> variables = builder.allVariables();
+    builder.setIndex("z", CNumericTypes.INT, 1);
+    builder.deleteVariable("x");
+
+    assertThat(variables).containsExactly("x", "y");
+    assertThat(variables.contains("z")).isFalse();
+    assertThat(builder.allVariables()).containsExactly("y", "z");
+  }
+
+  @Test
+  public void mergeUsesMaximumAndReportsSortedDifferences() {
+    SSAMap s1 = ssa("d", 1, "common", 4, "b", 5, "a", 1);
+    SSAMap s2 = ssa("c", 2, "common", 4, "b", 3, "a", 2);
+
+    List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+    SSAMap merged = SSAMap.merge(s1, s2, collectMapsDifferenceTo(differences));
+
+    assertThat(merged).isEqualTo(ssa("a", 2, "b", 5, "c", 2, "common", 4, "d", 1));
+    assertThat(merged.hashCode())
+        .isEqualTo(ssa("a", 2, "b", 5, "c", 2, "common", 4, "d", 1).hashCode());
+    assertThat(differences)
+        .containsExactly(
+            MapsDifference.Entry.forDifferingValues("a", 1, 2),
+            MapsDifference.Entry.forDifferingValues("b", 5, 3),
+            MapsDifference.Entry.forRightValueOnly("c", 2),
+            MapsDifference.Entry.forLeftValueOnly("d", 1))
+        .inOrder();
+  }
+
+  @Test
+  public void mergeWithItselfIsIdentity() {
+    SSAMap s = ssa("x", 1, "y", 2);
+    List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+
+    assertThat(SSAMap.merge(s, s, collectMapsDifferenceTo(differences))).isSameAs(s);
+    assertThat(differences).isEmpty();
+  }
+
+  @Test
+  public void serialization() throws IOException, ClassNotFoundException {
+    SSAMap s = ssa("x", 1, "y", 2);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(s);
+    }
+    Object result;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      result = in.readObject();
+    }
+
+    assertThat(result).isEqualTo(s);
+    assertThat(((SSAMap) result).getType("y")).isEqualTo(s.getType("y"));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Table that maps the names of variables in path formulas to dense int ids, such that {@link
+ * SSAMap} can store its data in int-keyed maps instead of comparing strings.
+ *
+ * <p>The ids are global for the JVM (such that SSAMaps from different analyses can still be
+ * merged and compared). They must not be persisted, because they depend on the order in which
+ * variables are encountered. The table holds its entries only weakly: an id stays assigned to a
+ * variable as long as its {@link VariableId} instance is reachable, so users need to keep a
+ * reference to the {@link VariableId} for as long as they use the id (e.g., as key in a map).
+ * Afterwards, the entry is removed and the id is reused for another variable. This class is
+ * thread-safe.
+ */
+final class VariableInterner {
+
+  /** The id of a variable, together with the name of the variable. */
+  static final class VariableId {
+    private final int id;
+    private final String name;
+
+    private VariableId(int pId, String pName) {
+      id = pId;
+      name = pName;
+    }
+
+    int getId() {
+      return id;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name + "#" + id;
+    }
+  }
+
+  private static final class IdReference extends WeakReference<VariableId> {
+    private final int id;
+    private final String name;
+
+    private IdReference(VariableId pReferent, ReferenceQueue<VariableId> pQueue) {
+      super(pReferent, pQueue);
+      id = pReferent.id;
+      name = pReferent.name;
+    }
+  }
+
+  private static final ConcurrentMap<String, IdReference> ids = new ConcurrentHashMap<>();
+  private static final ReferenceQueue<VariableId> unusedIds = new ReferenceQueue<>();
+  private static final Queue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger nextId = new AtomicInteger();
+
+  private VariableInterner() {}
+
+  /** Return the id of a variable, assigning a new one if the variable is not yet known. */
+  static VariableId getId(String variable) {
+    VariableId id = getIdIfPresent(variable);
+    if (id != null) {
+      return id;
+    }
+    removeUnusedIds();
+    VariableId[] result = new VariableId[1];
+    ids.compute(
+        variable,
+        (name, old) -> {
+          result[0] = old == null ? null : old.get();
+          if (result[0] != null) {
+            return old; // concurrently added by another thread
+          }
+          result[0] = new VariableId(newId(), name);
+          return new IdReference(result[0], unusedIds);
+        });
+    return result[0];
+  }
+
+  /** Return the id of a variable, or null if the variable is not in use. */
+  static @Nullable VariableId getIdIfPresent(String variable) {
+    IdReference ref = ids.get(variable);
+    return ref == null ? null : ref.get();
+  }
+
+  private static int newId() {
+    Integer id = freeIds.poll();
+    return id == null ? nextId.getAndIncrement() : id;
+  }
+
+  /**
+   * Remove the entries of all ids that are not referenced anymore and make them available for
+   * reuse. This is safe because no map can contain an id without referencing its {@link
+   * VariableId}.
+   */
+  private static void removeUnusedIds() {
+    IdReference ref;
+    while ((ref = (IdReference) unusedIds.poll()) != null) {
+      ids.remove(ref.name, ref);
+      freeIds.add(ref.id);
+    }
+  }
+}
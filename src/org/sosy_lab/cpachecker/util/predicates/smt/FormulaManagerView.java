@@ -27,6 +27,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
@@ -39,6 +41,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -945,6 +948,9 @@ public class FormulaManagerView {
   private static final char INDEX_SEPARATOR = '@';
   private static final Splitter INDEX_SPLITTER = Splitter.on(INDEX_SEPARATOR);
 
+  private static final Splitter DUMP_LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+  private static final Joiner DUMP_LINE_JOINER = Joiner.on('\n');
+
   static String makeName(String name, int idx) {
     checkArgument(
         name.indexOf(INDEX_SEPARATOR) == -1,
@@ -1362,6 +1368,41 @@ public class FormulaManagerView {
     return manager.dumpFormula(pT);
   }
 
+  /**
+   * Dump a formula into a normalized SMT-LIB2 string that does not depend on the order of
+   * declarations and on whitespace. This is useful for comparing or hashing formulas across
+   * different solver instances.
+   */
+  public String dumpNormalizedFormula(BooleanFormula pT) {
+    return normalizeDump(dumpFormula(pT).toString());
+  }
+
+  /**
+   * Normalize the SMT-LIB2 representation of a formula as done by {@link
+   * #dumpNormalizedFormula(BooleanFormula)}.
+   */
+  public static String normalizeDump(String pSmtlib) {
+    List<String> declarations = new ArrayList<>();
+    List<String> assertions = new ArrayList<>();
+    for (String line : DUMP_LINE_SPLITTER.split(pSmtlib)) {
+      line = CharMatcher.whitespace().trimAndCollapseFrom(line, ' ');
+      if (line.isEmpty()) {
+        continue;
+      }
+      if (line.startsWith("(assert")) {
+        assertions.add(line);
+      } else if (!assertions.isEmpty()) {
+        // continuation of a multi-line assertion
+        int last = assertions.size() - 1;
+        assertions.set(last, assertions.get(last) + " " + line);
+      } else {
+        declarations.add(line);
+      }
+    }
+    Collections.sort(declarations);
+    return DUMP_LINE_JOINER.join(declarations) + "\n" + DUMP_LINE_JOINER.join(assertions);
+  }
+
   public boolean isPurelyConjunctive(BooleanFormula t) {
     final BooleanFormulaVisitor<Boolean> isAtomicVisitor =
         new DefaultBooleanFormulaVisitor<Boolean>() {
@@ -0,0 +1,106 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Cache for results of satisfiability checks that is shared between all {@link Solver} instances
+ * of this JVM, e.g., between the analyses of a parallel portfolio or between the threads of
+ * parallel BAM, which all have their own solver contexts.
+ *
+ * <p>Formulas of different solver contexts cannot be compared directly, so the key of an entry
+ * is a hash over the normalized SMT-LIB2 representation of the formula (cf. {@link
+ * FormulaManagerView#dumpNormalizedFormula(BooleanFormula)}). Only the result of the check is
+ * stored, so no formulas need to be translated between solver contexts.
+ *
+ * <p>Results depend on the solver and its options (e.g., {@code solver.checkUFs}), so there is
+ * one instance for each distinct set of solver options (including the size of the cache).
+ * Instances of this class are thread-safe.
+ */
+final class SharedSatisfiabilityCache {
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+
+  // guarded by SharedSatisfiabilityCache.class
+  private static final Map<String, SharedSatisfiabilityCache> instances = new HashMap<>();
+
+  private final Cache<HashCode, Boolean> results;
+
+  private SharedSatisfiabilityCache(long pMaximumSize) {
+    results = CacheBuilder.newBuilder().maximumSize(pMaximumSize).build();
+  }
+
+  /**
+   * Get the cache instance of this JVM for the solver options in the given configuration,
+   * creating it if necessary.
+   */
+  static synchronized SharedSatisfiabilityCache getInstance(
+      Configuration pConfig, long pMaximumSize) {
+    return instances.computeIfAbsent(
+        getSolverOptions(pConfig), k -> new SharedSatisfiabilityCache(pMaximumSize));
+  }
+
+  /** Extract all options of the solver (also with the deprecated prefix) from a configuration. */
+  private static String getSolverOptions(Configuration pConfig) {
+    StringBuilder result = new StringBuilder();
+    for (String line : LINE_SPLITTER.split(pConfig.asPropertiesString())) {
+      if (line.startsWith("solver.") || line.startsWith("cpa.predicate.solver.")) {
+        result.append(line).append('\n');
+      }
+    }
+    return result.toString();
+  }
+
+  HashCode computeKey(FormulaManagerView pFmgr, BooleanFormula pFormula) {
+    return Hashing.murmur3_128()
+        .newHasher()
+        .putString(pFmgr.dumpNormalizedFormula(pFormula), UTF_8)
+        .hash();
+  }
+
+  /**
+   * Look up whether the formula with the given key is unsatisfiable.
+   *
+   * @return The result of the satisfiability check (true for UNSAT), or null if there is none.
+   */
+  @Nullable Boolean isUnsat(HashCode pKey) {
+    return results.getIfPresent(pKey);
+  }
+
+  void put(HashCode pKey, boolean pIsUnsat) {
+    results.put(pKey, pIsUnsat);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+public class SharedSatisfiabilityCacheTest extends SolverViewBasedTest0 {
+
+  /** A solver with its own context, as used for example by another thread. */
+  private Solver otherSolver;
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.satCache.shared", "true");
+  }
+
+  @Before
+  public void createOtherSolver() throws InvalidConfigurationException {
+    otherSolver = new Solver(factory, solverToUse(), factory.generateContext(), config, logger);
+  }
+
+  @After
+  public void closeOtherSolver() {
+    otherSolver.close();
+  }
+
+  /** Create x > c && x < c with a variable name unique to each test. */
+  private static BooleanFormula makeUnsatFormula(Solver pSolver, String pVariable) {
+    IntegerFormulaManagerView ifmgr = pSolver.getFormulaManager().getIntegerFormulaManager();
+    IntegerFormula x = ifmgr.makeVariable(pVariable);
+    IntegerFormula c = ifmgr.makeNumber(42);
+    return pSolver
+        .getFormulaManager()
+        .getBooleanFormulaManager()
+        .and(ifmgr.greaterThan(x, c), ifmgr.lessThan(x, c));
+  }
+
+  @Test
+  public void resultIsSharedBetweenContexts() throws SolverException, InterruptedException {
+    assertThat(solver.isUnsat(makeUnsatFormula(solver, "shared_x"))).isTrue();
+    assertThat(solver.sharedCachedSatChecks).isEqualTo(0);
+
+    assertThat(otherSolver.isUnsat(makeUnsatFormula(otherSolver, "shared_x"))).isTrue();
+    assertThat(otherSolver.sharedCachedSatChecks).isEqualTo(1);
+    assertThat(otherSolver.solverTime.getNumberOfIntervals()).isEqualTo(0);
+
+    // the second check in the same solver is answered by the local cache
+    assertThat(otherSolver.isUnsat(makeUnsatFormula(otherSolver, "shared_x"))).isTrue();
+    assertThat(otherSolver.sharedCachedSatChecks).isEqualTo(1);
+    assertThat(otherSolver.cachedSatChecks).isEqualTo(1);
+  }
+
+  @Test
+  public void differentFormulasAreNotShared() throws SolverException, InterruptedException {
+    assertThat(solver.isUnsat(makeUnsatFormula(solver, "shared_y"))).isTrue();
+
+    IntegerFormulaManagerView ifmgr = otherSolver.getFormulaManager().getIntegerFormulaManager();
+    BooleanFormula sat = ifmgr.greaterThan(ifmgr.makeVariable("shared_y"), ifmgr.makeNumber(42));
+    assertThat(otherSolver.isUnsat(sat)).isFalse();
+    assertThat(otherSolver.sharedCachedSatChecks).isEqualTo(0);
+  }
+
+  @Test
+  public void resultIsNotSharedWithOtherSolverOptions()
+      throws SolverException, InterruptedException, InvalidConfigurationException {
+    Solver solverWithOtherOptions =
+        new Solver(
+            factory,
+            solverToUse(),
+            factory.generateContext(),
+            createTestConfigBuilder().setOption("solver.checkUFs", "true").build(),
+            logger);
+    try {
+      assertThat(solver.isUnsat(makeUnsatFormula(solver, "shared_u"))).isTrue();
+      assertThat(
+              solverWithOtherOptions.isUnsat(makeUnsatFormula(solverWithOtherOptions, "shared_u")))
+          .isTrue();
+      assertThat(solverWithOtherOptions.sharedCachedSatChecks).isEqualTo(0);
+    } finally {
+      solverWithOtherOptions.close();
+    }
+  }
+
+  @Test
+  public void groupedResultIsShared() throws SolverException, InterruptedException {
+    IntegerFormulaManagerView ifmgr = solver.getFormulaManager().getIntegerFormulaManager();
+    IntegerFormula x = ifmgr.makeVariable("shared_z");
+    ImmutableSet<BooleanFormula> constraints =
+        ImmutableSet.of(ifmgr.greaterThan(x, ifmgr.makeNumber(1)));
+    assertThat(solver.isUnsat(constraints, "key")).isFalse();
+
+    IntegerFormulaManagerView otherIfmgr =
+        otherSolver.getFormulaManager().getIntegerFormulaManager();
+    IntegerFormula otherX = otherIfmgr.makeVariable("shared_z");
+    ImmutableSet<BooleanFormula> otherConstraints =
+        ImmutableSet.of(otherIfmgr.greaterThan(otherX, otherIfmgr.makeNumber(1)));
+    assertThat(otherSolver.isUnsat(otherConstraints, "key")).isFalse();
+    assertThat(otherSolver.sharedCachedSatChecks).isEqualTo(1);
+  }
+}
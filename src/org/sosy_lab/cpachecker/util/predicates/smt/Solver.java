@@ -31,6 +31,7 @@ import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.util.HashMap;
 import java.util.List;
@@ -40,6 +41,7 @@ import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -96,6 +98,27 @@ public final class Solver implements AutoCloseable {
   description="Extract and cache unsat cores for satisfiability checking")
   private boolean cacheUnsatCores = true;
 
+  @Option(
+    secure = true,
+    name = "satCache.shared",
+    description =
+        "Share the results of satisfiability checks between all solver instances,"
+            + " e.g., of the analyses of a parallel portfolio or of parallel BAM."
+            + " Results are identified by a hash of the SMT-LIB2 representation of the formula,"
+            + " which needs to be created for every formula that is not found in the local cache."
+            + " Only solver instances with the same solver options share their results."
+  )
+  private boolean useSharedSatCache = false;
+
+  @Option(
+    secure = true,
+    name = "satCache.sharedMaximumSize",
+    description =
+        "Maximum number of entries in the shared cache for results of satisfiability checks."
+  )
+  @IntegerOption(min = 1)
+  private long sharedSatCacheMaximumSize = 100000;
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
   private final FormulaManagerView fmgr;
@@ -106,6 +129,9 @@ public final class Solver implements AutoCloseable {
 
   private final Map<BooleanFormula, Boolean> unsatCache = Maps.newHashMap();
 
+  /** Cache shared with other solver instances, only used if {@link #useSharedSatCache} is set. */
+  private final @Nullable SharedSatisfiabilityCache sharedSatCache;
+
   /**
    * More complex unsat cache, grouped by an arbitrary key.
    *
@@ -126,6 +152,7 @@ public final class Solver implements AutoCloseable {
   public int satChecks = 0;
   public int trivialSatChecks = 0;
   public int cachedSatChecks = 0;
+  public int sharedCachedSatChecks = 0;
 
   private Solver(SolverContextFactory pSolverFactory, Configuration config, LogManager pLogger)
       throws InvalidConfigurationException {
@@ -159,6 +186,11 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    sharedSatCache =
+        useSharedSatCache
+            ? SharedSatisfiabilityCache.getInstance(config, sharedSatCacheMaximumSize)
+            : null;
   }
 
   /**
@@ -204,6 +236,11 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    sharedSatCache =
+        useSharedSatCache
+            ? SharedSatisfiabilityCache.getInstance(pConfig, sharedSatCacheMaximumSize)
+            : null;
   }
 
   /**
@@ -335,11 +372,25 @@ public final class Solver implements AutoCloseable {
       return result;
     }
 
+    HashCode sharedKey = null;
+    if (sharedSatCache != null) {
+      sharedKey = sharedSatCache.computeKey(fmgr, f);
+      result = sharedSatCache.isUnsat(sharedKey);
+      if (result != null) {
+        sharedCachedSatChecks++;
+        unsatCache.put(f, result);
+        return result;
+      }
+    }
+
     solverTime.start();
     try {
       result = isUnsatUncached(f);
 
       unsatCache.put(f, result);
+      if (sharedKey != null) {
+        sharedSatCache.put(sharedKey, result);
+      }
       return result;
 
     } finally {
@@ -398,6 +449,18 @@ public final class Solver implements AutoCloseable {
       stored = new HashMap<>(stored);
     }
 
+    HashCode sharedKey = null;
+    if (sharedSatCache != null) {
+      sharedKey = sharedSatCache.computeKey(fmgr, bfmgr.and(lemmas));
+      Boolean sharedResult = sharedSatCache.isUnsat(sharedKey);
+      if (sharedResult != null) {
+        sharedCachedSatChecks++;
+        stored.put(ImmutableSet.copyOf(lemmas), sharedResult);
+        groupedUnsatCache.put(cacheKey, ImmutableMap.copyOf(stored));
+        return sharedResult;
+      }
+    }
+
     ProverOptions opts[];
     if (cacheUnsatCores) {
       opts = new ProverOptions[]{GENERATE_UNSAT_CORE};
@@ -410,7 +473,11 @@ public final class Solver implements AutoCloseable {
       for (BooleanFormula lemma : lemmas) {
         pe.addConstraint(lemma);
       }
-      if (pe.isUnsat()) {
+      boolean isUnsat = pe.isUnsat();
+      if (sharedKey != null) {
+        sharedSatCache.put(sharedKey, isUnsat);
+      }
+      if (isUnsat) {
         if (cacheUnsatCores) {
           stored.put(ImmutableSet.copyOf(pe.getUnsatCore()), true);
         } else {
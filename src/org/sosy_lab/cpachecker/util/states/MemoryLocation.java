@@ -28,25 +28,64 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Ordering;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
 
 /**
 * This class describes a location in the memory.
+*
+* <p>Instances created by the factory methods are interned, such that all states of an analysis
+* share the same instance for each memory location, and equal memory locations are usually
+* identical.
 */
 public class MemoryLocation implements Comparable<MemoryLocation>, Serializable {
 
   private static final long serialVersionUID = -8910967707373729034L;
+
+  private static final Interner<MemoryLocation> INTERNER = Interners.newWeakInterner();
+
+  /** Weak reference to an interned memory location that has an id, cf. {@link #getId()}. */
+  private static final class IdReference extends WeakReference<MemoryLocation> {
+    private final int id;
+
+    private IdReference(MemoryLocation pReferent, ReferenceQueue<MemoryLocation> pQueue) {
+      super(pReferent, pQueue);
+      id = pReferent.id;
+    }
+  }
+
+  /** References to all memory locations with an id, such that we get notified when they die. */
+  private static final Set<IdReference> idReferences = ConcurrentHashMap.newKeySet();
+
+  private static final ReferenceQueue<MemoryLocation> unusedIds = new ReferenceQueue<>();
+  private static final Queue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger nextId = new AtomicInteger(1);
+
   private final String functionName;
   private final String identifier;
   private final @Nullable Long offset;
+  private final int hashCode;
+
+  // the id of this instance if it is interned, 0 if not yet assigned (never changes afterwards)
+  private transient int id = 0;
+
+  // the interned instance that holds the id if this instance is not interned
+  private transient @Nullable MemoryLocation idHolder = null;
 
   private MemoryLocation(String pFunctionName, String pIdentifier, @Nullable Long pOffset) {
     checkNotNull(pFunctionName);
@@ -55,6 +94,16 @@ public class MemoryLocation implements Comparable<MemoryLocation>, Serializable
     functionName = pFunctionName;
     identifier = pIdentifier;
     offset = pOffset;
+    hashCode = Objects.hash(functionName, identifier, offset);
+  }
+
+  /** Create a plain memory location with the given fields, e.g., for an instance of a subclass. */
+  private MemoryLocation(
+      @Nullable String pFunctionName, String pIdentifier, @Nullable Long pOffset, int pHashCode) {
+    functionName = pFunctionName;
+    identifier = pIdentifier;
+    offset = pOffset;
+    hashCode = pHashCode;
   }
 
   protected MemoryLocation(String pIdentifier, @Nullable Long pOffset) {
@@ -69,6 +118,16 @@ public class MemoryLocation implements Comparable<MemoryLocation>, Serializable
       identifier = pIdentifier;
     }
     offset = pOffset;
+    hashCode = Objects.hash(functionName, identifier, offset);
+  }
+
+  private static MemoryLocation intern(MemoryLocation pMemoryLocation) {
+    return INTERNER.intern(pMemoryLocation);
+  }
+
+  /** Keep deserialized instances interned. */
+  protected Object readResolve() {
+    return getClass() == MemoryLocation.class ? intern(this) : this;
   }
 
   @Override
@@ -84,30 +143,32 @@ public class MemoryLocation implements Comparable<MemoryLocation>, Serializable
 
     MemoryLocation otherLocation = (MemoryLocation) other;
 
-    return Objects.equals(functionName, otherLocation.functionName)
+    return hashCode == otherLocation.hashCode
+        && Objects.equals(functionName, otherLocation.functionName)
         && Objects.equals(identifier, otherLocation.identifier)
         && Objects.equals(offset, otherLocation.offset);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(functionName, identifier, offset);
+    return hashCode;
   }
 
   public static MemoryLocation valueOf(String pFunctionName, String pIdentifier) {
-    return new MemoryLocation(pFunctionName, pIdentifier, null);
+    return intern(new MemoryLocation(pFunctionName, pIdentifier, null));
   }
 
   public static MemoryLocation valueOf(String pFunctionName, String pIdentifier, long pOffset) {
-    return new MemoryLocation(pFunctionName, pIdentifier, pOffset);
+    return intern(new MemoryLocation(pFunctionName, pIdentifier, pOffset));
   }
 
   public static MemoryLocation valueOf(String pIdentifier, long pOffset) {
-    return new MemoryLocation(pIdentifier, pOffset);
+    return intern(new MemoryLocation(pIdentifier, pOffset));
   }
 
   public static MemoryLocation valueOf(String pIdentifier, OptionalLong pOffset) {
-    return new MemoryLocation(pIdentifier, pOffset.isPresent() ? pOffset.getAsLong() : null);
+    return intern(
+        new MemoryLocation(pIdentifier, pOffset.isPresent() ? pOffset.getAsLong() : null));
   }
 
   public static MemoryLocation valueOf(String pVariableName) {
@@ -126,14 +187,66 @@ public class MemoryLocation implements Comparable<MemoryLocation>, Serializable
       if (hasOffset) {
         varName = varName.replace("/" + offset, "");
       }
-      return new MemoryLocation(functionName, varName, offset);
+      return intern(new MemoryLocation(functionName, varName, offset));
 
     } else {
       String varName = nameParts.get(0);
       if (hasOffset) {
         varName = varName.replace("/" + offset, "");
       }
-      return new MemoryLocation(varName.replace("/" + offset, ""), offset);
+      return intern(new MemoryLocation(varName.replace("/" + offset, ""), offset));
+    }
+  }
+
+  /**
+   * Return a positive number that identifies this memory location, i.e., equal memory locations
+   * have the same id and different memory locations have different ids. This allows compact
+   * representations of maps with memory locations as keys (e.g., in the value analysis).
+   *
+   * <p>The id is stored in the interned instance of this memory location and stays assigned as
+   * long as this instance or any equal instance whose id was requested is reachable, so users need
+   * to keep a reference to the memory location for as long as they use the id (e.g., as key in a
+   * map). Afterwards, the id is reused for another memory location. Ids are specific to a JVM and
+   * must not be persisted.
+   */
+  public int getId() {
+    int result = id;
+    if (result != 0) {
+      return result;
+    }
+    MemoryLocation interned = idHolder;
+    if (interned == null) {
+      interned =
+          getClass() == MemoryLocation.class
+              ? intern(this)
+              : intern(new MemoryLocation(functionName, identifier, offset, hashCode));
+      if (interned != this) {
+        // keep the interned instance and thus its id alive as long as this instance is used
+        idHolder = interned;
+      }
+    }
+    return interned == this ? assignId() : interned.getId();
+  }
+
+  private synchronized int assignId() {
+    if (id == 0) {
+      removeUnusedIds();
+      Integer freeId = freeIds.poll();
+      id = freeId == null ? nextId.getAndIncrement() : freeId;
+      idReferences.add(new IdReference(this, unusedIds));
+    }
+    return id;
+  }
+
+  /**
+   * Make the ids of all memory locations that are not referenced anymore available for reuse.
+   * This is safe because no map can contain an id without referencing its memory location.
+   */
+  private static void removeUnusedIds() {
+    IdReference ref;
+    while ((ref = (IdReference) unusedIds.poll()) != null) {
+      idReferences.remove(ref);
+      freeIds.add(ref.id);
     }
   }
 
@@ -199,6 +312,9 @@ public class MemoryLocation implements Comparable<MemoryLocation>, Serializable
 
   @Override
   public int compareTo(MemoryLocation other) {
+    if (this == other) {
+      return 0;
+    }
     return ComparisonChain.start()
         .compare(functionName, other.functionName, Ordering.natural().nullsFirst())
         .compare(identifier, other.identifier)